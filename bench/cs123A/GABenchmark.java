@@ -0,0 +1,378 @@
+package cs123A;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmark harness for the genetic algorithm hot paths.  It has no dependencies
+ * beyond the JDK so it can be compiled together with the main sources:
+ * 
+ *     javac -d out src/cs123A/*.java bench/cs123A/*.java
+ *     java -cp out cs123A.GABenchmark -SS 100,1000 -TDS 200,682
+ * 
+ * Each benchmark is run for a number of warmup iterations followed by a number of
+ * measured iterations.  The mean and standard deviation of the time per operation over
+ * the measured iterations are reported.  Patients are generated synthetically from a
+ * fixed seed so the results do not depend on the data set file.
+ * 
+ * -SS  - Comma separated list of population sizes.
+ * -TDS - Comma separated list of training data set sizes.
+ * -WI  - Number of warmup iterations.
+ * -MI  - Number of measured iterations.
+ * -IT  - Minimum duration of each iteration in milliseconds.
+ */
+public class GABenchmark {
+	
+	private static int[] populationSizes = {100, 1000};
+	private static int[] trainingDataSetSizes = {200, 682};
+	private static int warmupIterations = 5;
+	private static int measuredIterations = 10;
+	private static long iterationTimeMillis = 200;
+	
+	private static final long DATA_SET_SEED = 8675309L;
+	
+	//---- Results are accumulated here so the JIT cannot eliminate the benchmarked code.
+	private static volatile long blackhole;
+	
+	
+	/**
+	 * A single benchmarked operation.
+	 */
+	private static abstract class Benchmark {
+		
+		private final String name;
+		
+		Benchmark(String name){
+			this.name = name;
+		}
+		
+		/**
+		 * Runs the benchmarked operation repeatedly.
+		 * 
+		 * @param numberOfOperations Number of times to run the operation.
+		 * @return Value derived from the operation results to prevent dead code elimination.
+		 */
+		abstract long runOperations(int numberOfOperations);
+	}
+	
+	
+	public static void main(String[] args) {
+		
+		//---- Parse the input arguments and ensure they are valid.
+		if(!parseInputArguments(args))
+			return;
+		
+		System.out.println(String.format("%-48s %8s %8s %16s %12s", "Benchmark", "SS", "TDS", "ns/op", "stddev"));
+		for(int trainingDataSetSize : trainingDataSetSizes){
+			for(int populationSize : populationSizes){
+				for(Benchmark benchmark : buildBenchmarks(populationSize, trainingDataSetSize))
+					runBenchmark(benchmark, populationSize, trainingDataSetSize);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Builds the set of benchmarks for one population and training set size.
+	 * 
+	 * @param populationSize Number of chromosomes in the population.
+	 * @param trainingDataSetSize Number of patients in the training data set.
+	 * @return List of benchmarks.
+	 */
+	private static List<Benchmark> buildBenchmarks(final int populationSize, int trainingDataSetSize){
+		
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		
+		final BreastCancerDataSet trainingDataSet = buildSyntheticDataSet(trainingDataSetSize);
+		final Patient[] patients = buildSyntheticPatients(trainingDataSetSize);
+		GAChromosomePopulation.setMaximumPopulationSize(populationSize);
+		
+		//---- Build scored chromosomes and a population holding them in their original order.
+		final GAChromosome[] chromosomes = new GAChromosome[populationSize];
+		final GAChromosomePopulation scoredPopulation = new GAChromosomePopulation();
+		double[] scoreAndSeparation;
+		for(int i = 0; i < populationSize; i++){
+			chromosomes[i] = GAChromosome.createRandomChromosome();
+			scoreAndSeparation = trainingDataSet.getChromosomeScoreAndSeparationForPopulation(chromosomes[i], 1);
+			chromosomes[i].setScore((int)Math.round(scoreAndSeparation[0]));
+			chromosomes[i].setTotalSeparation(scoreAndSeparation[1]);
+			scoredPopulation.addChromosome(chromosomes[i]);
+		}
+		
+		final int[] gainVector = chromosomes[0].getGainVector();
+		final int offset = chromosomes[0].getOffset();
+		
+		benchmarks.add(new Benchmark("Patient.calculateLinearFunction"){
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++)
+					sum += patients[i % patients.length].calculateLinearFunction(gainVector, offset);
+				return sum;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("BreastCancerDataSet.getChromosomeScoreAndSep"){
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++)
+					sum += (long)trainingDataSet.getChromosomeScoreAndSeparationForPopulation(chromosomes[i % populationSize], 1)[0];
+				return sum;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("PatientFeatureColumns.scoreChromosomes"){
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				PatientFeatureColumns patientColumns = trainingDataSet.getPatientColumns();
+				//---- One operation is one chromosome so the result is comparable to the per chromosome scoring.
+				for(int i = 0; i < numberOfOperations; i += populationSize){
+					int batchSize = Math.min(populationSize, numberOfOperations - i);
+					patientColumns.scoreChromosomes(chromosomes, 0, batchSize, 1);
+					sum += chromosomes[0].getScore();
+				}
+				return sum;
+			}
+		});
+		benchmarks.add(new Benchmark("GAChromosome.crossover"){
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++)
+					sum += chromosomes[i % populationSize].crossover(chromosomes[(i + 1) % populationSize], 3).getOffset();
+				return sum;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("GAChromosomePool.crossover"){
+			private final GAChromosomePool pool = new GAChromosomePool(GARandom.create(DATA_SET_SEED));
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				GAChromosome child;
+				for(int i = 0; i < numberOfOperations; i++){
+					child = pool.crossover(chromosomes[i % populationSize], chromosomes[(i + 1) % populationSize], 3);
+					sum += child.getOffset();
+					pool.release(child);
+				}
+				return sum;
+			}
+		});
+		
+		//---- Mutates private copies so the shared chromosomes keep their genomes and scores.
+		benchmarks.add(new Benchmark("GAChromosome.mutate"){
+			private final GAChromosome[] mutatedChromosomes = new GAChromosome[populationSize];
+			{
+				for(int j = 0; j < populationSize; j++){
+					mutatedChromosomes[j] = GAChromosome.createEmptyChromosome();
+					mutatedChromosomes[j].copyFrom(chromosomes[j]);
+				}
+			}
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++){
+					mutatedChromosomes[i % populationSize].mutate();
+					sum += mutatedChromosomes[i % populationSize].getOffset();
+				}
+				return sum;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("GAChromosomePopulation.performTournamentSel"){
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++)
+					sum += scoredPopulation.performTournamentSelection(20).getScore();
+				return sum;
+			}
+		});
+		
+		//---- The population caches its selection so only the cache is cleared for every operation.
+		benchmarks.add(new Benchmark("GAChromosomePopulation.getBestChromosomes"){
+			private final GAChromosomePopulation population = new GAChromosomePopulation();
+			{
+				for(int j = 0; j < populationSize; j++)
+					population.addChromosome(chromosomes[j]);
+			}
+			long runOperations(int numberOfOperations){
+				long sum = 0;
+				for(int i = 0; i < numberOfOperations; i++){
+					population.clearBestChromosomes();
+					sum += population.getBestChromosomes(5)[0].getScore();
+				}
+				return sum;
+			}
+		});
+		
+		benchmarks.add(new Benchmark("BreastCancerGeneticAlgorithm.runGeneration"){
+			private final BreastCancerGeneticAlgorithm geneticAlgorithm = new BreastCancerGeneticAlgorithm(trainingDataSet, trainingDataSet);
+			private final GAChromosomePool pool = new GAChromosomePool(GARandom.create(DATA_SET_SEED));
+			private GAChromosomePopulation population;
+			long runOperations(int numberOfOperations){
+				if(population == null){
+					population = new GAChromosomePopulation();
+					population.createRandomPopulation();
+					population.scorePopulationMembers(trainingDataSet);
+				}
+				for(int i = 0; i < numberOfOperations; i++)
+					population = geneticAlgorithm.runGeneration(population, pool, null);
+				return population.getBestChromosomes(1)[0].getScore();
+			}
+		});
+		
+		return benchmarks;
+	}
+	
+	
+	/**
+	 * Runs a benchmark and prints its time per operation.
+	 * 
+	 * @param benchmark Benchmark to run.
+	 * @param populationSize Population size parameter used to build the benchmark.
+	 * @param trainingDataSetSize Training data set size parameter used to build the benchmark.
+	 */
+	private static void runBenchmark(Benchmark benchmark, int populationSize, int trainingDataSetSize){
+		
+		int numberOfOperations = calibrateOperationCount(benchmark);
+		double[] nanosPerOperation = new double[measuredIterations];
+		long startTime;
+		
+		//---- Warm up the JIT.
+		for(int i = 0; i < warmupIterations; i++)
+			blackhole += benchmark.runOperations(numberOfOperations);
+		
+		//---- Measure the iterations.
+		for(int i = 0; i < measuredIterations; i++){
+			startTime = System.nanoTime();
+			blackhole += benchmark.runOperations(numberOfOperations);
+			nanosPerOperation[i] = (System.nanoTime() - startTime) * 1.0 / numberOfOperations;
+		}
+		
+		//---- Calculate the mean and standard deviation.
+		double mean = 0, variance = 0;
+		for(double value : nanosPerOperation)
+			mean += value / nanosPerOperation.length;
+		for(double value : nanosPerOperation)
+			variance += (value - mean) * (value - mean) / nanosPerOperation.length;
+		
+		System.out.println(String.format("%-48s %8d %8d %16.1f %12.1f", benchmark.name, populationSize,
+										 trainingDataSetSize, mean, Math.sqrt(variance)));
+	}
+	
+	
+	/**
+	 * Determines the number of operations that fill one iteration.
+	 * 
+	 * @param benchmark Benchmark to calibrate.
+	 * @return Number of operations per iteration.
+	 */
+	private static int calibrateOperationCount(Benchmark benchmark){
+		
+		int numberOfOperations = 1;
+		long elapsedTime;
+		
+		//---- Keep doubling the operation count until an iteration takes long enough.
+		while(true){
+			long startTime = System.nanoTime();
+			blackhole += benchmark.runOperations(numberOfOperations);
+			elapsedTime = System.nanoTime() - startTime;
+			if(elapsedTime >= iterationTimeMillis * 1000000L || numberOfOperations >= (1 << 30))
+				return numberOfOperations;
+			numberOfOperations *= 2;
+		}
+	}
+	
+	
+	/**
+	 * Builds synthetic patient feature lines in the Wisconsin data set format.
+	 * 
+	 * @param numberOfPatients Number of patients to generate.
+	 * @return List of comma separated patient records.
+	 */
+	private static List<String> buildSyntheticPatientRecords(int numberOfPatients){
+		
+		Random random = new Random(DATA_SET_SEED);
+		List<String> records = new ArrayList<String>();
+		boolean malignant;
+		String record;
+		
+		for(int i = 0; i < numberOfPatients; i++){
+			malignant = random.nextInt(3) == 0;
+			record = Integer.toString(1000000 + i);
+			//---- Malignant tumors tend to have larger feature values.
+			for(int j = 0; j < Patient.numberDataElementsPerPatient(); j++)
+				record += "," + Math.min(10, 1 + random.nextInt(5) + (malignant ? random.nextInt(6) : 0));
+			record += "," + (malignant ? 4 : 2);
+			records.add(record);
+		}
+		return records;
+	}
+	
+	
+	private static BreastCancerDataSet buildSyntheticDataSet(int numberOfPatients){
+		BreastCancerDataSet dataSet = new BreastCancerDataSet();
+		for(String record : buildSyntheticPatientRecords(numberOfPatients))
+			dataSet.addPatient(record);
+		return dataSet;
+	}
+	
+	
+	private static Patient[] buildSyntheticPatients(int numberOfPatients){
+		List<String> records = buildSyntheticPatientRecords(numberOfPatients);
+		Patient[] patients = new Patient[records.size()];
+		for(int i = 0; i < patients.length; i++)
+			patients[i] = new Patient(records.get(i));
+		return patients;
+	}
+	
+	
+	/**
+	 * Parses the benchmark command line flags.
+	 * 
+	 * @param args Command line input arguments.
+	 * @return True of the input arguments were successfully parsed, false otherwise.
+	 */
+	private static boolean parseInputArguments(String[] args){
+		
+		for(int i = 0; i < args.length; i += 2){
+			if(i + 1 == args.length){
+				System.out.println("Error: The number of input arguments is invalid. Exiting...");
+				return false;
+			}
+			try{
+				if(args[i].equals("-SS"))
+					populationSizes = parseIntegerList(args[i + 1]);
+				else if(args[i].equals("-TDS"))
+					trainingDataSetSizes = parseIntegerList(args[i + 1]);
+				else if(args[i].equals("-WI"))
+					warmupIterations = Integer.parseInt(args[i + 1]);
+				else if(args[i].equals("-MI"))
+					measuredIterations = Integer.parseInt(args[i + 1]);
+				else if(args[i].equals("-IT"))
+					iterationTimeMillis = Long.parseLong(args[i + 1]);
+				else{
+					System.out.println("Error: Invalid input flag \"" + args[i] + "\".");
+					return false;
+				}
+			}
+			catch(NumberFormatException e){
+				System.out.println("Error: The value for flag \"" + args[i] + "\" is invalid. Exiting...");
+				return false;
+			}
+		}
+		
+		//---- All arguments successfully parsed so return true.
+		return true;
+	}
+	
+	
+	private static int[] parseIntegerList(String commaSeparatedList){
+		String[] elements = commaSeparatedList.split(",");
+		int[] values = new int[elements.length];
+		for(int i = 0; i < elements.length; i++){
+			values[i] = Integer.parseInt(elements[i].trim());
+			if(values[i] < 1)
+				throw new NumberFormatException();
+		}
+		return values;
+	}
+	
+}
@@ -0,0 +1,355 @@
+package cs123A;
+
+import java.util.Arrays;
+
+/**
+ * Differential check of the mask-based n-point crossover against the original implementation
+ * built on extractIntegerBits, which is kept below as the reference.  It has no dependencies
+ * beyond the JDK so it can be compiled together with the main sources:
+ * 
+ *     javac -d out src/cs123A/*.java bench/cs123A/*.java
+ *     java -cp out cs123A.GACrossoverCheck -TR 100000 -SEED 1
+ * 
+ * Three checks are made:
+ * 
+ * 1. On random genomes whose words are all non-negative, the new operator must match the
+ *    original operator bit for bit.
+ * 2. On arbitrary random genomes, the new operator must match a bit-by-bit reference, i.e.
+ *    every child bit comes from the parent selected by the crossover locations.
+ * 3. On the explicit cases in NEGATIVE_WORD_CASES, the original operator must give the pinned
+ *    |w| mod 2^k value and the new operator the pinned low k bits of w.  This is the intended
+ *    divergence described in GAChromosome.crossoverAt.
+ * 
+ * The program prints one line per check and exits with status 1 if any check fails.
+ * 
+ * -TR   - Number of random parent pairs for each number of crossover points.
+ * -SEED - Seed of the random parent pairs and crossover locations.
+ */
+public class GACrossoverCheck {
+	
+	private static int numberTrials = 100000;
+	private static long randomSeed = 1;
+	
+	private static final int MAXIMUM_CROSSOVER_POINTS = 6;
+	private static final int GENOME_BIT_LENGTH = GAChromosome.GENOME_WORD_COUNT * GAChromosome.WORD_BIT_LENGTH;
+	
+	//---- { implicit word 0, other word 0, crossover location, original child word 0, new child word 0 }
+	//---- All other words are 0 and every crossover location is in word 0.
+	private static final int[][] NEGATIVE_WORD_CASES = {
+		//---- Low 16 bits of -1: the original operator gives |-1| mod 2^16 = 1.
+		{ 0, -1, 16, 0x00000001, 0x0000FFFF },
+		//---- Low 8 bits of 0x80000005: the original operator gives |0x80000005| mod 2^8 = 0xFB.
+		{ 0, 0x80000005, 24, 0x000000FB, 0x00000005 },
+		//---- The high segment of a negative word is taken unsigned so both operators agree.
+		{ -1, 0, 16, 0xFFFF0000, 0xFFFF0000 },
+		//---- |-8| mod 2^4 equals the low 4 bits of -8 so both operators agree.
+		{ 0, -8, 28, 0x00000008, 0x00000008 },
+	};
+	
+	
+	public static void main(String[] args) {
+		
+		//---- Parse the input arguments and ensure they are valid.
+		if(!parseInputArguments(args))
+			return;
+		
+		boolean passed = true;
+		passed &= checkRandomGenomes(true);
+		passed &= checkRandomGenomes(false);
+		passed &= checkNegativeWordCases();
+		
+		if(!passed)
+			System.exit(1);
+	}
+	
+	
+	/**
+	 * Crosses over random parent pairs with 1 to MAXIMUM_CROSSOVER_POINTS points.
+	 * 
+	 * @param nonNegativeWords True to clear the sign bit of every word and compare against the original
+	 * operator.  False to use arbitrary words and compare against the bit-by-bit reference.
+	 * @return True if every child matched.
+	 */
+	private static boolean checkRandomGenomes(boolean nonNegativeWords){
+		
+		GARandom random = GARandom.create(randomSeed);
+		GAChromosome implicitChromosome = GAChromosome.createEmptyChromosome();
+		GAChromosome otherChromosome = GAChromosome.createEmptyChromosome();
+		GAChromosome childChromosome = GAChromosome.createEmptyChromosome();
+		int[] implicitWords = new int[GAChromosome.GENOME_WORD_COUNT];
+		int[] otherWords = new int[GAChromosome.GENOME_WORD_COUNT];
+		int[] crossoverLocations = new int[MAXIMUM_CROSSOVER_POINTS];
+		int[] expectedWords, childWords;
+		int numberMismatches = 0;
+		long numberChecked = 0;
+		String mismatch = null;
+		
+		for(int numbPoints = 1; numbPoints <= MAXIMUM_CROSSOVER_POINTS; numbPoints++){
+			for(int trial = 0; trial < numberTrials; trial++){
+				
+				//---- Build the parents and the sorted crossover locations.
+				for(int wordIndex = 0; wordIndex < implicitWords.length; wordIndex++){
+					implicitWords[wordIndex] = random.nextInt();
+					otherWords[wordIndex] = random.nextInt();
+					if(nonNegativeWords){
+						implicitWords[wordIndex] &= Integer.MAX_VALUE;
+						otherWords[wordIndex] &= Integer.MAX_VALUE;
+					}
+				}
+				for(int i = 0; i < numbPoints; i++)
+					crossoverLocations[i] = random.nextInt(GENOME_BIT_LENGTH);
+				Arrays.sort(crossoverLocations, 0, numbPoints);
+				
+				setGenome(implicitChromosome, implicitWords);
+				setGenome(otherChromosome, otherWords);
+				implicitChromosome.crossoverAt(otherChromosome, numbPoints, childChromosome, crossoverLocations);
+				childWords = getGenome(childChromosome);
+				
+				if(nonNegativeWords)
+					expectedWords = originalCrossover(implicitWords, otherWords, Arrays.copyOf(crossoverLocations, numbPoints));
+				else
+					expectedWords = bitwiseCrossover(implicitWords, otherWords, Arrays.copyOf(crossoverLocations, numbPoints));
+				
+				numberChecked++;
+				if(!Arrays.equals(expectedWords, childWords)){
+					numberMismatches++;
+					if(mismatch == null)
+						mismatch = "locations " + Arrays.toString(Arrays.copyOf(crossoverLocations, numbPoints))
+								   + " expected " + Arrays.toString(expectedWords) + " actual " + Arrays.toString(childWords);
+				}
+			}
+		}
+		
+		String name = nonNegativeWords ? "Non-negative words match the original operator"
+									   : "Arbitrary words match the bit-by-bit reference";
+		printResult(name, numberMismatches == 0, numberChecked + " children, " + numberMismatches + " mismatches"
+						  + (mismatch != null ? ", first: " + mismatch : ""));
+		return numberMismatches == 0;
+	}
+	
+	
+	/**
+	 * Checks the pinned results of NEGATIVE_WORD_CASES.
+	 * 
+	 * @return True if both operators gave the pinned result in every case.
+	 */
+	private static boolean checkNegativeWordCases(){
+		
+		GAChromosome implicitChromosome = GAChromosome.createEmptyChromosome();
+		GAChromosome otherChromosome = GAChromosome.createEmptyChromosome();
+		GAChromosome childChromosome = GAChromosome.createEmptyChromosome();
+		int[] implicitWords = new int[GAChromosome.GENOME_WORD_COUNT];
+		int[] otherWords = new int[GAChromosome.GENOME_WORD_COUNT];
+		int[] crossoverLocations = new int[1];
+		int originalWord, newWord;
+		boolean passed = true;
+		
+		for(int[] testCase : NEGATIVE_WORD_CASES){
+			
+			implicitWords[0] = testCase[0];
+			otherWords[0] = testCase[1];
+			crossoverLocations[0] = testCase[2];
+			
+			originalWord = originalCrossover(implicitWords, otherWords, crossoverLocations)[0];
+			setGenome(implicitChromosome, implicitWords);
+			setGenome(otherChromosome, otherWords);
+			implicitChromosome.crossoverAt(otherChromosome, 1, childChromosome, crossoverLocations);
+			newWord = getGenome(childChromosome)[0];
+			
+			boolean casePassed = originalWord == testCase[3] && newWord == testCase[4];
+			passed &= casePassed;
+			printResult(String.format("Negative word case 0x%08X x 0x%08X at bit %d", testCase[0], testCase[1], testCase[2]),
+						casePassed, String.format("original 0x%08X (pinned 0x%08X), new 0x%08X (pinned 0x%08X)",
+												  originalWord, testCase[3], newWord, testCase[4]));
+		}
+		
+		return passed;
+	}
+	
+	
+	/**
+	 * Reference n-point crossover that copies each bit from the parent selected by the crossover
+	 * locations.  Bit 0 is the MSB of the first word.
+	 * 
+	 * @param implicitWords Genome of the implicit parent.
+	 * @param otherWords Genome of the other parent.
+	 * @param crossoverLocations Crossover bit locations in ascending order.
+	 * @return Genome of the child.
+	 */
+	private static int[] bitwiseCrossover(int[] implicitWords, int[] otherWords, int[] crossoverLocations){
+		
+		int[] childWords = new int[implicitWords.length];
+		int crossoverIndex = 0;
+		boolean useImplicit = true;
+		int wordIndex, bitMask;
+		
+		for(int bitIndex = 0; bitIndex < GENOME_BIT_LENGTH; bitIndex++){
+			//---- Each crossover location switches the parent starting at its bit.
+			while(crossoverIndex < crossoverLocations.length && crossoverLocations[crossoverIndex] == bitIndex){
+				useImplicit = !useImplicit;
+				crossoverIndex++;
+			}
+			wordIndex = bitIndex / GAChromosome.WORD_BIT_LENGTH;
+			bitMask = 1 << (GAChromosome.WORD_BIT_LENGTH - 1 - bitIndex % GAChromosome.WORD_BIT_LENGTH);
+			childWords[wordIndex] |= (useImplicit ? implicitWords[wordIndex] : otherWords[wordIndex]) & bitMask;
+		}
+		
+		return childWords;
+	}
+	
+	
+	/**
+	 * Original n-point crossover of the program, kept unchanged except that the data vectors and
+	 * the sorted crossover locations are passed in instead of being built from the chromosomes.
+	 * 
+	 * @param implicitDataVector Genome of the implicit parent.
+	 * @param otherDataVector Genome of the other parent.
+	 * @param crossover_loc Crossover bit locations in ascending order.
+	 * @return Genome of the child.
+	 */
+	private static int[] originalCrossover(int[] implicitDataVector, int[] otherDataVector, int[] crossover_loc){
+		
+		int[] childDataVector = new int[implicitDataVector.length];
+		
+		//---- At first use the implicit parameter for boolean.
+		boolean useImplicitInCrossover = true;
+		int byteIndex = 0;
+		int crossoverIndex = 0;
+		while(byteIndex < childDataVector.length){
+			
+			//---- This number does not contain a crossover point so copy it entirely.
+			if(crossoverIndex == crossover_loc.length || byteIndex < crossover_loc[crossoverIndex] / 32){
+				if(useImplicitInCrossover)
+					childDataVector[byteIndex] = implicitDataVector[byteIndex];
+				else
+					childDataVector[byteIndex] = otherDataVector[byteIndex];
+				//---- Increment the byte index.
+				byteIndex++;
+			}
+			else{
+				//---- Always copy MSB first.
+				int previousCrossoverBitLocation = 31;
+				int crossoverBitLocation;
+				int referenceWord = 0;
+				int dataWord = 0;
+				//---- Continue crossing over until the end of the word is reached
+				while(crossoverIndex < crossover_loc.length && byteIndex == crossover_loc[crossoverIndex] / 32){
+					
+					//---- Extract the reference byte.
+					if(useImplicitInCrossover)
+						referenceWord = implicitDataVector[byteIndex];
+					else
+						referenceWord = otherDataVector[byteIndex];
+					
+					//----- Extract the crossover bit location.
+					crossoverBitLocation = 31 - crossover_loc[crossoverIndex] % 32;
+					
+					//----- Update the word with the crossed over data vector.
+					dataWord |= extractIntegerBits(referenceWord, previousCrossoverBitLocation, crossoverBitLocation);
+					previousCrossoverBitLocation = crossoverBitLocation;
+					
+					//---- Go to the next crossover point.
+					crossoverIndex++;
+					//---- Switch the value of the boolean flag on which data vector to use.
+					useImplicitInCrossover = !useImplicitInCrossover;
+				}
+				
+				//---- Extract the remnant of the word.
+				if(useImplicitInCrossover)
+					referenceWord = implicitDataVector[byteIndex];
+				else
+					referenceWord = otherDataVector[byteIndex];
+				//----- Update the word with the crossed over data vector.
+				dataWord |= extractIntegerBits(referenceWord, previousCrossoverBitLocation, -1);
+				
+				//---- Store the crossed over data word.
+				childDataVector[byteIndex] = dataWord;
+				
+				//---- Increment the byte index.
+				byteIndex++;
+			}
+			
+		}
+		
+		return childDataVector;
+	}
+	
+	
+	/**
+	 * Extracts a subset of bits from a word.  Used in bitwise crossover.  Kept unchanged from the
+	 * original program.
+	 * 
+	 * @param dataWord			Word whose bits are being excluded.
+	 * @param maxBitPosition	Bit number of highest significant bit to keep (inclusive)
+	 * @param minBitPosition	Bit number of highest position bit to exclude after starting bit keeping (exclusive)
+	 * @return					Word[maxBitPosition:minBitPosition) as an integer.
+	 */
+	static private int extractIntegerBits(int dataWord, int maxBitPosition, int minBitPosition){
+		
+		//---- Handle the case where the whole word was to be extracted.
+		if(maxBitPosition - minBitPosition == 32)
+			return dataWord;
+		//---- Return the case where the two positions are equal and not both zero.
+		else if(maxBitPosition == minBitPosition)
+			return 0;
+		
+		//---- Shift the word over by the number of bits in the min position.
+		dataWord = dataWord >>> (minBitPosition + 1);
+		
+		//---- Remove any preceding bits.
+		dataWord %= Math.pow(2, maxBitPosition-minBitPosition);
+		//--- Correct for when there is no bit shifting.
+		if(dataWord < 0 && minBitPosition == -1)
+			dataWord *= -1;
+		
+		//---- Reshift the word back.
+		dataWord = dataWord << (minBitPosition + 1);
+		
+		return dataWord;
+	}
+	
+	
+	private static void setGenome(GAChromosome chromosome, int[] words){
+		System.arraycopy(words, 0, chromosome.getGenomeWords(), chromosome.getGenomeBase(), words.length);
+	}
+	
+	
+	private static int[] getGenome(GAChromosome chromosome){
+		return Arrays.copyOfRange(chromosome.getGenomeWords(), chromosome.getGenomeBase(),
+								  chromosome.getGenomeBase() + GAChromosome.GENOME_WORD_COUNT);
+	}
+	
+	
+	private static void printResult(String name, boolean passed, String details){
+		System.out.println((passed ? "PASS " : "FAIL ") + name + ": " + details);
+	}
+	
+	
+	private static boolean parseInputArguments(String[] args){
+		
+		for(int i = 0; i < args.length; i += 2){
+			if(i + 1 == args.length){
+				System.out.println("Error: The number of input arguments is invalid. Exiting...");
+				return false;
+			}
+			try{
+				if(args[i].equals("-TR"))
+					numberTrials = Integer.parseInt(args[i + 1]);
+				else if(args[i].equals("-SEED"))
+					randomSeed = Long.parseLong(args[i + 1]);
+				else{
+					System.out.println("Error: Invalid input flag \"" + args[i] + "\".");
+					return false;
+				}
+			}
+			catch(NumberFormatException e){
+				System.out.println("Error: The value for flag \"" + args[i] + "\" is invalid. Exiting...");
+				return false;
+			}
+		}
+		
+		//---- All arguments successfully parsed so return true.
+		return true;
+	}
+	
+}
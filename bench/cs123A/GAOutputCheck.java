@@ -0,0 +1,304 @@
+package cs123A;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seeded end-to-end output check.  The program is run in a child JVM with the reference settings
+ * (-SS and -SEED) and then once for each scoring variant in VARIANTS.  Every scoring path gives
+ * identical scores so each variant's output must match the reference output line for line.  If a
+ * golden file is given, the reference output must also match it so a change to the program's
+ * results is caught even if every variant changed the same way.  It has no dependencies beyond
+ * the JDK so it can be compiled together with the main sources:
+ * 
+ *     javac -d out src/cs123A/*.java bench/cs123A/*.java
+ *     java -cp out cs123A.GAOutputCheck -SS 100 -SEED 5 -GOLDEN bench/golden/SS100-SEED5.txt
+ * 
+ * The program reads breast-cancer-wisconsin.data.txt from its working directory so each child JVM
+ * is run in a scratch directory holding a copy of the -DATA file.  The golden file in bench/golden
+ * was recorded with bench/golden/synthetic-wisconsin.data.txt, a synthetic 699 line data set in
+ * the Wisconsin format (436 benign and 263 malignant lines, 9 of them with missing features).  It
+ * is not the UCI file so the golden output only reproduces with it.  Lines that only exist
+ * for a variant (the fitness cache hit rate) are ignored.  The -VS variant is skipped unless the
+ * Vector API backend is on the class path and this JVM was started with
+ * --add-modules jdk.incubator.vector.  The -WORKERS variant starts a worker process on a free
+ * loopback port.
+ * 
+ * The program prints one line per variant and exits with status 1 if any check fails.
+ * 
+ * -SS     - Population size of the runs (default 100).
+ * -SEED   - Master random seed of the runs (default 5).
+ * -DATA   - Data set file the program is run with (default bench/golden/synthetic-wisconsin.data.txt).
+ * -GOLDEN - Golden file of the reference output (default none).
+ * -UPDATE - 1 writes the reference output to the golden file instead of comparing it.
+ */
+public class GAOutputCheck {
+	
+	private static String populationSize = "100";
+	private static String randomSeed = "5";
+	private static String dataSetFileName = "bench/golden/synthetic-wisconsin.data.txt";
+	private static String goldenFileName = null;
+	private static boolean updateGoldenFile = false;
+	private static File workingDirectory;
+	
+	private static final String MAIN_CLASS = "cs123A.BreastCancerGeneticAlgorithm";
+	private static final String PROGRAM_DATA_SET_FILE = "breast-cancer-wisconsin.data.txt";
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+	private static final String VECTOR_UNAVAILABLE_WARNING = "Warning: The Vector API scoring backend is not available.";
+	private static final String[] IGNORED_LINE_PREFIXES = {"The fitness cache hit rate"};
+	private static final String WORKERS_VARIANT = "-WORKERS";
+	private static final long WORKER_START_TIMEOUT = 30000;			//---- Milliseconds.
+	
+	//---- Flags added to the reference settings for each variant.
+	private static final String[][] VARIANTS = {
+		{"-SM", "BATCH"},
+		{"-PT", "4"},
+		{"-PT", "4", "-SM", "BATCH"},
+		{"-BE", "1"},
+		{"-BE", "1", "-PT", "4"},
+		{"-FC", "1000"},
+		{"-VS", "1"},
+		{WORKERS_VARIANT},
+	};
+	
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		
+		//---- Parse the input arguments and ensure they are valid.
+		if(!parseInputArguments(args))
+			return;
+		
+		//---- The runs write their results files to the scratch directory so the working directory is left untouched.
+		workingDirectory = Files.createTempDirectory("ga-output-check").toFile();
+		try{
+			Files.copy(Paths.get(dataSetFileName), new File(workingDirectory, PROGRAM_DATA_SET_FILE).toPath());
+			if(!runChecks())
+				System.exit(1);
+		}
+		finally{
+			deleteDirectory(workingDirectory);
+		}
+	}
+	
+	
+	/**
+	 * Runs the reference and the variants and compares their outputs.
+	 * 
+	 * @return True if every check passed.
+	 * @throws IOException If a program cannot be started or fails.
+	 * @throws InterruptedException If the wait for a program is interrupted.
+	 */
+	private static boolean runChecks() throws IOException, InterruptedException{
+		
+		boolean passed = true;
+		List<String> referenceOutput = runProgram(new String[0]);
+		
+		//---- The program reports errors (e.g. a missing data set file) on its output and returns normally.
+		for(String line : referenceOutput){
+			if(line.startsWith("Error:")){
+				System.out.println("FAIL Reference run: " + line);
+				return false;
+			}
+		}
+		
+		//---- Compare the reference output against the golden file.
+		if(goldenFileName != null){
+			if(updateGoldenFile){
+				Files.write(Paths.get(goldenFileName), referenceOutput, StandardCharsets.US_ASCII);
+				System.out.println("Wrote the reference output to \"" + goldenFileName + "\".");
+			}
+			else
+				passed &= compareOutputs("Reference output matches \"" + goldenFileName + "\"",
+										 Files.readAllLines(Paths.get(goldenFileName), StandardCharsets.US_ASCII), referenceOutput);
+		}
+		
+		for(String[] variant : VARIANTS){
+			String name = "Output with " + String.join(" ", variant) + " matches the reference";
+			List<String> variantOutput;
+			if(variant[0].equals(WORKERS_VARIANT))
+				variantOutput = runWithWorker();
+			else
+				variantOutput = runProgram(variant);
+			
+			if(!variantOutput.isEmpty() && variantOutput.get(0).startsWith(VECTOR_UNAVAILABLE_WARNING)){
+				System.out.println("SKIP " + name + ": the Vector API backend is not available");
+				continue;
+			}
+			passed &= compareOutputs(name, referenceOutput, variantOutput);
+		}
+		return passed;
+	}
+	
+	
+	/**
+	 * Deletes a scratch directory and the files in it.
+	 * 
+	 * @param directory Directory to delete.
+	 */
+	private static void deleteDirectory(File directory){
+		File[] files = directory.listFiles();
+		if(files != null)
+			for(File file : files) file.delete();
+		directory.delete();
+	}
+	
+	
+	/**
+	 * Runs the program with the reference settings followed by extra flags.
+	 * 
+	 * @param extraArgs Flags added to the reference settings.
+	 * @return Output of the program without the ignored lines.
+	 * @throws IOException If the program cannot be started or fails.
+	 * @throws InterruptedException If the wait for the program is interrupted.
+	 */
+	private static List<String> runProgram(String[] extraArgs) throws IOException, InterruptedException{
+		
+		List<String> command = buildJavaCommand();
+		command.addAll(Arrays.asList("-SS", populationSize, "-SEED", randomSeed));
+		command.addAll(Arrays.asList(extraArgs));
+		
+		Process process = new ProcessBuilder(command).directory(workingDirectory).redirectErrorStream(true).start();
+		List<String> output = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+		String line;
+		while((line = reader.readLine()) != null)
+			if(!isIgnoredLine(line)) output.add(line);
+		
+		if(process.waitFor() != 0)
+			throw new IOException("The program exited with status " + process.exitValue() + " for " + command + ".");
+		return output;
+	}
+	
+	
+	/**
+	 * Runs the program with its chromosomes scored by a worker process on a free loopback port.
+	 * 
+	 * @return Output of the program without the ignored lines.
+	 * @throws IOException If the worker or the program cannot be started or fails.
+	 * @throws InterruptedException If the wait for the program is interrupted.
+	 */
+	private static List<String> runWithWorker() throws IOException, InterruptedException{
+		
+		ServerSocket freePortSocket = new ServerSocket(0);
+		int workerPort = freePortSocket.getLocalPort();
+		freePortSocket.close();
+		
+		List<String> command = buildJavaCommand();
+		command.addAll(Arrays.asList("-WORKER", Integer.toString(workerPort)));
+		Process worker = new ProcessBuilder(command).directory(workingDirectory).redirectErrorStream(true).start();
+		try{
+			//---- Wait until the worker is listening.
+			BufferedReader reader = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.US_ASCII));
+			long deadline = System.currentTimeMillis() + WORKER_START_TIMEOUT;
+			String line;
+			while((line = reader.readLine()) != null && !line.startsWith("Worker listening")){
+				if(System.currentTimeMillis() > deadline) break;
+			}
+			if(line == null || !line.startsWith("Worker listening"))
+				throw new IOException("The worker did not start.");
+			
+			return runProgram(new String[] {"-WORKERS", "127.0.0.1:" + workerPort});
+		}
+		finally{
+			worker.destroy();
+			worker.waitFor();
+		}
+	}
+	
+	
+	/**
+	 * Builds the command that starts a child JVM with this JVM's class path.  The Vector API
+	 * module is added if this JVM has it.
+	 * 
+	 * @return Command up to and including the main class.
+	 */
+	private static List<String> buildJavaCommand(){
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		if(ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent())
+			command.addAll(Arrays.asList("--add-modules", VECTOR_MODULE));
+		//---- The children run in the scratch directory so relative class path entries are made absolute.
+		List<String> classPath = new ArrayList<String>();
+		for(String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+			classPath.add(new File(entry).getAbsolutePath());
+		command.addAll(Arrays.asList("-cp", String.join(File.pathSeparator, classPath), MAIN_CLASS));
+		return command;
+	}
+	
+	
+	private static boolean isIgnoredLine(String line){
+		for(String prefix : IGNORED_LINE_PREFIXES)
+			if(line.startsWith(prefix)) return true;
+		//---- The incubator module warns on standard error which is merged into the output.
+		return line.startsWith("WARNING: Using incubator modules");
+	}
+	
+	
+	/**
+	 * Compares two outputs line by line and prints the result.
+	 * 
+	 * @param name Name of the check.
+	 * @param expected Expected output.
+	 * @param actual Actual output.
+	 * @return True if the outputs are identical.
+	 */
+	private static boolean compareOutputs(String name, List<String> expected, List<String> actual){
+		
+		int lineIndex = 0;
+		while(lineIndex < expected.size() && lineIndex < actual.size() && expected.get(lineIndex).equals(actual.get(lineIndex)))
+			lineIndex++;
+		
+		boolean matched = lineIndex == expected.size() && lineIndex == actual.size();
+		if(matched)
+			System.out.println("PASS " + name + ": " + actual.size() + " lines");
+		else
+			System.out.println("FAIL " + name + ": first difference at line " + (lineIndex + 1) + ", expected \""
+							   + (lineIndex < expected.size() ? expected.get(lineIndex) : "<end of output>") + "\" actual \""
+							   + (lineIndex < actual.size() ? actual.get(lineIndex) : "<end of output>") + "\"");
+		return matched;
+	}
+	
+	
+	private static boolean parseInputArguments(String[] args){
+		
+		for(int i = 0; i < args.length; i += 2){
+			if(i + 1 == args.length){
+				System.out.println("Error: The number of input arguments is invalid. Exiting...");
+				return false;
+			}
+			try{
+				if(args[i].equals("-SS"))
+					populationSize = Integer.toString(Integer.parseInt(args[i + 1]));
+				else if(args[i].equals("-SEED"))
+					randomSeed = Long.toString(Long.parseLong(args[i + 1]));
+				else if(args[i].equals("-DATA"))
+					dataSetFileName = args[i + 1];
+				else if(args[i].equals("-GOLDEN"))
+					goldenFileName = args[i + 1];
+				else if(args[i].equals("-UPDATE"))
+					updateGoldenFile = Integer.parseInt(args[i + 1]) == 1;
+				else{
+					System.out.println("Error: Invalid input flag \"" + args[i] + "\".");
+					return false;
+				}
+			}
+			catch(NumberFormatException e){
+				System.out.println("Error: The value for flag \"" + args[i] + "\" is invalid. Exiting...");
+				return false;
+			}
+		}
+		
+		//---- All arguments successfully parsed so return true.
+		return true;
+	}
+	
+}
@@ -0,0 +1,484 @@
+package cs123A;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Differential check of the optimized scoring paths against the original list based scoring
+ * (BreastCancerDataSet with columnar scoring disabled), which is used as the reference.  It has
+ * no dependencies beyond the JDK so it can be compiled together with the main sources:
+ * 
+ *     javac -d out src/cs123A/*.java bench/cs123A/*.java
+ *     java -cp out cs123A.GAScoringCheck -TDS 1,7,200,682,1500 -NC 2000 -SEED 1
+ * 
+ * The Vector API backend is only checked if it is on the class path, i.e. the vector source root
+ * was compiled and the program is run with --add-modules jdk.incubator.vector.  Otherwise its
+ * check is skipped.
+ * 
+ * For every data set size and malignancy bias factor, seeded random chromosomes are scored by:
+ * 
+ * 1. The scalar columnar engine (PatientFeatureColumns.getScoreAndSeparation).
+ * 2. The Vector API backend.
+ * 3. Batch scoring (PatientFeatureColumns.scoreChromosomes) of the whole array and of an unaligned range.
+ * 4. Bounded scoring with thresholds around the exact score.  A completed evaluation must be exact,
+ *    a stopped one must be an upper bound below the threshold and resuming it must be exact.
+ * 5. Parallel population scoring with the per chromosome and batch strategies and with bounded
+ *    evaluation, whose best chromosomes must have the reference scores.
+ * 6. Index views of a patient store (BreastCancerDataSet.createSubset) against a list data set of
+ *    the same patients.
+ * 7. Single pass confusion matrices of a list data set and of an index view against the list based
+ *    accuracies.
+ * 
+ * Scores must be equal and separations bit for bit equal.  Half of the chromosomes are built by
+ * GAChromosome.createRandomChromosome and half have arbitrary genome words to exercise overflow.
+ * The program prints one line per check and exits with status 1 if any check fails.
+ * 
+ * -TDS  - Comma separated list of data set sizes.
+ * -NC   - Number of random chromosomes for each data set size.
+ * -PT   - Number of threads used by the parallel population scoring.
+ * -SEED - Seed of the patients and chromosomes.
+ */
+public class GAScoringCheck {
+	
+	private static int[] dataSetSizes = {1, 7, 64, 200, 682, 1500};
+	private static int numberChromosomes = 2000;
+	private static int numberScoringThreads = 4;
+	private static long randomSeed = 1;
+	
+	private static final int[] MALIGNANCY_BIAS_FACTORS = {1, 3};
+	private static final int[] THRESHOLD_OFFSETS = {-50, -1, 0, 1, 50};
+	private static final int NUMBER_BEST_CHROMOSOMES = 10;
+	private static final double PERCENT_TOLERANCE = 1e-9;
+	
+	private static boolean passed = true;
+	
+	
+	public static void main(String[] args) {
+		
+		//---- Parse the input arguments and ensure they are valid.
+		if(!parseInputArguments(args))
+			return;
+		
+		for(int dataSetSize : dataSetSizes){
+			List<Patient> patients = buildSyntheticPatients(dataSetSize, randomSeed + dataSetSize);
+			GAChromosome[] chromosomes = buildRandomChromosomes(numberChromosomes, randomSeed + dataSetSize);
+			for(int malignancyBiasFactor : MALIGNANCY_BIAS_FACTORS)
+				checkDataSet(patients, chromosomes, malignancyBiasFactor);
+		}
+		
+		if(!passed)
+			System.exit(1);
+	}
+	
+	
+	/**
+	 * Runs every check on one data set and malignancy bias factor.
+	 * 
+	 * @param patients Patients of the data set.
+	 * @param chromosomes Chromosomes to be scored.
+	 * @param malignancyBiasFactor Malignancy bias factor of the scores.
+	 */
+	private static void checkDataSet(List<Patient> patients, GAChromosome[] chromosomes, int malignancyBiasFactor){
+		
+		String suffix = " (TDS " + patients.size() + ", MP " + malignancyBiasFactor + ")";
+		BreastCancerDataSet listDataSet = new BreastCancerDataSet();
+		for(Patient patient : patients)
+			listDataSet.addPatient(patient);
+		double[][] reference = scoreWithPatientList(listDataSet, chromosomes, malignancyBiasFactor);
+		
+		//---- Columnar engine with and without the Vector API backend.
+		PatientFeatureColumns.setUseVectorScoring(false);
+		checkColumns("Columnar scoring" + suffix, new PatientFeatureColumns(patients), chromosomes, malignancyBiasFactor, reference);
+		if(PatientFeatureColumns.setUseVectorScoring(true))
+			checkColumns("Vector scoring" + suffix, new PatientFeatureColumns(patients), chromosomes, malignancyBiasFactor, reference);
+		else
+			System.out.println("SKIP Vector scoring" + suffix + ": the Vector API backend is not available");
+		PatientFeatureColumns.setUseVectorScoring(false);
+		
+		PatientFeatureColumns patientColumns = new PatientFeatureColumns(patients);
+		checkBatchScoring("Batch scoring" + suffix, patientColumns, chromosomes, malignancyBiasFactor, reference);
+		checkBoundedScoring("Bounded scoring" + suffix, patientColumns, chromosomes, malignancyBiasFactor, reference);
+		
+		BreastCancerDataSet.setUseColumnarScoring(true);
+		checkPopulationScoring(suffix, listDataSet, chromosomes, malignancyBiasFactor, reference);
+		checkIndexViews("Index view scoring" + suffix, patients, chromosomes, malignancyBiasFactor);
+		checkConfusionMatrices("Single pass confusion matrices" + suffix, patients, listDataSet, chromosomes);
+	}
+	
+	
+	/**
+	 * Scores the chromosomes with the original list based scoring.
+	 * 
+	 * @param dataSet List data set of the patients.
+	 * @param chromosomes Chromosomes to be scored.
+	 * @param malignancyBiasFactor Malignancy bias factor of the scores.
+	 * @return Score and separation of each chromosome.
+	 */
+	private static double[][] scoreWithPatientList(BreastCancerDataSet dataSet, GAChromosome[] chromosomes, int malignancyBiasFactor){
+		
+		double[][] scores = new double[chromosomes.length][];
+		BreastCancerDataSet.setUseColumnarScoring(false);
+		for(int i = 0; i < chromosomes.length; i++)
+			scores[i] = dataSet.getChromosomeScoreAndSeparationForPopulation(chromosomes[i], malignancyBiasFactor);
+		BreastCancerDataSet.setUseColumnarScoring(true);
+		return scores;
+	}
+	
+	
+	/**
+	 * Compares getScoreAndSeparation of a set of columns against the reference.
+	 */
+	private static void checkColumns(String name, PatientFeatureColumns patientColumns, GAChromosome[] chromosomes,
+									 int malignancyBiasFactor, double[][] reference){
+		
+		Mismatches mismatches = new Mismatches();
+		for(int i = 0; i < chromosomes.length; i++)
+			mismatches.check(i, reference[i], patientColumns.getScoreAndSeparation(chromosomes[i].getGenomeWords(),
+												chromosomes[i].getGenomeBase(), malignancyBiasFactor));
+		mismatches.print(name);
+	}
+	
+	
+	/**
+	 * Compares batch scoring of the whole array and of an unaligned range against the reference.
+	 */
+	private static void checkBatchScoring(String name, PatientFeatureColumns patientColumns, GAChromosome[] chromosomes,
+										  int malignancyBiasFactor, double[][] reference){
+		
+		Mismatches mismatches = new Mismatches();
+		GAChromosome[] copies = copyChromosomes(chromosomes);
+		
+		patientColumns.scoreChromosomes(copies, 0, copies.length, malignancyBiasFactor);
+		for(int i = 0; i < copies.length; i++)
+			mismatches.check(i, reference[i], copies[i]);
+		
+		//---- A range that does not start or end on a batch boundary.
+		int startIndex = Math.min(3, copies.length), endIndex = Math.max(startIndex, copies.length - 5);
+		copies = copyChromosomes(chromosomes);
+		patientColumns.scoreChromosomes(copies, startIndex, endIndex, malignancyBiasFactor);
+		for(int i = startIndex; i < endIndex; i++)
+			mismatches.check(i, reference[i], copies[i]);
+		
+		mismatches.print(name);
+	}
+	
+	
+	/**
+	 * Checks bounded scoring with thresholds around the exact score of each chromosome.
+	 */
+	private static void checkBoundedScoring(String name, PatientFeatureColumns patientColumns, GAChromosome[] chromosomes,
+											int malignancyBiasFactor, double[][] reference){
+		
+		Mismatches mismatches = new Mismatches();
+		int numberStopped = 0;
+		int numberOfPatients = patientColumns.getNumberOfPatients();
+		int[] genomes;
+		int genomeBase, scoreThreshold, upperBound;
+		double[] bounded, resumed;
+		
+		for(int i = 0; i < chromosomes.length; i++){
+			genomes = chromosomes[i].getGenomeWords();
+			genomeBase = chromosomes[i].getGenomeBase();
+			for(int thresholdOffset : THRESHOLD_OFFSETS){
+				scoreThreshold = (int)reference[i][0] + thresholdOffset;
+				bounded = patientColumns.getBoundedScoreAndSeparation(genomes, genomeBase, malignancyBiasFactor, scoreThreshold);
+				if(bounded[2] == numberOfPatients){
+					mismatches.check(i, reference[i], bounded);
+					continue;
+				}
+				
+				//---- A stopped evaluation must bound the exact score and be below the threshold.
+				numberStopped++;
+				upperBound = (int)bounded[0];
+				if(upperBound < reference[i][0] || upperBound >= scoreThreshold)
+					mismatches.add(i, "upper bound " + upperBound + " for score " + (int)reference[i][0] + " and threshold " + scoreThreshold);
+				resumed = patientColumns.resumeBoundedScoreAndSeparation(genomes, genomeBase, malignancyBiasFactor, Integer.MIN_VALUE,
+																		 upperBound, bounded[1], (int)bounded[2]);
+				mismatches.check(i, reference[i], resumed);
+			}
+		}
+		
+		mismatches.print(name + " [" + numberStopped + " evaluations stopped early]");
+	}
+	
+	
+	/**
+	 * Checks parallel population scoring with both scoring strategies and with bounded evaluation.
+	 */
+	private static void checkPopulationScoring(String suffix, BreastCancerDataSet dataSet, GAChromosome[] chromosomes,
+											   int malignancyBiasFactor, double[][] reference){
+		
+		int savedMaximumPopulationSize = GAChromosomePopulation.getMaximumPopulationSize();
+		int savedNumberScoringThreads = GAChromosomePopulation.getNumberScoringThreads();
+		GAChromosomePopulation.ScoringStrategy savedScoringStrategy = GAChromosomePopulation.getScoringStrategy();
+		GAChromosomePopulation.setMaximumPopulationSize(Math.max(savedMaximumPopulationSize, chromosomes.length));
+		GAChromosomePopulation.setNumberScoringThreads(numberScoringThreads);
+		
+		for(GAChromosomePopulation.ScoringStrategy scoringStrategy : GAChromosomePopulation.ScoringStrategy.values()){
+			GAChromosomePopulation.setScoringStrategy(scoringStrategy);
+			Mismatches mismatches = new Mismatches();
+			GAChromosomePopulation population = buildPopulation(chromosomes);
+			population.scorePopulationMembers(dataSet, malignancyBiasFactor);
+			for(int i = 0; i < chromosomes.length; i++)
+				mismatches.check(i, reference[i], population.getMember(i));
+			mismatches.print("Parallel " + scoringStrategy + " population scoring" + suffix);
+		}
+		GAChromosomePopulation.setScoringStrategy(GAChromosomePopulation.ScoringStrategy.CHROMOSOME);
+		
+		//---- Bounded evaluation may leave upper bounds but the best chromosomes must be exact.
+		int numberBest = Math.min(NUMBER_BEST_CHROMOSOMES, chromosomes.length);
+		double[][] sortedReference = Arrays.copyOf(reference, reference.length);
+		Arrays.sort(sortedReference, new Comparator<double[]>(){
+			public int compare(double[] score1, double[] score2){
+				if(score1[0] != score2[0]) return Double.compare(score2[0], score1[0]);
+				return Double.compare(score2[1], score1[1]);
+			}
+		});
+		Mismatches mismatches = new Mismatches();
+		GAChromosomePopulation population = buildPopulation(chromosomes);
+		population.scorePopulationMembers(dataSet, malignancyBiasFactor, null, (int)sortedReference[numberBest - 1][0]);
+		GAChromosome[] bestChromosomes = population.getBestChromosomes(numberBest);
+		for(int i = 0; i < numberBest; i++){
+			if(bestChromosomes[i].isScoreUpperBound())
+				mismatches.add(i, "best chromosome has an upper bound score");
+			mismatches.check(i, sortedReference[i], bestChromosomes[i]);
+		}
+		mismatches.print("Parallel bounded best chromosomes" + suffix);
+		
+		GAChromosomePopulation.setScoringStrategy(savedScoringStrategy);
+		GAChromosomePopulation.setNumberScoringThreads(savedNumberScoringThreads);
+		GAChromosomePopulation.setMaximumPopulationSize(savedMaximumPopulationSize);
+	}
+	
+	
+	/**
+	 * Compares index views of a patient store against list data sets of the same patients.
+	 */
+	private static void checkIndexViews(String name, List<Patient> patients, GAChromosome[] chromosomes, int malignancyBiasFactor){
+		
+		Mismatches mismatches = new Mismatches();
+		BreastCancerDataSet storeDataSet = buildStoreDataSet(patients);
+		int[] patientIndices = buildShuffledIndices(patients.size(), randomSeed + patients.size());
+		int[] viewIndices = Arrays.copyOf(patientIndices, (patients.size() + 1) / 2);
+		
+		BreastCancerDataSet viewDataSet = storeDataSet.createSubset(viewIndices);
+		BreastCancerDataSet listDataSet = new BreastCancerDataSet();
+		for(int patientIndex : viewIndices)
+			listDataSet.addPatient(patients.get(patientIndex));
+		
+		double[][] reference = scoreWithPatientList(listDataSet, chromosomes, malignancyBiasFactor);
+		for(int i = 0; i < chromosomes.length; i++)
+			mismatches.check(i, reference[i], viewDataSet.getChromosomeScoreAndSeparationForPopulation(chromosomes[i], malignancyBiasFactor));
+		
+		mismatches.print(name);
+	}
+	
+	
+	/**
+	 * Compares the single pass confusion matrices of a list data set and of an index view that has
+	 * not gathered its columns against the list based accuracies.
+	 */
+	private static void checkConfusionMatrices(String name, List<Patient> patients, BreastCancerDataSet listDataSet,
+											   GAChromosome[] chromosomes){
+		
+		Mismatches mismatches = new Mismatches();
+		BreastCancerDataSet storeDataSet = buildStoreDataSet(patients);
+		int[] allIndices = new int[patients.size()];
+		for(int i = 0; i < allIndices.length; i++)
+			allIndices[i] = i;
+		BreastCancerDataSet viewDataSet = storeDataSet.createSubset(allIndices);
+		
+		GAConfusionMatrix[] listMatrices = listDataSet.getConfusionMatrices(chromosomes);
+		GAConfusionMatrix[] viewMatrices = viewDataSet.getConfusionMatrices(chromosomes);
+		
+		BreastCancerDataSet.setUseColumnarScoring(false);
+		double percentCorrect, malignantPercentCorrect;
+		for(int i = 0; i < chromosomes.length; i++){
+			percentCorrect = listDataSet.getPercentCorrect(chromosomes[i]);
+			malignantPercentCorrect = listDataSet.getMaligancyAccuracyForPopulation(chromosomes[i]);
+			for(GAConfusionMatrix matrix : new GAConfusionMatrix[] {listMatrices[i], viewMatrices[i]}){
+				mismatches.count();
+				if(Math.abs(matrix.getPercentCorrect() - percentCorrect) > PERCENT_TOLERANCE
+				   || Math.abs(matrix.getMalignantPercentCorrect() - malignantPercentCorrect) > PERCENT_TOLERANCE)
+					mismatches.add(i, "expected " + percentCorrect + "%/" + malignantPercentCorrect + "% actual "
+									  + matrix.getPercentCorrect() + "%/" + matrix.getMalignantPercentCorrect() + "%");
+			}
+		}
+		BreastCancerDataSet.setUseColumnarScoring(true);
+		
+		mismatches.print(name);
+	}
+	
+	
+	/**
+	 * Collects the mismatches of a check and prints its result.
+	 */
+	private static class Mismatches {
+		
+		private int numberChecked = 0;
+		private int numberMismatches = 0;
+		private String firstMismatch = null;
+		
+		void count(){
+			numberChecked++;
+		}
+		
+		void check(int index, double[] expected, double[] actual){
+			count();
+			if((int)expected[0] != (int)actual[0] || Double.doubleToLongBits(expected[1]) != Double.doubleToLongBits(actual[1]))
+				add(index, "expected " + (int)expected[0] + "/" + expected[1] + " actual " + (int)actual[0] + "/" + actual[1]);
+		}
+		
+		void check(int index, double[] expected, GAChromosome actual){
+			check(index, expected, new double[] {actual.getScore(), actual.getTotalSeparation()});
+		}
+		
+		void add(int index, String description){
+			numberMismatches++;
+			if(firstMismatch == null)
+				firstMismatch = "chromosome " + index + " " + description;
+		}
+		
+		void print(String name){
+			passed &= numberMismatches == 0;
+			System.out.println((numberMismatches == 0 ? "PASS " : "FAIL ") + name + ": " + numberChecked + " checked, "
+							   + numberMismatches + " mismatches" + (firstMismatch != null ? ", first: " + firstMismatch : ""));
+		}
+	}
+	
+	
+	/**
+	 * Builds synthetic patients in the same way as GABenchmark.
+	 * 
+	 * @param numberOfPatients Number of patients to generate.
+	 * @param seed Seed of the patients.
+	 * @return List of patients.
+	 */
+	private static List<Patient> buildSyntheticPatients(int numberOfPatients, long seed){
+		
+		Random random = new Random(seed);
+		List<Patient> patients = new ArrayList<Patient>();
+		boolean malignant;
+		String record;
+		
+		for(int i = 0; i < numberOfPatients; i++){
+			malignant = random.nextInt(3) == 0;
+			record = Integer.toString(1000000 + i);
+			//---- Malignant tumors tend to have larger feature values.
+			for(int j = 0; j < Patient.numberDataElementsPerPatient(); j++)
+				record += "," + Math.min(10, 1 + random.nextInt(5) + (malignant ? random.nextInt(6) : 0));
+			record += "," + (malignant ? 4 : 2);
+			patients.add(new Patient(record));
+		}
+		return patients;
+	}
+	
+	
+	/**
+	 * Builds random chromosomes.  The first half are built like the program's initial population
+	 * and the second half have arbitrary genome words.
+	 * 
+	 * @param numberOfChromosomes Number of chromosomes to build.
+	 * @param seed Seed of the chromosomes.
+	 * @return Array of chromosomes.
+	 */
+	private static GAChromosome[] buildRandomChromosomes(int numberOfChromosomes, long seed){
+		
+		GARandom random = GARandom.create(seed);
+		GAChromosome[] chromosomes = new GAChromosome[numberOfChromosomes];
+		int[] genomes;
+		
+		for(int i = 0; i < numberOfChromosomes; i++){
+			if(i < numberOfChromosomes / 2){
+				chromosomes[i] = GAChromosome.createRandomChromosome(random);
+				continue;
+			}
+			chromosomes[i] = GAChromosome.createEmptyChromosome();
+			genomes = chromosomes[i].getGenomeWords();
+			for(int wordIndex = 0; wordIndex < GAChromosome.GENOME_WORD_COUNT; wordIndex++)
+				genomes[chromosomes[i].getGenomeBase() + wordIndex] = random.nextInt();
+		}
+		return chromosomes;
+	}
+	
+	
+	private static GAChromosome[] copyChromosomes(GAChromosome[] chromosomes){
+		GAChromosome[] copies = new GAChromosome[chromosomes.length];
+		for(int i = 0; i < chromosomes.length; i++){
+			copies[i] = GAChromosome.createEmptyChromosome();
+			copies[i].copyFrom(chromosomes[i]);
+		}
+		return copies;
+	}
+	
+	
+	private static GAChromosomePopulation buildPopulation(GAChromosome[] chromosomes){
+		GAChromosomePopulation population = new GAChromosomePopulation(GARandom.create(randomSeed));
+		for(GAChromosome chromosome : chromosomes)
+			population.addChromosome(chromosome);
+		return population;
+	}
+	
+	
+	private static BreastCancerDataSet buildStoreDataSet(List<Patient> patients){
+		long[] idNumbers = new long[patients.size()];
+		for(int i = 0; i < idNumbers.length; i++)
+			idNumbers[i] = patients.get(i).getIdNumber();
+		return new BreastCancerDataSet(new PatientFeatureColumns(patients), idNumbers);
+	}
+	
+	
+	private static int[] buildShuffledIndices(int numberOfPatients, long seed){
+		Random random = new Random(seed);
+		int[] indices = new int[numberOfPatients];
+		for(int i = 0; i < numberOfPatients; i++)
+			indices[i] = i;
+		for(int i = numberOfPatients - 1; i > 0; i--){
+			int j = random.nextInt(i + 1);
+			int temp = indices[i];
+			indices[i] = indices[j];
+			indices[j] = temp;
+		}
+		return indices;
+	}
+	
+	
+	private static boolean parseInputArguments(String[] args){
+		
+		for(int i = 0; i < args.length; i += 2){
+			if(i + 1 == args.length){
+				System.out.println("Error: The number of input arguments is invalid. Exiting...");
+				return false;
+			}
+			try{
+				if(args[i].equals("-TDS")){
+					String[] values = args[i + 1].split(",");
+					dataSetSizes = new int[values.length];
+					for(int j = 0; j < values.length; j++)
+						dataSetSizes[j] = Integer.parseInt(values[j].trim());
+				}
+				else if(args[i].equals("-NC"))
+					numberChromosomes = Integer.parseInt(args[i + 1]);
+				else if(args[i].equals("-PT"))
+					numberScoringThreads = Integer.parseInt(args[i + 1]);
+				else if(args[i].equals("-SEED"))
+					randomSeed = Long.parseLong(args[i + 1]);
+				else{
+					System.out.println("Error: Invalid input flag \"" + args[i] + "\".");
+					return false;
+				}
+			}
+			catch(NumberFormatException e){
+				System.out.println("Error: The value for flag \"" + args[i] + "\" is invalid. Exiting...");
+				return false;
+			}
+		}
+		
+		//---- All arguments successfully parsed so return true.
+		return true;
+	}
+	
+}
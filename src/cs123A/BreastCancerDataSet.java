@@ -1,32 +1,119 @@
 package cs123A;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 public class BreastCancerDataSet {
 
 	private static int trainingDataSetSize = 200;
-	public final static int MAXIMUM_TRAINING_DATA_SET_SIZE = 682;
-	private List<Patient> setOfPatients;
+	
+	//---- A data set is either a list of added patients or an index view of an immutable patient store.
+	//---- Views split from the same store share it along with their index array but never an index range
+	//---- so a view can be shuffled in place without changing any other view.
+	private List<Patient> addedPatients;			//---- Patients added with addPatient.  Null once they are moved to a store.
+	private PatientStore patientStore;				//---- Patients shared by every data set split from this one.
+	private int[] patientIndices;					//---- Indices of the data set's patients in the store.
+	private int firstIndex;							//---- Position of the data set's first index in patientIndices.
+	private int numberOfPatients;
+	private PatientFeatureColumns patientColumns;	//---- Columnar copy of the data set's patients used for scoring.
 	
 	private static boolean allowShuffling = true;
+	private static boolean useColumnarScoring = true;
 	
 	/**
 	 * Constructor to build datasets of breast cancer dataset.
 	 */
 	public BreastCancerDataSet(){
 		//----- Create the patient array
-		setOfPatients = new ArrayList<Patient>();
+		addedPatients = new ArrayList<Patient>();
+	}
+	
+	/**
+	 * Additional Constructor that takes a list of patients.  The patients are moved into an immutable
+	 * store so the data set can be shared by concurrent runs and split without copying them.
+	 * 
+	 * @param patients List of patients that will serve as the patients in the data set.
+	 */
+	BreastCancerDataSet(List<Patient> patients){
+		addedPatients = patients;
+		buildPatientStore();
+	}
+	
+	/**
+	 * Additional Constructor for patients that are already in columnar form (e.g. loaded by
+	 * PatientDataFileLoader).  The columns become the patient store as they are and patient objects
+	 * are only created if a list based path (e.g. addPatient) needs them.
+	 * 
+	 * @param patientColumns Columns of the patients.
+	 * @param idNumbers Sample code number of each patient in column order.  It is kept so it must not be modified.
+	 */
+	BreastCancerDataSet(PatientFeatureColumns patientColumns, long[] idNumbers){
+		useWholeStore(new PatientStore(patientColumns, idNumbers));
 	}
 	
 	/**
-	 * Additional Private Constructor that takes an ArrayList of patients.
+	 * Additional Private Constructor for an index view of a patient store.
 	 * 
-	 * @param patients ArrayList of patients that will serve as the patients in the data set.
+	 * @param patientStore Store holding the patients.
+	 * @param patientIndices Array holding the indices of the patients in the store.  The range used by
+	 * the view must not be used by any other data set.
+	 * @param firstIndex Position of the view's first index in patientIndices.
+	 * @param numberOfPatients Number of patients in the view.
+	 */
+	private BreastCancerDataSet(PatientStore patientStore, int[] patientIndices, int firstIndex, int numberOfPatients){
+		this.patientStore = patientStore;
+		this.patientIndices = patientIndices;
+		this.firstIndex = firstIndex;
+		this.numberOfPatients = numberOfPatients;
+	}
+	
+	
+	/**
+	 * Moves the added patients into a new patient store so the data set becomes a view of all of
+	 * the store's patients.  Nothing is done if the data set is already a view.
 	 */
-	private BreastCancerDataSet(List<Patient> patients){
-		setOfPatients = patients;
+	private void buildPatientStore(){
+		
+		if(addedPatients == null) return;
+		
+		useWholeStore(new PatientStore(addedPatients.toArray(new Patient[addedPatients.size()])));
+		addedPatients = null;
+	}
+	
+	
+	/**
+	 * Makes the data set a view of all of a store's patients in store order.
+	 * 
+	 * @param newPatientStore Store whose patients are in the data set.
+	 */
+	private void useWholeStore(PatientStore newPatientStore){
+		
+		patientStore = newPatientStore;
+		numberOfPatients = patientStore.columns.getNumberOfPatients();
+		patientIndices = new int[numberOfPatients];
+		for(int i = 0; i < numberOfPatients; i++)
+			patientIndices[i] = i;
+		firstIndex = 0;
+		
+		//---- The view is the whole store in store order so it uses the store's columns.
+		patientColumns = patientStore.columns;
+	}
+	
+	
+	/**
+	 * Accessor for a patient in the data set.
+	 * 
+	 * @param index Index of the patient in the data set.
+	 * @return Patient at the specified index.
+	 */
+	private Patient getPatient(int index){
+		if(addedPatients != null)
+			return addedPatients.get(index);
+		return patientStore.getPatient(patientIndices[firstIndex + index]);
 	}
 	
 	
@@ -55,7 +142,7 @@ public class BreastCancerDataSet {
 	 */
 	public void addPatient(String features){
 		Patient newPatient = new Patient(features);
-		setOfPatients.add(newPatient);
+		addPatient(newPatient);
 	}
 	
 
@@ -65,7 +152,18 @@ public class BreastCancerDataSet {
 	 * @param newPatient A Patient object,
 	 */
 	public void addPatient(Patient newPatient){
-		setOfPatients.add(newPatient);
+		//---- The store is shared with other data sets so a view gets its own list of patients instead.
+		if(addedPatients == null){
+			addedPatients = new ArrayList<Patient>(numberOfPatients + 1);
+			for(int i = 0; i < numberOfPatients; i++)
+				addedPatients.add(getPatient(i));
+			patientStore = null;
+			patientIndices = null;
+			firstIndex = numberOfPatients = 0;
+		}
+		addedPatients.add(newPatient);
+		//---- The columns are stale so they will be rebuilt when next needed.
+		patientColumns = null;
 	}
 	
 	
@@ -75,7 +173,9 @@ public class BreastCancerDataSet {
 	 * @return Number of patients in the data set.
 	 */
 	public int getDataSetSize(){
-		return setOfPatients.size();
+		if(addedPatients != null)
+			return addedPatients.size();
+		return numberOfPatients;
 	}
 	
 	
@@ -88,17 +188,56 @@ public class BreastCancerDataSet {
 	 * @return New BreastCancerDataSet of size numbElements
 	 */
 	public BreastCancerDataSet removeRandomSubset(int numbElements){
-		//---- Shuffle the ArrayList.
+		return removeRandomSubset(numbElements, GARandom.current());
+	}
+	
+	
+	/**
+	 * Splits a breast cancer into two using the specified random number generator to
+	 * select the removed elements.  Only this data set's patient indices are shuffled and the
+	 * two halves are views of the same index array so no patient is copied and the patients
+	 * stay shared with any other data set split from the same store.
+	 * 
+	 * @param numbElements Number of elements to remove from the current data
+	 * @param random Random number generator used to shuffle the data set.
+	 * @return New BreastCancerDataSet of size numbElements
+	 */
+	public BreastCancerDataSet removeRandomSubset(int numbElements, GARandom random){
+		
+		if(numbElements < 0 || numbElements > getDataSetSize())
+			throw new IllegalArgumentException("Unable to remove " + numbElements + " patients from a data set of " 
+											   + getDataSetSize() + " patients.");
+		buildPatientStore();
+		
+		//---- Shuffle the indices.
 		if(allowShuffling)
-			Collections.shuffle(setOfPatients);
+			shufflePatients(random);
 		
-		List<Patient> removedSublist = new ArrayList<Patient>(setOfPatients.subList(0, numbElements));
+		//---- The removed patients are the start of this data set's index range.
+		BreastCancerDataSet removedSubset = new BreastCancerDataSet(patientStore, patientIndices, firstIndex, numbElements);
 		
 		//----- Update this objects set of patients.
-		setOfPatients = new ArrayList<Patient>(setOfPatients.subList(numbElements, setOfPatients.size()));
+		firstIndex += numbElements;
+		numberOfPatients -= numbElements;
+		patientColumns = null;
 		
-		//---- Create a new breast cancer data set.
-		return new BreastCancerDataSet(removedSublist);
+		return removedSubset;
+	}
+	
+	
+	/**
+	 * Performs a Fisher-Yates shuffle of the data set's patient indices.
+	 * 
+	 * @param random Random number generator used to shuffle the data set.
+	 */
+	private void shufflePatients(GARandom random){
+		int swapIndex, tempIndex;
+		for(int i = numberOfPatients - 1; i > 0; i--){
+			swapIndex = firstIndex + random.nextInt(i + 1);
+			tempIndex = patientIndices[firstIndex + i];
+			patientIndices[firstIndex + i] = patientIndices[swapIndex];
+			patientIndices[swapIndex] = tempIndex;
+		}
 	}
 	
 	
@@ -111,7 +250,82 @@ public class BreastCancerDataSet {
 	
 	
 	/**
-	 * Static method to merge two BreastCancerDataSets.
+	 * Selects whether chromosomes are scored using the columnar patient data or
+	 * by iterating through the list of patient objects.  Both give identical results.
+	 * 
+	 * @param enableColumnarScoring True to use the columnar scoring engine.
+	 */
+	public static void setUseColumnarScoring(boolean enableColumnarScoring){
+		useColumnarScoring = enableColumnarScoring;
+	}
+	
+	
+	/**
+	 * Accessor for the columnar copy of the patients in the data set.  If the data set
+	 * was modified since the columns were last built, they are rebuilt.  A view gathers its
+	 * columns from its store's columns instead of its patient objects.
+	 * 
+	 * @return Columnar patient data for this data set.
+	 */
+	public PatientFeatureColumns getPatientColumns(){
+		if(patientColumns == null){
+			buildPatientStore();
+			if(patientColumns == null)
+				patientColumns = new PatientFeatureColumns(patientStore.columns, patientIndices, firstIndex, numberOfPatients);
+		}
+		return patientColumns;
+	}
+	
+	
+	/**
+	 * Creates a data set of some of the patients of this data set (e.g. a cross-validation fold).
+	 * The subset is an index view: it shares this data set's patient store instead of copying the
+	 * patients into a new list so creating it costs O(k) for k patients and any number of subsets,
+	 * including subsets created concurrently, can share one data set.
+	 * 
+	 * @param patientIndices Indices of the patients in this data set in the order of the subset.  It is
+	 * not modified.
+	 * @return Data set of the specified patients.
+	 */
+	public BreastCancerDataSet createSubset(int[] patientIndices){
+		
+		buildPatientStore();
+		
+		//---- The subset indexes the store directly so views of views stay one level deep.
+		int[] storeIndices = new int[patientIndices.length];
+		for(int i = 0; i < patientIndices.length; i++)
+			storeIndices[i] = this.patientIndices[firstIndex + patientIndices[i]];
+		
+		return new BreastCancerDataSet(patientStore, storeIndices, 0, storeIndices.length);
+	}
+	
+	
+	/**
+	 * Creates a data set of either the malignant or the benign patients of this data set in data set
+	 * order.  Like createSubset, the result is an index view that shares this data set's patient store.
+	 * 
+	 * @param malignant True for the malignant patients and false for the benign patients.
+	 * @return Data set of the patients of the specified class.
+	 */
+	public BreastCancerDataSet createClassSubset(boolean malignant){
+		
+		buildPatientStore();
+		
+		int[] storeIndices = new int[numberOfPatients];
+		int numberInClass = 0, storeIndex;
+		for(int i = 0; i < numberOfPatients; i++){
+			storeIndex = patientIndices[firstIndex + i];
+			if(patientStore.columns.isMalignant(storeIndex) == malignant)
+				storeIndices[numberInClass++] = storeIndex;
+		}
+		
+		return new BreastCancerDataSet(patientStore, storeIndices, 0, numberInClass);
+	}
+	
+	
+	/**
+	 * Static method to merge two BreastCancerDataSets.  Data sets split from the same store are
+	 * merged by concatenating their indices so the patients are not copied.
 	 * 
 	 * @param dataSet1 First BreastCancerDataSet object.
 	 * @param dataSet2 Second BreastCancerDataSet object.
@@ -121,12 +335,25 @@ public class BreastCancerDataSet {
 	public static BreastCancerDataSet mergeDataSets(BreastCancerDataSet dataSet1, 
 													BreastCancerDataSet dataSet2){
 		
-		//--- Combine the two lists of the datasets.
-		List<Patient> mergedList = new ArrayList<Patient>();
+		int index;
+		dataSet1.buildPatientStore();
+		dataSet2.buildPatientStore();
+		
+		//---- Append the second data set's indices to the first's.
+		if(dataSet1.patientStore == dataSet2.patientStore){
+			int[] mergedIndices = new int[dataSet1.numberOfPatients + dataSet2.numberOfPatients];
+			System.arraycopy(dataSet1.patientIndices, dataSet1.firstIndex, mergedIndices, 0, dataSet1.numberOfPatients);
+			System.arraycopy(dataSet2.patientIndices, dataSet2.firstIndex, mergedIndices, dataSet1.numberOfPatients, 
+							 dataSet2.numberOfPatients);
+			return new BreastCancerDataSet(dataSet1.patientStore, mergedIndices, 0, mergedIndices.length);
+		}
 		
-		//---- Append the two lists.
-		mergedList.addAll(dataSet1.setOfPatients);
-		mergedList.addAll(dataSet2.setOfPatients);
+		//--- Data sets from different stores are combined into a new store.
+		List<Patient> mergedList = new ArrayList<Patient>(dataSet1.numberOfPatients + dataSet2.numberOfPatients);
+		for(index = 0; index < dataSet1.numberOfPatients; index++)
+			mergedList.add(dataSet1.getPatient(index));
+		for(index = 0; index < dataSet2.numberOfPatients; index++)
+			mergedList.add(dataSet2.getPatient(index));
 		
 		//--- Build and return the new data set.
 		return new BreastCancerDataSet(mergedList);
@@ -134,6 +361,55 @@ public class BreastCancerDataSet {
 	}
 	
 	
+	/**
+	 * Writes the patients of the data set in order so a checkpointed run can be resumed
+	 * with exactly the same training and verification split.
+	 * 
+	 * @param out Destination of the patients.
+	 * @throws IOException If the patients cannot be written.
+	 */
+	void writeTo(DataOutput out) throws IOException{
+		
+		//---- The patients are read from the store's columns so no patient objects are created.
+		buildPatientStore();
+		PatientFeatureColumns storeColumns = patientStore.columns;
+		int storeIndex;
+		
+		out.writeInt(numberOfPatients);
+		for(int index = 0; index < numberOfPatients; index++){
+			storeIndex = patientIndices[firstIndex + index];
+			out.writeLong(patientStore.idNumbers[storeIndex]);
+			for(int featureIndex = 0; featureIndex < Patient.numberDataElementsPerPatient(); featureIndex++)
+				out.writeInt(storeColumns.getFeature(storeIndex, featureIndex));
+			out.writeBoolean(storeColumns.isMalignant(storeIndex));
+		}
+	}
+	
+	
+	/**
+	 * Reads a data set written by writeTo.
+	 * 
+	 * @param in Source of the patients.
+	 * @return Data set with the patients in the order they were written.
+	 * @throws IOException If the patients cannot be read.
+	 */
+	static BreastCancerDataSet readFrom(DataInput in) throws IOException{
+		
+		int numberOfPatients = in.readInt();
+		if(numberOfPatients < 0) throw new IOException("Invalid number of patients: " + numberOfPatients);
+		
+		List<Patient> patients = new ArrayList<Patient>(numberOfPatients);
+		for(int i = 0; i < numberOfPatients; i++){
+			long idNumber = in.readLong();
+			int[] features = new int[Patient.numberDataElementsPerPatient()];
+			for(int featureIndex = 0; featureIndex < features.length; featureIndex++)
+				features[featureIndex] = in.readInt();
+			patients.add(new Patient(idNumber, features, in.readBoolean()));
+		}
+		return new BreastCancerDataSet(patients);
+	}
+	
+	
 	
 	/**
 	 * Determines the score of a given chromosome and a population.
@@ -157,8 +433,34 @@ public class BreastCancerDataSet {
 	}
 	
 
+	/**
+	 * Determines the score and total separation of a given chromosome and a population.
+	 * 
+	 * @param chromosome Chromosome whose population score will be calculated.
+	 * @param malignancyBiasFactor A bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @return Two element array containing the chromosome's score and its total separation.
+	 */
 	public double[] getChromosomeScoreAndSeparationForPopulation(GAChromosome chromosome, int malignancyBiasFactor){
 		
+		//---- Use the columnar engine if enabled.
+		if(useColumnarScoring)
+			return getPatientColumns().getScoreAndSeparation(chromosome.getGenomeWords(), 
+															 chromosome.getGenomeBase(), malignancyBiasFactor);
+		
+		return getChromosomeScoreAndSeparationFromPatientList(chromosome, malignancyBiasFactor);
+	}
+	
+	
+	/**
+	 * Determines the score and total separation of a chromosome by iterating through the
+	 * list of patient objects.
+	 * 
+	 * @param chromosome Chromosome whose population score will be calculated.
+	 * @param malignancyBiasFactor A bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @return Two element array containing the chromosome's score and its total separation.
+	 */
+	private double[] getChromosomeScoreAndSeparationFromPatientList(GAChromosome chromosome, int malignancyBiasFactor){
+		
 		int chromosomeScore = 0;
 		int index;
 		double patientScore;
@@ -169,9 +471,9 @@ public class BreastCancerDataSet {
 		int chromosomeOffset = chromosome.getOffset();
 		
 		//---- Iterate through the 
-		for(index = 0; index < setOfPatients.size(); index++){
+		for(index = 0; index < getDataSetSize(); index++){
 			//---- Get the patient
-			patient = setOfPatients.get(index);
+			patient = getPatient(index);
 			//---- Determine the score for that patient
 			patientScore = patient.calculateLinearFunction(chromosomeGainVector, chromosomeOffset);
 			//---- Update the separation.
@@ -214,9 +516,9 @@ public class BreastCancerDataSet {
 		int chromosomeOffset = chromosome.getOffset();
 		
 		//---- Iterate through the 
-		for(index = 0; index < setOfPatients.size(); index++){
+		for(index = 0; index < getDataSetSize(); index++){
 			//---- Get the patient
-			patient = setOfPatients.get(index);
+			patient = getPatient(index);
 			if(patient.isMalignant()){
 				numberOfMalignantPatients++;
 				
@@ -244,5 +546,114 @@ public class BreastCancerDataSet {
 		int numbCorrect = this.getChromosomeScoreForPopulation(chromosome);
 		return numbCorrect * 100.0 / this.getDataSetSize();
 	}
+
+	
+	
+	/**
+	 * Builds the confusion matrix of each of a set of chromosomes in a single pass over this data set.
+	 * The matrices give the accuracy, the malignancy accuracy and the separation of every chromosome
+	 * so a set of solutions (e.g. the best of each restart) can be compared without a pass per chromosome
+	 * and statistic.
+	 * 
+	 * @param chromosomes Chromosomes to be evaluated.
+	 * @return Confusion matrix of each chromosome in the same order.
+	 */
+	public GAConfusionMatrix[] getConfusionMatrices(GAChromosome[] chromosomes){
+		
+		//---- Use the columnar engine if enabled.  A view that has not gathered its own columns (e.g. a
+		//---- verification set) reads the store's columns through its indices instead of copying them.
+		if(useColumnarScoring){
+			buildPatientStore();
+			if(patientColumns == null)
+				return patientStore.columns.getConfusionMatrices(chromosomes, patientIndices, firstIndex, numberOfPatients);
+			return patientColumns.getConfusionMatrices(chromosomes);
+		}
+		
+		GAConfusionMatrix[] confusionMatrices = new GAConfusionMatrix[chromosomes.length];
+		int[][] gainVectors = new int[chromosomes.length][];
+		int[] offsets = new int[chromosomes.length];
+		int chromosomeIndex;
+		long patientScore;
+		Patient patient;
+		
+		for(chromosomeIndex = 0; chromosomeIndex < chromosomes.length; chromosomeIndex++){
+			confusionMatrices[chromosomeIndex] = new GAConfusionMatrix();
+			gainVectors[chromosomeIndex] = chromosomes[chromosomeIndex].getGainVector();
+			offsets[chromosomeIndex] = chromosomes[chromosomeIndex].getOffset();
+		}
+		
+		//---- Visit each patient once for all of the chromosomes.
+		for(int index = 0; index < getDataSetSize(); index++){
+			patient = getPatient(index);
+			for(chromosomeIndex = 0; chromosomeIndex < chromosomes.length; chromosomeIndex++){
+				//---- The patient's score is negated for benign patients so undo it for the matrix.
+				patientScore = patient.calculateLinearFunction(gainVectors[chromosomeIndex], offsets[chromosomeIndex]);
+				confusionMatrices[chromosomeIndex].addPatient(patient.isMalignant() ? patientScore : -patientScore, patient.isMalignant());
+			}
+		}
+		
+		return confusionMatrices;
+	}
+	
+	
+	/**
+	 * Builds the confusion matrix of a chromosome in a single pass over this data set.
+	 * 
+	 * @param chromosome Chromosome to be evaluated.
+	 * @return Confusion matrix of the chromosome.
+	 */
+	public GAConfusionMatrix getConfusionMatrix(GAChromosome chromosome){
+		return getConfusionMatrices(new GAChromosome[] {chromosome})[0];
+	}
+	
+	
+	/**
+	 * Immutable patients shared by the data sets split from them.  The patients are kept as feature
+	 * columns from which each view gathers its own scoring columns.  Patient objects are only built
+	 * (all at once) the first time a list based path needs one.
+	 */
+	private static final class PatientStore {
+		
+		private final PatientFeatureColumns columns;
+		private final long[] idNumbers;
+		private volatile Patient[] patients;		//---- Null until a patient object is needed.
+		
+		PatientStore(Patient[] patients){
+			this.patients = patients;
+			columns = new PatientFeatureColumns(Arrays.asList(patients));
+			idNumbers = new long[patients.length];
+			for(int i = 0; i < patients.length; i++)
+				idNumbers[i] = patients[i].getIdNumber();
+		}
+		
+		PatientStore(PatientFeatureColumns columns, long[] idNumbers){
+			this.columns = columns;
+			this.idNumbers = idNumbers;
+		}
+		
+		Patient getPatient(int index){
+			Patient[] storePatients = patients;
+			if(storePatients == null){
+				synchronized(this){
+					if(patients == null)
+						patients = buildPatients();
+					storePatients = patients;
+				}
+			}
+			return storePatients[index];
+		}
+		
+		private Patient[] buildPatients(){
+			Patient[] storePatients = new Patient[columns.getNumberOfPatients()];
+			int[] features;
+			for(int i = 0; i < storePatients.length; i++){
+				features = new int[Patient.numberDataElementsPerPatient()];
+				for(int featureIndex = 0; featureIndex < features.length; featureIndex++)
+					features[featureIndex] = columns.getFeature(i, featureIndex);
+				storePatients[i] = new Patient(idNumbers[i], features, columns.isMalignant(i));
+			}
+			return storePatients;
+		}
+	}
 	
 }
@@ -1,26 +1,71 @@
 package cs123A;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.management.JMException;
 
 public class BreastCancerGeneticAlgorithm {
 
-	private static final int NUMBER_OF_GENERATIONS = 1000;
 	private static final int PREVIOUS_GENERATION_CARRY_OVER_SIZE = 5;
-	private static final int NUMBER_CROSSOVER_POINTS = 3;
+	private static int numberCrossoverPoints = 3;				//---- 0 selects uniform crossover.
 	private static final int NUMBER_RANDOM_RESTARTS = 5;
 	private static boolean saveResultsToFile = false;
-	private static String resultsFileName = "GA Results.csv";
+	private static GAResultsWriter.Format resultsFormat = GAResultsWriter.Format.CSV;
+	private static String resultsFileName = null;				//---- Null selects a default name for the results format.
+	private static GAResultsWriter resultsWriter;				//---- Stays open for the whole program.
 	private static int numberTimesToRunProgram = 1;
 	private static boolean balanceMaligantPatients = false;
 	private static int malignancyBiasFactor = 1;
+	private static int fitnessCacheCapacity = 0;				//---- 0 disables the fitness cache.
+	private static int numberIslands = 0;						//---- Fewer than 2 islands uses independent restarts.
+	private static int migrationInterval = 50;					//---- Generations between migrations.
+	private static int numberMigrants = 2;						//---- Chromosomes received by each island per migration.
+	private static GAIsland.MigrationTopology migrationTopology = GAIsland.MigrationTopology.RING;
+	private static boolean useBoundedEvaluation = false;		//---- Stops scoring chromosomes that cannot become elites.
+	private static int workerPort = 0;							//---- Non-zero runs this process as a scoring worker.
+	private static InetAddress listenAddress = null;			//---- Null makes the worker or service listen on the loopback interface only.
+	private static String modelFileName = null;					//---- Null disables saving the trained model.
+	private static int servicePort = 0;							//---- Non-zero runs this process as a classification service.
+	private static int streamPort = 0;							//---- Non-zero enables the service's record stream endpoint.
+	private static String verificationFileName = null;			//---- Non-null only verifies the model against the file.
+	private static boolean printVerificationReport = false;		//---- Reports every restart's (or island's) best solution.
+	private static int numberCrossValidationFolds = 0;			//---- 0 disables cross-validation.
+	private static int numberCrossValidationRepetitions = 1;
+	private static GAMetricsSink.SinkType metricsSinkType = GAMetricsSink.SinkType.NONE;
+	private static String metricsFileName = null;				//---- Null selects a default name for the sink type.
+	private static GAMetricsSink metricsSink;					//---- Null if no metrics are recorded.
+	private static boolean resumeFromCheckpoint = false;		//---- Continues from the checkpoint file if it exists.
+	private static final String DEFAULT_DATA_SET_FILE = "breast-cancer-wisconsin.data.txt";
+	private static String loadedDataSetFileName = null;			//---- File whose patients are in loadedDataSet.
+	private static BreastCancerDataSet loadedDataSet;			//---- Shared by every execution's training and verification sets.
+	private static long masterRandomSeed = System.nanoTime();	//---- Seeds every random stream in the program.
 	private GAChromosome bestSolution;
+	private GAChromosome[] solutions;						//---- Best chromosome of each restart (or island).
+	private int bestSolutionIndex;							//---- Index of bestSolution in solutions.
+	private GAConfusionMatrix[] solutionTrainingMatrices;	//---- Training set confusion matrix of each solution.
+	private String solutionSource;							//---- "run" or "island".
+	private GAConfusionMatrix verificationConfusionMatrix;	//---- Verification set confusion matrix of the best solution.
 	private BreastCancerDataSet trainingDataSet;			//---- Used to train the linear classifier.
 	private BreastCancerDataSet verificationDataSet;  		//---- Used to measure the quality of the training set results.
-	private GAChromosomePopulation chromosomePopulation;	//---- Set of chromosomes used in the genetic algorithm.
+	private GARandom runRandom;								//---- Random streams of this run are split from this generator.
+	private PrintStream out = System.out;					//---- Destination of the printed results.
+	private int executionNumber = 1;						//---- Identifies this execution in the metrics.
+	private GACheckpoint checkpoint;						//---- Null if checkpointing is disabled.
+	private long numberFitnessCacheHits;
+	private long numberFitnessCacheMisses;
 	
 	public static void main(String[] args) {
 		
@@ -29,7 +74,147 @@ public class BreastCancerGeneticAlgorithm {
 		if(!inputArgumentsValid)
 			return;
 		
-		for(int i = 0; i < numberTimesToRunProgram; i++){
+		//---- A worker process only scores chromosomes for a coordinator.
+		if(workerPort != 0){
+			try{
+				GAWorkerServer.serve(listenAddress, workerPort);
+			}
+			catch(IOException e){
+				System.out.println("Error: Unable to start the worker on port " + workerPort + ". Exiting...");
+			}
+			return;
+		}
+		
+		//---- A classification service only classifies patients with a saved model.
+		if(streamPort != 0 && servicePort == 0){
+			System.out.println("Error: The record stream (-STREAM) requires the classification service (-SERVE). Exiting...");
+			return;
+		}
+		if(servicePort != 0){
+			GAClassifierModel model = loadModel("classification service");
+			if(model == null) return;
+			try{
+				GAClassificationServer.serve(listenAddress, servicePort, streamPort, model);
+			}
+			catch(IOException e){
+				System.out.println("Error: Unable to start the classification service on port " + servicePort + ". Exiting...");
+			}
+			return;
+		}
+		
+		//---- Verification only streams a data set file through a saved model.
+		if(verificationFileName != null){
+			GAClassifierModel model = loadModel("verification");
+			if(model != null) verifyModel(model);
+			return;
+		}
+		
+		//---- Open the metrics sink which is shared by all of the executions.
+		if(metricsSinkType != GAMetricsSink.SinkType.NONE){
+			if(metricsFileName == null)
+				metricsFileName = (metricsSinkType == GAMetricsSink.SinkType.JSONL) ? "GA Metrics.jsonl" : "GA Metrics.csv";
+			try{
+				metricsSink = GAMetricsSink.create(metricsSinkType, metricsFileName);
+			}
+			catch(IOException e){
+				System.out.println("Error: Unable to create the metrics file \"" + metricsFileName + "\". Exiting...");
+				return;
+			}
+			catch(JMException e){
+				System.out.println("Error: Unable to register the metrics MXBean. Exiting...");
+				return;
+			}
+		}
+		
+		//---- Cross-validation trains a solution for every fold instead of running the executions.
+		if(numberCrossValidationFolds > 0){
+			if(saveResultsToFile || GACheckpoint.isEnabled())
+				System.out.println("Error: Cross-validation does not support results files or checkpoints. Exiting...");
+			else
+				runCrossValidation();
+			closeOutputs();
+			return;
+		}
+		
+		//---- Open the results file once so the results of all of the executions are batched.
+		if(saveResultsToFile){
+			if(resultsFileName == null)
+				resultsFileName = (resultsFormat == GAResultsWriter.Format.BINARY) ? "GA Results.bin" : "GA Results.csv";
+			try{
+				resultsWriter = GAResultsWriter.create(resultsFormat, resultsFileName);
+			}
+			catch(IOException e){
+				System.out.println("Error: Unable to open the results file \"" + resultsFileName + "\". Exiting...");
+				closeOutputs();
+				return;
+			}
+		}
+		
+		//---- Load the data set file once before any execution starts so a read error ends the program cleanly.
+		int numberLoadedPatients;
+		try{
+			numberLoadedPatients = getLoadedDataSet(DEFAULT_DATA_SET_FILE).getDataSetSize();
+		}
+		catch(IOException e){
+			System.out.println("Error: Unable to read the data set file \"" + DEFAULT_DATA_SET_FILE + "\". Exiting...");
+			closeOutputs();
+			return;
+		}
+		
+		//---- The training data set must leave at least one patient for the verification data set.
+		if(BreastCancerDataSet.getTrainingDataSetSize() >= numberLoadedPatients){
+			System.out.println("Error: The training data set size must be less than the " + numberLoadedPatients 
+							   + " patients in the data set file. Exiting...");
+			closeOutputs();
+			return;
+		}
+		
+		//---- Load the checkpoint of an interrupted program.  Its seed replaces the master seed.
+		GACheckpoint resumedCheckpoint = null;
+		if(GACheckpoint.isEnabled()){
+			if(GARandom.getAlgorithm() != GARandom.Algorithm.XOSHIRO){
+				System.out.println("Error: Checkpointing requires the XOSHIRO random number generator. Exiting...");
+				closeOutputs();
+				return;
+			}
+			if(resumeFromCheckpoint && Files.exists(Paths.get(GACheckpoint.getCheckpointFileName()))){
+				try{
+					resumedCheckpoint = GACheckpoint.load();
+				}
+				catch(IOException e){
+					System.out.println("Error: Unable to read the checkpoint file \"" + GACheckpoint.getCheckpointFileName() 
+									   + "\" (" + e.getMessage() + "). Exiting...");
+					closeOutputs();
+					return;
+				}
+				if(!resumedCheckpoint.hasSettings(serializeCheckpointSettings())){
+					System.out.println("Error: The checkpoint was created with different settings. Exiting...");
+					closeOutputs();
+					return;
+				}
+				masterRandomSeed = resumedCheckpoint.getMasterRandomSeed();
+				System.out.println("Resuming execution #" + resumedCheckpoint.getExecutionNumber() + " from the checkpoint \"" 
+								   + GACheckpoint.getCheckpointFileName() + "\".");
+			}
+		}
+		
+		//---- Each execution of the program gets its own random stream split from the master seed.
+		GARandom.setRootSeed(masterRandomSeed);
+		GARandom masterRandom = GARandom.create(masterRandomSeed);
+		GARandom[] runRandoms = new GARandom[numberTimesToRunProgram];
+		for(int i = 0; i < numberTimesToRunProgram; i++)
+			runRandoms[i] = masterRandom.split();
+		
+		//---- Independent executions can be run concurrently.  A checkpoint only covers one execution at a time.
+		if(GARunScheduler.getNumberThreads() > 1 && numberTimesToRunProgram > 1 && !GACheckpoint.isEnabled()){
+			runProgramInParallel(runRandoms);
+			closeOutputs();
+			return;
+		}
+		
+		//---- The executions before the checkpointed one already finished.
+		int firstExecution = (resumedCheckpoint == null) ? 0 : resumedCheckpoint.getExecutionNumber() - 1;
+		for(int i = firstExecution; i < numberTimesToRunProgram; i++){
 			
 			//---- Print the number of times the algorithm is running
 			if(numberTimesToRunProgram > 1)
@@ -37,7 +222,28 @@ public class BreastCancerGeneticAlgorithm {
 							   	   + " of " + numberTimesToRunProgram + ".");
 			
 			//---- Initialize the genetic algorithm.
-			BreastCancerGeneticAlgorithm geneticAlgorithm = new BreastCancerGeneticAlgorithm();
+			BreastCancerGeneticAlgorithm geneticAlgorithm;
+			if(resumedCheckpoint != null && i == firstExecution){
+				try{
+					geneticAlgorithm = new BreastCancerGeneticAlgorithm(resumedCheckpoint);
+				}
+				catch(IOException e){
+					System.out.println("Error: The checkpoint file \"" + GACheckpoint.getCheckpointFileName() + "\" is invalid. Exiting...");
+					closeOutputs();
+					return;
+				}
+			}
+			else{
+				try{
+					geneticAlgorithm = new BreastCancerGeneticAlgorithm(DEFAULT_DATA_SET_FILE, runRandoms[i]);
+				}
+				catch(IOException e){
+					System.out.println("Error: Unable to read the data set file \"" + DEFAULT_DATA_SET_FILE + "\". Exiting...");
+					closeOutputs();
+					return;
+				}
+				geneticAlgorithm.executionNumber = i + 1;
+			}
 			
 			//---- Run the genetic algorithm.
 			geneticAlgorithm.run();
@@ -45,10 +251,205 @@ public class BreastCancerGeneticAlgorithm {
 			//---- Print the results.
 			geneticAlgorithm.printResults();
 			
+			//--- If the program is set to output to a file, then do so.  A checkpointed program will not
+			//--- rerun this execution once the next execution's checkpoint is written (synchronously, when
+			//--- it starts) so its result is flushed first.
+			if(saveResultsToFile){
+				geneticAlgorithm.outputResultsToFile();
+				if(GACheckpoint.isEnabled()) resultsWriter.flush();
+			}
+			
+			//---- Each execution saves its model to its own file.
+			if(modelFileName != null) geneticAlgorithm.saveModel();
+		}
+		
+		closeOutputs();
+		
+		//---- The checkpoint is only needed until the program finishes.
+		if(GACheckpoint.isEnabled()) GACheckpoint.delete();
+
+	}
+	
+	
+	/**
+	 * Closes the metrics sink and the results file if they are open so every recorded row is written
+	 * before the program ends, including when it ends because of an error.
+	 */
+	private static void closeOutputs(){
+		if(metricsSink != null) metricsSink.close();
+		if(resultsWriter != null) resultsWriter.close();
+		metricsSink = null;
+		resultsWriter = null;
+	}
+	
+	
+	/**
+	 * Loads the model file for a mode that uses a saved model.  An error is printed if it cannot be loaded.
+	 * 
+	 * @param mode Name of the mode used in the error messages.
+	 * @return Model in the model file or null if it cannot be loaded.
+	 */
+	private static GAClassifierModel loadModel(String mode){
+		if(modelFileName == null){
+			System.out.println("Error: The " + mode + " requires a model file (-MODEL). Exiting...");
+			return null;
+		}
+		try{
+			return GAClassifierModel.load(modelFileName);
+		}
+		catch(IOException e){
+			System.out.println("Error: Unable to read the model file \"" + modelFileName + "\" (" + e.getMessage() + "). Exiting...");
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Classifies every patient in the verification file with a model in a single streaming pass
+	 * and prints the confusion matrix, score and accuracies.
+	 * 
+	 * @param model Model to be verified.
+	 */
+	private static void verifyModel(GAClassifierModel model){
+		
+		GAStreamingVerifier verifier = new GAStreamingVerifier(model);
+		try{
+			verifier.verify(verificationFileName);
+		}
+		catch(IOException e){
+			System.out.println("Error: Unable to read the verification file \"" + verificationFileName + "\". Exiting...");
+			return;
+		}
+		
+		//---- Report lines that could not be parsed instead of silently dropping them.
+		if(verifier.getNumberMalformedLines() > 0)
+			System.out.println("Warning: " + verifier.getMalformedLineSummary());
+		
+		GAConfusionMatrix confusionMatrix = verifier.getConfusionMatrix();
+		System.out.println("Verified the model against " + confusionMatrix.getNumberOfPatients() + " patients in \""
+						   + verificationFileName + "\" (" + verifier.getNumberIncompleteLines() + " incomplete line(s) skipped).");
+		confusionMatrix.print(System.out, malignancyBiasFactor);
+	}
+	
+	
+	/**
+	 * Runs a repeated stratified k-fold cross-validation over every patient in the data set file.
+	 * The file is loaded once and each fold is an index view of it.
+	 */
+	private static void runCrossValidation(){
+		
+		BreastCancerDataSet dataSet;
+		try{
+			dataSet = loadDataSet(DEFAULT_DATA_SET_FILE);
+		}
+		catch(IOException e){
+			System.out.println("Error: Unable to read the data set file \"" + DEFAULT_DATA_SET_FILE + "\". Exiting...");
+			return;
+		}
+		if(numberCrossValidationFolds > dataSet.getDataSetSize()){
+			System.out.println("Error: The number of cross-validation folds is larger than the number of patients. Exiting...");
+			return;
+		}
+		
+		GARandom.setRootSeed(masterRandomSeed);
+		GACrossValidation crossValidation = new GACrossValidation(dataSet, numberCrossValidationFolds, numberCrossValidationRepetitions);
+		crossValidation.run(new GACrossValidation.FoldTrainer(){
+			public GAChromosome train(BreastCancerDataSet trainingDataSet, BreastCancerDataSet verificationDataSet, GARandom random,
+									  int foldNumber, PrintStream out){
+				BreastCancerGeneticAlgorithm geneticAlgorithm = new BreastCancerGeneticAlgorithm(trainingDataSet, verificationDataSet, random);
+				geneticAlgorithm.out = out;
+				geneticAlgorithm.executionNumber = foldNumber;
+				geneticAlgorithm.run();
+				geneticAlgorithm.printResults();
+				return geneticAlgorithm.getBestSolution();
+			}
+		}, GARandom.create(masterRandomSeed), malignancyBiasFactor, System.out);
+	}
+	
+	
+	/**
+	 * Loads every valid patient in a data set file in file order.
+	 * 
+	 * @param filename Name of the breast cancer data set file.
+	 * @return Data set of the patients.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static BreastCancerDataSet loadDataSet(String filename) throws IOException{
+		
+		PatientDataFileLoader dataFile = new PatientDataFileLoader(filename);
+		
+		//---- Report lines that could not be parsed instead of silently dropping them.
+		if(dataFile.getNumberMalformedLines() > 0)
+			System.out.println("Warning: " + dataFile.getMalformedLineSummary());
+		
+		//---- The parsed columns become the data set's patient store without creating patient objects.
+		return new BreastCancerDataSet(dataFile.createFeatureColumns(), dataFile.getIdNumbers());
+	}
+	
+	
+	/**
+	 * Loads a data set file the first time it is needed and then returns the same data set so the
+	 * executions (including concurrent ones) split their training and verification sets as index
+	 * views of one copy of the patients.
+	 * 
+	 * @param filename Name of the breast cancer data set file.
+	 * @return Data set of the patients.
+	 * @throws IOException If the file cannot be read.
+	 */
+	private static synchronized BreastCancerDataSet getLoadedDataSet(String filename) throws IOException{
+		if(loadedDataSet == null || !filename.equals(loadedDataSetFileName)){
+			loadedDataSet = null;
+			loadedDataSet = loadDataSet(filename);
+			loadedDataSetFileName = filename;
+		}
+		return loadedDataSet;
+	}
+	
+	
+	/**
+	 * Runs the repeated executions of the program concurrently.  The output of each execution
+	 * is buffered and printed in execution order so the output matches a serial run.
+	 * 
+	 * @param runRandoms Random number generator for each execution.
+	 */
+	private static void runProgramInParallel(GARandom[] runRandoms){
+		
+		final ByteArrayOutputStream[] outputBuffers = new ByteArrayOutputStream[runRandoms.length];
+		List<Callable<BreastCancerGeneticAlgorithm>> tasks = new ArrayList<Callable<BreastCancerGeneticAlgorithm>>();
+		
+		//---- Build a task for each execution.
+		for(int i = 0; i < runRandoms.length; i++){
+			final GARandom runRandom = runRandoms[i];
+			final int executionNumber = i + 1;
+			final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+			outputBuffers[i] = outputBuffer;
+			tasks.add(new Callable<BreastCancerGeneticAlgorithm>(){
+				public BreastCancerGeneticAlgorithm call() throws IOException{
+					//---- main already loaded the data set file so this does not read it again.
+					BreastCancerGeneticAlgorithm geneticAlgorithm = new BreastCancerGeneticAlgorithm(DEFAULT_DATA_SET_FILE, runRandom);
+					geneticAlgorithm.out = new PrintStream(outputBuffer, true);
+					geneticAlgorithm.executionNumber = executionNumber;
+					geneticAlgorithm.run();
+					geneticAlgorithm.printResults();
+					return geneticAlgorithm;
+				}
+			});
+		}
+		
+		//---- Print the results as each execution finishes in order.
+		List<ForkJoinTask<BreastCancerGeneticAlgorithm>> startedTasks = GARunScheduler.submitAll(tasks);
+		for(int i = 0; i < startedTasks.size(); i++){
+			BreastCancerGeneticAlgorithm geneticAlgorithm = GARunScheduler.getResult(startedTasks.get(i));
+			
+			System.out.println("\n\n\nGenetic Algorithm Execution #" + (i+1) 
+						   	   + " of " + runRandoms.length + ".");
+			System.out.print(outputBuffers[i].toString());
+			outputBuffers[i] = null;
+			
 			//--- If the program is set to output to a file, then do so.
 			if(saveResultsToFile) geneticAlgorithm.outputResultsToFile();
+			if(modelFileName != null) geneticAlgorithm.saveModel();
 		}
-
 	}
 
 
@@ -57,67 +458,103 @@ public class BreastCancerGeneticAlgorithm {
 	
 	/**
 	 * Constructor for Breast Cancer Genetic Algorithm using default data set file location.
+	 * 
+	 * @throws IOException If the data set file cannot be read.
 	 */
-	public BreastCancerGeneticAlgorithm(){
-		this("breast-cancer-wisconsin.data.txt");
+	public BreastCancerGeneticAlgorithm() throws IOException{
+		this(DEFAULT_DATA_SET_FILE);
 	}
 	
 	/**
 	 * Constructor for the breast cancer genetic algorithm that allows users to specify a dataset file.
 	 * 
 	 * @param breastCancerDataSetFile Path to the data set file.
+	 * @throws IOException If the data set file cannot be read.
+	 */
+	public BreastCancerGeneticAlgorithm(String breastCancerDataSetFile) throws IOException{
+		this(breastCancerDataSetFile, GARandom.current().split());
+	}
+	
+	/**
+	 * Constructor for the breast cancer genetic algorithm that allows users to specify a dataset file
+	 * and the random number generator from which all random streams of this run are split.
+	 * 
+	 * @param breastCancerDataSetFile Path to the data set file.
+	 * @param runRandom Random number generator owned by this run.
+	 * @throws IOException If the data set file cannot be read.
 	 */
-	public BreastCancerGeneticAlgorithm(String breastCancerDataSetFile){
+	public BreastCancerGeneticAlgorithm(String breastCancerDataSetFile, GARandom runRandom) throws IOException{
+		
+		this.runRandom = runRandom;
 		
 		//---- Initialize the training and verification data sets.
 		trainingDataSet = new BreastCancerDataSet();
 		verificationDataSet = new BreastCancerDataSet();
 		
 		//---- Parse the data set file.
-		this.parseDataSetFile(breastCancerDataSetFile);
+		this.parseDataSetFile(breastCancerDataSetFile, runRandom.split());
 		
 	}
 	
 	/**
-	 * Parser for the breast cancer data set.
+	 * Constructor for the breast cancer genetic algorithm that uses already built training and 
+	 * verification data sets.
+	 * 
+	 * @param trainingDataSet Data set used to train the linear classifier.
+	 * @param verificationDataSet Data set used to measure the quality of the training set results.
+	 */
+	BreastCancerGeneticAlgorithm(BreastCancerDataSet trainingDataSet, BreastCancerDataSet verificationDataSet){
+		this(trainingDataSet, verificationDataSet, GARandom.current().split());
+	}
+	
+	/**
+	 * Constructor for the breast cancer genetic algorithm that uses already built training and 
+	 * verification data sets and the random number generator from which all random streams of this run are split.
+	 * 
+	 * @param trainingDataSet Data set used to train the linear classifier.
+	 * @param verificationDataSet Data set used to measure the quality of the training set results.
+	 * @param runRandom Random number generator owned by this run.
+	 */
+	BreastCancerGeneticAlgorithm(BreastCancerDataSet trainingDataSet, BreastCancerDataSet verificationDataSet, GARandom runRandom){
+		this.trainingDataSet = trainingDataSet;
+		this.verificationDataSet = verificationDataSet;
+		this.runRandom = runRandom;
+	}
+	
+	/**
+	 * Constructor for the breast cancer genetic algorithm that resumes an execution from a checkpoint.
+	 * The training and verification data sets and the run's random number generator are restored
+	 * so the execution continues exactly where it was interrupted.
+	 * 
+	 * @param checkpoint Checkpoint of the interrupted execution.
+	 * @throws IOException If the checkpoint's run state is invalid.
+	 */
+	BreastCancerGeneticAlgorithm(GACheckpoint checkpoint) throws IOException{
+		DataInputStream in = checkpoint.openRunState();
+		trainingDataSet = BreastCancerDataSet.readFrom(in);
+		verificationDataSet = BreastCancerDataSet.readFrom(in);
+		runRandom = GARandom.create(0);
+		runRandom.setState(GACheckpoint.readRandomState(in));
+		executionNumber = checkpoint.getExecutionNumber();
+		this.checkpoint = checkpoint;
+	}
+	
+	/**
+	 * Parser for the breast cancer data set.  The training and verification sets are index views
+	 * of the patients shared by every execution.
 	 * 
 	 * @param filename Name of the breast cancer data set file.
+	 * @param shuffleRandom Random number generator used to split the data set.
+	 * @throws IOException If the data set file cannot be read.
 	 */
-	private void parseDataSetFile(String filename){
+	private void parseDataSetFile(String filename, GARandom shuffleRandom) throws IOException{
 		
-		String fileline;
-		BreastCancerDataSet benignPatients = new BreastCancerDataSet();
-		BreastCancerDataSet malignantPatients = new BreastCancerDataSet();
-		Patient tempPatient;
+		//---- Load the data set file once for all executions.
+		BreastCancerDataSet allPatients = getLoadedDataSet(filename);
 		
-		//---- Open the data set file and parse it.
-		try{
-			Scanner dataFileIn = new Scanner( new FileInputStream(filename) );
-			
-			//----- After building the training set, build the verification data set.
-			while( dataFileIn.hasNext() ){
-				
-				//---- Get the next line.
-				fileline = dataFileIn.nextLine();
-				
-				//---- Ignore the incomplete data set elements.
-				if(fileline.contains("?")) continue;
-				
-				//----- If valid data element, add it to the verification set.
-				tempPatient = new Patient(fileline);
-				if(tempPatient.isMalignant())
-					malignantPatients.addPatient(tempPatient);
-				else
-					benignPatients.addPatient(tempPatient);
-					
-			}
-			
-			//---- Close the input stream.
-			dataFileIn.close();
-		}
-		catch(Exception e){
-			assert(false);
-		}
+		//---- Separate the patients by malignancy.  Incomplete lines were already skipped by the loader.
+		BreastCancerDataSet benignPatients = allPatients.createClassSubset(false);
+		BreastCancerDataSet malignantPatients = allPatients.createClassSubset(true);
 		
 		//----- Separate the source data into the training and verification datasets.
 		if(!balanceMaligantPatients){
@@ -125,7 +562,7 @@ public class BreastCancerGeneticAlgorithm {
 			//---- Merge the two data sets into one.
 			verificationDataSet = BreastCancerDataSet.mergeDataSets(benignPatients, malignantPatients);
 			//---- Remove the Training Data Set from the verification data set.
-			trainingDataSet = verificationDataSet.removeRandomSubset(BreastCancerDataSet.getTrainingDataSetSize());
+			trainingDataSet = verificationDataSet.removeRandomSubset(BreastCancerDataSet.getTrainingDataSetSize(), shuffleRandom);
 			
 		}
 		else{
@@ -136,11 +573,11 @@ public class BreastCancerGeneticAlgorithm {
 			
 			//---- Get the malignant patients for training set.
 			int numbMalignantInTrainingSet = (int)Math.round(percentTraining * malignantPatients.getDataSetSize() );
-			trainingDataSet = malignantPatients.removeRandomSubset( numbMalignantInTrainingSet );
+			trainingDataSet = malignantPatients.removeRandomSubset( numbMalignantInTrainingSet, shuffleRandom );
 			
 			//---- Get the Benign patients for the training set.
 			int numbBenignInTrainingSet =  BreastCancerDataSet.getTrainingDataSetSize() - numbMalignantInTrainingSet;
-			BreastCancerDataSet tempDataSet = benignPatients.removeRandomSubset( numbBenignInTrainingSet );
+			BreastCancerDataSet tempDataSet = benignPatients.removeRandomSubset( numbBenignInTrainingSet, shuffleRandom );
 			//---- Construct the full training set.
 			trainingDataSet = BreastCancerDataSet.mergeDataSets(trainingDataSet, tempDataSet);
 			
@@ -157,116 +594,588 @@ public class BreastCancerGeneticAlgorithm {
 	 */
 	public void run(){
 		
-		GAChromosome[] bestChromosomes;
-		GAChromosome parent1, parent2, child;
-		int generationNumber, i, restartNumber;
+		int restartNumber;
 		GAChromosome tempBestSolution;
+		List<GAChromosome> restartSolutions;
+		//----- The time budget covers the whole run so it is shared by the restarts.
+		long runStartTime = System.nanoTime();
+		List<GAStoppingCriteria> stoppingCriteria = new ArrayList<GAStoppingCriteria>();
 		
-		//----- Run the genetic algorithm with the specified number of restarts.
-		for(restartNumber = 0; restartNumber < NUMBER_RANDOM_RESTARTS; restartNumber++){
+		//----- A resumed execution already has its checkpoint.  Otherwise, save the run state before anything evolves.
+		if(checkpoint == null && GACheckpoint.isEnabled())
+			checkpoint = createCheckpoint();
 		
-			//---- Create the genetic algorithm chromosome population from a random generated solution set.
-			chromosomePopulation = new GAChromosomePopulation();
-			chromosomePopulation.createRandomPopulation();
-			//---- Score population members.
-			chromosomePopulation.scorePopulationMembers(trainingDataSet, malignancyBiasFactor);
+		//----- Either evolve cooperating islands or the independent random restarts.
+		if(numberIslands > 1){
+			stoppingCriteria.add(new GAStoppingCriteria(trainingDataSet, runStartTime));
+			restartSolutions = runIslands(stoppingCriteria.get(0));
+			solutionSource = "island";
+		}
+		else{
+			List<Callable<GAChromosome>> restartTasks = new ArrayList<Callable<GAChromosome>>();
 			
-			// Iterate through all the generations.
-			for(generationNumber = 0; generationNumber < NUMBER_OF_GENERATIONS; generationNumber++){
-				
-				//---- Build a new chromosome population.
-				GAChromosomePopulation newPopulation = new GAChromosomePopulation();
-				
-				//---- Get the specified number of best chromosomes from this generation.
-				bestChromosomes = chromosomePopulation.getBestChromosomes(PREVIOUS_GENERATION_CARRY_OVER_SIZE);
-				for(i = 0; i < PREVIOUS_GENERATION_CARRY_OVER_SIZE; i++)
-					newPopulation.addChromosome(bestChromosomes[i]);
-				
-				//---- Keep building the chromosome population until it reaches the specified size.
-				while(newPopulation.getPopulationSize() < GAChromosomePopulation.getMaximumPopulationSize()){
-					
-					//---- Select two parents for crossover
-					parent1 = chromosomePopulation.performTournamentSelection(20);
-					parent2 = chromosomePopulation.performTournamentSelection(20);
-					
-					//---- Crossover parent chromosomes to form the child.
-					child = parent1.crossover(parent2, NUMBER_CROSSOVER_POINTS);
-					
-					//---- Perform mutation.
-					child.mutate();
-					
-					//---- Add the modified chromosome to the new population.
-					newPopulation.addChromosome(child);
-				}	
-				
-				//--- Replace the existing population with the new population.
-				chromosomePopulation = newPopulation;
-				
-				//---- Score population members.
-				chromosomePopulation.scorePopulationMembers(trainingDataSet, malignancyBiasFactor);
-				
+			//----- Build the specified number of restarts.  Each restart gets its own random stream and stopping criteria.
+			for(restartNumber = 0; restartNumber < NUMBER_RANDOM_RESTARTS; restartNumber++){
+				final int restartIndex = restartNumber;
+				final GARandom restartRandom = runRandom.split();
+				final GAStoppingCriteria restartStoppingCriteria = new GAStoppingCriteria(trainingDataSet, runStartTime);
+				final GAMetricsRecorder restartMetrics = createMetricsRecorder("run", restartNumber + 1);
+				stoppingCriteria.add(restartStoppingCriteria);
+				restartTasks.add(new Callable<GAChromosome>(){
+					public GAChromosome call(){
+						return runRestart(restartIndex, restartRandom, restartStoppingCriteria, restartMetrics);
+					}
+				});
 			}
 			
-			//----- Extract the best chromosome from the final solution.
-			bestChromosomes = chromosomePopulation.getBestChromosomes(1);
+			//----- Run the restarts which may be done concurrently.
+			restartSolutions = GARunScheduler.runAll(restartTasks);
+			solutionSource = "run";
+		}
+		
+		//----- Wait for the pending checkpoint writes so they cannot recreate the file once the program deletes it.
+		if(checkpoint != null) checkpoint.flush();
+		
+		//----- Evaluate every solution on the training set in a single pass.
+		solutions = restartSolutions.toArray(new GAChromosome[restartSolutions.size()]);
+		solutionTrainingMatrices = trainingDataSet.getConfusionMatrices(solutions);
+		
+		//----- The training set is no longer scored so the workers can drop their copies.
+		GADistributedScorer.releaseDataSet(trainingDataSet);
+		
+		//----- Merge the results in restart (or island) order.
+		for(restartNumber = 0; restartNumber < restartSolutions.size(); restartNumber++){
+			
 			//----- Get the best chromosome. 
-			tempBestSolution = bestChromosomes[0];
+			tempBestSolution = restartSolutions.get(restartNumber);
 			
 			//---- Overwrite the best solution if appropriate by score or because no best solution found yet.
 			if(bestSolution == null || tempBestSolution.getScore() > bestSolution.getScore()
 					||(tempBestSolution.getScore() == bestSolution.getScore() && tempBestSolution.getTotalSeparation() > bestSolution.getTotalSeparation())){
 				bestSolution = tempBestSolution;
+				bestSolutionIndex = restartNumber;
 			}
 			
-			System.out.println("After run #" + Integer.toString(restartNumber+1) + ", the percent correct on the training set is: " 
-							   + String.format("%2.2f",trainingDataSet.getChromosomeScoreForPopulation(bestSolution) * 100.0 / trainingDataSet.getDataSetSize()));
+			out.println("After " + solutionSource + " #" + Integer.toString(restartNumber+1) + ", the percent correct on the training set is: " 
+							   + String.format("%2.2f",solutionTrainingMatrices[bestSolutionIndex].getPercentCorrect()));
+			if(restartNumber < stoppingCriteria.size() && numberIslands <= 1 && stoppingCriteria.get(restartNumber).shouldReportStop())
+				out.println("Run #" + Integer.toString(restartNumber+1) + " " + stoppingCriteria.get(restartNumber).getStopDescription());
 		}
+		if(numberIslands > 1 && stoppingCriteria.get(0).shouldReportStop())
+			out.println("The islands " + stoppingCriteria.get(0).getStopDescription());
+		
+		//---- Report how effective the fitness cache was.
+		if(fitnessCacheCapacity > 0)
+			out.println("The fitness cache hit rate was: " 
+						+ String.format("%2.2f", numberFitnessCacheHits * 100.0 / Math.max(1, numberFitnessCacheHits + numberFitnessCacheMisses))
+						+ "% (" + numberFitnessCacheHits + " hits and " + numberFitnessCacheMisses + " misses).");
 		
 		//---- Print a basic results summary.
-		System.out.println("On the training set, the score for the best solution is: " + Integer.toString(bestSolution.getScore()));
-		System.out.println("The percent correct is: " +  String.format("%2.2f",trainingDataSet.getChromosomeScoreForPopulation(bestSolution) * 100.0 
-																					/ trainingDataSet.getDataSetSize()) + "%.");		
+		out.println("On the training set, the score for the best solution is: " + Integer.toString(bestSolution.getScore()));
+		out.println("The percent correct is: " +  String.format("%2.2f",solutionTrainingMatrices[bestSolutionIndex].getPercentCorrect()) + "%.");		
 		
 		//---- Print the gain vector.
-		System.out.println("\nThe linear function weights are:");
-		System.out.println(bestSolution.toString());
+		out.println("\nThe linear function weights are:");
+		out.println(bestSolution.toString());
 		
 	}
 	
 	/**
+	 * Runs a single random restart of the genetic algorithm.  If checkpointing is enabled, the
+	 * restart's state is saved every checkpoint interval generations and a restart found in a
+	 * resumed checkpoint continues from its saved state.
 	 * 
+	 * @param restartIndex Index of the restart starting at 0.
+	 * @param random Random number generator used exclusively by this restart.
+	 * @param stoppingCriteria Criteria that decide when this restart stops.  Records why it stopped.
+	 * @param metrics Recorder of the per generation metrics of this restart.  May be null.
+	 * @return Best chromosome in the final generation.
 	 */
-	public void printResults(){
+	private GAChromosome runRestart(int restartIndex, GARandom random, GAStoppingCriteria stoppingCriteria, GAMetricsRecorder metrics){
 		
-		//---- Get statistics on the solution.
-		int scoreWithMalignancyBiasFactor = verificationDataSet.getChromosomeScoreForPopulation(bestSolution, malignancyBiasFactor);
+		GAChromosomePopulation chromosomePopulation;
+		int generationNumber = 0;
+		long resumedCacheHits = 0, resumedCacheMisses = 0;
+		//---- Each restart reuses its own chromosomes between generations.
+		GAChromosomePool chromosomePool = new GAChromosomePool(random);
+		//---- Each restart has its own fitness cache since caches are not thread safe.
+		GAFitnessCache fitnessCache = null;
+		if(fitnessCacheCapacity > 0)
+			fitnessCache = new GAFitnessCache(trainingDataSet, malignancyBiasFactor, fitnessCacheCapacity);
 		
-		//---- Print a basic results summary.
-		System.out.println("On the verification set, the score for the best solution is: " + scoreWithMalignancyBiasFactor);
-		System.out.println("The percent correct is: " + String.format("%2.2f", verificationDataSet.getPercentCorrect(bestSolution)) 
-							+ "%.");
-		System.out.println("The percentage of malignant tumors correctly categorized is: " 
-							+  String.format("%2.2f",verificationDataSet.getMaligancyAccuracyForPopulation(bestSolution)) + "%.");
+		DataInputStream checkpointState = (checkpoint != null) ? checkpoint.openUnitState(restartIndex) : null;
+		if(checkpointState == null){
+			if(metrics != null) metrics.startGeneration();
+			//---- Create the genetic algorithm chromosome population from a random generated solution set.
+			chromosomePopulation = new GAChromosomePopulation(random);
+			chromosomePopulation.createRandomPopulation();
+			//---- Score population members.
+			long scoringStartTime = (metrics != null) ? System.nanoTime() : 0;
+			chromosomePopulation.scorePopulationMembers(trainingDataSet, malignancyBiasFactor, fitnessCache);
+			if(metrics != null){
+				metrics.addScoringTime(scoringStartTime);
+				metrics.recordGeneration(chromosomePopulation, chromosomePool);
+			}
+		}
+		else{
+			//---- Continue from the checkpoint.  A finished restart only needs its result.
+			try{
+				byte unitStatus = checkpointState.readByte();
+				stoppingCriteria.readState(checkpointState);
+				resumedCacheHits = checkpointState.readLong();
+				resumedCacheMisses = checkpointState.readLong();
+				if(unitStatus == GACheckpoint.UNIT_DONE){
+					recordFitnessCacheStatistics(resumedCacheHits, resumedCacheMisses);
+					return GAChromosome.readFrom(checkpointState);
+				}
+				generationNumber = checkpointState.readInt();
+				random.setState(GACheckpoint.readRandomState(checkpointState));
+				chromosomePopulation = GAChromosomePopulation.readFrom(checkpointState, random, trainingDataSet, malignancyBiasFactor);
+			}
+			catch(IOException e){
+				throw new IllegalStateException("The checkpoint of run #" + (restartIndex + 1) + " is invalid.", e);
+			}
+			if(metrics != null) metrics.setNextGenerationNumber(generationNumber + 1);
+		}
+		
+		// Iterate through the generations until a stopping criterion is met.  The elites are requested
+		// so the next generation reuses the selection.
+		while(!stoppingCriteria.shouldStop(chromosomePopulation.getBestChromosomes(PREVIOUS_GENERATION_CARRY_OVER_SIZE)[0], generationNumber)){
+			chromosomePopulation = runGeneration(chromosomePopulation, chromosomePool, fitnessCache, metrics);
+			if(metrics != null) metrics.recordGeneration(chromosomePopulation, chromosomePool);
+			generationNumber++;
+			
+			//---- The state is saved before the stopping criteria see the new generation so a resumed restart repeats the check.
+			if(checkpoint != null && generationNumber % GACheckpoint.getCheckpointInterval() == 0)
+				checkpoint.publishUnitState(restartIndex, serializeRestartState(stoppingCriteria, 
+											resumedCacheHits + ((fitnessCache != null) ? fitnessCache.getNumberHits() : 0),
+											resumedCacheMisses + ((fitnessCache != null) ? fitnessCache.getNumberMisses() : 0), 
+											generationNumber, random, chromosomePopulation, null));
+		}
 		
+		if(fitnessCache != null)
+			recordFitnessCacheStatistics(fitnessCache);
+		recordFitnessCacheStatistics(resumedCacheHits, resumedCacheMisses);
+		
+		//----- Extract the best chromosome from the final solution.
+		GAChromosome bestChromosome = chromosomePopulation.getBestChromosomes(1)[0];
+		if(checkpoint != null)
+			checkpoint.publishUnitState(restartIndex, serializeRestartState(stoppingCriteria,
+										resumedCacheHits + ((fitnessCache != null) ? fitnessCache.getNumberHits() : 0),
+										resumedCacheMisses + ((fitnessCache != null) ? fitnessCache.getNumberMisses() : 0), 
+										generationNumber, random, null, bestChromosome));
+		return bestChromosome;
 	}
 	
 	/**
-	 * Accessor for the best solution in a data set.
+	 * Serializes the state of a random restart for the checkpoint.  An unfinished restart saves
+	 * its population and random number generator while a finished one only saves its result.
 	 * 
-	 * @return GAChromosome that has the best score from the current population.
+	 * @param stoppingCriteria Stopping criteria of the restart.
+	 * @param cacheHits Fitness cache hits of the restart so far.
+	 * @param cacheMisses Fitness cache misses of the restart so far.
+	 * @param generationNumber Number of generations completed.
+	 * @param random Random number generator of the restart.
+	 * @param population Current population if the restart is unfinished.  Otherwise null.
+	 * @param bestChromosome Best chromosome if the restart is finished.  Otherwise null.
+	 * @return Serialized restart state.
 	 */
-	public GAChromosome getBestSolution(){
-		return bestSolution;
+	private static byte[] serializeRestartState(final GAStoppingCriteria stoppingCriteria, final long cacheHits, final long cacheMisses,
+												final int generationNumber, final GARandom random, 
+												final GAChromosomePopulation population, final GAChromosome bestChromosome){
+		return GACheckpoint.serialize(new GACheckpoint.StateWriter(){
+			public void write(DataOutputStream out) throws IOException{
+				out.writeByte((bestChromosome != null) ? GACheckpoint.UNIT_DONE : GACheckpoint.UNIT_IN_PROGRESS);
+				stoppingCriteria.writeState(out);
+				out.writeLong(cacheHits);
+				out.writeLong(cacheMisses);
+				if(bestChromosome != null){
+					bestChromosome.writeTo(out);
+					return;
+				}
+				out.writeInt(generationNumber);
+				GACheckpoint.writeRandomState(out, random);
+				population.writeTo(out);
+			}
+		});
 	}
 	
+	/**
+	 * Runs the island model genetic algorithm.  The islands evolve concurrently for an epoch of
+	 * migrationInterval generations without any synchronization and then exchange their best 
+	 * chromosomes serially before the next epoch starts.  The stopping criteria are checked between
+	 * epochs against the best chromosome of all of the islands.
+	 * 
+	 * @param stoppingCriteria Criteria that decide when the islands stop.  Records why they stopped.
+	 * @return Best chromosome of each island in island order.
+	 */
+	private List<GAChromosome> runIslands(GAStoppingCriteria stoppingCriteria){
 		
+		int i, generationNumber;
+		final GAIsland[] islands = new GAIsland[numberIslands];
+		List<Callable<Void>> epochTasks = new ArrayList<Callable<Void>>();
+		List<GAChromosome> islandSolutions = new ArrayList<GAChromosome>();
+		
+		long resumedCacheHits = 0, resumedCacheMisses = 0;
+		
+		//---- Create the islands.  Each one gets its own random stream and fitness cache.  A resumed
+		//---- checkpoint restores the islands' populations and random number generators.
+		generationNumber = 0;
+		DataInputStream checkpointState = (checkpoint != null) ? checkpoint.openUnitState(0) : null;
+		try{
+			if(checkpointState != null){
+				generationNumber = checkpointState.readInt();
+				stoppingCriteria.readState(checkpointState);
+				resumedCacheHits = checkpointState.readLong();
+				resumedCacheMisses = checkpointState.readLong();
+			}
+			for(i = 0; i < numberIslands; i++){
+				GAFitnessCache fitnessCache = null;
+				if(fitnessCacheCapacity > 0)
+					fitnessCache = new GAFitnessCache(trainingDataSet, malignancyBiasFactor, fitnessCacheCapacity);
+				GARandom islandRandom = runRandom.split();
+				GAMetricsRecorder islandMetrics = createMetricsRecorder("island", i + 1);
+				if(checkpointState == null)
+					islands[i] = new GAIsland(islandRandom, trainingDataSet, malignancyBiasFactor, fitnessCache, islandMetrics);
+				else{
+					islands[i] = GAIsland.readFrom(checkpointState, islandRandom, trainingDataSet, malignancyBiasFactor, fitnessCache, islandMetrics);
+					if(islandMetrics != null) islandMetrics.setNextGenerationNumber(generationNumber + 1);
+				}
+			}
+		}
+		catch(IOException e){
+			throw new IllegalStateException("The checkpoint of the islands is invalid.", e);
+		}
+		
+		int lastCheckpointGeneration = generationNumber;
+		while(!stoppingCriteria.shouldStop(getBestIslandChromosome(islands), generationNumber)){
+			
+			//---- The last epoch may be shorter than the migration interval.
+			final int epochLength = Math.min(migrationInterval, GAStoppingCriteria.getMaximumNumberGenerations() - generationNumber);
+			epochTasks.clear();
+			for(i = 0; i < numberIslands; i++){
+				final GAIsland island = islands[i];
+				epochTasks.add(new Callable<Void>(){
+					public Void call(){
+						island.evolve(BreastCancerGeneticAlgorithm.this, epochLength);
+						return null;
+					}
+				});
+			}
+			GARunScheduler.runAll(epochTasks);
+			generationNumber += epochLength;
+			
+			//---- Migrate between epochs but not after the final one.
+			if(generationNumber < GAStoppingCriteria.getMaximumNumberGenerations())
+				GAIsland.migrate(islands, numberMigrants, migrationTopology);
+			
+			//---- Islands are only saved between epochs once at least a checkpoint interval has passed.
+			if(checkpoint != null && generationNumber - lastCheckpointGeneration >= GACheckpoint.getCheckpointInterval()){
+				checkpoint.publishUnitState(0, serializeIslandState(stoppingCriteria, islands, resumedCacheHits, resumedCacheMisses, generationNumber));
+				lastCheckpointGeneration = generationNumber;
+			}
+		}
+		
+		//---- Extract the best chromosome of each island.
+		for(i = 0; i < numberIslands; i++){
+			islandSolutions.add(islands[i].getBestChromosome());
+			if(islands[i].getFitnessCache() != null)
+				recordFitnessCacheStatistics(islands[i].getFitnessCache());
+		}
+		recordFitnessCacheStatistics(resumedCacheHits, resumedCacheMisses);
+		return islandSolutions;
+	}
 	
+	/**
+	 * Serializes the state of the island model for the checkpoint.
+	 * 
+	 * @param stoppingCriteria Stopping criteria of the islands.
+	 * @param islands All islands in the model.
+	 * @param resumedCacheHits Fitness cache hits before the islands were resumed.
+	 * @param resumedCacheMisses Fitness cache misses before the islands were resumed.
+	 * @param generationNumber Number of generations completed.
+	 * @return Serialized island model state.
+	 */
+	private static byte[] serializeIslandState(final GAStoppingCriteria stoppingCriteria, final GAIsland[] islands, 
+											   final long resumedCacheHits, final long resumedCacheMisses, final int generationNumber){
+		return GACheckpoint.serialize(new GACheckpoint.StateWriter(){
+			public void write(DataOutputStream out) throws IOException{
+				long cacheHits = resumedCacheHits, cacheMisses = resumedCacheMisses;
+				for(GAIsland island : islands){
+					if(island.getFitnessCache() == null) continue;
+					cacheHits += island.getFitnessCache().getNumberHits();
+					cacheMisses += island.getFitnessCache().getNumberMisses();
+				}
+				out.writeInt(generationNumber);
+				stoppingCriteria.writeState(out);
+				out.writeLong(cacheHits);
+				out.writeLong(cacheMisses);
+				for(GAIsland island : islands)
+					island.writeTo(out);
+			}
+		});
+	}
 	
 	/**
+	 * Finds the best chromosome across all of the islands.  Ties favor lower islands.
 	 * 
-	 * -OF - Flag to instruct the program to save the results to a file.
+	 * @param islands All islands in the model.
+	 * @return Best chromosome of all of the islands.
+	 */
+	private static GAChromosome getBestIslandChromosome(GAIsland[] islands){
+		GAChromosome bestChromosome = null, islandBest;
+		for(GAIsland island : islands){
+			islandBest = island.getBestChromosome();
+			if(bestChromosome == null || islandBest.getScore() > bestChromosome.getScore()
+					|| (islandBest.getScore() == bestChromosome.getScore() && islandBest.getTotalSeparation() > bestChromosome.getTotalSeparation()))
+				bestChromosome = islandBest;
+		}
+		return bestChromosome;
+	}
+	
+	/**
+	 * Creates the metrics recorder of a restart or island.
 	 * 
-	 * -BAL - Flag to enable the balance malignant patients 
+	 * @param source "run" for a random restart or "island" for an island.
+	 * @param sourceNumber Number of the restart or island starting at 1.
+	 * @return New recorder or null if no metrics are recorded.
+	 */
+	private GAMetricsRecorder createMetricsRecorder(String source, int sourceNumber){
+		if(metricsSink == null) return null;
+		return new GAMetricsRecorder(metricsSink, executionNumber, source, sourceNumber);
+	}
+	
+	/**
+	 * Runs a single generation of the genetic algorithm without recording metrics.
+	 * 
+	 * @param population Current (scored) chromosome population.
+	 * @param chromosomePool Pool used to build the child chromosomes.
+	 * @param fitnessCache Cache of previously calculated scores.  May be null.
+	 * @return Scored chromosome population of the next generation.
+	 */
+	GAChromosomePopulation runGeneration(GAChromosomePopulation population, GAChromosomePool chromosomePool, 
+										 GAFitnessCache fitnessCache){
+		return runGeneration(population, chromosomePool, fitnessCache, null);
+	}
+	
+	/**
+	 * Runs a single generation of the genetic algorithm.  The elites of the current population
+	 * are carried over and the remainder of the new population is built via tournament selection,
+	 * crossover and mutation.  The new population is built in the chromosome pool's spare population
+	 * and the current population is returned to the pool so it must not be used afterwards.
+	 * 
+	 * @param population Current (scored) chromosome population.
+	 * @param chromosomePool Pool used to build the child chromosomes.
+	 * @param fitnessCache Cache of previously calculated scores.  May be null.
+	 * @param metrics Recorder that is charged the time spent in each phase.  May be null.
+	 * @return Scored chromosome population of the next generation.
+	 */
+	GAChromosomePopulation runGeneration(GAChromosomePopulation population, GAChromosomePool chromosomePool, 
+										 GAFitnessCache fitnessCache, GAMetricsRecorder metrics){
+		
+		GAChromosome parent1, parent2, child;
+		boolean timeChild;
+		if(metrics != null) metrics.startGeneration();
+		long phaseStartTime = (metrics != null) ? System.nanoTime() : 0;
+		
+		//---- Build a new chromosome population in the pool's spare population.
+		GAChromosomePopulation newPopulation = chromosomePool.acquirePopulation();
+		
+		//---- Copy the specified number of best chromosomes from this generation.
+		newPopulation.addBestChromosomes(population, PREVIOUS_GENERATION_CARRY_OVER_SIZE);
+		if(metrics != null) metrics.addSelectionTime(phaseStartTime);
+		
+		//---- Keep building the chromosome population until it reaches the specified size.
+		while(newPopulation.getPopulationSize() < GAChromosomePopulation.getMaximumPopulationSize()){
+			
+			//---- Only a sample of the children are timed since reading the clock is not free.
+			timeChild = (metrics != null) && metrics.sampleChild();
+			if(timeChild) phaseStartTime = System.nanoTime();
+			
+			//---- Select two parents for crossover
+			parent1 = population.performTournamentSelection(20);
+			parent2 = population.performTournamentSelection(20);
+			if(timeChild) phaseStartTime = metrics.addSampledSelectionTime(phaseStartTime);
+			
+			//---- Crossover parent chromosomes to form the child directly in the new population.
+			child = newPopulation.appendChromosome();
+			if(numberCrossoverPoints == 0)
+				chromosomePool.uniformCrossover(parent1, parent2, child);
+			else
+				chromosomePool.crossover(parent1, parent2, numberCrossoverPoints, child);
+			if(timeChild) phaseStartTime = metrics.addSampledCrossoverTime(phaseStartTime);
+			
+			//---- Perform mutation.
+			child.mutate(chromosomePool.getRandom());
+			if(timeChild) metrics.addSampledMutationTime(phaseStartTime);
+		}	
+		
+		//--- Recycle the old population.  Its slots are overwritten by the generation after next.
+		chromosomePool.releasePopulation(population);
+		
+		//---- Score population members.  A child scoring below the worst carried over chromosome can never
+		//---- be an elite so its evaluation may stop early.
+		int scoreThreshold = Integer.MIN_VALUE;
+		if(useBoundedEvaluation)
+			scoreThreshold = newPopulation.getMember(PREVIOUS_GENERATION_CARRY_OVER_SIZE - 1).getScore();
+		if(metrics != null) phaseStartTime = System.nanoTime();
+		newPopulation.scorePopulationMembers(trainingDataSet, malignancyBiasFactor, fitnessCache, scoreThreshold);
+		if(metrics != null) metrics.addScoringTime(phaseStartTime);
+		
+		return newPopulation;
+	}
+	
+	/**
+	 * Adds a restart's fitness cache counters to the totals for this run.  Restarts may
+	 * finish concurrently so the update is synchronized.
+	 * 
+	 * @param fitnessCache Fitness cache of the finished restart.
+	 */
+	private synchronized void recordFitnessCacheStatistics(GAFitnessCache fitnessCache){
+		recordFitnessCacheStatistics(fitnessCache.getNumberHits(), fitnessCache.getNumberMisses());
+	}
+	
+	/**
+	 * Adds fitness cache counters to the totals for this run.  It is used for the counters
+	 * restored from a checkpoint.
+	 * 
+	 * @param numberHits Number of fitness cache hits.
+	 * @param numberMisses Number of fitness cache misses.
+	 */
+	private synchronized void recordFitnessCacheStatistics(long numberHits, long numberMisses){
+		numberFitnessCacheHits += numberHits;
+		numberFitnessCacheMisses += numberMisses;
+	}
+	
+	/**
+	 * Creates the checkpoint of this execution and writes it so the run state is saved before
+	 * any restart or island starts evolving.  The write is waited for since it replaces the
+	 * previous execution's checkpoint, whose results row is already in the results file.  Until
+	 * it is replaced, a resumed program would rerun that execution and append its row again.
+	 * 
+	 * @return Checkpoint of this execution.
+	 */
+	private GACheckpoint createCheckpoint(){
+		byte[] runState = GACheckpoint.serialize(new GACheckpoint.StateWriter(){
+			public void write(DataOutputStream out) throws IOException{
+				trainingDataSet.writeTo(out);
+				verificationDataSet.writeTo(out);
+				GACheckpoint.writeRandomState(out, runRandom);
+			}
+		});
+		GACheckpoint newCheckpoint = new GACheckpoint(serializeCheckpointSettings(), masterRandomSeed, executionNumber, runState, 
+													  (numberIslands > 1) ? 1 : NUMBER_RANDOM_RESTARTS);
+		newCheckpoint.write();
+		newCheckpoint.flush();
+		return newCheckpoint;
+	}
+	
+	/**
+	 * Serializes the settings that change the results of the program.  A checkpoint can only be
+	 * resumed with the same settings.  Settings that only affect the speed are not included.
+	 * 
+	 * @return Serialized settings.
+	 */
+	private static byte[] serializeCheckpointSettings(){
+		return GACheckpoint.serialize(new GACheckpoint.StateWriter(){
+			public void write(DataOutputStream out) throws IOException{
+				out.writeInt(GAChromosomePopulation.getMaximumPopulationSize());
+				out.writeInt(malignancyBiasFactor);
+				out.writeInt(numberCrossoverPoints);
+				out.writeInt(numberTimesToRunProgram);
+				out.writeInt(NUMBER_RANDOM_RESTARTS);
+				out.writeInt(BreastCancerDataSet.getTrainingDataSetSize());
+				out.writeBoolean(balanceMaligantPatients);
+				out.writeBoolean(useBoundedEvaluation);
+				out.writeInt(numberIslands);
+				out.writeInt(migrationInterval);
+				out.writeInt(numberMigrants);
+				out.writeUTF(migrationTopology.name());
+				GAStoppingCriteria.writeSettings(out);
+			}
+		});
+	}
+	
+	/**
+	 * 
+	 */
+	public void printResults(){
+		
+		//---- Get statistics on the solutions in a single pass over the verification set.  Only the
+		//---- best solution is needed unless every solution is reported.
+		GAConfusionMatrix[] verificationMatrices = null;
+		if(printVerificationReport){
+			verificationMatrices = verificationDataSet.getConfusionMatrices(solutions);
+			verificationConfusionMatrix = verificationMatrices[bestSolutionIndex];
+		}
+		GAConfusionMatrix confusionMatrix = getVerificationConfusionMatrix();
+		
+		//---- The reported score has always been the unbiased score (see getChromosomeScoreForPopulation).
+		long score = confusionMatrix.getScore(1);
+		
+		//---- Print a basic results summary.
+		out.println("On the verification set, the score for the best solution is: " + score);
+		out.println("The percent correct is: " + String.format("%2.2f", confusionMatrix.getPercentCorrect()) 
+							+ "%.");
+		out.println("The percentage of malignant tumors correctly categorized is: " 
+							+  String.format("%2.2f",confusionMatrix.getMalignantPercentCorrect()) + "%.");
+		
+		if(printVerificationReport) printVerificationReport(verificationMatrices);
+	}
+	
+	
+	/**
+	 * Accessor for the verification set confusion matrix of the best solution.  It is calculated
+	 * the first time it is needed.
+	 * 
+	 * @return Confusion matrix of the best solution on the verification set.
+	 */
+	private GAConfusionMatrix getVerificationConfusionMatrix(){
+		if(verificationConfusionMatrix == null)
+			verificationConfusionMatrix = verificationDataSet.getConfusionMatrix(bestSolution);
+		return verificationConfusionMatrix;
+	}
+	
+	
+	/**
+	 * Prints a table comparing the best solution of every restart (or island) on the training and
+	 * verification sets.
+	 * 
+	 * @param verificationMatrices Verification set confusion matrix of each solution.
+	 */
+	private void printVerificationReport(GAConfusionMatrix[] verificationMatrices){
+		
+		out.println("\nVerification report of the best solution of each " + solutionSource + ":");
+		out.println(String.format("%-12s%10s%14s%11s%16s%8s%8s%8s%8s", "Solution", "Training", "Verification", "Malignant",
+								  "Separation", "TP", "FN", "FP", "TN"));
+		for(int i = 0; i < solutions.length; i++){
+			GAConfusionMatrix matrix = verificationMatrices[i];
+			out.println(String.format("%-12s%9.2f%%%13.2f%%%10.2f%%%16.4e%8d%8d%8d%8d",
+									  solutionSource + " #" + (i + 1) + ((i == bestSolutionIndex) ? "*" : ""),
+									  solutionTrainingMatrices[i].getPercentCorrect(), matrix.getPercentCorrect(),
+									  matrix.getMalignantPercentCorrect(), matrix.getSeparation(), matrix.getTruePositives(),
+									  matrix.getFalseNegatives(), matrix.getFalsePositives(), matrix.getTrueNegatives()));
+		}
+		out.println("* Best solution on the training set.");
+	}
+	
+	/**
+	 * Accessor for the best solution in a data set.
+	 * 
+	 * @return GAChromosome that has the best score from the current population.
+	 */
+	public GAChromosome getBestSolution(){
+		return bestSolution;
+	}
+	
+		
+	
+	
+	/**
+	 * 
+	 * -OF - Flag to instruct the program to save the results to a file.
+	 * 
+	 * -BAL - Flag to enable the balance malignant patients 
 	 * proportionally between the training and verification data sets.
 	 * This is followed by an integer flag to indicate whether to disable shuffling.  
 	 * A 1 disables shuffling while a 0 leaves shuffling of patients enabled.
@@ -275,7 +1184,7 @@ public class BreastCancerGeneticAlgorithm {
 	 * This is followed by an integer number.
 	 * 
 	 * -TDS - Indicator for the number of the size of the training data set.
-	 * This is followed by an integer number.
+	 * This is followed by an integer number that is less than the number of patients in the data set file.
 	 * 
 	 * -SS - Indicator to change the maximum solution size of the algorithm (i.e. number of chromosomes in a generation)
 	 * This is followed by an integer number.
@@ -283,11 +1192,127 @@ public class BreastCancerGeneticAlgorithm {
 	 * -MP - Indicate to set the malignant penalty.
 	 * This is followed by an integer number.
 	 * 
+	 * -PS - Indicator for the number of threads used to score each generation in parallel.
+	 * This is followed by an integer number.  1 scores serially.
+	 * 
+	 * -CP - Indicator for the number of crossover points used in n-point crossover.
+	 * This is followed by an integer number.  0 selects uniform crossover.
+	 * 
+	 * -PT - Indicator for the number of threads used to run the random restarts and
+	 * the repeated executions of the program concurrently.
+	 * This is followed by an integer number.  1 runs them serially.
+	 * 
+	 * -SEED - Indicator for the seed from which every random number stream is derived.
+	 * This is followed by an integer number.  Runs with the same seed and flags are reproducible.
+	 * 
+	 * -RNG - Indicator for the random number generation algorithm.
+	 * This is followed by XOSHIRO (default) or SPLITTABLE.
+	 * 
+	 * -FC - Indicator for the number of entries in each restart's fitness cache.
+	 * This is followed by an integer number.  0 (the default) disables the cache.  The cache
+	 * hit rate is only printed if the cache is enabled.
+	 * 
+	 * -IS - Indicator for the number of islands in the island model.  This is followed
+	 * by an integer number.  2 or more islands replaces the independent random restarts.
+	 * 
+	 * -MI - Indicator for the number of generations between island migrations.
+	 * This is followed by an integer number.
+	 * 
+	 * -MC - Indicator for the number of migrants each island receives per migration.
+	 * This is followed by an integer number.
+	 * 
+	 * -MT - Indicator for the island migration topology.  This is followed by
+	 * RING (default) or ALL.
+	 * 
+	 * -BE - Indicator for whether chromosome evaluation stops early once a chromosome cannot
+	 * reach the elite scores.  This is followed by 1 (enabled) or 0 (disabled, the default).
+	 * 
+	 * -SM - Indicator for the chromosome scoring strategy.  This is followed by
+	 * CHROMOSOME (default) or BATCH.
+	 * 
+	 * -VS - Indicator for whether the Vector API scoring backend is used.  This is
+	 * followed by 1 (enabled) or 0 (disabled, the default).
+	 * 
+	 * -WORKER - Runs this process as a scoring worker.  This is followed by the port
+	 * number the worker listens on.
+	 * 
+	 * -HOST - Indicator for the address the worker (-WORKER) or classification service (-SERVE) listens
+	 * on.  This is followed by a host name or IP address (e.g. 0.0.0.0 for every interface).  By default
+	 * only the loopback interface is used because neither authenticates its clients.
+	 * 
+	 * -WORKERS - Indicator for the scoring workers used by this process.  This is followed
+	 * by a comma separated list of host:port addresses (e.g. localhost:5001,localhost:5002).
+	 * 
+	 * -NG - Indicator for the maximum number of generations of each run.  This is followed
+	 * by an integer number (default 1000).
+	 * 
+	 * -PL - Indicator for the number of generations without an improvement in the best score
+	 * or separation after which a run stops.  This is followed by an integer number (0 disables).
+	 * 
+	 * -TA - Indicator for the percent correct on the training set at which a run stops.
+	 * This is followed by a number between 0 and 100 (0 disables).
+	 * 
+	 * -TB - Indicator for the time budget in seconds.  The budget is shared by all of the restarts
+	 * (or islands) of a run.  This is followed by a number (0 disables).
+	 * 
+	 * -MS - Indicator for where the per generation metrics are recorded.  This is followed by
+	 * NONE (default), CSV, JSONL or JMX.
+	 * 
+	 * -MF - Indicator for the file written by the CSV and JSONL metrics sinks.  This is followed
+	 * by the file name (default "GA Metrics.csv" or "GA Metrics.jsonl").
+	 * 
+	 * -CF - Indicator for the checkpoint file.  This is followed by the file name.  The state of
+	 * each execution is periodically saved to the file which is deleted once the program finishes.
+	 * Checkpointing requires the XOSHIRO random number generator and runs the executions serially.
+	 * 
+	 * -CI - Indicator for the number of generations between checkpoints of each restart (or of the
+	 * islands).  This is followed by an integer number (default 50).
+	 * 
+	 * -CR - Indicator for whether the program resumes from the checkpoint file if it exists.  This is
+	 * followed by 1 (resume) or 0 (start over, the default).  The checkpoint's seed is used and the
+	 * other settings must match the checkpointed program.
+	 * 
+	 * -RS - Indicator for the format of the results file.  This is followed by CSV (default) or
+	 * BINARY.  It also enables saving the results to a file like -OF.
+	 * 
+	 * -RF - Indicator for the results file.  This is followed by the file name (default
+	 * "GA Results.csv" or "GA Results.bin").
+	 * 
+	 * -MODEL - Indicator for the model file.  This is followed by the file name.  When training, the best
+	 * solution is saved to the file.  With more than one execution (-NR), each execution saves its best
+	 * solution to its own file with the execution number added before the extension (e.g. model-2.txt).
+	 * With -SERVE, the model is read from the file.
+	 * 
+	 * -SERVE - Indicator to run this process as a classification service (see GAClassificationServer).
+	 * This is followed by the port the service listens on.  It requires -MODEL.
+	 * 
+	 * -STREAM - Indicator for the port of the classification service's record stream endpoint.  This
+	 * is followed by the port number.  Clients that send one record at a time should write their records
+	 * to this endpoint (one per line, without waiting for replies) so the service classifies them in
+	 * batches.  It requires -SERVE.
+	 * 
+	 * -VERIFY - Indicator to verify a saved model (-MODEL) against a data set file instead of training.
+	 * This is followed by the file name.  The file is streamed so it may be larger than memory.  The
+	 * confusion matrix, the score (with the -MP malignancy penalty) and the accuracies are printed.
+	 * 
+	 * -VR - Indicator for whether a verification report is printed.  This is followed by 1 (print) or
+	 * 0 (do not print, the default).  The report compares the best solution of every restart (or
+	 * island) on the training and verification sets.  All of the solutions are evaluated in a single
+	 * pass over each data set.
+	 * 
+	 * -CV - Indicator for the number of cross-validation folds.  This is followed by an integer number
+	 * of at least 2.  Instead of the executions, a stratified k-fold cross-validation over every patient
+	 * in the data set file is run and summarized.  The folds are trained concurrently with -PT threads.
+	 * -TDS, -BAL and -NR do not apply.
+	 * 
+	 * -CVR - Indicator for the number of times the cross-validation is repeated with a new split of the
+	 * patients into folds.  This is followed by an integer number (default 1).
+	 * 
 	 * @param args Command line input arguments.
 	 * 
 	 * @return True of the input arguments were successfully parsed, false otherwise.
 	 */
-	enum CommandLineFlag{ SS, NR, BAL, MP, TDS, OF}
+	enum CommandLineFlag{ SS, NR, BAL, MP, TDS, OF, PS, CP, PT, SEED, RNG, FC, IS, MI, MC, MT, BE, SM, VS, WORKER, HOST, WORKERS, NG, PL, TA, TB, MS, MF, CF, CI, CR, RS, RF, MODEL, SERVE, STREAM, VERIFY, VR, CV, CVR}
 	private static boolean parseInputArguments(String[] args){
 		
 		//--- Command line flag.
@@ -360,9 +1385,8 @@ public class BreastCancerGeneticAlgorithm {
 				if(i == args.length) return printInvalidNumberInputArguments();
 				try{
 					BreastCancerDataSet.setTrainingDataSetSize(Integer.parseInt(args[i]));
-					///----- Check the training data set size is valid.
-					if(BreastCancerDataSet.getTrainingDataSetSize() < 1
-							|| BreastCancerDataSet.getTrainingDataSetSize() > BreastCancerDataSet.MAXIMUM_TRAINING_DATA_SET_SIZE){
+					///----- Check the training data set size is valid.  The upper bound depends on the data set file so it is checked once the file is loaded.
+					if(BreastCancerDataSet.getTrainingDataSetSize() < 1){
 						System.out.println("Error: The training data set size is invalid. Exiting...");
 						return false;
 					}
@@ -435,85 +1459,686 @@ public class BreastCancerGeneticAlgorithm {
 				}
 				break;
 			
-			//--------------------------------------------------//
-			//  Unable to parse input argument so return exit.  //
-			//--------------------------------------------------//
-			default:
-				System.out.println("Error: Invalid input argument \"" + args[i] + "\".");
-				return false;
-			}
-		}
-		
-		//----- All arguments successfully parsed so return true.
-		return true;
-	}
-	/**
-	 * Error message used to print an invalid number of input arguments.
-	 * 
-	 * @return false to indicate the parse failed.
-	 */
-	private static boolean printInvalidNumberInputArguments(){
-		System.out.println("Error: The number of input arguments is invalid. Exiting...");
-		return false;
-	}
-	
-	
-	/**
-	 * Appends the simulation results to a CSV file.
-	 */
-	private void outputResultsToFile(){
-
-		String outputString = "";
-		File outputFile = new File(resultsFileName);
-		//---- Flag to say whether to create a new file.
-		boolean createFile = !outputFile.exists() || outputFile.isDirectory();
-				
-		//---- Open the file out
-		try{
-			//---- Open the output file.
-			BufferedWriter fileOut = new BufferedWriter(new FileWriter(outputFile, true)); //--- True is for append.
-		
-			//---- If needed added a header.
-			if(createFile){
-				outputString += "Chromosomes Per Generation,Malignancy Penalty,Training Data Set Size,Balance Malignant Patients,";
-				outputString += "Total Percent Correct,Malignant Percent Correct,";
-				outputString += "Mitoses,Clump Thickness,Cell Size Uniformity, Cell Shape Uniformity,Marginal Adhesion,Single Epithelilal Cell Size,";
-				outputString += "Bare Nucleoli,Bland Chromatin, Normal Nucleoli,Offset";
-				//---- Write the file
-				fileOut.write(outputString);
-				//--- Reset the output string.
-				outputString = "";
-			}
-			
-			//--- Add a new line from the previous data.
-			fileOut.newLine();
-			
-			//---- Output basic information on the results.
-			outputString += GAChromosomePopulation.getMaximumPopulationSize();
-			outputString += "," + malignancyBiasFactor;
-			outputString += "," + BreastCancerDataSet.getTrainingDataSetSize();
-			outputString += "," + balanceMaligantPatients;
-			outputString += "," + verificationDataSet.getPercentCorrect(bestSolution);
-			outputString += "," + verificationDataSet.getMaligancyAccuracyForPopulation(bestSolution);
-			
-			//---- Get and output the gain vector
-			int[] gainVector = bestSolution.getGainVector();
-			for(int i = 0; i < gainVector.length; i++)
-				outputString += "," + gainVector[i];
-			//---- Get and output the offset vector
-			outputString += "," + bestSolution.getOffset();
-			
-			//--- Output the results.
-			fileOut.write(outputString);
-			//--- Close the output stream.
-			fileOut.close();
-		}
-		//---- Catch a file write error.
-		catch(Exception e){
-			System.out.println("Error writing to file: \"" + resultsFileName + "\".  No results written.");
-		}
+			//---------------------------------------------------//
+			//       Parse the number of scoring threads.        //
+			//---------------------------------------------------//
+			case PS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int numberScoringThreads = Integer.parseInt(args[i]);
+					if(numberScoringThreads < 1){
+						System.out.println("Error: The number of scoring threads is invalid. Exiting...");
+						return false;
+					}
+					GAChromosomePopulation.setNumberScoringThreads(numberScoringThreads);
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of scoring threads is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//       Parse the number of crossover points.       //
+			//---------------------------------------------------//
+			case CP:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					numberCrossoverPoints = Integer.parseInt(args[i]);
+					if(numberCrossoverPoints < 0){
+						System.out.println("Error: The number of crossover points is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of crossover points is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//  Parse the number of restart and run threads.     //
+			//---------------------------------------------------//
+			case PT:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int numberTaskThreads = Integer.parseInt(args[i]);
+					if(numberTaskThreads < 1){
+						System.out.println("Error: The number of restart threads is invalid. Exiting...");
+						return false;
+					}
+					GARunScheduler.setNumberThreads(numberTaskThreads);
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of restart threads is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//             Parse the random seed.                //
+			//---------------------------------------------------//
+			case SEED:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					masterRandomSeed = Long.parseLong(args[i]);
+				}
+				catch(Exception e){
+					System.out.println("Error: The random seed is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//   Parse the random number generation algorithm.   //
+			//---------------------------------------------------//
+			case RNG:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					GARandom.setAlgorithm(GARandom.Algorithm.valueOf(args[i]));
+				}
+				catch(Exception e){
+					System.out.println("Error: The random number generator is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//         Parse the fitness cache capacity.         //
+			//---------------------------------------------------//
+			case FC:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					fitnessCacheCapacity = Integer.parseInt(args[i]);
+					if(fitnessCacheCapacity < 0 || fitnessCacheCapacity > (1 << 28)){
+						System.out.println("Error: The fitness cache capacity is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The fitness cache capacity is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//            Parse the number of islands.           //
+			//---------------------------------------------------//
+			case IS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					numberIslands = Integer.parseInt(args[i]);
+					if(numberIslands < 0){
+						System.out.println("Error: The number of islands is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of islands is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//          Parse the migration interval.            //
+			//---------------------------------------------------//
+			case MI:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					migrationInterval = Integer.parseInt(args[i]);
+					if(migrationInterval <= 0){
+						System.out.println("Error: The migration interval is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The migration interval is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the number of migrants.           //
+			//---------------------------------------------------//
+			case MC:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					numberMigrants = Integer.parseInt(args[i]);
+					if(numberMigrants < 0){
+						System.out.println("Error: The number of migrants is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of migrants is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//          Parse the migration topology.            //
+			//---------------------------------------------------//
+			case MT:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					migrationTopology = GAIsland.MigrationTopology.valueOf(args[i]);
+				}
+				catch(Exception e){
+					System.out.println("Error: The migration topology is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//         Parse the bounded evaluation flag.        //
+			//---------------------------------------------------//
+			case BE:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int boundedEvaluationFlag = Integer.parseInt(args[i]);
+					if(boundedEvaluationFlag != 0 && boundedEvaluationFlag != 1){
+						System.out.println("Error: The bounded evaluation flag is invalid. Exiting...");
+						return false;
+					}
+					useBoundedEvaluation = (boundedEvaluationFlag == 1);
+				}
+				catch(Exception e){
+					System.out.println("Error: The bounded evaluation flag is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the scoring strategy.             //
+			//---------------------------------------------------//
+			case SM:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					GAChromosomePopulation.setScoringStrategy(GAChromosomePopulation.ScoringStrategy.valueOf(args[i]));
+				}
+				catch(Exception e){
+					System.out.println("Error: The scoring strategy is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//         Parse the vector scoring flag.            //
+			//---------------------------------------------------//
+			case VS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int vectorScoringFlag = Integer.parseInt(args[i]);
+					if(vectorScoringFlag != 0 && vectorScoringFlag != 1){
+						System.out.println("Error: The vector scoring flag is invalid. Exiting...");
+						return false;
+					}
+					if(!PatientFeatureColumns.setUseVectorScoring(vectorScoringFlag == 1) && vectorScoringFlag == 1)
+						System.out.println("Warning: The Vector API scoring backend is not available.  Using scalar scoring.");
+				}
+				catch(Exception e){
+					System.out.println("Error: The vector scoring flag is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//              Parse the worker port.               //
+			//---------------------------------------------------//
+			case WORKER:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					workerPort = Integer.parseInt(args[i]);
+					if(workerPort <= 0 || workerPort > 65535){
+						System.out.println("Error: The worker port is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The worker port is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//              Parse the listen address.            //
+			//---------------------------------------------------//
+			case HOST:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					listenAddress = InetAddress.getByName(args[i]);
+				}
+				catch(Exception e){
+					System.out.println("Error: The listen address is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the worker addresses.             //
+			//---------------------------------------------------//
+			case WORKERS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					List<InetSocketAddress> workerAddresses = new ArrayList<InetSocketAddress>();
+					for(String workerAddress : args[i].split(",")){
+						int portIndex = workerAddress.lastIndexOf(':');
+						workerAddresses.add(new InetSocketAddress(workerAddress.substring(0, portIndex), 
+																   Integer.parseInt(workerAddress.substring(portIndex + 1))));
+					}
+					GADistributedScorer.setWorkerAddresses(workerAddresses);
+				}
+				catch(Exception e){
+					System.out.println("Error: The worker addresses are invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//     Parse the maximum number of generations.      //
+			//---------------------------------------------------//
+			case NG:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int maximumNumberGenerations = Integer.parseInt(args[i]);
+					if(maximumNumberGenerations < 1){
+						System.out.println("Error: The number of generations is invalid. Exiting...");
+						return false;
+					}
+					GAStoppingCriteria.setMaximumNumberGenerations(maximumNumberGenerations);
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of generations is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the plateau length.               //
+			//---------------------------------------------------//
+			case PL:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int plateauLength = Integer.parseInt(args[i]);
+					if(plateauLength < 0){
+						System.out.println("Error: The plateau length is invalid. Exiting...");
+						return false;
+					}
+					GAStoppingCriteria.setPlateauLength(plateauLength);
+				}
+				catch(Exception e){
+					System.out.println("Error: The plateau length is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the target accuracy.              //
+			//---------------------------------------------------//
+			case TA:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					double targetAccuracy = Double.parseDouble(args[i]);
+					if(!(targetAccuracy >= 0 && targetAccuracy <= 100)){
+						System.out.println("Error: The target accuracy is invalid. Exiting...");
+						return false;
+					}
+					GAStoppingCriteria.setTargetAccuracy(targetAccuracy);
+				}
+				catch(Exception e){
+					System.out.println("Error: The target accuracy is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//             Parse the time budget.                //
+			//---------------------------------------------------//
+			case TB:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					double timeBudget = Double.parseDouble(args[i]);
+					if(!(timeBudget >= 0 && timeBudget <= Integer.MAX_VALUE)){
+						System.out.println("Error: The time budget is invalid. Exiting...");
+						return false;
+					}
+					GAStoppingCriteria.setTimeBudget(Math.round(timeBudget * 1000));
+				}
+				catch(Exception e){
+					System.out.println("Error: The time budget is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//            Parse the metrics sink.                //
+			//---------------------------------------------------//
+			case MS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					metricsSinkType = GAMetricsSink.SinkType.valueOf(args[i]);
+				}
+				catch(Exception e){
+					System.out.println("Error: The metrics sink is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//            Parse the metrics file name.           //
+			//---------------------------------------------------//
+			case MF:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				metricsFileName = args[i];
+				break;
+			
+			//---------------------------------------------------//
+			//          Parse the checkpoint file name.          //
+			//---------------------------------------------------//
+			case CF:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				GACheckpoint.setCheckpointFileName(args[i]);
+				break;
+			
+			//---------------------------------------------------//
+			//         Parse the checkpoint interval.            //
+			//---------------------------------------------------//
+			case CI:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int checkpointInterval = Integer.parseInt(args[i]);
+					if(checkpointInterval < 1){
+						System.out.println("Error: The checkpoint interval is invalid. Exiting...");
+						return false;
+					}
+					GACheckpoint.setCheckpointInterval(checkpointInterval);
+				}
+				catch(Exception e){
+					System.out.println("Error: The checkpoint interval is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//          Parse the checkpoint resume flag.        //
+			//---------------------------------------------------//
+			case CR:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int resumeFlag = Integer.parseInt(args[i]);
+					if(resumeFlag != 0 && resumeFlag != 1){
+						System.out.println("Error: The checkpoint resume flag is invalid. Exiting...");
+						return false;
+					}
+					resumeFromCheckpoint = (resumeFlag == 1);
+				}
+				catch(Exception e){
+					System.out.println("Error: The checkpoint resume flag is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//           Parse the results file format.          //
+			//---------------------------------------------------//
+			case RS:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					resultsFormat = GAResultsWriter.Format.valueOf(args[i]);
+					saveResultsToFile = true;
+				}
+				catch(Exception e){
+					System.out.println("Error: The results file format is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//            Parse the results file name.           //
+			//---------------------------------------------------//
+			case RF:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				resultsFileName = args[i];
+				break;
+			
+			//---------------------------------------------------//
+			//             Parse the model file name.            //
+			//---------------------------------------------------//
+			case MODEL:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				modelFileName = args[i];
+				break;
+			
+			//---------------------------------------------------//
+			//      Parse the classification service port.       //
+			//---------------------------------------------------//
+			case SERVE:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					servicePort = Integer.parseInt(args[i]);
+					if(servicePort <= 0 || servicePort > 65535){
+						System.out.println("Error: The classification service port is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The classification service port is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//            Parse the record stream port.          //
+			//---------------------------------------------------//
+			case STREAM:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					streamPort = Integer.parseInt(args[i]);
+					if(streamPort <= 0 || streamPort > 65535){
+						System.out.println("Error: The record stream port is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The record stream port is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//          Parse the verification file name.        //
+			//---------------------------------------------------//
+			case VERIFY:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				verificationFileName = args[i];
+				break;
+			
+			//---------------------------------------------------//
+			//        Parse the verification report flag.        //
+			//---------------------------------------------------//
+			case VR:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					int verificationReportFlag = Integer.parseInt(args[i]);
+					if(verificationReportFlag != 0 && verificationReportFlag != 1){
+						System.out.println("Error: The verification report flag is invalid. Exiting...");
+						return false;
+					}
+					printVerificationReport = verificationReportFlag == 1;
+				}
+				catch(Exception e){
+					System.out.println("Error: The verification report flag is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//     Parse the number of cross-validation folds.   //
+			//---------------------------------------------------//
+			case CV:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					numberCrossValidationFolds = Integer.parseInt(args[i]);
+					if(numberCrossValidationFolds < 2){
+						System.out.println("Error: The number of cross-validation folds is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of cross-validation folds is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//---------------------------------------------------//
+			//  Parse the number of cross-validation repetitions.//
+			//---------------------------------------------------//
+			case CVR:
+				i++;
+				//---- Ensure no overflow.
+				if(i == args.length) return printInvalidNumberInputArguments();
+				try{
+					numberCrossValidationRepetitions = Integer.parseInt(args[i]);
+					if(numberCrossValidationRepetitions < 1){
+						System.out.println("Error: The number of cross-validation repetitions is invalid. Exiting...");
+						return false;
+					}
+				}
+				catch(Exception e){
+					System.out.println("Error: The number of cross-validation repetitions is invalid. Exiting...");
+					return false;
+				}
+				break;
+			
+			//--------------------------------------------------//
+			//  Unable to parse input argument so return exit.  //
+			//--------------------------------------------------//
+			default:
+				System.out.println("Error: Invalid input argument \"" + args[i] + "\".");
+				return false;
+			}
+		}
+		
+		//----- All arguments successfully parsed so return true.
+		return true;
+	}
+	/**
+	 * Error message used to print an invalid number of input arguments.
+	 * 
+	 * @return false to indicate the parse failed.
+	 */
+	private static boolean printInvalidNumberInputArguments(){
+		System.out.println("Error: The number of input arguments is invalid. Exiting...");
+		return false;
+	}
+	
+	
+	/**
+	 * Appends the simulation results to the results file.
+	 */
+	private void outputResultsToFile(){
+		GAConfusionMatrix confusionMatrix = getVerificationConfusionMatrix();
+		resultsWriter.write(malignancyBiasFactor, balanceMaligantPatients, confusionMatrix.getPercentCorrect(),
+							confusionMatrix.getMalignantPercentCorrect(), bestSolution);
+	}
+	
+	
+	/**
+	 * Saves the best solution as the model used by the classification service.  With more than one
+	 * execution, each execution writes its own file so no execution's model replaces another's.
+	 */
+	private void saveModel(){
+		String executionModelFileName = getModelFileName(executionNumber);
+		try{
+			GAClassifierModel.fromChromosome(bestSolution).save(executionModelFileName);
+		}
+		catch(IOException e){
+			System.out.println("Warning: Unable to write the model file \"" + executionModelFileName + "\".");
+		}
+	}
+	
+	
+	/**
+	 * Builds the name of the model file of an execution.  A single execution uses the -MODEL file name.
+	 * Otherwise the execution number is added before the file extension (e.g. "model-2.txt").
+	 * 
+	 * @param executionNumber Number of the execution starting at 1.
+	 * @return Name of the execution's model file.
+	 */
+	private static String getModelFileName(int executionNumber){
 		
+		if(numberTimesToRunProgram <= 1) return modelFileName;
 		
+		int extensionIndex = modelFileName.lastIndexOf('.');
+		if(extensionIndex <= Math.max(modelFileName.lastIndexOf('/'), modelFileName.lastIndexOf(File.separatorChar)) + 1)
+			return modelFileName + "-" + executionNumber;
+		return modelFileName.substring(0, extensionIndex) + "-" + executionNumber + modelFileName.substring(extensionIndex);
 	}
 	
 	
@@ -0,0 +1,463 @@
+package cs123A;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint of a single execution of the genetic algorithm.  It holds the settings the run
+ * depends on, the training and verification data sets, the run's random number generator state
+ * and the latest state of each unit.  A unit is a random restart or, for the island model, the
+ * whole set of islands.
+ * 
+ * Each unit serializes its own state at a generation boundary on the thread that evolves it,
+ * which only copies its population into a byte array.  Assembling and writing the file is done
+ * on a background thread so the evolving threads do not wait on the disk.  Units are
+ * independent so a checkpoint can mix units saved at different generations.
+ * 
+ * File format (big endian):
+ * <pre>
+ * magic (int), version (int)
+ * settings length (int), settings
+ * master random seed (long), execution number (int)
+ * run state length (int), run state
+ * number units (int), then per unit: state length (int, -1 if none), state
+ * CRC32 of all of the preceding bytes (long)
+ * </pre>
+ * The file is written to a temporary file which is then atomically renamed over the checkpoint
+ * so a crash while writing never leaves a partial checkpoint.
+ */
+public class GACheckpoint {
+	
+	static final byte UNIT_IN_PROGRESS = 1;
+	static final byte UNIT_DONE = 2;
+	private static final int MAGIC = 0x47414350;				//---- "GACP"
+	private static final int VERSION = 1;
+	private static String checkpointFileName = null;			//---- Null disables checkpointing.
+	private static int checkpointInterval = 50;				//---- Generations between checkpoints of a unit.
+	private static ExecutorService writerThread;
+	
+	private final byte[] settings;
+	private final long masterRandomSeed;
+	private final int executionNumber;
+	private final byte[] runState;
+	private final byte[][] unitStates;
+	private boolean writeScheduled;
+	private Future<?> lastWrite;
+	
+	
+	/**
+	 * Serializes part of a checkpoint.
+	 */
+	interface StateWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+	
+	
+	/**
+	 * Creates the checkpoint of an execution that has not saved any units.
+	 * 
+	 * @param settings Serialized settings the execution depends on.
+	 * @param masterRandomSeed Seed from which the random streams of all of the executions are split.
+	 * @param executionNumber Number of the execution starting at 1.
+	 * @param runState Serialized data sets and random number generator state of the execution.
+	 * @param numberUnits Number of restarts or 1 for the island model.
+	 */
+	public GACheckpoint(byte[] settings, long masterRandomSeed, int executionNumber, byte[] runState, int numberUnits){
+		this.settings = settings;
+		this.masterRandomSeed = masterRandomSeed;
+		this.executionNumber = executionNumber;
+		this.runState = runState;
+		this.unitStates = new byte[numberUnits][];
+	}
+	
+	
+	/**
+	 * Checks whether checkpointing is enabled.
+	 * 
+	 * @return True if a checkpoint file was specified.
+	 */
+	public static boolean isEnabled(){
+		return checkpointFileName != null;
+	}
+	
+	
+	/**
+	 * Accessor for the checkpoint file name.
+	 * 
+	 * @return Name of the checkpoint file or null if checkpointing is disabled.
+	 */
+	public static String getCheckpointFileName(){
+		return checkpointFileName;
+	}
+	
+	
+	/**
+	 * Mutator for the checkpoint file name.
+	 * 
+	 * @param newCheckpointFileName Name of the checkpoint file.  Null disables checkpointing.
+	 */
+	public static void setCheckpointFileName(String newCheckpointFileName){
+		checkpointFileName = newCheckpointFileName;
+	}
+	
+	
+	/**
+	 * Accessor for the number of generations between the checkpoints of a unit.
+	 * 
+	 * @return Checkpoint interval in generations.
+	 */
+	public static int getCheckpointInterval(){
+		return checkpointInterval;
+	}
+	
+	
+	/**
+	 * Mutator for the number of generations between the checkpoints of a unit.
+	 * 
+	 * @param newCheckpointInterval Checkpoint interval in generations.
+	 */
+	public static void setCheckpointInterval(int newCheckpointInterval){
+		checkpointInterval = newCheckpointInterval;
+	}
+	
+	
+	/**
+	 * Accessor for the checkpoint writer thread.  It is a daemon so it does not keep the
+	 * program alive but flush should be called before the program exits.
+	 * 
+	 * @return Thread that writes the checkpoints.
+	 */
+	private static synchronized ExecutorService getWriterThread(){
+		if(writerThread == null)
+			writerThread = Executors.newSingleThreadExecutor(new ThreadFactory(){
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "GACheckpointWriter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		return writerThread;
+	}
+	
+	
+	/**
+	 * Serializes part of a checkpoint to a byte array.
+	 * 
+	 * @param stateWriter Writes the state.
+	 * @return Serialized state.
+	 */
+	static byte[] serialize(StateWriter stateWriter){
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try{
+			DataOutputStream out = new DataOutputStream(buffer);
+			stateWriter.write(out);
+			out.flush();
+		}
+		catch(IOException e){
+			throw new IllegalStateException("Unable to serialize the checkpoint state.", e);
+		}
+		return buffer.toByteArray();
+	}
+	
+	
+	/**
+	 * Writes the state of a random number generator.
+	 * 
+	 * @param out Destination of the state.
+	 * @param random Random number generator whose state is written.
+	 * @throws IOException If the state cannot be written or the generator does not expose its state.
+	 */
+	static void writeRandomState(DataOutput out, GARandom random) throws IOException{
+		long[] state = random.getState();
+		if(state == null) throw new IOException("The random number generator does not expose its state.");
+		out.writeInt(state.length);
+		for(long word : state)
+			out.writeLong(word);
+	}
+	
+	
+	/**
+	 * Reads the state of a random number generator written by writeRandomState.
+	 * 
+	 * @param in Source of the state.
+	 * @return State to be passed to GARandom.setState.
+	 * @throws IOException If the state cannot be read.
+	 */
+	static long[] readRandomState(DataInput in) throws IOException{
+		int length = in.readInt();
+		if(length < 0 || length > 64) throw new IOException("Invalid random number generator state length: " + length);
+		long[] state = new long[length];
+		for(int i = 0; i < length; i++)
+			state[i] = in.readLong();
+		return state;
+	}
+	
+	
+	/**
+	 * Accessor for the settings the checkpointed execution depends on.
+	 * 
+	 * @return Serialized settings.
+	 */
+	public byte[] getSettings(){
+		return settings.clone();
+	}
+	
+	
+	/**
+	 * Accessor for the seed the checkpointed program was started with.
+	 * 
+	 * @return Master random seed.
+	 */
+	public long getMasterRandomSeed(){
+		return masterRandomSeed;
+	}
+	
+	
+	/**
+	 * Accessor for the number of the checkpointed execution.
+	 * 
+	 * @return Execution number starting at 1.
+	 */
+	public int getExecutionNumber(){
+		return executionNumber;
+	}
+	
+	
+	/**
+	 * Opens the run state of the execution.
+	 * 
+	 * @return Stream over the serialized run state.
+	 */
+	public DataInputStream openRunState(){
+		return new DataInputStream(new ByteArrayInputStream(runState));
+	}
+	
+	
+	/**
+	 * Opens the latest saved state of a unit.
+	 * 
+	 * @param unitIndex Index of the restart or 0 for the island model.
+	 * @return Stream over the serialized unit state or null if the unit has not been saved.
+	 */
+	public synchronized DataInputStream openUnitState(int unitIndex){
+		if(unitIndex >= unitStates.length || unitStates[unitIndex] == null) return null;
+		return new DataInputStream(new ByteArrayInputStream(unitStates[unitIndex]));
+	}
+	
+	
+	/**
+	 * Replaces the saved state of a unit and schedules the checkpoint to be written.
+	 * 
+	 * @param unitIndex Index of the restart or 0 for the island model.
+	 * @param unitState Serialized state of the unit.
+	 */
+	public synchronized void publishUnitState(int unitIndex, byte[] unitState){
+		unitStates[unitIndex] = unitState;
+		write();
+	}
+	
+	
+	/**
+	 * Schedules the checkpoint to be written on the writer thread.  If a write is already
+	 * waiting, it picks up the latest unit states so writes are coalesced.
+	 */
+	public synchronized void write(){
+		if(writeScheduled) return;
+		writeScheduled = true;
+		lastWrite = getWriterThread().submit(new Runnable(){
+			public void run(){
+				writeFile();
+			}
+		});
+	}
+	
+	
+	/**
+	 * Waits for the scheduled writes to finish.
+	 */
+	public void flush(){
+		Future<?> write;
+		synchronized(this){
+			write = lastWrite;
+		}
+		if(write == null) return;
+		try{
+			write.get();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e){
+			throw new IllegalStateException("Unable to write the checkpoint.", e.getCause());
+		}
+	}
+	
+	
+	/**
+	 * Writes the checkpoint file.  It runs on the writer thread.
+	 */
+	private void writeFile(){
+		
+		byte[][] currentUnitStates;
+		synchronized(this){
+			writeScheduled = false;
+			currentUnitStates = unitStates.clone();
+		}
+		
+		//---- Lay out the whole file in memory so it is written with a single channel write.
+		int fileSize = 6 * Integer.BYTES + settings.length + runState.length + 2 * Long.BYTES;
+		for(byte[] unitState : currentUnitStates)
+			fileSize += Integer.BYTES + ((unitState == null) ? 0 : unitState.length);
+		
+		ByteBuffer buffer = ByteBuffer.allocate(fileSize);
+		buffer.putInt(MAGIC).putInt(VERSION);
+		buffer.putInt(settings.length).put(settings);
+		buffer.putLong(masterRandomSeed).putInt(executionNumber);
+		buffer.putInt(runState.length).put(runState);
+		buffer.putInt(currentUnitStates.length);
+		for(byte[] unitState : currentUnitStates){
+			if(unitState == null)
+				buffer.putInt(-1);
+			else
+				buffer.putInt(unitState.length).put(unitState);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putLong(crc.getValue());
+		buffer.flip();
+		
+		Path checkpointPath = Paths.get(checkpointFileName);
+		Path temporaryPath = Paths.get(checkpointFileName + ".tmp");
+		try{
+			FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+												   StandardOpenOption.TRUNCATE_EXISTING);
+			try{
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+				channel.force(true);
+			}
+			finally{
+				channel.close();
+			}
+			
+			try{
+				Files.move(temporaryPath, checkpointPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch(AtomicMoveNotSupportedException e){
+				Files.move(temporaryPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch(IOException e){
+			System.out.println("Warning: Unable to write the checkpoint file \"" + checkpointFileName + "\" (" + e + ").");
+		}
+	}
+	
+	
+	/**
+	 * Reads the checkpoint file.
+	 * 
+	 * @return Checkpoint stored in the file.
+	 * @throws IOException If the file cannot be read or is not a valid checkpoint.
+	 */
+	public static GACheckpoint load() throws IOException{
+		
+		ByteBuffer buffer;
+		FileChannel channel = FileChannel.open(Paths.get(checkpointFileName), StandardOpenOption.READ);
+		try{
+			long fileSize = channel.size();
+			if(fileSize > Integer.MAX_VALUE) throw new IOException("The checkpoint is too large.");
+			buffer = ByteBuffer.allocate((int)fileSize);
+			while(buffer.hasRemaining())
+				if(channel.read(buffer) < 0) throw new IOException("Unexpected end of the checkpoint.");
+		}
+		finally{
+			channel.close();
+		}
+		
+		//---- Verify the checksum before trusting any of the lengths.
+		byte[] contents = buffer.array();
+		if(contents.length < 2 * Integer.BYTES + Long.BYTES) throw new IOException("The checkpoint is truncated.");
+		CRC32 crc = new CRC32();
+		crc.update(contents, 0, contents.length - Long.BYTES);
+		if(ByteBuffer.wrap(contents, contents.length - Long.BYTES, Long.BYTES).getLong() != crc.getValue())
+			throw new IOException("The checkpoint checksum does not match.");
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents, 0, contents.length - Long.BYTES));
+		if(in.readInt() != MAGIC) throw new IOException("The file is not a checkpoint.");
+		if(in.readInt() != VERSION) throw new IOException("Unsupported checkpoint version.");
+		byte[] settings = readBlock(in);
+		long masterRandomSeed = in.readLong();
+		int executionNumber = in.readInt();
+		byte[] runState = readBlock(in);
+		if(settings == null || runState == null) throw new IOException("The checkpoint is missing the run state.");
+		
+		int numberUnits = in.readInt();
+		if(numberUnits < 0) throw new IOException("Invalid number of units: " + numberUnits);
+		GACheckpoint checkpoint = new GACheckpoint(settings, masterRandomSeed, executionNumber, runState, numberUnits);
+		for(int i = 0; i < numberUnits; i++)
+			checkpoint.unitStates[i] = readBlock(in);
+		return checkpoint;
+	}
+	
+	
+	/**
+	 * Reads a length prefixed block.
+	 * 
+	 * @param in Source of the block.
+	 * @return Contents of the block or null if the length is -1.
+	 * @throws IOException If the block cannot be read.
+	 */
+	private static byte[] readBlock(DataInputStream in) throws IOException{
+		int length = in.readInt();
+		if(length == -1) return null;
+		if(length < 0 || length > in.available()) throw new IOException("Invalid block length: " + length);
+		byte[] block = new byte[length];
+		in.readFully(block);
+		return block;
+	}
+	
+	
+	/**
+	 * Checks whether the checkpoint was created with the same settings.
+	 * 
+	 * @param currentSettings Serialized settings of this program.
+	 * @return True if the settings match.
+	 */
+	public boolean hasSettings(byte[] currentSettings){
+		return Arrays.equals(settings, currentSettings);
+	}
+	
+	
+	/**
+	 * Deletes the checkpoint file once the program finished successfully.
+	 */
+	public static void delete(){
+		try{
+			Files.deleteIfExists(Paths.get(checkpointFileName));
+		}
+		catch(IOException e){
+			System.out.println("Warning: Unable to delete the checkpoint file \"" + checkpointFileName + "\".");
+		}
+	}
+	
+}
@@ -1,36 +1,43 @@
 package cs123A;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Random;
 
+/**
+ * Genetic algorithm chromosome.  A chromosome is a view of one slot of a GAChromosomeStore which
+ * holds its genome, score and separation.  Chromosomes in a population are views of the population's
+ * store so they change when the population's slots are reused (see GAChromosomePool.releasePopulation).
+ */
 public class GAChromosome implements Comparable<GAChromosome> {
 
 	//---- Stores the gain and offset information for the genetic algorithm chromosome.
-	private int[] gainVector;
-	private int offset;
-	private int chromosomeScore;
-	private double totalSepartion;
-	
-	private static Random randomGenerator;
+	//---- The genome holds the gain vector in its first words and the offset in its last word.
+	private final GAChromosomeStore store;
+	private final int index;
+	private final int genomeBase;				//---- Index of the first genome word in the store's genome array.
 	
 	private static double MUTATION_PROBABILITY = 1.0 / 100;
+	private static final double LOG_ONE_MINUS_MUTATION_PROBABILITY = Math.log(1 - MUTATION_PROBABILITY);
 	public static int WORD_BIT_LENGTH = 32;
+	public static final int GENOME_WORD_COUNT = Patient.numberDataElementsPerPatient() + 1;
+	static final int OFFSET_WORD_INDEX = GENOME_WORD_COUNT - 1;
+	private static final int WORD_INDEX_SHIFT = 5;		//---- log2 of the word bit length
+	private static final int BIT_INDEX_MASK = 31;		//---- Word bit length minus 1
+	private static final int[] TRAILING_BIT_MASKS = buildTrailingBitMasks();
 	
 	
 	/**
-	 * Constructor for Genetic Algorithm Chromosome. 
+	 * Constructor for a view of a slot of a chromosome store.  Only used by GAChromosomeStore.
+	 *  
+	 * @param store Store holding the chromosome.
+	 * @param index Index of the chromosome's slot.
 	 */
-	private GAChromosome(){
-		//---- Create the gain and offset vectors for the population.
-		gainVector = new int[Patient.numberDataElementsPerPatient()];
-		offset = 0;
-		
-		//--- Create the random number generator if it does not exist. 
-		if(randomGenerator == null)
-			randomGenerator = new Random();
-		
-		//---- Give a chromosome the minimum score by default as a check.
-		chromosomeScore = Integer.MIN_VALUE;
+	GAChromosome(GAChromosomeStore store, int index){
+		this.store = store;
+		this.index = index;
+		this.genomeBase = index * GENOME_WORD_COUNT;
 	}
 	
 	/**
@@ -41,27 +48,69 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	 */
 	public static GAChromosome createRandomChromosome(){
 		//---- Creates an empty chromosome.
-		GAChromosome randomChromosome = new GAChromosome();
+		GAChromosome randomChromosome = createEmptyChromosome();
 		
-		//---- Get a random value for 
-		randomChromosome.offset = randomGenerator.nextInt();
+		//---- Fill it using the calling thread's random number generator.
+		randomChromosome.randomizeGenome(GARandom.current());
 		
-		//---- Iterate through the gain vector settings
-		for(int i = 0; i < randomChromosome.gainVector.length; i++)
-			randomChromosome.gainVector[i] = randomGenerator.nextInt();
+		//---- Return the created random chromosome.
+		return randomChromosome;
+	}
+	
+	/**
+	 * Static constructor for a Genetic Algorithm Chromosome with a random gain vector and
+	 * offset drawn from the specified random number generator.
+	 * 
+	 * @param random Random number generator used to build the chromosome.
+	 * @return Genetic Algorithm Chromosome.
+	 */
+	public static GAChromosome createRandomChromosome(GARandom random){
+		//---- Creates an empty chromosome.
+		GAChromosome randomChromosome = createEmptyChromosome();
+		
+		randomChromosome.randomizeGenome(random);
 		
 		//---- Return the created random chromosome.
 		return randomChromosome;
 	}
 	
 	
+	/**
+	 * Fills the genome with random values.
+	 * 
+	 * @param random Random number generator used to build the genome.
+	 */
+	void randomizeGenome(GARandom random){
+		
+		final int[] genome = store.genomes;
+		
+		//---- Get a random value for 
+		genome[genomeBase + OFFSET_WORD_INDEX] = random.nextInt();
+		
+		//---- Iterate through the gain vector settings
+		for(int i = 0; i < OFFSET_WORD_INDEX; i++)
+			genome[genomeBase + i] = random.nextInt();
+	}
+	
+	
+	/**
+	 * Creates a chromosome with an all zero genome in a store of its own.  Used by GAChromosomePool
+	 * to build chromosomes that will later be overwritten by crossover.
+	 * 
+	 * @return Empty Genetic Algorithm Chromosome.
+	 */
+	static GAChromosome createEmptyChromosome(){
+		return new GAChromosomeStore(1).getView(0);
+	}
+	
+	
 	/**
 	 * Accessor for the chromosome's offset.
 	 * 
 	 * @return  Integer value of the offset.
 	 */
 	public int getOffset(){
-		return offset;
+		return store.genomes[genomeBase + OFFSET_WORD_INDEX];
 	}
 	
 
@@ -73,15 +122,93 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	public int[] getGainVector(){
 		
 		//---- Create a copy of the gain vector for use in calculations.
-		int[] outputGainVector = new int[gainVector.length];
+		int[] outputGainVector = new int[OFFSET_WORD_INDEX];
 		
 		//---- Copy over the gain vector.
-		for(int i = 0; i < gainVector.length; i++)
-			outputGainVector[i] = gainVector[i];
+		System.arraycopy(store.genomes, genomeBase, outputGainVector, 0, outputGainVector.length);
 		
 		return outputGainVector;
 	}
 	
+	
+	/**
+	 * Accessor for the flat genome array of the chromosome's store without copying it.  The
+	 * chromosome's genome starts at getGenomeBase().  Its first words are the gain vector and
+	 * the last word is the offset.  The returned array must not be modified by the caller.
+	 * 
+	 * @return Reference to the genome array of the store holding the chromosome.
+	 */
+	int[] getGenomeWords(){
+		return store.genomes;
+	}
+	
+	
+	/**
+	 * Accessor for the index of the chromosome's first genome word in getGenomeWords().
+	 *  
+	 * @return Base index of the chromosome's genome.
+	 */
+	int getGenomeBase(){
+		return genomeBase;
+	}
+	
+	
+	/**
+	 * Overwrites this chromosome with the genome, score and separation of another chromosome.
+	 * 
+	 * @param source Chromosome to be copied.
+	 */
+	void copyFrom(GAChromosome source){
+		store.copySlot(index, source.store, source.index);
+	}
+	
+	
+	/**
+	 * Writes the genome, score and separation of the chromosome to a checkpoint.
+	 * 
+	 * @param out Destination of the chromosome.
+	 * @throws IOException If the chromosome cannot be written.
+	 */
+	void writeTo(DataOutput out) throws IOException{
+		for(int i = 0; i < GENOME_WORD_COUNT; i++)
+			out.writeInt(store.genomes[genomeBase + i]);
+		out.writeInt(store.scores[index]);
+		out.writeDouble(store.separations[index]);
+		out.writeBoolean(store.scoreIsUpperBound[index]);
+		out.writeInt(store.numberPatientsEvaluated[index]);
+	}
+	
+	
+	/**
+	 * Reads a chromosome written by writeTo.
+	 * 
+	 * @param in Source of the chromosome.
+	 * @return Chromosome identical to the one that was written.
+	 * @throws IOException If the chromosome cannot be read.
+	 */
+	static GAChromosome readFrom(DataInput in) throws IOException{
+		GAChromosome chromosome = createEmptyChromosome();
+		chromosome.readFields(in);
+		return chromosome;
+	}
+	
+	
+	/**
+	 * Overwrites this chromosome with a chromosome written by writeTo.
+	 *  
+	 * @param in Source of the chromosome.
+	 * @throws IOException If the chromosome cannot be read.
+	 */
+	void readFields(DataInput in) throws IOException{
+		for(int i = 0; i < GENOME_WORD_COUNT; i++)
+			store.genomes[genomeBase + i] = in.readInt();
+		store.scores[index] = in.readInt();
+		store.separations[index] = in.readDouble();
+		store.scoreIsUpperBound[index] = in.readBoolean();
+		store.numberPatientsEvaluated[index] = in.readInt();
+	}
+	
+	
 	/**
 	 * Performs n-point crossover for two chromosomes.
 	 * 
@@ -90,160 +217,140 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	 */
 	public GAChromosome crossover(GAChromosome otherChromosome, int numbPoints){
 		
-		//---- Extract the chromosome data for the two parent chromosomes.
-		int[] implicitGAGainVector = this.getGainVector();
-		int[] otherGAGainVector = otherChromosome.getGainVector();
-		
-		//---- Create the data vectors
-		int[] implicitDataVector = new int[implicitGAGainVector.length + 1];
-		int[] otherDataVector = new int[implicitGAGainVector.length + 1];
-		int[] childDataVector = new int[implicitGAGainVector.length + 1];
+		//---- Create a new child chromosome.
+		GAChromosome newChromosome = createEmptyChromosome();
+		//---- Build the child in place.
+		crossover(otherChromosome, numbPoints, newChromosome, new int[numbPoints], GARandom.current());
+		//---- Return the new child.
+		return newChromosome;
 		
-		//---- Create the data vectors for the two parents and the child.
-		int i, lastIndex;
-		//---- Copy the gain components first.
-		for(i = 0; i < otherGAGainVector.length; i++){
-			implicitDataVector[i] = implicitGAGainVector[i];
-			otherDataVector[i] = otherGAGainVector[i];
-			childDataVector[i] = 0;
-		}
-		//---- Copy the offset last.
-		lastIndex = otherDataVector.length - 1;
-		implicitDataVector[lastIndex] = this.getOffset();	
-		otherDataVector[lastIndex] = otherChromosome.getOffset();
-		childDataVector[lastIndex] = 0;
+	}
+	
+	
+	/**
+	 * Performs n-point crossover for two chromosomes and writes the result into an existing
+	 * chromosome.  No memory is allocated.
+	 * 
+	 * @param otherChromosome	 Other Chromosome that will be crossed over.
+	 * @param numbPoints		 Number of crossover points.
+	 * @param childChromosome	 Chromosome whose genome is overwritten by the crossed over genome.
+	 * @param crossover_loc		 Scratch array used to store the crossover locations.  Must have at least numbPoints elements.
+	 * @param random			 Random number generator used to select the crossover locations.
+	 */
+	void crossover(GAChromosome otherChromosome, int numbPoints, GAChromosome childChromosome, int[] crossover_loc, 
+				   GARandom random){
 		
 		//----- Build the crossover bit location list.  This is the specific bit in the data vector
 		//----- where crossover will occur.
-		int[] crossover_loc = new int[numbPoints]; 
+		int i;
 		for(i = 0; i < numbPoints; i++){
-			crossover_loc[i] = randomGenerator.nextInt(childDataVector.length*32);
+			crossover_loc[i] = random.nextInt(GENOME_WORD_COUNT * WORD_BIT_LENGTH);
 		}
 		//---- Sort the crossover locations.
-		Arrays.sort(crossover_loc);
+		Arrays.sort(crossover_loc, 0, numbPoints);
+		
+		crossoverAt(otherChromosome, numbPoints, childChromosome, crossover_loc);
+		
+	}
+	
+	
+	/**
+	 * Performs n-point crossover at the specified locations and writes the result into an existing
+	 * chromosome.  Separated from crossover so the operator can be checked against the original
+	 * implementation (see bench/cs123A/GACrossoverCheck.java) at chosen locations.
+	 * 
+	 * The genome is treated as one flat bit string with the MSB of the first word as bit 0.
+	 * Bits before the first crossover location come from the implicit chromosome and the
+	 * source parent switches at each subsequent crossover location.
+	 * 
+	 * Behavior change: the original bit extraction took the segment after the last crossover point
+	 * in a word as |w| mod 2^k instead of the low k bits of w, so it differs from this operator when
+	 * that segment comes from a negative word.  Since half of the random gains are negative, seeded
+	 * runs do not follow the trajectory of the original operator.  Both operators agree on every
+	 * other segment and whenever the words are non-negative.
+	 * 
+	 * @param otherChromosome	 Other Chromosome that will be crossed over.
+	 * @param numbPoints		 Number of crossover points.
+	 * @param childChromosome	 Chromosome whose genome is overwritten by the crossed over genome.
+	 * @param crossover_loc		 Crossover bit locations in ascending order.  Must have at least numbPoints elements.
+	 */
+	void crossoverAt(GAChromosome otherChromosome, int numbPoints, GAChromosome childChromosome, int[] crossover_loc){
 		
-		//---- At first use the implicit parameter for boolean.
-		boolean useImplicitInCrossover = true;
-		int byteIndex = 0;
+		final int[] genome = this.store.genomes, otherGenome = otherChromosome.store.genomes;
+		final int[] childGenome = childChromosome.store.genomes;
+		final int base = this.genomeBase, otherBase = otherChromosome.genomeBase, childBase = childChromosome.genomeBase;
+		
+		//---- Mask of the bits taken from the other chromosome.  At first use the implicit parameter.
+		int otherParentMask = 0;
+		int wordMask, location;
 		int crossoverIndex = 0;
-		while(byteIndex < childDataVector.length){
+		for(int wordIndex = 0; wordIndex < GENOME_WORD_COUNT; wordIndex++){
 			
-			//---- This number does not contain a crossover point so copy it entirely.
-			if(crossoverIndex == crossover_loc.length || byteIndex < crossover_loc[crossoverIndex] / 32){
-				if(useImplicitInCrossover)
-					childDataVector[byteIndex] = implicitDataVector[byteIndex];
-				else
-					childDataVector[byteIndex] = otherDataVector[byteIndex];
-				//---- Increment the byte index.
-				byteIndex++;
-			}
-			else{
-				//---- Always copy MSB first.
-				int previousCrossoverBitLocation = 31;
-				int crossoverBitLocation;
-				int referenceWord = 0;
-				int dataWord = 0;
-				//---- Continue crossing over until the end of the word is reached
-				while(crossoverIndex < crossover_loc.length && byteIndex == crossover_loc[crossoverIndex] / 32){
-					
-					//---- Extract the reference byte.
-					if(useImplicitInCrossover)
-						referenceWord = implicitDataVector[byteIndex];
-					else
-						referenceWord = otherDataVector[byteIndex];	
-					
-					//----- Extract the crossover bit location.
-					crossoverBitLocation = 31 - crossover_loc[crossoverIndex] % 32;
-				
-					//----- Update the word with the crossed over data vector.
-					dataWord |= extractIntegerBits(referenceWord, previousCrossoverBitLocation, crossoverBitLocation);
-					previousCrossoverBitLocation = crossoverBitLocation;
-					
-					//---- Go to the next crossover point.
-					crossoverIndex++;
-					//---- Switch the value of the boolean flag on which data vector to use.
-					useImplicitInCrossover = !useImplicitInCrossover;
-				}
-				
-				//---- Extract the remnant of the word.
-				if(useImplicitInCrossover)
-					referenceWord = implicitDataVector[byteIndex];
-				else
-					referenceWord = otherDataVector[byteIndex];	
-				//----- Update the word with the crossed over data vector.
-				dataWord |= extractIntegerBits(referenceWord, previousCrossoverBitLocation, -1);
-				
-				//---- Store the crossed over data word.
-				childDataVector[byteIndex] = dataWord;
-								
-				//---- Increment the byte index.
-				byteIndex++;
+			wordMask = otherParentMask;
+			//---- Each crossover point in this word switches the parent for the bits that follow it.
+			while(crossoverIndex < numbPoints && (location = crossover_loc[crossoverIndex]) >>> WORD_INDEX_SHIFT == wordIndex){
+				wordMask ^= TRAILING_BIT_MASKS[location & BIT_INDEX_MASK];
+				otherParentMask = ~otherParentMask;
+				crossoverIndex++;
 			}
 			
-
+			childGenome[childBase + wordIndex] = mergeWords(genome[base + wordIndex], otherGenome[otherBase + wordIndex], wordMask);
 		}
 		
-		//---- Create a new child chromosome.
-		GAChromosome newChromosome = new GAChromosome();
-		//---- Extract the gain vector
-		int[] childGainVector = Arrays.copyOfRange(childDataVector, 0, childDataVector.length - 1);
-		//---- Extract the offset
-		int childOffset = childDataVector[childDataVector.length - 1];
-		newChromosome.updateChromosomeParameters(childGainVector, childOffset);
-		//---- Return the new child.
-		return newChromosome;
+		//---- The child has not been scored yet.
+		childChromosome.store.clearScore(childChromosome.index);
 		
 	}
 	
 	
 	/**
-	 * Extracts a subset of bits from a word.  Used in bitwise crossover.
+	 * Performs uniform crossover for two chromosomes and writes the result into an existing
+	 * chromosome.  Each bit of the child is taken from either parent with equal probability.
 	 * 
-	 * @param dataWord			Word whose bits are being excluded.
-	 * @param maxBitPosition	Bit number of highest significant bit to keep (inclusive)
-	 * @param minBitPosition	Bit number of highest position bit to exclude after starting bit keeping (exclusive)
-	 * @return					Word[maxBitPosition:minBitPosition) as an integer.
+	 * @param otherChromosome	 Other Chromosome that will be crossed over.
+	 * @param childChromosome	 Chromosome whose genome is overwritten by the crossed over genome.
+	 * @param random			 Random number generator used to select the parent of each bit.
 	 */
-	static private int extractIntegerBits(int dataWord, int maxBitPosition, int minBitPosition){
+	void uniformCrossover(GAChromosome otherChromosome, GAChromosome childChromosome, GARandom random){
 		
-		//---- Handle the case where the whole word was to be extracted.
-		if(maxBitPosition - minBitPosition == 32)
-			return dataWord;
-		//---- Return the case where the two positions are equal and not both zero.
-		else if(maxBitPosition == minBitPosition)
-			return 0;
+		final int[] genome = this.store.genomes, otherGenome = otherChromosome.store.genomes;
+		final int[] childGenome = childChromosome.store.genomes;
+		final int base = this.genomeBase, otherBase = otherChromosome.genomeBase, childBase = childChromosome.genomeBase;
 		
-		//---- Shift the word over by the number of bits in the min position.
-		dataWord = dataWord >>> (minBitPosition + 1);
+		//---- A random word selects the parent of each bit.
+		for(int wordIndex = 0; wordIndex < GENOME_WORD_COUNT; wordIndex++)
+			childGenome[childBase + wordIndex] = mergeWords(genome[base + wordIndex], otherGenome[otherBase + wordIndex], 
+															random.nextInt());
 		
-		//---- Remove any preceding bits.
-		dataWord %= Math.pow(2, maxBitPosition-minBitPosition);
-		//--- Correct for when there is no bit shifting.
-		if(dataWord < 0 && minBitPosition == -1)
-			dataWord *= -1;
-		
-		//---- Reshift the word back.
-		dataWord = dataWord << (minBitPosition + 1);
-				
-		return dataWord;
+		//---- The child has not been scored yet.
+		childChromosome.store.clearScore(childChromosome.index);
 	}
 	
 	
 	/**
+	 * Merges two words bitwise.
 	 * 
-	 * @param newGainVector Gain vector that will overwrite the chromosome's existing gain vector.
-	 * @param newOffset  Offset scalar that will overwrite the chromosome's existing offset scalar.
+	 * @param implicitWord	Word whose bits are used where the mask is 0.
+	 * @param otherWord		Word whose bits are used where the mask is 1.
+	 * @param otherMask		Mask selecting the bits of otherWord.
+	 * @return				Merged word.
 	 */
-	private void updateChromosomeParameters(int[] newGainVector, int newOffset){
-		
-		int i;
-		
-		//--- Iterate through the gain vector and update its values.
-		for(i = 0; i < gainVector.length; i++)
-			gainVector[i] = newGainVector[i];
-		
-		//--- Update the offset.
-		offset = newOffset;
+	private static int mergeWords(int implicitWord, int otherWord, int otherMask){
+		return implicitWord ^ ((implicitWord ^ otherWord) & otherMask);
+	}
+	
+	
+	/**
+	 * Builds the table of masks used in crossover.  Entry n has every bit set from the
+	 * n-th most significant bit to the LSB (i.e. entry 0 is the whole word).
+	 * 
+	 * @return Array of trailing bit masks.
+	 */
+	private static int[] buildTrailingBitMasks(){
+		int[] masks = new int[WORD_BIT_LENGTH];
+		for(int i = 0; i < masks.length; i++)
+			masks[i] = -1 >>> i;
+		return masks;
 	}
 	
 	
@@ -252,15 +359,18 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	 */
 	@Override
 	public int compareTo(GAChromosome other){		
+		int chromosomeScore = getScore(), otherScore = other.getScore();
+		double totalSeparation = getTotalSeparation(), otherSeparation = other.getTotalSeparation();
+		
 		//---- Chromosomes with higher scores go first in the sort.
-		if(this.chromosomeScore > other.chromosomeScore)
+		if(chromosomeScore > otherScore)
 			return -1;
 		//---- Use the total separation as a secondary sort parameter when there
 		//---- is a tie based off exclusively score.
-		else if(this.chromosomeScore == other.chromosomeScore)
-			if(this.totalSepartion > other.totalSepartion)
+		else if(chromosomeScore == otherScore)
+			if(totalSeparation > otherSeparation)
 				return -1;
-			else if(this.totalSepartion == other.totalSepartion)
+			else if(totalSeparation == otherSeparation)
 				return 0;
 			else
 				return 1;
@@ -277,15 +387,15 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	 * @param newScore New score for the chromosome.
 	 */
 	public int getScore(){
-		return chromosomeScore;
+		return store.scores[index];
 	}	
 	
 	public void setTotalSeparation(double totalSeparation){
-		this.totalSepartion = totalSeparation;
+		store.separations[index] = totalSeparation;
 	}
 	
 	public double getTotalSeparation(){
-		return totalSepartion;
+		return store.separations[index];
 	}
 	
 	/**
@@ -294,53 +404,110 @@ public class GAChromosome implements Comparable<GAChromosome> {
 	 * @param newScore New score for the chromosome.
 	 */
 	public void setScore(int newScore){
-		chromosomeScore = newScore;
+		store.scores[index] = newScore;
+		store.scoreIsUpperBound[index] = false;
+	}
+	
+	/**
+	 * Updates the score of a chromosome whose evaluation was stopped early.  The score is
+	 * an upper bound of the exact score and the separation is only a partial sum.
+	 * 
+	 * @param upperBound Upper bound of the chromosome's score.
+	 * @param numberPatientsEvaluated Number of patients evaluated before the evaluation stopped.
+	 */
+	void setScoreUpperBound(int upperBound, int numberPatientsEvaluated){
+		store.scores[index] = upperBound;
+		store.scoreIsUpperBound[index] = true;
+		store.numberPatientsEvaluated[index] = numberPatientsEvaluated;
 	}
 	
+	/**
+	 * Accessor for the number of patients evaluated before an evaluation was stopped early.
+	 * 
+	 * @return Number of patients evaluated.  Only meaningful if the score is an upper bound.
+	 */
+	int getNumberPatientsEvaluated(){
+		return store.numberPatientsEvaluated[index];
+	}
+	
+	/**
+	 * Checks whether the chromosome's score is only an upper bound.
+	 * 
+	 * @return True if the evaluation was stopped early and false if the score is exact.
+	 */
+	public boolean isScoreUpperBound(){
+		return store.scoreIsUpperBound[index];
+	}
 	
+	
+	/**
+	 * Mutates the chromosome by flipping each bit with probability MUTATION_PROBABILITY.
+	 * Rather than drawing a random number for every bit, the gap to the next mutated bit
+	 * is drawn from a geometric distribution so only one draw is made per mutation.
+	 */
 	public void mutate(){
+		mutate(GARandom.current());
+	}
+	
+	
+	/**
+	 * Mutates the chromosome using the specified random number generator.
+	 * 
+	 * @param random Random number generator used to select the mutated bits.
+	 */
+	public void mutate(GARandom random){
 		
-		//----- Go through all the bits and get the see if it should be mutated.
-		int bitNumb, bitIndex, wordIndex, xorWord;
-		for(bitNumb = 0; bitNumb < WORD_BIT_LENGTH * gainVector.length + 1; bitNumb++ ){ //--- Plus 1 is for the offset
+		int numberOfBits = WORD_BIT_LENGTH * OFFSET_WORD_INDEX + 1; //--- Plus 1 is for the offset
+		final int[] genome = store.genomes;
 			
-			//---- see if the bit should be mutated.
-			if(randomGenerator.nextFloat() < MUTATION_PROBABILITY){
-				//---- Get the bit position in the word
-				bitIndex = bitNumb % WORD_BIT_LENGTH;
-				//---- Get the word number.
-				wordIndex =  bitNumb / WORD_BIT_LENGTH;
-				//----- Get the word to xor in the mutation.
-				xorWord = 1 << bitIndex;
+		//----- Jump directly from one mutated bit to the next.
+		int bitNumb = getNextMutationGap(numberOfBits, random);
+		while(bitNumb < numberOfBits){
+			//---- Perform the mutation.
+			genome[genomeBase + bitNumb / WORD_BIT_LENGTH] ^= 1 << (bitNumb % WORD_BIT_LENGTH);
 				
-				//---- Perform the mutation.
-				if(wordIndex == gainVector.length)
-					offset ^= xorWord;
-				else
-					gainVector[wordIndex] ^= xorWord;
-			}
+			//---- Skip to the next bit to mutate.
+			bitNumb += 1 + getNextMutationGap(numberOfBits, random);
 		}
 		
 	}
 	
+	
+	/**
+	 * Draws the number of bits to skip before the next mutation.  This is a geometric
+	 * random variable with success probability MUTATION_PROBABILITY.
+	 * 
+	 * @param maximumGap Value the returned gap is clipped to in order to prevent overflow.
+	 * @param random Random number generator used to draw the gap.
+	 * @return Number of unmutated bits before the next mutated bit.
+	 */
+	private static int getNextMutationGap(int maximumGap, GARandom random){
+		double gap = Math.floor(Math.log(1 - random.nextDouble()) / LOG_ONE_MINUS_MUTATION_PROBABILITY);
+		if(gap >= maximumGap)
+			return maximumGap;
+		return (int)gap;
+	}
+	
+	
 	@Override
 	public String toString(){
 		
 		String outputString = "";
+		final int[] genome = store.genomes;
 		
 		//---- Print the vector weights.
-		int index = 0;
-		outputString += "Mitoses Weight: " + gainVector[index++] + "\n";
-		outputString += "Clump Thickness Weight: " + gainVector[index++] + "\n";
-		outputString += "Cell Size Uniformity Weight: " + gainVector[index++] + "\n";
-		outputString += "Cell Shape Uniformity Weight: " + gainVector[index++] + "\n";
-		outputString += "Marginal Adhesion Weight: " + gainVector[index++] + "\n";
-		outputString += "Single Epithelial Cell Size Weight: " + gainVector[index++] + "\n";
-		outputString += "Bare Nucleoli Weight: " + gainVector[index++] + "\n";
-		outputString += "Bland Chromatin Weight: " + gainVector[index++] + "\n";
-		outputString += "Normal Nucleoli Weight: " + gainVector[index++] + "\n";
+		int wordIndex = genomeBase;
+		outputString += "Mitoses Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Clump Thickness Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Cell Size Uniformity Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Cell Shape Uniformity Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Marginal Adhesion Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Single Epithelial Cell Size Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Bare Nucleoli Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Bland Chromatin Weight: " + genome[wordIndex++] + "\n";
+		outputString += "Normal Nucleoli Weight: " + genome[wordIndex++] + "\n";
 
-		outputString += "Offset Weight: " + offset;
+		outputString += "Offset Weight: " + genome[genomeBase + OFFSET_WORD_INDEX];
 		
 		return outputString;
 		
@@ -0,0 +1,172 @@
+package cs123A;
+
+import java.util.ArrayList;
+
+/**
+ * Pool of reusable chromosomes and populations for a single genetic algorithm restart.
+ * Populations are double buffered: each generation is built in the spare population and
+ * the previous generation's population becomes the spare once it is released, so
+ * steady-state generations allocate no genomes or populations.  Single chromosomes can
+ * also be taken from the pool and returned to it.
+ * 
+ * A pool is not thread safe and must only be used by the thread that owns it.
+ */
+public class GAChromosomePool {
+	
+	private final ArrayList<GAChromosome> freeChromosomes;
+	private GAChromosomePopulation sparePopulation;		//---- Null if the spare is in use or was not created yet.
+	private int[] crossoverLocationBuffer;
+	private final GARandom random;
+	private long numberChromosomesCreated;
+	
+	
+	/**
+	 * Constructor for an empty chromosome pool.
+	 * 
+	 * @param random Random number generator used by the restart that owns the pool.
+	 */
+	public GAChromosomePool(GARandom random){
+		this.random = random;
+		freeChromosomes = new ArrayList<GAChromosome>();
+		crossoverLocationBuffer = new int[0];
+	}
+	
+	
+	/**
+	 * Gets a chromosome from the pool.  If the pool is empty, a new chromosome is created.
+	 * The contents of the returned chromosome's genome are undefined.
+	 * 
+	 * @return Chromosome that is available to be overwritten.
+	 */
+	public GAChromosome acquire(){
+		int size = freeChromosomes.size();
+		if(size == 0){
+			numberChromosomesCreated++;
+			return GAChromosome.createEmptyChromosome();
+		}
+		return freeChromosomes.remove(size - 1);
+	}
+	
+	
+	/**
+	 * Gets an empty population from the pool.  If the pool has no spare population, a new one is
+	 * created and its slots are counted as created chromosomes.
+	 *  
+	 * @return Empty population that uses the pool's random number generator.
+	 */
+	public GAChromosomePopulation acquirePopulation(){
+		GAChromosomePopulation population = sparePopulation;
+		sparePopulation = null;
+		if(population == null){
+			numberChromosomesCreated += GAChromosomePopulation.getMaximumPopulationSize();
+			return new GAChromosomePopulation(random);
+		}
+		population.reset(random);
+		return population;
+	}
+	
+	
+	/**
+	 * Returns a population to the pool.  Its slots are overwritten by the next population acquired
+	 * from the pool so neither the population nor any of its chromosomes may be used afterwards.
+	 *  
+	 * @param population Population to be reused.
+	 */
+	public void releasePopulation(GAChromosomePopulation population){
+		sparePopulation = population;
+	}
+	
+	
+	/**
+	 * Accessor for the number of chromosomes the pool had to create because it was empty.
+	 * 
+	 * @return Number of chromosomes created by the pool.
+	 */
+	public long getNumberChromosomesCreated(){
+		return numberChromosomesCreated;
+	}
+	
+	
+	/**
+	 * Returns a chromosome to the pool.  The chromosome must no longer be referenced by any population.
+	 * 
+	 * @param chromosome Chromosome to be reused.
+	 */
+	public void release(GAChromosome chromosome){
+		freeChromosomes.add(chromosome);
+	}
+	
+	
+	/**
+	 * Builds a child chromosome via n-point crossover of the two parents.  The child is
+	 * taken from the pool.
+	 * 
+	 * @param parent1		First parent chromosome.
+	 * @param parent2		Second parent chromosome.
+	 * @param numbPoints	Number of crossover points.
+	 * @return				Crossed over child chromosome.
+	 */
+	public GAChromosome crossover(GAChromosome parent1, GAChromosome parent2, int numbPoints){
+		GAChromosome child = acquire();
+		crossover(parent1, parent2, numbPoints, child);
+		return child;
+	}
+	
+	
+	/**
+	 * Builds a child chromosome via n-point crossover of the two parents into an existing
+	 * chromosome (e.g. a slot of a population).
+	 *  
+	 * @param parent1		First parent chromosome.
+	 * @param parent2		Second parent chromosome.
+	 * @param numbPoints	Number of crossover points.
+	 * @param child			Chromosome whose genome is overwritten.  It must not be either parent.
+	 */
+	public void crossover(GAChromosome parent1, GAChromosome parent2, int numbPoints, GAChromosome child){
+		
+		//---- Only grow the crossover location buffer if needed.
+		if(crossoverLocationBuffer.length < numbPoints)
+			crossoverLocationBuffer = new int[numbPoints];
+		
+		parent1.crossover(parent2, numbPoints, child, crossoverLocationBuffer, random);
+	}
+	
+	
+	/**
+	 * Accessor for the random number generator of the restart that owns the pool.
+	 * 
+	 * @return Random number generator.
+	 */
+	public GARandom getRandom(){
+		return random;
+	}
+	
+	
+	/**
+	 * Builds a child chromosome via uniform crossover of the two parents.  The child is
+	 * taken from the pool.
+	 * 
+	 * @param parent1		First parent chromosome.
+	 * @param parent2		Second parent chromosome.
+	 * @return				Crossed over child chromosome.
+	 */
+	public GAChromosome uniformCrossover(GAChromosome parent1, GAChromosome parent2){
+		GAChromosome child = acquire();
+		uniformCrossover(parent1, parent2, child);
+		return child;
+	}
+	
+	
+	/**
+	 * Builds a child chromosome via uniform crossover of the two parents into an existing
+	 * chromosome (e.g. a slot of a population).
+	 *  
+	 * @param parent1		First parent chromosome.
+	 * @param parent2		Second parent chromosome.
+	 * @param child			Chromosome whose genome is overwritten.  It must not be either parent.
+	 */
+	public void uniformCrossover(GAChromosome parent1, GAChromosome parent2, GAChromosome child){
+		parent1.uniformCrossover(parent2, child, random);
+	}
+	
+}
@@ -1,15 +1,42 @@
 package cs123A;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * Population of genetic algorithm chromosomes.  The members are stored struct of arrays style in a
+ * GAChromosomeStore (one flat genome array plus parallel score and separation arrays) so selection
+ * and scoring walk contiguous arrays.  The chromosomes returned by the accessors are views of the
+ * member slots.  A population is reused by the next generation but one once it is released to a
+ * GAChromosomePool so views must not be kept past that point.
+ */
 public class GAChromosomePopulation {
 
 	private static int maximumPopulationSize = 1000;
-	private boolean isSorted;
-	private ArrayList<GAChromosome> populationMembers;
-	private Random rand;
+	private static int numberScoringThreads = 1;
+	private static ForkJoinPool scoringThreadPool;
+	private static final int PARALLEL_SCORING_BATCH_SIZE = 32;
+	private static ScoringStrategy scoringStrategy = ScoringStrategy.CHROMOSOME;
+	private final GAChromosomeStore members;		//---- Population members are in slots 0 to populationSize - 1.
+	private int populationSize;
+	private int[] bestIndices;						//---- Slots of the best chromosomes in descending order.
+	private int numberBestIndices;					//---- Number of valid entries in bestIndices.  0 if stale.
+	private int[] heapIndices;						//---- Scratch heap used to select the best chromosomes.
+	private GAChromosome[] chromosomesToScore;		//---- Scratch list of the members that need to be scored.
+	private GARandom rand;
+	private BreastCancerDataSet scoringDataSet;		//---- Used to calculate the exact score of early terminated evaluations.
+	private int scoringMalignancyBiasFactor;
+	private int numberEvaluations;					//---- Chromosomes scored against the data set by the last scoring.
+	
+	/**
+	 * Supported scoring strategies.  CHROMOSOME scores each chromosome with its own pass over the
+	 * patients.  BATCH scores a batch of chromosomes together one cache sized block of patients at
+	 * a time (see PatientFeatureColumns.scoreChromosomes).  Both give identical results.
+	 */
+	public enum ScoringStrategy { CHROMOSOME, BATCH }
 	
 	
 	/**
@@ -17,10 +44,35 @@ public class GAChromosomePopulation {
 	 * It creates an empty array of population members.
 	 */
 	public GAChromosomePopulation(){
-		populationMembers = new ArrayList<GAChromosome>();
-		isSorted = false;
-		if(rand == null)
-			rand = new Random();
+		this(GARandom.current());
+	}
+	
+	
+	/**
+	 * Constructor for the GAChromosomePopulation class that draws its random numbers
+	 * from the specified generator.  It creates an empty array of population members.
+	 * 
+	 * @param random Random number generator used to build and select from the population.
+	 */
+	public GAChromosomePopulation(GARandom random){
+		members = new GAChromosomeStore(maximumPopulationSize);
+		bestIndices = new int[0];
+		heapIndices = new int[0];
+		chromosomesToScore = new GAChromosome[0];
+		rand = random;
+	}
+	
+	
+	/**
+	 * Empties the population so its slots can be refilled by another generation.  Used by GAChromosomePool.
+	 *  
+	 * @param random Random number generator used to build and select from the population.
+	 */
+	void reset(GARandom random){
+		populationSize = 0;
+		numberBestIndices = 0;
+		numberEvaluations = 0;
+		rand = random;
 	}
 	
 	/**
@@ -43,6 +95,65 @@ public class GAChromosomePopulation {
 	}
 	
 	
+	/**
+	 * Accessor for the number of threads used to score the population.
+	 * 
+	 * @return Number of scoring threads.  1 indicates serial scoring.
+	 */
+	public static int getNumberScoringThreads(){
+		return numberScoringThreads;
+	}
+	
+	
+	/**
+	 * Mutator for the number of threads used to score the population.  If more than
+	 * one thread is specified, population members are scored in parallel on a fork-join pool.
+	 * 
+	 * @param newNumberScoringThreads Number of scoring threads
+	 */
+	public static synchronized void setNumberScoringThreads(int newNumberScoringThreads){
+		numberScoringThreads = newNumberScoringThreads;
+		
+		//---- Discard any existing pool so it will be rebuilt with the new size.
+		if(scoringThreadPool != null){
+			scoringThreadPool.shutdown();
+			scoringThreadPool = null;
+		}
+	}
+	
+	
+	/**
+	 * Accessor for the strategy used to score chromosomes.
+	 * 
+	 * @return Current scoring strategy.
+	 */
+	public static ScoringStrategy getScoringStrategy(){
+		return scoringStrategy;
+	}
+	
+	
+	/**
+	 * Mutator for the strategy used to score chromosomes.
+	 * 
+	 * @param newScoringStrategy Scoring strategy used by all populations.
+	 */
+	public static void setScoringStrategy(ScoringStrategy newScoringStrategy){
+		scoringStrategy = newScoringStrategy;
+	}
+	
+	
+	/**
+	 * Accessor for the fork-join pool used for parallel scoring.  The pool is created on first use.
+	 * 
+	 * @return Scoring thread pool.
+	 */
+	private static synchronized ForkJoinPool getScoringThreadPool(){
+		if(scoringThreadPool == null)
+			scoringThreadPool = new ForkJoinPool(numberScoringThreads);
+		return scoringThreadPool;
+	}
+	
+	
 	/**
 	 * Static constructor to create a random genetic algorithm population.
 	 * 
@@ -50,9 +161,9 @@ public class GAChromosomePopulation {
 	 */
 	public void createRandomPopulation(){
 		
-		//---- Create the random population 
-		while(populationMembers.size() < maximumPopulationSize){
-			populationMembers.add(GAChromosome.createRandomChromosome());
+		//---- Create the random population in place.  Each genome is drawn like GAChromosome.createRandomChromosome.
+		while(populationSize < maximumPopulationSize){
+			appendChromosome().randomizeGenome(rand);
 		}
 	}
 	
@@ -62,7 +173,40 @@ public class GAChromosomePopulation {
 	 * @return Size of this population.
 	 */
 	public int getPopulationSize(){
-		return populationMembers.size();
+		return populationSize;
+	}
+	
+	
+	/**
+	 * Accessor for a member of this population.
+	 * 
+	 * @param index Index of the member.
+	 * @return View of the population member at the specified index.
+	 */
+	GAChromosome getMember(int index){
+		return members.getView(index);
+	}
+	
+	
+	/**
+	 * Accessor for the genomes of the members without copying them.  The genome of member i starts
+	 * at word i * GAChromosome.GENOME_WORD_COUNT.  The returned array must not be modified by the caller.
+	 *  
+	 * @return Flat genome array of the population.
+	 */
+	int[] getGenomeWords(){
+		return members.genomes;
+	}
+	
+	
+	/**
+	 * Accessor for the number of chromosomes scored against the data set the last time the
+	 * population was scored.  Chromosomes found in the fitness cache are not counted.
+	 * 
+	 * @return Number of evaluations.
+	 */
+	int getNumberEvaluations(){
+		return numberEvaluations;
 	}
 	
 	
@@ -86,23 +230,30 @@ public class GAChromosomePopulation {
 	 */
 	public GAChromosome performTournamentSelection(int tournamentSize){
 		
-		GAChromosome parentChromosome, tournamentChromosome;
 		int i, tournamentIndex;
-		parentChromosome = null; //---- Default initialization for parent.
+		int parentIndex = -1; //---- Default initialization for parent.
+		final int[] scores = members.scores;
+		final boolean[] scoreIsUpperBound = members.scoreIsUpperBound;
 		
 		//---- Run the tournament 
 		for(i = 0; i < tournamentSize; i++){
 			
 			//---- Select the index of the n
-			tournamentIndex = rand.nextInt(populationMembers.size());
-			//---- Extract the tournament chromosome
-			tournamentChromosome = populationMembers.get(tournamentIndex);
-			if(parentChromosome == null || tournamentChromosome.getScore() > parentChromosome.getScore())
-				parentChromosome = tournamentChromosome;
+			tournamentIndex = rand.nextInt(populationSize);
+			//---- An early terminated evaluation only continues while its bound could still beat the parent.
+			//---- The first participant becomes the parent so it needs its exact score.
+			if(scoreIsUpperBound[tournamentIndex]){
+				if(parentIndex < 0)
+					resolveExactScore(tournamentIndex);
+				else if(scores[tournamentIndex] > scores[parentIndex])
+					refineScoreUpperBound(tournamentIndex, scores[parentIndex] + 1);
+			}
+			if(parentIndex < 0 || scores[tournamentIndex] > scores[parentIndex])
+				parentIndex = tournamentIndex;
 		}
 		
 		
-		return parentChromosome;
+		return (parentIndex < 0) ? null : members.getView(parentIndex);
 	}
 	
 	
@@ -110,41 +261,305 @@ public class GAChromosomePopulation {
 	 * Returns the best chromosomes from the population.
 	 * 
 	 * @param numbChromosomes Number of chromosomes to return.
-	 * @return	Array of the best chromosomes of length numbChromosomes.
+	 * @return	Array of views of the best chromosomes of length numbChromosomes.
 	 */
 	public GAChromosome[] getBestChromosomes(int numbChromosomes){
-		//---- If the list of population members is not sorted, then sort it. 
-		if(!isSorted){
-			Collections.sort(populationMembers);
-			isSorted = true; //--- Mark the population sorted.
-		}
+		
+		updateBestChromosomes(numbChromosomes);
 		
 		//---- Build an array to store the n best chromosomes.
 		GAChromosome[] bestChromosomes = new GAChromosome[numbChromosomes];
 		
 		//---- Copy the best chromosomes.
 		for(int i = 0; i < numbChromosomes; i++){
-			bestChromosomes[i] = populationMembers.get(i);
+			bestChromosomes[i] = members.getView(bestIndices[i]);
 		}
 		
 		//---- Return the array of the best chromosomes.
 		return bestChromosomes;
 	}
 	
+	
+	/**
+	 * Makes sure the slots of at least the specified number of best chromosomes are known.
+	 *  
+	 * @param numbChromosomes Number of best chromosomes needed.
+	 */
+	private void updateBestChromosomes(int numbChromosomes){
+		
+		if(numbChromosomes > populationSize)
+			throw new IndexOutOfBoundsException("Requested " + numbChromosomes + " chromosomes from a population of "
+												+ populationSize + ".");
+		
+		//---- If the best chromosomes are not known, then find them. 
+		if(numberBestIndices < numbChromosomes){
+			selectBestChromosomes(numbChromosomes);
+			
+			//---- The selection is only exact if no early terminated evaluation could tie or beat a selected chromosome.
+			if(members.scores[bestIndices[numbChromosomes - 1]] <= getMaximumScoreUpperBound()){
+				for(int i = 0; i < populationSize; i++)
+					if(members.scoreIsUpperBound[i]) resolveExactScore(i);
+				selectBestChromosomes(numbChromosomes);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Forgets the best chromosomes found by getBestChromosomes so the next call selects them again.
+	 * Used by GABenchmark to time the selection on an unchanged population.
+	 */
+	void clearBestChromosomes(){
+		numberBestIndices = 0;
+	}
+	
+	
+	/**
+	 * Finds the largest score upper bound of the early terminated evaluations in the population.
+	 * 
+	 * @return Largest upper bound or Integer.MIN_VALUE if every score is exact.
+	 */
+	private int getMaximumScoreUpperBound(){
+		int maximumUpperBound = Integer.MIN_VALUE;
+		for(int i = 0; i < populationSize; i++)
+			if(members.scoreIsUpperBound[i] && members.scores[i] > maximumUpperBound)
+				maximumUpperBound = members.scores[i];
+		return maximumUpperBound;
+	}
+	
+	
+	/**
+	 * Replaces the upper bound of an early terminated evaluation with the chromosome's exact score.
+	 * 
+	 * @param index Index of the member whose score is an upper bound.
+	 */
+	private void resolveExactScore(int index){
+		refineScoreUpperBound(index, Integer.MIN_VALUE);
+	}
+	
+	
 	/**
-	 * Adds a new chromosome to this population.
+	 * Continues an early terminated evaluation from where it was stopped until either the upper
+	 * bound drops below the threshold or the exact score is known.
 	 * 
-	 * @param newChromosome  Add a new chromosome to this population.
+	 * @param index Index of the member whose score is an upper bound.
+	 * @param scoreThreshold Score the chromosome must be able to reach for the evaluation to continue.
+	 */
+	private void refineScoreUpperBound(int index, int scoreThreshold){
+		
+		PatientFeatureColumns patientColumns = scoringDataSet.getPatientColumns();
+		GAChromosome chromosome = members.getView(index);
+		double[] chromosomeScore = patientColumns.resumeBoundedScoreAndSeparation(members.genomes, chromosome.getGenomeBase(), 
+										scoringMalignancyBiasFactor, scoreThreshold, members.scores[index], 
+										members.separations[index], members.numberPatientsEvaluated[index]);
+		
+		if(chromosomeScore[2] < patientColumns.getNumberOfPatients())
+			chromosome.setScoreUpperBound((int)chromosomeScore[0], (int)chromosomeScore[2]);
+		else
+			chromosome.setScore((int)chromosomeScore[0]);
+		chromosome.setTotalSeparation(chromosomeScore[1]);
+	}
+	
+	
+	/**
+	 * Finds the best chromosomes in the population without sorting the whole population.
+	 * A bounded heap of size numbChromosomes holds the slots of the best chromosomes seen so far
+	 * with the worst of them at the root, so selection is O(n log k).  Chromosomes are ordered by
+	 * GAChromosome.compareTo with ties broken by population order (i.e. the same order as a stable sort).
+	 * The result is stored in bestIndices in descending order.
+	 * 
+	 * @param numbChromosomes Number of chromosomes to select.
+	 */
+	private void selectBestChromosomes(int numbChromosomes){
+		
+		//---- Only grow the scratch arrays if needed.
+		if(heapIndices.length < numbChromosomes){
+			heapIndices = new int[numbChromosomes];
+			bestIndices = new int[numbChromosomes];
+		}
+		int heapSize = 0;
+		
+		for(int i = 0; i < populationSize; i++){
+			
+			//---- Fill the heap first.
+			if(heapSize < numbChromosomes){
+				heapIndices[heapSize] = i;
+				heapSize++;
+				siftUp(heapSize - 1);
+			}
+			//---- Replace the worst kept chromosome if the candidate is better.
+			else if(numbChromosomes > 0 && isWorse(heapIndices[0], i)){
+				heapIndices[0] = i;
+				siftDown(heapSize);
+			}
+		}
+		
+		//---- Empty the heap from worst to best to sort the selected chromosomes.
+		numberBestIndices = heapSize;
+		while(heapSize > 0){
+			bestIndices[heapSize - 1] = heapIndices[0];
+			heapSize--;
+			heapIndices[0] = heapIndices[heapSize];
+			siftDown(heapSize);
+		}
+	}
+	
+	
+	/**
+	 * Determines whether one member ranks below another.
+	 * 
+	 * @param index1 Index of the first member.
+	 * @param index2 Index of the second member.
+	 * @return True if the first member ranks below the second member.
+	 */
+	private boolean isWorse(int index1, int index2){
+		int comparison = members.compareSlots(index1, index2);
+		return comparison > 0 || (comparison == 0 && index1 > index2);
+	}
+	
+	
+	/**
+	 * Restores the heap property by moving an element towards the root.
+	 */
+	private void siftUp(int position){
+		int parent;
+		while(position > 0){
+			parent = (position - 1) / 2;
+			if(!isWorse(heapIndices[position], heapIndices[parent]))
+				return;
+			swapHeapElements(position, parent);
+			position = parent;
+		}
+	}
+	
+	
+	/**
+	 * Restores the heap property by moving the root away from the root.
+	 */
+	private void siftDown(int heapSize){
+		int position = 0, child;
+		while((child = 2 * position + 1) < heapSize){
+			//---- Pick the worse of the two children.
+			if(child + 1 < heapSize && isWorse(heapIndices[child + 1], heapIndices[child]))
+				child++;
+			if(!isWorse(heapIndices[child], heapIndices[position]))
+				return;
+			swapHeapElements(position, child);
+			position = child;
+		}
+	}
+	
+	
+	private void swapHeapElements(int position1, int position2){
+		int tempIndex = heapIndices[position1];
+		heapIndices[position1] = heapIndices[position2];
+		heapIndices[position2] = tempIndex;
+	}
+	
+	/**
+	 * Adds a copy of a chromosome to this population.
+	 * 
+	 * @param newChromosome  Chromosome whose genome, score and separation are copied into a new member.
 	 */
 	public void addChromosome(GAChromosome newChromosome){
+		//---- Adds a new chromosome to the population.
+		appendChromosome().copyFrom(newChromosome);
+	}
+	
+	/**
+	 * Adds an unscored member to this population.  Its genome is left for the caller to overwrite
+	 * (e.g. by crossover) so building a generation does not create any chromosomes.
+	 *  
+	 * @return View of the new member.
+	 */
+	GAChromosome appendChromosome(){
 		//---- Ensure not exceeding the maximum population size.
-		assert(populationMembers.size() < maximumPopulationSize);
+		assert(populationSize < maximumPopulationSize);
 		
-		//---- Adds a new chromosome to the population.
-		populationMembers.add(newChromosome);
+		members.ensureCapacity(populationSize + 1);
+		members.clearScore(populationSize);
+		
+		//---- Since a new population member was added, the best chromosomes may have changed.
+		numberBestIndices = 0;
+		return members.getView(populationSize++);
+	}
+	
+	/**
+	 * Adds copies of the best chromosomes of another population to this population in descending order.
+	 *  
+	 * @param source Population whose best chromosomes are copied.  It is not modified other than
+	 * resolving the exact scores needed for the selection.
+	 * @param numbChromosomes Number of chromosomes to copy.
+	 */
+	void addBestChromosomes(GAChromosomePopulation source, int numbChromosomes){
+		source.updateBestChromosomes(numbChromosomes);
+		for(int i = 0; i < numbChromosomes; i++)
+			addChromosome(source.members.getView(source.bestIndices[i]));
+	}
+	
+	/**
+	 * Writes the members of this population in order to a checkpoint.
+	 * 
+	 * @param out Destination of the population.
+	 * @throws IOException If the population cannot be written.
+	 */
+	void writeTo(DataOutput out) throws IOException{
+		out.writeInt(populationSize);
+		for(int i = 0; i < populationSize; i++)
+			members.getView(i).writeTo(out);
+	}
+	
+	
+	/**
+	 * Reads a population written by writeTo.  Since the members are in the same order with the
+	 * same scores, selecting from the population gives the same results as the original.
+	 * 
+	 * @param in Source of the population.
+	 * @param random Random number generator used for tournament selection.
+	 * @param dataSet Data set the population was scored with.  It is used to resolve early terminated evaluations.
+	 * @param malignancyBiasFactor Bias factor the population was scored with.
+	 * @return Scored population identical to the one that was written.
+	 * @throws IOException If the population cannot be read.
+	 */
+	static GAChromosomePopulation readFrom(DataInput in, GARandom random, BreastCancerDataSet dataSet, 
+										   int malignancyBiasFactor) throws IOException{
+		
+		int populationSize = in.readInt();
+		if(populationSize < 0 || populationSize > maximumPopulationSize)
+			throw new IOException("Invalid population size: " + populationSize);
+		
+		GAChromosomePopulation population = new GAChromosomePopulation(random);
+		for(int i = 0; i < populationSize; i++)
+			population.appendChromosome().readFields(in);
+		population.scoringDataSet = dataSet;
+		population.scoringMalignancyBiasFactor = malignancyBiasFactor;
+		return population;
+	}
+	
+	
+	/**
+	 * Replaces the worst members of this population with already scored chromosomes.  The best
+	 * members and then the new chromosomes are copied into a population taken from the chromosome
+	 * pool and this population is returned to the pool.
+	 * 
+	 * @param newChromosomes Scored chromosomes to be added to the population.  They are not modified.
+	 * @param pool Pool that supplies the new population and reuses this one.
+	 * @return Population that replaces this population.
+	 */
+	public GAChromosomePopulation replaceWorstChromosomes(GAChromosome[] newChromosomes, GAChromosomePool pool){
 		
-		//---- Since a new population member was added, mark this no longer sorted.
-		isSorted = false;
+		GAChromosomePopulation newPopulation = pool.acquirePopulation();
+		
+		//---- Keep the best members.  Any early terminated evaluation kept can still be resolved.
+		newPopulation.addBestChromosomes(this, populationSize - newChromosomes.length);
+		newPopulation.scoringDataSet = scoringDataSet;
+		newPopulation.scoringMalignancyBiasFactor = scoringMalignancyBiasFactor;
+			
+		for(GAChromosome chromosome : newChromosomes)
+			newPopulation.addChromosome(chromosome);
+			
+		pool.releasePopulation(this);
+		return newPopulation;
 	}
 	
 	/**
@@ -165,15 +580,131 @@ public class GAChromosomePopulation {
 	 * of a malignant tumor.
 	 */
 	public void scorePopulationMembers(BreastCancerDataSet dataSet, int malignancyBiasFactor){
+		scorePopulationMembers(dataSet, malignancyBiasFactor, null);
+	}
+	
+	
+	/**
+	 * Scores the chromosome population based off the passed in data set.  Chromosomes whose
+	 * genome is in the fitness cache are not re-scored.
+	 * 
+	 * @param dataSet Breast Cancer Data Set by Which the Population will be Scored.
+	 * @param malignancyBiasFactor Score associated with an incorrect/correct characterization
+	 * of a malignant tumor.
+	 * @param fitnessCache Cache of previously calculated scores.  If null, every chromosome is scored.
+	 */
+	public void scorePopulationMembers(BreastCancerDataSet dataSet, int malignancyBiasFactor, GAFitnessCache fitnessCache){
+		scorePopulationMembers(dataSet, malignancyBiasFactor, fitnessCache, Integer.MIN_VALUE);
+	}
+	
+	
+	/**
+	 * Scores the chromosome population based off the passed in data set.  The evaluation of a 
+	 * chromosome whose score cannot reach the threshold may be stopped early in which case its score 
+	 * is only an upper bound (see GAChromosome.isScoreUpperBound).  The exact score is calculated 
+	 * later only if tournament selection or getBestChromosomes needs it.  Early termination is 
+	 * only done by the per chromosome scoring strategy on this process.
+	 * 
+	 * @param dataSet Breast Cancer Data Set by Which the Population will be Scored.
+	 * @param malignancyBiasFactor Score associated with an incorrect/correct characterization
+	 * of a malignant tumor.
+	 * @param fitnessCache Cache of previously calculated scores.  If null, every chromosome is scored.
+	 * @param scoreThreshold Chromosomes with a lower score may have their evaluation stopped early.
+	 * Integer.MIN_VALUE disables early termination.
+	 */
+	public void scorePopulationMembers(BreastCancerDataSet dataSet, int malignancyBiasFactor, GAFitnessCache fitnessCache,
+									   int scoreThreshold){
+		
+		scoringDataSet = dataSet;
+		scoringMalignancyBiasFactor = malignancyBiasFactor;
+		
+		//---- Only grow the scratch list if needed.
+		if(chromosomesToScore.length < populationSize)
+			chromosomesToScore = new GAChromosome[populationSize];
+		final GAChromosome[] chromosomesToScore = this.chromosomesToScore;
+		int numberToScore = 0;
+		int i;
+		
+		//---- Ignore a cache built for a different data set.
+		if(fitnessCache != null && !fitnessCache.isValidFor(dataSet, malignancyBiasFactor))
+			fitnessCache = null;
+		
+		//---- Only chromosomes missing from the cache need to be scored.
+		for(i = 0; i < populationSize; i++){
+			if(fitnessCache == null || !fitnessCache.lookup(members.getView(i)))
+				chromosomesToScore[numberToScore++] = members.getView(i);
+		}
+		numberEvaluations = numberToScore;
+	
+		//---- Ship the chromosomes to the worker processes if any are configured.
+		if(GADistributedScorer.isEnabled())
+			GADistributedScorer.scoreChromosomes(dataSet, malignancyBiasFactor, chromosomesToScore, 0, numberToScore);
+		//---- Score in parallel only if it is enabled and there is enough work to split.
+		else if(numberScoringThreads > 1 && numberToScore > PARALLEL_SCORING_BATCH_SIZE){
+			//---- Build the columns before forking so the worker threads only read the data set.
+			dataSet.getPatientColumns();
+			getScoringThreadPool().invoke(new ScoringTask(dataSet, malignancyBiasFactor, scoreThreshold, chromosomesToScore, 0, numberToScore));
+		}
+		else
+			scoreChromosomes(dataSet, malignancyBiasFactor, scoreThreshold, chromosomesToScore, 0, numberToScore);
+		
+		//---- Remember the new scores.  Upper bounds are not exact so they are not cached.
+		if(fitnessCache != null){
+			for(i = 0; i < numberToScore; i++)
+				if(!chromosomesToScore[i].isScoreUpperBound())
+					fitnessCache.store(chromosomesToScore[i]);
+		}
+		
+		//----- Since the population was re-scored, the best chromosomes may have changed.
+		numberBestIndices = 0;
+		
+	}
+	
 	
+	/**
+	 * Scores a contiguous range of an array of chromosomes.
+	 * 
+	 * @param dataSet Breast Cancer Data Set by Which the Population will be Scored.
+	 * @param malignancyBiasFactor Score associated with an incorrect/correct characterization
+	 * of a malignant tumor.
+	 * @param scoreThreshold Chromosomes with a lower score may have their evaluation stopped early.
+	 * @param chromosomes Array of chromosomes to be scored.
+	 * @param startIndex Index of the first chromosome to score (inclusive).
+	 * @param endIndex Index of the last chromosome to score (exclusive).
+	 */
+	private static void scoreChromosomes(BreastCancerDataSet dataSet, int malignancyBiasFactor, int scoreThreshold,
+										 GAChromosome[] chromosomes, int startIndex, int endIndex){
+		
 		GAChromosome tempChromosome;
 		double chromosomeScore[];
 		
-		//---- Iterate through all population members and generate their score.
-		for(int i = 0; i < populationMembers.size(); i++){
+		//---- Batch scoring handles the whole range in one pass over the patients.
+		if(scoringStrategy == ScoringStrategy.BATCH){
+			dataSet.getPatientColumns().scoreChromosomes(chromosomes, startIndex, endIndex, malignancyBiasFactor);
+			return;
+		}
+		
+		//---- Stop the evaluation of chromosomes that cannot reach the threshold.
+		if(scoreThreshold != Integer.MIN_VALUE){
+			PatientFeatureColumns patientColumns = dataSet.getPatientColumns();
+			for(int i = startIndex; i < endIndex; i++){
+				tempChromosome = chromosomes[i];
+				chromosomeScore = patientColumns.getBoundedScoreAndSeparation(tempChromosome.getGenomeWords(), 
+																			  tempChromosome.getGenomeBase(), malignancyBiasFactor, scoreThreshold);
+				if(chromosomeScore[2] < patientColumns.getNumberOfPatients())
+					tempChromosome.setScoreUpperBound((int)chromosomeScore[0], (int)chromosomeScore[2]);
+				else
+					tempChromosome.setScore((int)chromosomeScore[0]);
+				tempChromosome.setTotalSeparation(chromosomeScore[1]);
+			}
+			return;
+		}
+		
+		//---- Iterate through the chromosomes and generate their score.
+		for(int i = startIndex; i < endIndex; i++){
 			
 			//---- Get the current chromosome.
-			tempChromosome = populationMembers.get(i);
+			tempChromosome = chromosomes[i];
 			//---- Get the score for that chromosome.
 			chromosomeScore = dataSet.getChromosomeScoreAndSeparationForPopulation(tempChromosome, malignancyBiasFactor);
 			//---- Update the chromosome's score.
@@ -181,10 +712,47 @@ public class GAChromosomePopulation {
 			tempChromosome.setTotalSeparation(chromosomeScore[1]);
 			
 		}
+	}
+	
+	
+	/**
+	 * Fork-join task that scores a range of chromosomes.  Ranges larger than the batch size
+	 * are split in half.  Each chromosome is only written by a single task so the results are 
+	 * identical to serial scoring.
+	 */
+	private static class ScoringTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private final BreastCancerDataSet dataSet;
+		private final int malignancyBiasFactor;
+		private final int scoreThreshold;
+		private final GAChromosome[] chromosomes;
+		private final int startIndex;
+		private final int endIndex;
 		
-		//----- Since the population was re-scored, mark it unsorted.
-		isSorted = false;
+		ScoringTask(BreastCancerDataSet dataSet, int malignancyBiasFactor, int scoreThreshold, GAChromosome[] chromosomes, 
+					int startIndex, int endIndex){
+			this.dataSet = dataSet;
+			this.malignancyBiasFactor = malignancyBiasFactor;
+			this.scoreThreshold = scoreThreshold;
+			this.chromosomes = chromosomes;
+			this.startIndex = startIndex;
+			this.endIndex = endIndex;
+		}
 		
+		@Override
+		protected void compute(){
+			//---- Score small ranges directly.
+			if(endIndex - startIndex <= PARALLEL_SCORING_BATCH_SIZE){
+				scoreChromosomes(dataSet, malignancyBiasFactor, scoreThreshold, chromosomes, startIndex, endIndex);
+				return;
+			}
+			
+			//---- Split the range in half.
+			int midIndex = (startIndex + endIndex) >>> 1;
+			invokeAll(new ScoringTask(dataSet, malignancyBiasFactor, scoreThreshold, chromosomes, startIndex, midIndex),
+					  new ScoringTask(dataSet, malignancyBiasFactor, scoreThreshold, chromosomes, midIndex, endIndex));
+		}
 	}
 	
-}
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package cs123A;
+
+import java.util.Arrays;
+
+/**
+ * Struct of arrays storage for a block of chromosomes.  The genomes are packed into a single
+ * flat array with GAChromosome.GENOME_WORD_COUNT words per slot and the score, separation and
+ * early termination state of each slot are kept in parallel arrays.  A GAChromosome is a view
+ * of one slot so the arrays are read in place by the scoring kernels and no object is created
+ * per chromosome once the store is built.
+ * 
+ * A chromosome that is not part of a population (e.g. GAChromosome.createRandomChromosome) is
+ * the only slot of its own store.
+ * 
+ * A store is not thread safe.  Different slots may be written by different threads.
+ */
+final class GAChromosomeStore {
+	
+	int[] genomes;						//---- GENOME_WORD_COUNT words per slot.  The offset is the last word.
+	int[] scores;
+	double[] separations;
+	boolean[] scoreIsUpperBound;		//---- True if the evaluation of the slot was stopped early.
+	int[] numberPatientsEvaluated;		//---- Patients evaluated before an evaluation was stopped early.
+	private GAChromosome[] views;		//---- One view per slot.  Created with the slot and never replaced.
+	
+	
+	/**
+	 * Creates a store whose slots are all unscored with all zero genomes.
+	 * 
+	 * @param capacity Number of slots.
+	 */
+	GAChromosomeStore(int capacity){
+		genomes = new int[capacity * GAChromosome.GENOME_WORD_COUNT];
+		scores = new int[capacity];
+		separations = new double[capacity];
+		scoreIsUpperBound = new boolean[capacity];
+		numberPatientsEvaluated = new int[capacity];
+		views = new GAChromosome[capacity];
+		
+		//---- Give a chromosome the minimum score by default as a check.
+		Arrays.fill(scores, Integer.MIN_VALUE);
+		for(int i = 0; i < capacity; i++)
+			views[i] = new GAChromosome(this, i);
+	}
+	
+	
+	/**
+	 * Accessor for the number of slots in the store.
+	 * 
+	 * @return Capacity of the store.
+	 */
+	int getCapacity(){
+		return views.length;
+	}
+	
+	
+	/**
+	 * Accessor for the view of a slot.  The same view is returned every time so the view
+	 * reflects any later change to the slot.
+	 * 
+	 * @param index Index of the slot.
+	 * @return Chromosome backed by the slot.
+	 */
+	GAChromosome getView(int index){
+		return views[index];
+	}
+	
+	
+	/**
+	 * Grows the store so it has at least the specified number of slots.  The contents and views
+	 * of the existing slots are kept so views that were already handed out remain valid.
+	 * 
+	 * @param minimumCapacity Number of slots needed.
+	 */
+	void ensureCapacity(int minimumCapacity){
+		
+		int oldCapacity = views.length;
+		if(minimumCapacity <= oldCapacity) return;
+		
+		int newCapacity = Math.max(minimumCapacity, 2 * oldCapacity);
+		genomes = Arrays.copyOf(genomes, newCapacity * GAChromosome.GENOME_WORD_COUNT);
+		scores = Arrays.copyOf(scores, newCapacity);
+		separations = Arrays.copyOf(separations, newCapacity);
+		scoreIsUpperBound = Arrays.copyOf(scoreIsUpperBound, newCapacity);
+		numberPatientsEvaluated = Arrays.copyOf(numberPatientsEvaluated, newCapacity);
+		views = Arrays.copyOf(views, newCapacity);
+		
+		Arrays.fill(scores, oldCapacity, newCapacity, Integer.MIN_VALUE);
+		for(int i = oldCapacity; i < newCapacity; i++)
+			views[i] = new GAChromosome(this, i);
+	}
+	
+	
+	/**
+	 * Overwrites a slot with the genome, score and separation of a slot of another (or the same) store.
+	 * 
+	 * @param index Index of the slot to be overwritten.
+	 * @param source Store holding the slot to be copied.
+	 * @param sourceIndex Index of the slot to be copied.
+	 */
+	void copySlot(int index, GAChromosomeStore source, int sourceIndex){
+		System.arraycopy(source.genomes, sourceIndex * GAChromosome.GENOME_WORD_COUNT,
+						 genomes, index * GAChromosome.GENOME_WORD_COUNT, GAChromosome.GENOME_WORD_COUNT);
+		scores[index] = source.scores[sourceIndex];
+		separations[index] = source.separations[sourceIndex];
+		scoreIsUpperBound[index] = source.scoreIsUpperBound[sourceIndex];
+		numberPatientsEvaluated[index] = source.numberPatientsEvaluated[sourceIndex];
+	}
+	
+	
+	/**
+	 * Marks a slot as not yet scored.
+	 * 
+	 * @param index Index of the slot.
+	 */
+	void clearScore(int index){
+		scores[index] = Integer.MIN_VALUE;
+		separations[index] = 0;
+		scoreIsUpperBound[index] = false;
+	}
+	
+	
+	/**
+	 * Compares two slots in the order of GAChromosome.compareTo, i.e. descending score with the
+	 * separation as the secondary sort parameter.
+	 * 
+	 * @param index1 Index of the first slot.
+	 * @param index2 Index of the second slot.
+	 * @return Negative if the first slot goes first, positive if it goes second and 0 on a tie.
+	 */
+	int compareSlots(int index1, int index2){
+		if(scores[index1] > scores[index2])
+			return -1;
+		else if(scores[index1] == scores[index2])
+			if(separations[index1] > separations[index2])
+				return -1;
+			else if(separations[index1] == separations[index2])
+				return 0;
+			else
+				return 1;
+		else
+			return 1;
+	}
+	
+}
@@ -0,0 +1,681 @@
+package cs123A;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP service that classifies patients with a trained model (see GAClassifierModel).
+ *  
+ * POST /classify - The body is any number of records in the format of the Wisconsin data set,
+ *                  one per line.  The class field is optional.  All of the records of a request
+ *                  are parsed into flat arrays and classified in one pass.  The reply has one line
+ *                  "id,class,margin" per non-empty line of the body in the same order.  The class
+ *                  is 2 (benign) or 4 (malignant) and the margin is the linear function of the
+ *                  record.  A record that is malformed or has a missing ('?') feature is replied
+ *                  to as "id,?," (the id is empty if it could not be read).
+ * GET /stats     - Number of requests and records served, throughput and the latency percentiles
+ *                  of the requests since the service was started.
+ *  
+ * Every HTTP request pays the same parsing and reply overhead so the throughput of the HTTP endpoint
+ * depends on the clients batching records into their requests.  Clients that send one record at a
+ * time should use the record stream endpoint instead (if a stream port is given).  It accepts TCP
+ * connections on which records are written one per line without waiting for the replies.  The
+ * socket buffer acts as the queue of pending records: every complete line that has arrived is
+ * classified as one batch and the reply lines of the batch are written together, in the same
+ * format and order as the HTTP replies.  Each batch is counted as one request in the statistics.
+ *  
+ * Latency is measured from when a handler thread starts a request (or a batch of stream records)
+ * until its reply is written so it excludes time the request waited for a handler thread.
+ *  
+ * The service has no authentication so it only listens on the loopback interface unless another
+ * address is specified.
+ */
+public class GAClassificationServer {
+	
+	private static final int MAXIMUM_REQUEST_SIZE = 64 << 20;			//---- Bytes
+	private static final long REPORT_INTERVAL = 10000;					//---- Milliseconds
+	private static final int NUMBER_OF_FEATURES = Patient.numberDataElementsPerPatient();
+	private static final int NUMBER_OF_RECORD_FIELDS = 11;				//---- Id, 9 features and the class.
+	private static final int INITIAL_BATCH_SIZE = 1024;
+	private static final String CONTENT_TYPE = "text/plain; charset=US-ASCII";
+	
+	private static GAClassifierModel model;
+	private static final long startTime = System.nanoTime();
+	private static final AtomicLong numberRequests = new AtomicLong();
+	private static final AtomicLong numberRecords = new AtomicLong();
+	private static final AtomicLong numberInvalidRecords = new AtomicLong();
+	private static final LatencyHistogram latencies = new LatencyHistogram();
+	
+	//---- Parse and reply buffers are reused by each handler thread so a request allocates nothing per record.
+	private static final ThreadLocal<RequestBuffers> threadBuffers = new ThreadLocal<RequestBuffers>(){
+		@Override
+		protected RequestBuffers initialValue(){
+			return new RequestBuffers();
+		}
+	};
+	
+	
+	/**
+	 * Serves classification requests until the process is stopped.  A report of the throughput and
+	 * latency is printed every REPORT_INTERVAL milliseconds in which requests were served.
+	 * 
+	 * @param bindAddress Address the service listens on.  Null listens on the loopback interface only.
+	 * @param port Port the service listens on.
+	 * @param streamPort Port of the record stream endpoint.  0 disables the endpoint.
+	 * @param classifierModel Model used to classify the records.
+	 * @throws IOException If the service cannot listen on the ports.
+	 */
+	public static void serve(InetAddress bindAddress, int port, int streamPort, GAClassifierModel classifierModel) throws IOException{
+		
+		model = classifierModel;
+		
+		//---- Without TCP_NODELAY, small replies wait on the client's delayed acknowledgement (about 40 ms).
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		
+		if(bindAddress == null) bindAddress = InetAddress.getLoopbackAddress();
+		HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+		server.createContext("/classify", new HttpHandler(){
+			public void handle(HttpExchange exchange) throws IOException{
+				handleClassify(exchange);
+			}
+		});
+		server.createContext("/stats", new HttpHandler(){
+			public void handle(HttpExchange exchange) throws IOException{
+				handleStats(exchange);
+			}
+		});
+		
+		//---- One handler thread per processor.
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory(){
+			private int numberThreads = 0;
+			public synchronized Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, "GAClassifier-" + numberThreads++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		server.setExecutor(executor);
+		
+		//---- Each stream connection is served by its own thread.
+		if(streamPort != 0){
+			final ServerSocket streamServerSocket = new ServerSocket(streamPort, 0, bindAddress);
+			Thread acceptThread = new Thread(new Runnable(){
+				public void run(){
+					acceptStreams(streamServerSocket);
+				}
+			}, "GAClassifierStreamAccept");
+			acceptThread.setDaemon(true);
+			acceptThread.start();
+			System.out.println("Classification record stream listening on " + streamServerSocket.getInetAddress().getHostAddress()
+							   + " port " + streamServerSocket.getLocalPort() + ".");
+		}
+		
+		server.start();
+		System.out.println("Classification service listening on " + server.getAddress().getAddress().getHostAddress()
+						   + " port " + server.getAddress().getPort() + ".");
+		
+		//---- Print the periodic report until the process is stopped.
+		long lastNumberRequests = 0;
+		long lastNumberRecords = 0;
+		long lastReportTime = System.nanoTime();
+		long currentTime, currentNumberRequests, currentNumberRecords;
+		while(true){
+			try{
+				Thread.sleep(REPORT_INTERVAL);
+			}
+			catch(InterruptedException e){
+				server.stop(0);
+				executor.shutdown();
+				return;
+			}
+			currentTime = System.nanoTime();
+			currentNumberRequests = numberRequests.get();
+			currentNumberRecords = numberRecords.get();
+			if(currentNumberRequests != lastNumberRequests){
+				System.out.println("Classified " + (currentNumberRecords - lastNumberRecords) + " records in "
+								   + (currentNumberRequests - lastNumberRequests) + " requests ("
+								   + String.format("%.0f", (currentNumberRecords - lastNumberRecords) * 1e9 / (currentTime - lastReportTime))
+								   + " records/s).  Latency (us) p50: " + latencies.getPercentile(0.5)
+								   + "  p99: " + latencies.getPercentile(0.99) + "  p99.9: " + latencies.getPercentile(0.999)
+								   + "  max: " + latencies.getMaximum());
+			}
+			lastNumberRequests = currentNumberRequests;
+			lastNumberRecords = currentNumberRecords;
+			lastReportTime = currentTime;
+		}
+	}
+	
+	
+	/**
+	 * Classifies the records in the body of a request.
+	 * 
+	 * @param exchange Request to be served.
+	 * @throws IOException If the reply cannot be written.
+	 */
+	private static void handleClassify(HttpExchange exchange) throws IOException{
+		
+		long requestStartTime = System.nanoTime();
+		try{
+			if(!exchange.getRequestMethod().equals("POST")){
+				sendReply(exchange, 405, "Use POST to classify records.\n");
+				return;
+			}
+			
+			//---- Read the whole body before parsing it.
+			RequestBuffers buffers = threadBuffers.get();
+			int bodyLength = buffers.readBody(exchange.getRequestBody());
+			if(bodyLength < 0){
+				sendReply(exchange, 413, "The request is larger than " + MAXIMUM_REQUEST_SIZE + " bytes.\n");
+				return;
+			}
+			
+			int numberRecordsInRequest = buffers.parseRecords(bodyLength);
+			model.classify(buffers.features, numberRecordsInRequest, buffers.margins);
+			buffers.writeReply(numberRecordsInRequest);
+			
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, buffers.replyLength);
+			OutputStream outputStream = exchange.getResponseBody();
+			outputStream.write(buffers.reply, 0, buffers.replyLength);
+			outputStream.close();
+			
+			numberRecords.addAndGet(numberRecordsInRequest);
+			numberInvalidRecords.addAndGet(buffers.numberInvalidRecords);
+		}
+		finally{
+			exchange.close();
+			numberRequests.incrementAndGet();
+			latencies.record((System.nanoTime() - requestStartTime) / 1000);
+		}
+	}
+	
+	
+	/**
+	 * Accepts record stream connections until the server socket fails.
+	 * 
+	 * @param serverSocket Server socket of the record stream endpoint.
+	 */
+	private static void acceptStreams(ServerSocket serverSocket){
+		try{
+			while(true){
+				final Socket socket = serverSocket.accept();
+				Thread connectionThread = new Thread(new Runnable(){
+					public void run(){
+						serveStream(socket);
+					}
+				}, "GAClassifierStream-" + socket.getRemoteSocketAddress());
+				connectionThread.setDaemon(true);
+				connectionThread.start();
+			}
+		}
+		catch(IOException e){
+			System.out.println("Error: The classification record stream stopped accepting connections (" + e.getMessage() + ").");
+		}
+	}
+	
+	
+	/**
+	 * Classifies the records of a stream connection until the client closes it.  Whatever complete
+	 * lines have arrived are classified in one batch.  A partial last line is kept until the rest
+	 * of it arrives.
+	 * 
+	 * @param socket Connection to the client.
+	 */
+	private static void serveStream(Socket socket){
+		
+		RequestBuffers buffers = threadBuffers.get();
+		int bufferedLength = 0;
+		int bytesRead, batchLength, numberRecordsInBatch;
+		long batchStartTime;
+		
+		try{
+			socket.setTcpNoDelay(true);
+			InputStream inputStream = socket.getInputStream();
+			OutputStream outputStream = socket.getOutputStream();
+			
+			while(true){
+				
+				//---- Wait for more records and then take everything else that already arrived.
+				bytesRead = buffers.readAvailable(inputStream, bufferedLength);
+				if(bytesRead < 0){
+					if(bufferedLength == 0) return;
+					batchLength = bufferedLength;				//---- The last line has no line feed.
+				}
+				else{
+					bufferedLength += bytesRead;
+					batchLength = buffers.findBatchLength(bufferedLength);
+					if(batchLength == 0){
+						if(bufferedLength == MAXIMUM_REQUEST_SIZE){
+							System.out.println("Error: A record from " + socket.getRemoteSocketAddress()
+											   + " is longer than " + MAXIMUM_REQUEST_SIZE + " bytes. Closing the connection...");
+							return;
+						}
+						continue;
+					}
+				}
+				
+				batchStartTime = System.nanoTime();
+				numberRecordsInBatch = buffers.parseRecords(batchLength);
+				model.classify(buffers.features, numberRecordsInBatch, buffers.margins);
+				buffers.writeReply(numberRecordsInBatch);
+				outputStream.write(buffers.reply, 0, buffers.replyLength);
+				outputStream.flush();
+				
+				numberRecords.addAndGet(numberRecordsInBatch);
+				numberInvalidRecords.addAndGet(buffers.numberInvalidRecords);
+				numberRequests.incrementAndGet();
+				latencies.record((System.nanoTime() - batchStartTime) / 1000);
+				
+				if(bytesRead < 0) return;
+				
+				//---- Keep the partial last line for the next batch.
+				bufferedLength -= batchLength;
+				System.arraycopy(buffers.body, batchLength, buffers.body, 0, bufferedLength);
+			}
+		}
+		catch(IOException e){
+			System.out.println("Error: Record stream connection to " + socket.getRemoteSocketAddress() + " failed. Closing the connection...");
+		}
+		finally{
+			try{
+				socket.close();
+			}
+			catch(IOException e){}
+		}
+	}
+	
+	
+	/**
+	 * Replies with the statistics of the requests served so far.
+	 * 
+	 * @param exchange Request to be served.
+	 * @throws IOException If the reply cannot be written.
+	 */
+	private static void handleStats(HttpExchange exchange) throws IOException{
+		try{
+			double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+			long currentNumberRecords = numberRecords.get();
+			sendReply(exchange, 200, "Requests: " + numberRequests.get() + "\n"
+								   + "Records: " + currentNumberRecords + "\n"
+								   + "Invalid Records: " + numberInvalidRecords.get() + "\n"
+								   + "Records Per Second: " + String.format("%.1f", currentNumberRecords / elapsedSeconds) + "\n"
+								   + "Latency p50 (us): " + latencies.getPercentile(0.5) + "\n"
+								   + "Latency p90 (us): " + latencies.getPercentile(0.9) + "\n"
+								   + "Latency p99 (us): " + latencies.getPercentile(0.99) + "\n"
+								   + "Latency p99.9 (us): " + latencies.getPercentile(0.999) + "\n"
+								   + "Latency max (us): " + latencies.getMaximum() + "\n");
+		}
+		finally{
+			exchange.close();
+		}
+	}
+	
+	
+	/**
+	 * Sends a short text reply.
+	 * 
+	 * @param exchange Request being served.
+	 * @param status HTTP status code.
+	 * @param body Body of the reply.
+	 * @throws IOException If the reply cannot be written.
+	 */
+	private static void sendReply(HttpExchange exchange, int status, String body) throws IOException{
+		byte[] bytes = body.getBytes("US-ASCII");
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream outputStream = exchange.getResponseBody();
+		outputStream.write(bytes);
+		outputStream.close();
+	}
+	
+	
+	/**
+	 * Per-thread buffers for the body, the parsed records and the reply of a request.  They grow
+	 * to the largest request the thread has served.
+	 */
+	private static class RequestBuffers {
+		
+		byte[] body = new byte[64 * 1024];
+		int[] features = new int[INITIAL_BATCH_SIZE * NUMBER_OF_FEATURES];	//---- Gain vector order.
+		long[] ids = new long[INITIAL_BATCH_SIZE];
+		boolean[] isValid = new boolean[INITIAL_BATCH_SIZE];
+		long[] margins = new long[INITIAL_BATCH_SIZE];
+		byte[] reply = new byte[64 * 1024];
+		int replyLength;
+		int numberInvalidRecords;
+		
+		
+		/**
+		 * Reads a request body into the body buffer.
+		 *  
+		 * @param inputStream Body of the request.
+		 * @return Number of bytes read or -1 if the body is larger than MAXIMUM_REQUEST_SIZE.
+		 * @throws IOException If the body cannot be read.
+		 */
+		int readBody(InputStream inputStream) throws IOException{
+			int length = 0;
+			int bytesRead;
+			while(true){
+				if(length == body.length){
+					if(body.length >= MAXIMUM_REQUEST_SIZE) return -1;
+					body = Arrays.copyOf(body, Math.min(2 * body.length, MAXIMUM_REQUEST_SIZE));
+				}
+				bytesRead = inputStream.read(body, length, body.length - length);
+				if(bytesRead < 0) return length;
+				length += bytesRead;
+			}
+		}
+		
+		
+		/**
+		 * Reads the bytes of a record stream that are available into the body buffer after the bytes
+		 * already buffered.  It blocks until at least one byte arrives and then only reads what the
+		 * socket already received so a batch never waits for more records.
+		 *  
+		 * @param inputStream Record stream of the connection.
+		 * @param bufferedLength Number of bytes already in the body buffer.
+		 * @return Number of bytes read or -1 if the stream ended.
+		 * @throws IOException If the stream cannot be read.
+		 */
+		int readAvailable(InputStream inputStream, int bufferedLength) throws IOException{
+			
+			int length = bufferedLength;
+			int bytesRead;
+			do{
+				if(length == body.length){
+					if(body.length >= MAXIMUM_REQUEST_SIZE) break;
+					body = Arrays.copyOf(body, Math.min(2 * body.length, MAXIMUM_REQUEST_SIZE));
+				}
+				bytesRead = inputStream.read(body, length, body.length - length);
+				if(bytesRead < 0){
+					if(length == bufferedLength) return -1;
+					break;
+				}
+				length += bytesRead;
+			} while(inputStream.available() > 0);
+			
+			return length - bufferedLength;
+		}
+		
+		
+		/**
+		 * Finds the end of the last complete line in the body buffer.
+		 *  
+		 * @param length Number of bytes in the body buffer.
+		 * @return Number of bytes up to and including the last line feed or 0 if there is no complete line.
+		 */
+		int findBatchLength(int length){
+			for(int i = length - 1; i >= 0; i--)
+				if(body[i] == '\n') return i + 1;
+			return 0;
+		}
+		
+		
+		/**
+		 * Parses the records in the body.  As in PatientDataFileLoader, the fields are comma separated
+		 * integers and the mitoses (the ninth feature in the file) is moved to the start of the gain vector.
+		 *  
+		 * @param length Number of bytes in the body.
+		 * @return Number of records, i.e. non-empty lines, in the body.
+		 */
+		int parseRecords(int length){
+			
+			int numberRecordsParsed = 0;
+			int fieldIndex = 0;
+			long fieldValue = 0;
+			boolean fieldHasDigits = false;
+			boolean lineIsEmpty = true;
+			boolean recordIsValid = true;
+			boolean idIsValid = false;
+			int featureBase = 0;
+			byte character;
+			
+			numberInvalidRecords = 0;
+			for(int i = 0; i <= length; i++){
+				character = (i < length) ? body[i] : (byte)'\n';
+				
+				//---- Digits are accumulated into the current field.
+				if(character >= '0' && character <= '9'){
+					if(fieldValue > Integer.MAX_VALUE) recordIsValid = false;
+					else fieldValue = 10 * fieldValue + (character - '0');
+					fieldHasDigits = true;
+					lineIsEmpty = false;
+					continue;
+				}
+				if(character == ' ' || character == '\t' || character == '\r') continue;
+				if(character != ',' && character != '\n'){
+					recordIsValid = false;				//---- Includes the '?' of a missing feature.
+					lineIsEmpty = false;
+					continue;
+				}
+				
+				//---- End of a field.
+				if(character == ',') lineIsEmpty = false;
+				if(!lineIsEmpty){
+					if(fieldIndex == 0){
+						ensureCapacity(numberRecordsParsed + 1);
+						featureBase = numberRecordsParsed * NUMBER_OF_FEATURES;
+						idIsValid = fieldHasDigits && recordIsValid;
+						ids[numberRecordsParsed] = fieldValue;
+					}
+					else if(fieldIndex < NUMBER_OF_RECORD_FIELDS - 1){
+						if(!fieldHasDigits || fieldValue < 1 || fieldValue > 10) recordIsValid = false;
+						features[featureBase + ((fieldIndex == NUMBER_OF_FEATURES) ? 0 : fieldIndex)] = (int)fieldValue;
+					}
+					else if(fieldIndex == NUMBER_OF_RECORD_FIELDS - 1){
+						if(fieldValue != 2 && fieldValue != 4) recordIsValid = false;
+					}
+					fieldIndex++;
+				}
+				fieldValue = 0;
+				fieldHasDigits = false;
+				
+				//---- End of a record.  The class field is optional.
+				if(character == '\n' && !lineIsEmpty){
+					if(fieldIndex < NUMBER_OF_RECORD_FIELDS - 1 || fieldIndex > NUMBER_OF_RECORD_FIELDS)
+						recordIsValid = false;
+					isValid[numberRecordsParsed] = recordIsValid;
+					if(!idIsValid) ids[numberRecordsParsed] = -1;
+					if(!recordIsValid){
+						Arrays.fill(features, featureBase, featureBase + NUMBER_OF_FEATURES, 0);
+						numberInvalidRecords++;
+					}
+					numberRecordsParsed++;
+					fieldIndex = 0;
+					lineIsEmpty = true;
+					recordIsValid = true;
+				}
+			}
+			return numberRecordsParsed;
+		}
+		
+		
+		/**
+		 * Grows the record buffers so they hold at least the specified number of records.
+		 *  
+		 * @param numberOfRecords Number of records needed.
+		 */
+		private void ensureCapacity(int numberOfRecords){
+			if(numberOfRecords <= ids.length) return;
+			int newCapacity = Math.max(numberOfRecords, 2 * ids.length);
+			features = Arrays.copyOf(features, newCapacity * NUMBER_OF_FEATURES);
+			ids = Arrays.copyOf(ids, newCapacity);
+			isValid = Arrays.copyOf(isValid, newCapacity);
+			margins = Arrays.copyOf(margins, newCapacity);
+		}
+		
+		
+		/**
+		 * Writes the "id,class,margin" reply lines of the classified records into the reply buffer.
+		 *  
+		 * @param numberOfRecords Number of records in the request.
+		 */
+		void writeReply(int numberOfRecords){
+			
+			//---- A line is at most two longs, a class and three separators.
+			int maximumLength = numberOfRecords * 44;
+			if(reply.length < maximumLength)
+				reply = new byte[Math.max(maximumLength, 2 * reply.length)];
+			
+			replyLength = 0;
+			for(int i = 0; i < numberOfRecords; i++){
+				if(ids[i] >= 0) appendLong(ids[i]);
+				reply[replyLength++] = ',';
+				if(isValid[i]){
+					reply[replyLength++] = GAClassifierModel.isMalignant(margins[i]) ? (byte)'4' : (byte)'2';
+					reply[replyLength++] = ',';
+					appendLong(margins[i]);
+				}
+				else{
+					reply[replyLength++] = '?';
+					reply[replyLength++] = ',';
+				}
+				reply[replyLength++] = '\n';
+			}
+		}
+		
+		
+		/**
+		 * Appends the decimal digits of a long to the reply buffer.
+		 *  
+		 * @param value Value to be appended.
+		 */
+		private void appendLong(long value){
+			if(value == Long.MIN_VALUE){
+				for(byte digit : Long.toString(value).getBytes()) reply[replyLength++] = digit;
+				return;
+			}
+			if(value < 0){
+				reply[replyLength++] = '-';
+				value = -value;
+			}
+			int start = replyLength;
+			do{
+				reply[replyLength++] = (byte)('0' + value % 10);
+				value /= 10;
+			} while(value != 0);
+			
+			//---- The digits were written least significant first.
+			byte temp;
+			for(int left = start, right = replyLength - 1; left < right; left++, right--){
+				temp = reply[left];
+				reply[left] = reply[right];
+				reply[right] = temp;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Lock free log-linear histogram of latencies in microseconds.  Values below 64 have their own
+	 * bucket and larger values are grouped into 32 buckets per power of two so a percentile is
+	 * reported to within about 3%.
+	 */
+	private static class LatencyHistogram {
+		
+		private static final int LINEAR_BUCKETS = 64;
+		private static final int SUB_BUCKET_BITS = 5;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+		private static final int MAXIMUM_EXPONENT = 40;						//---- About 12 days.
+		private static final int NUMBER_BUCKETS = LINEAR_BUCKETS + (MAXIMUM_EXPONENT - 5) * SUB_BUCKETS;
+		
+		private final AtomicLongArray counts = new AtomicLongArray(NUMBER_BUCKETS);
+		private final AtomicLong maximum = new AtomicLong();
+		
+		
+		/**
+		 * Records a latency.
+		 *  
+		 * @param microseconds Latency to be recorded.
+		 */
+		void record(long microseconds){
+			if(microseconds < 0) microseconds = 0;
+			counts.incrementAndGet(getBucket(microseconds));
+			long currentMaximum;
+			while(microseconds > (currentMaximum = maximum.get()))
+				if(maximum.compareAndSet(currentMaximum, microseconds)) break;
+		}
+		
+		
+		/**
+		 * Accessor for the largest latency recorded.
+		 *  
+		 * @return Largest latency in microseconds.
+		 */
+		long getMaximum(){
+			return maximum.get();
+		}
+		
+		
+		/**
+		 * Calculates a percentile of the recorded latencies.
+		 *  
+		 * @param fraction Fraction of the latencies, e.g. 0.99 for the 99th percentile.
+		 * @return Upper bound of the bucket holding the percentile in microseconds or 0 if nothing was recorded.
+		 */
+		long getPercentile(double fraction){
+			
+			long[] snapshot = new long[NUMBER_BUCKETS];
+			long total = 0;
+			for(int i = 0; i < NUMBER_BUCKETS; i++){
+				snapshot[i] = counts.get(i);
+				total += snapshot[i];
+			}
+			if(total == 0) return 0;
+			
+			long target = Math.max(1, (long)Math.ceil(fraction * total));
+			long cumulative = 0;
+			for(int i = 0; i < NUMBER_BUCKETS; i++){
+				cumulative += snapshot[i];
+				if(cumulative >= target)
+					return Math.min(getBucketUpperBound(i), maximum.get());
+			}
+			return maximum.get();
+		}
+		
+		
+		/**
+		 * Finds the bucket of a latency.
+		 *  
+		 * @param microseconds Latency.  Must not be negative.
+		 * @return Index of the bucket.
+		 */
+		private static int getBucket(long microseconds){
+			if(microseconds < LINEAR_BUCKETS) return (int)microseconds;
+			int exponent = 63 - Long.numberOfLeadingZeros(microseconds);		//---- At least 6.
+			if(exponent >= MAXIMUM_EXPONENT) return NUMBER_BUCKETS - 1;
+			int subBucket = (int)(microseconds >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+			return LINEAR_BUCKETS + (exponent - 6) * SUB_BUCKETS + subBucket;
+		}
+		
+		
+		/**
+		 * Calculates the largest latency in a bucket.
+		 *  
+		 * @param bucket Index of the bucket.
+		 * @return Largest latency in microseconds that falls in the bucket.
+		 */
+		private static long getBucketUpperBound(int bucket){
+			if(bucket < LINEAR_BUCKETS) return bucket;
+			int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 6;
+			int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+			return ((long)(SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+		}
+	}
+	
+}
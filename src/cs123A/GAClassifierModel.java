@@ -0,0 +1,179 @@
+package cs123A;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Trained linear classifier built from the best chromosome of a run.  A patient is classified as
+ * malignant if the linear function m^T * x + b of its features is positive and benign otherwise.
+ * The linear function is calculated with the long arithmetic of Patient.calculateLinearFunction so
+ * a patient the training scored as correct is classified as its true class.
+ * 
+ * The model file uses the format of GAChromosome.toString, i.e. one "<feature> Weight: <value>" line
+ * per gain in gain vector order followed by the offset, so a solution printed by the program can also
+ * be saved as a model by hand.
+ * 
+ * A model is immutable so it can be shared by any number of threads.
+ */
+public class GAClassifierModel {
+	
+	private static final String[] WEIGHT_LABELS = { "Mitoses Weight", "Clump Thickness Weight", "Cell Size Uniformity Weight",
+													"Cell Shape Uniformity Weight", "Marginal Adhesion Weight",
+													"Single Epithelial Cell Size Weight", "Bare Nucleoli Weight",
+													"Bland Chromatin Weight", "Normal Nucleoli Weight", "Offset Weight" };
+	private static final int NUMBER_OF_FEATURES = Patient.numberDataElementsPerPatient();
+	
+	private final int[] gainVector;
+	private final int offset;
+	
+	
+	/**
+	 * Creates a model from a gain vector and offset.
+	 * 
+	 * @param gainVector Gain of each feature in gain vector order.  It is copied.
+	 * @param offset Offset of the linear function.
+	 */
+	public GAClassifierModel(int[] gainVector, int offset){
+		if(gainVector.length != NUMBER_OF_FEATURES)
+			throw new IllegalArgumentException("The gain vector must have " + NUMBER_OF_FEATURES + " gains.");
+		this.gainVector = gainVector.clone();
+		this.offset = offset;
+	}
+	
+	
+	/**
+	 * Creates a model from a trained chromosome.
+	 * 
+	 * @param chromosome Chromosome whose gain vector and offset are used.
+	 * @return Model equivalent to the chromosome.
+	 */
+	public static GAClassifierModel fromChromosome(GAChromosome chromosome){
+		return new GAClassifierModel(chromosome.getGainVector(), chromosome.getOffset());
+	}
+	
+	
+	/**
+	 * Reads a model file.  Blank lines are ignored.
+	 * 
+	 * @param fileName Name of the model file.
+	 * @return Model in the file.
+	 * @throws IOException If the file cannot be read or is not a model file.
+	 */
+	public static GAClassifierModel load(String fileName) throws IOException{
+		
+		int[] weights = new int[WEIGHT_LABELS.length];
+		int numberWeights = 0;
+		int separatorIndex;
+		String line;
+		
+		BufferedReader reader = new BufferedReader(new FileReader(fileName));
+		try{
+			while((line = reader.readLine()) != null){
+				line = line.trim();
+				if(line.isEmpty()) continue;
+				
+				//---- Each weight must be on its own line in the order written by save.
+				separatorIndex = line.indexOf(':');
+				if(numberWeights == WEIGHT_LABELS.length || separatorIndex < 0
+				   || !line.substring(0, separatorIndex).trim().equals(WEIGHT_LABELS[numberWeights]))
+					throw new IOException("Unexpected line \"" + line + "\"");
+				try{
+					weights[numberWeights++] = Integer.parseInt(line.substring(separatorIndex + 1).trim());
+				}
+				catch(NumberFormatException e){
+					throw new IOException("Invalid weight on line \"" + line + "\"");
+				}
+			}
+		}
+		finally{
+			reader.close();
+		}
+		
+		if(numberWeights != WEIGHT_LABELS.length)
+			throw new IOException("Expected " + WEIGHT_LABELS.length + " weights but found " + numberWeights);
+		int[] gains = new int[NUMBER_OF_FEATURES];
+		System.arraycopy(weights, 0, gains, 0, NUMBER_OF_FEATURES);
+		return new GAClassifierModel(gains, weights[NUMBER_OF_FEATURES]);
+	}
+	
+	
+	/**
+	 * Writes the model to a file.  Any existing file is replaced.
+	 * 
+	 * @param fileName Name of the model file.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void save(String fileName) throws IOException{
+		BufferedWriter writer = new BufferedWriter(new FileWriter(fileName));
+		try{
+			for(int i = 0; i < WEIGHT_LABELS.length; i++){
+				writer.write(WEIGHT_LABELS[i] + ": " + ((i < NUMBER_OF_FEATURES) ? gainVector[i] : offset));
+				writer.newLine();
+			}
+		}
+		finally{
+			writer.close();
+		}
+	}
+	
+	
+	/**
+	 * Calculates the linear function m^T * x + b of a batch of patients.
+	 * 
+	 * @param features Features of the patients in gain vector order.  Patient i's features start at
+	 * index i * Patient.numberDataElementsPerPatient().  It is not modified.
+	 * @param numberOfPatients Number of patients in the batch.
+	 * @param margins Receives the linear function of each patient.  Positive is malignant.
+	 */
+	public void classify(int[] features, int numberOfPatients, long[] margins){
+		
+		//---- Load the gains into locals so the JIT can keep them in registers.
+		final long g0 = gainVector[0], g1 = gainVector[1], g2 = gainVector[2];
+		final long g3 = gainVector[3], g4 = gainVector[4], g5 = gainVector[5];
+		final long g6 = gainVector[6], g7 = gainVector[7], g8 = gainVector[8];
+		final long b = offset;
+		int base;
+		
+		for(int i = 0; i < numberOfPatients; i++){
+			base = i * NUMBER_OF_FEATURES;
+			margins[i] = b + g0 * features[base] + g1 * features[base + 1] + g2 * features[base + 2]
+						   + g3 * features[base + 3] + g4 * features[base + 4] + g5 * features[base + 5]
+						   + g6 * features[base + 6] + g7 * features[base + 7] + g8 * features[base + 8];
+		}
+	}
+	
+	
+	/**
+	 * Converts a margin returned by classify into a class.
+	 * 
+	 * @param margin Linear function of a patient.
+	 * @return True if the patient is classified as malignant.
+	 */
+	public static boolean isMalignant(long margin){
+		return margin > 0;
+	}
+	
+	
+	/**
+	 * Accessor for the model's gain vector.
+	 * 
+	 * @return Copy of the gain vector.
+	 */
+	public int[] getGainVector(){
+		return gainVector.clone();
+	}
+	
+	
+	/**
+	 * Accessor for the model's offset.
+	 * 
+	 * @return Offset of the linear function.
+	 */
+	public int getOffset(){
+		return offset;
+	}
+	
+}
@@ -0,0 +1,212 @@
+package cs123A;
+
+import java.io.PrintStream;
+
+/**
+ * Confusion matrix of a linear classifier on a set of patients.  A patient is classified correctly
+ * when the linear function, negated for benign patients, is positive (see Patient.calculateLinearFunction)
+ * so a patient on the decision boundary (linear function of 0) counts as misclassified whatever its class.
+ *  
+ * Patients are added one at a time so the matrix can be built while a data set is streamed and two
+ * matrices built from different parts of a data set can be merged.
+ */
+public class GAConfusionMatrix {
+	
+	private long truePositives;				//---- Malignant patients classified as malignant.
+	private long falseNegatives;			//---- Malignant patients classified as benign.
+	private long trueNegatives;				//---- Benign patients classified as benign.
+	private long falsePositives;			//---- Benign patients classified as malignant.
+	private double separation;				//---- Sum of the signed linear functions in patient order.
+	
+	
+	/**
+	 * Creates an empty matrix.
+	 */
+	public GAConfusionMatrix(){
+	}
+	
+	
+	/**
+	 * Creates a matrix from the number of patients of each class that were classified correctly.
+	 * 
+	 * @param numberOfMalignantPatients Number of malignant patients.
+	 * @param numberOfBenignPatients Number of benign patients.
+	 * @param numberMalignantCorrect Number of malignant patients classified as malignant.
+	 * @param numberBenignCorrect Number of benign patients classified as benign.
+	 * @param separation Sum of the linear functions negated for the benign patients.
+	 */
+	GAConfusionMatrix(long numberOfMalignantPatients, long numberOfBenignPatients, long numberMalignantCorrect,
+					  long numberBenignCorrect, double separation){
+		truePositives = numberMalignantCorrect;
+		falseNegatives = numberOfMalignantPatients - numberMalignantCorrect;
+		trueNegatives = numberBenignCorrect;
+		falsePositives = numberOfBenignPatients - numberBenignCorrect;
+		this.separation = separation;
+	}
+	
+	
+	/**
+	 * Adds a patient to the matrix.
+	 * 
+	 * @param linearFunction Linear function m^T * x + b of the patient (not negated for benign patients).
+	 * @param isMalignant True if the patient's tumor is malignant.
+	 */
+	public void addPatient(long linearFunction, boolean isMalignant){
+		if(isMalignant){
+			separation += linearFunction;
+			if(linearFunction > 0) truePositives++;
+			else falseNegatives++;
+		}
+		else{
+			separation += -linearFunction;
+			if(-linearFunction > 0) trueNegatives++;
+			else falsePositives++;
+		}
+	}
+	
+	
+	/**
+	 * Adds the patients of another matrix to this one.
+	 * 
+	 * @param other Matrix built from a different set of patients.  It is not modified.
+	 */
+	public void merge(GAConfusionMatrix other){
+		truePositives += other.truePositives;
+		falseNegatives += other.falseNegatives;
+		trueNegatives += other.trueNegatives;
+		falsePositives += other.falsePositives;
+		separation += other.separation;
+	}
+	
+	
+	/**
+	 * Accessor for the number of malignant patients classified as malignant.
+	 * 
+	 * @return Number of true positives.
+	 */
+	public long getTruePositives(){
+		return truePositives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of malignant patients classified as benign.
+	 * 
+	 * @return Number of false negatives.
+	 */
+	public long getFalseNegatives(){
+		return falseNegatives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of benign patients classified as benign.
+	 * 
+	 * @return Number of true negatives.
+	 */
+	public long getTrueNegatives(){
+		return trueNegatives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of benign patients classified as malignant.
+	 * 
+	 * @return Number of false positives.
+	 */
+	public long getFalsePositives(){
+		return falsePositives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of patients in the matrix.
+	 * 
+	 * @return Number of patients added.
+	 */
+	public long getNumberOfPatients(){
+		return truePositives + falseNegatives + trueNegatives + falsePositives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of malignant patients in the matrix.
+	 * 
+	 * @return Number of malignant patients added.
+	 */
+	public long getNumberOfMalignantPatients(){
+		return truePositives + falseNegatives;
+	}
+	
+	
+	/**
+	 * Accessor for the number of patients classified correctly.
+	 * 
+	 * @return Number of true positives and true negatives.
+	 */
+	public long getNumberCorrect(){
+		return truePositives + trueNegatives;
+	}
+	
+	
+	/**
+	 * Calculates the score of the classifier with the scoring of
+	 * BreastCancerDataSet.getChromosomeScoreAndSeparationForPopulation.
+	 * 
+	 * @param malignancyBiasFactor A bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @return Score of the classifier.
+	 */
+	public long getScore(int malignancyBiasFactor){
+		return getNumberCorrect() + getNumberOfMalignantPatients() * (malignancyBiasFactor - 1);
+	}
+	
+	
+	/**
+	 * Accessor for the total separation, i.e. the sum of the linear functions negated for the benign patients.
+	 * 
+	 * @return Total separation.
+	 */
+	public double getSeparation(){
+		return separation;
+	}
+	
+	
+	/**
+	 * Calculates the percentage of patients classified correctly.
+	 * 
+	 * @return Percent correct or 0 if the matrix is empty.
+	 */
+	public double getPercentCorrect(){
+		long numberOfPatients = getNumberOfPatients();
+		return (numberOfPatients == 0) ? 0 : getNumberCorrect() * 100.0 / numberOfPatients;
+	}
+	
+	
+	/**
+	 * Calculates the percentage of malignant patients classified correctly.
+	 * 
+	 * @return Percent of malignant patients correct or 0 if there are no malignant patients.
+	 */
+	public double getMalignantPercentCorrect(){
+		long numberOfMalignantPatients = getNumberOfMalignantPatients();
+		return (numberOfMalignantPatients == 0) ? 0 : truePositives * 100.0 / numberOfMalignantPatients;
+	}
+	
+	
+	/**
+	 * Prints the matrix followed by the score and accuracies in the format of the program's results.
+	 * 
+	 * @param out Destination of the report.
+	 * @param malignancyBiasFactor A bias factor to skew the results to favor correct scoring of malignant tumors.
+	 */
+	public void print(PrintStream out, int malignancyBiasFactor){
+		out.println(String.format("%-20s%22s%22s", "", "Classified Malignant", "Classified Benign"));
+		out.println(String.format("%-20s%22d%22d", "Malignant", truePositives, falseNegatives));
+		out.println(String.format("%-20s%22d%22d", "Benign", falsePositives, trueNegatives));
+		out.println("The score is: " + getScore(malignancyBiasFactor));
+		out.println("The percent correct is: " + String.format("%2.2f", getPercentCorrect()) + "%.");
+		out.println("The percentage of malignant tumors correctly categorized is: " 
+					+ String.format("%2.2f", getMalignantPercentCorrect()) + "%.");
+	}
+	
+}
@@ -0,0 +1,267 @@
+package cs123A;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Repeated stratified k-fold cross-validation.  For each repetition, the patients of a data set
+ * are shuffled within each class and dealt into k folds so every fold has (nearly) the same mix
+ * of malignant and benign patients.  A solution is then trained on every combination of k - 1
+ * folds and verified on the remaining fold.
+ *  
+ * The folds are index views (see BreastCancerDataSet.createSubset) of the one loaded data set so
+ * no patients are copied.  Every fold of every repetition is an independent task run through
+ * GARunScheduler so the folds are trained concurrently with -PT threads.  The output of each fold
+ * is buffered and printed in fold order so the output does not depend on the number of threads.
+ */
+public class GACrossValidation {
+	
+	/**
+	 * Trains a solution for a single fold.
+	 */
+	interface FoldTrainer {
+		
+		/**
+		 * Trains a solution on a training set.
+		 *  
+		 * @param trainingDataSet Patients the solution is trained on.
+		 * @param verificationDataSet Patients held out of the training.
+		 * @param random Random number generator owned by this fold.
+		 * @param foldNumber Number of the fold across all of the repetitions starting at 1.
+		 * @param out Destination of the fold's output.
+		 * @return Best solution found.
+		 */
+		GAChromosome train(BreastCancerDataSet trainingDataSet, BreastCancerDataSet verificationDataSet, GARandom random,
+						   int foldNumber, PrintStream out);
+	}
+	
+	private final BreastCancerDataSet dataSet;
+	private final int numberFolds;
+	private final int numberRepetitions;
+	
+	
+	/**
+	 * Creates a cross-validation of a data set.
+	 * 
+	 * @param dataSet Every patient used in the cross-validation.  It is not modified.
+	 * @param numberFolds Number of folds of each repetition.  At least 2.
+	 * @param numberRepetitions Number of times the data set is split into folds.
+	 */
+	public GACrossValidation(BreastCancerDataSet dataSet, int numberFolds, int numberRepetitions){
+		if(numberFolds < 2 || numberFolds > dataSet.getDataSetSize())
+			throw new IllegalArgumentException("The number of folds must be between 2 and the number of patients.");
+		this.dataSet = dataSet;
+		this.numberFolds = numberFolds;
+		this.numberRepetitions = numberRepetitions;
+	}
+	
+	
+	/**
+	 * Splits the data set into stratified folds.  The patients of each class are shuffled and then
+	 * dealt to the folds in turn, continuing from the malignant patients to the benign ones, so the
+	 * fold sizes differ by at most one.
+	 * 
+	 * @param random Random number generator used to shuffle the patients.
+	 * @return Indices of the patients in each fold.
+	 */
+	int[][] createStratifiedFolds(GARandom random){
+		
+		PatientFeatureColumns columns = dataSet.getPatientColumns();
+		int numberOfPatients = columns.getNumberOfPatients();
+		int numberOfMalignantPatients = columns.getNumberOfMalignantPatients();
+		int[] patientOrder = new int[numberOfPatients];
+		int malignantIndex = 0, benignIndex = numberOfMalignantPatients;
+		int i, foldIndex;
+		
+		//---- Order the patients with the malignant patients first and shuffle each class.
+		for(i = 0; i < numberOfPatients; i++){
+			if(columns.isMalignant(i))
+				patientOrder[malignantIndex++] = i;
+			else
+				patientOrder[benignIndex++] = i;
+		}
+		shuffle(patientOrder, 0, numberOfMalignantPatients, random);
+		shuffle(patientOrder, numberOfMalignantPatients, numberOfPatients, random);
+		
+		//---- Deal the patients to the folds.
+		int[][] folds = new int[numberFolds][];
+		int[] foldSizes = new int[numberFolds];
+		for(foldIndex = 0; foldIndex < numberFolds; foldIndex++)
+			folds[foldIndex] = new int[numberOfPatients / numberFolds + ((foldIndex < numberOfPatients % numberFolds) ? 1 : 0)];
+		for(i = 0; i < numberOfPatients; i++){
+			foldIndex = i % numberFolds;
+			folds[foldIndex][foldSizes[foldIndex]++] = patientOrder[i];
+		}
+		return folds;
+	}
+	
+	
+	/**
+	 * Performs a Fisher-Yates shuffle of part of an array.
+	 * 
+	 * @param values Array to be shuffled.
+	 * @param start Index of the first element to shuffle (inclusive).
+	 * @param end Index of the last element to shuffle (exclusive).
+	 * @param random Random number generator used to shuffle the elements.
+	 */
+	private static void shuffle(int[] values, int start, int end, GARandom random){
+		int j, temp;
+		for(int i = end - 1; i > start; i--){
+			j = start + random.nextInt(i - start + 1);
+			temp = values[i];
+			values[i] = values[j];
+			values[j] = temp;
+		}
+	}
+	
+	
+	/**
+	 * Runs the cross-validation and prints the output of each fold followed by a summary.
+	 * 
+	 * @param trainer Trains the solution of each fold.
+	 * @param random Random number generator from which the folds and the random streams of each fold are split.
+	 * @param malignancyBiasFactor Bias factor used to score the pooled verification results.
+	 * @param out Destination of the output.
+	 */
+	public void run(final FoldTrainer trainer, GARandom random, int malignancyBiasFactor, PrintStream out){
+		
+		int numberOfTasks = numberFolds * numberRepetitions;
+		final ByteArrayOutputStream[] outputBuffers = new ByteArrayOutputStream[numberOfTasks];
+		final GAConfusionMatrix[] trainingMatrices = new GAConfusionMatrix[numberOfTasks];
+		final GAConfusionMatrix[] verificationMatrices = new GAConfusionMatrix[numberOfTasks];
+		List<Callable<GAChromosome>> tasks = new ArrayList<Callable<GAChromosome>>();
+		
+		//---- Build a task for each fold of each repetition.
+		for(int repetition = 0; repetition < numberRepetitions; repetition++){
+			int[][] folds = createStratifiedFolds(random.split());
+			for(int foldIndex = 0; foldIndex < numberFolds; foldIndex++){
+				final int taskIndex = repetition * numberFolds + foldIndex;
+				final BreastCancerDataSet verificationDataSet = dataSet.createSubset(folds[foldIndex]);
+				final BreastCancerDataSet trainingDataSet = dataSet.createSubset(getTrainingIndices(folds, foldIndex));
+				final GARandom foldRandom = random.split();
+				final ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+				outputBuffers[taskIndex] = outputBuffer;
+				tasks.add(new Callable<GAChromosome>(){
+					public GAChromosome call(){
+						PrintStream foldOut = new PrintStream(outputBuffer, true);
+						GAChromosome bestSolution = trainer.train(trainingDataSet, verificationDataSet, foldRandom, taskIndex + 1, foldOut);
+						trainingMatrices[taskIndex] = trainingDataSet.getConfusionMatrix(bestSolution);
+						verificationMatrices[taskIndex] = verificationDataSet.getConfusionMatrix(bestSolution);
+						return bestSolution;
+					}
+				});
+			}
+		}
+		
+		//---- Print the output of each fold as it finishes in order.
+		List<ForkJoinTask<GAChromosome>> startedTasks = GARunScheduler.submitAll(tasks);
+		for(int taskIndex = 0; taskIndex < numberOfTasks; taskIndex++){
+			GARunScheduler.getResult(startedTasks.get(taskIndex));
+			out.println("\n\n\nCross-Validation Fold #" + (taskIndex % numberFolds + 1) + " of " + numberFolds
+						+ " (Repetition #" + (taskIndex / numberFolds + 1) + " of " + numberRepetitions + ").");
+			out.print(outputBuffers[taskIndex].toString());
+			outputBuffers[taskIndex] = null;
+		}
+		
+		printSummary(trainingMatrices, verificationMatrices, malignancyBiasFactor, out);
+	}
+	
+	
+	/**
+	 * Builds the indices of the training set of a fold, i.e. the patients of every other fold.
+	 * 
+	 * @param folds Indices of the patients in each fold.
+	 * @param foldIndex Index of the fold held out for verification.
+	 * @return Indices of the training patients.
+	 */
+	private static int[] getTrainingIndices(int[][] folds, int foldIndex){
+		
+		int numberOfPatients = 0;
+		for(int i = 0; i < folds.length; i++)
+			if(i != foldIndex) numberOfPatients += folds[i].length;
+		
+		int[] trainingIndices = new int[numberOfPatients];
+		int position = 0;
+		for(int i = 0; i < folds.length; i++){
+			if(i == foldIndex) continue;
+			System.arraycopy(folds[i], 0, trainingIndices, position, folds[i].length);
+			position += folds[i].length;
+		}
+		return trainingIndices;
+	}
+	
+	
+	/**
+	 * Prints the mean, standard deviation and range of the per fold accuracies and the pooled
+	 * verification confusion matrix.  A fold without malignant patients has no malignant percent
+	 * correct so it is left out of that statistic and the number left out is reported.
+	 * 
+	 * @param trainingMatrices Training set confusion matrix of each fold.
+	 * @param verificationMatrices Verification set confusion matrix of each fold.
+	 * @param malignancyBiasFactor Bias factor used to score the pooled verification results.
+	 * @param out Destination of the summary.
+	 */
+	private void printSummary(GAConfusionMatrix[] trainingMatrices, GAConfusionMatrix[] verificationMatrices,
+							  int malignancyBiasFactor, PrintStream out){
+		
+		int numberOfTasks = verificationMatrices.length;
+		double[] trainingAccuracies = new double[numberOfTasks];
+		double[] verificationAccuracies = new double[numberOfTasks];
+		double[] malignantAccuracies = new double[numberOfTasks];
+		int numberMalignantFolds = 0;
+		GAConfusionMatrix pooledMatrix = new GAConfusionMatrix();
+		
+		for(int i = 0; i < numberOfTasks; i++){
+			trainingAccuracies[i] = trainingMatrices[i].getPercentCorrect();
+			verificationAccuracies[i] = verificationMatrices[i].getPercentCorrect();
+			if(verificationMatrices[i].getNumberOfMalignantPatients() > 0)
+				malignantAccuracies[numberMalignantFolds++] = verificationMatrices[i].getMalignantPercentCorrect();
+			pooledMatrix.merge(verificationMatrices[i]);
+		}
+		
+		out.println("\n\n\nCross-validation summary of " + numberFolds + " folds x " + numberRepetitions + " repetition(s):");
+		out.println(String.format("%-32s%10s%12s%10s%10s", "", "Mean", "Std. Dev.", "Min", "Max"));
+		printStatistics("Training percent correct", trainingAccuracies, out);
+		printStatistics("Verification percent correct", verificationAccuracies, out);
+		if(numberMalignantFolds > 0)
+			printStatistics("Malignant percent correct", Arrays.copyOf(malignantAccuracies, numberMalignantFolds), out);
+		if(numberMalignantFolds < numberOfTasks)
+			out.println((numberOfTasks - numberMalignantFolds) + " of " + numberOfTasks
+						+ " fold(s) have no malignant patients so they are left out of the malignant percent correct.");
+		out.println("\nPooled verification results (each patient is verified once per repetition):");
+		pooledMatrix.print(out, malignancyBiasFactor);
+	}
+	
+	
+	/**
+	 * Prints a row of the summary table.
+	 * 
+	 * @param label Name of the statistic.
+	 * @param values Value of the statistic for each fold.
+	 * @param out Destination of the row.
+	 */
+	private static void printStatistics(String label, double[] values, PrintStream out){
+		
+		double sum = 0, minimum = Double.MAX_VALUE, maximum = -Double.MAX_VALUE;
+		for(double value : values){
+			sum += value;
+			minimum = Math.min(minimum, value);
+			maximum = Math.max(maximum, value);
+		}
+		double mean = sum / values.length;
+		
+		//---- Sample standard deviation across the folds.
+		double sumSquares = 0;
+		for(double value : values)
+			sumSquares += (value - mean) * (value - mean);
+		double standardDeviation = (values.length > 1) ? Math.sqrt(sumSquares / (values.length - 1)) : 0;
+		
+		out.println(String.format("%-32s%9.2f%%%11.2f%%%9.2f%%%9.2f%%", label, mean, standardDeviation, minimum, maximum));
+	}
+	
+}
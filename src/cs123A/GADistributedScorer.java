@@ -0,0 +1,393 @@
+package cs123A;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Coordinator side of distributed fitness evaluation.  Chromosomes are split into batches that
+ * are shipped to the worker processes (see GAWorkerServer) which return the score and separation
+ * of each genome.  Each worker connection is served by its own dispatch thread that pulls batches
+ * from a shared queue, so faster workers score more batches.
+ * 
+ * If a worker fails, its batch is put back on the queue and re-dispatched to the remaining
+ * workers.  If every worker fails, the remaining batches are scored locally.
+ * 
+ * A data set is sent to each worker the first time it is scored and stays loaded until it is
+ * released (see releaseDataSet) so the coordinator and the workers only hold the data sets of
+ * the runs in progress.
+ */
+public class GADistributedScorer {
+	
+	private static final int BATCH_SIZE = 256;				//---- Genomes per request.
+	private static final int CONNECT_TIMEOUT = 5000;		//---- Milliseconds.
+	private static final int READ_TIMEOUT = 60000;			//---- Milliseconds.
+	private static WorkerConnection[] workers = new WorkerConnection[0];
+	private static final Map<PatientFeatureColumns, Integer> dataSetIds = new IdentityHashMap<PatientFeatureColumns, Integer>();
+	private static int nextDataSetId = 0;					//---- Identifiers are not reused so a released data set cannot be mistaken for a new one.
+	private static ExecutorService dispatchThreadPool;
+	
+	
+	/**
+	 * Mutator for the worker processes used to score chromosomes.  Connections are opened on first use.
+	 * 
+	 * @param workerAddresses Addresses of the workers.  An empty list disables distributed scoring.
+	 */
+	public static synchronized void setWorkerAddresses(List<InetSocketAddress> workerAddresses){
+		
+		for(WorkerConnection worker : workers)
+			worker.close();
+		
+		workers = new WorkerConnection[workerAddresses.size()];
+		for(int i = 0; i < workers.length; i++)
+			workers[i] = new WorkerConnection(workerAddresses.get(i));
+	}
+	
+	
+	/**
+	 * Checks whether any workers were configured.
+	 * 
+	 * @return True if chromosomes are scored by worker processes.
+	 */
+	public static synchronized boolean isEnabled(){
+		return workers.length > 0;
+	}
+	
+	
+	/**
+	 * Accessor for the dispatch thread pool.  The threads only wait on the workers so they
+	 * are not limited to the number of processors.  They are daemons so they do not keep
+	 * the program alive.
+	 * 
+	 * @return Thread pool that runs the dispatch threads.
+	 */
+	private static synchronized ExecutorService getDispatchThreadPool(){
+		if(dispatchThreadPool == null)
+			dispatchThreadPool = Executors.newCachedThreadPool(new ThreadFactory(){
+				public Thread newThread(Runnable runnable){
+					Thread thread = new Thread(runnable, "GADispatch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		return dispatchThreadPool;
+	}
+	
+	
+	/**
+	 * Accessor for the identifier sent to the workers for a data set.
+	 * 
+	 * @param patientColumns Columns of the data set.  They are immutable so they identify the data set contents.
+	 * @return Identifier of the data set.
+	 */
+	private static synchronized int getDataSetId(PatientFeatureColumns patientColumns){
+		Integer dataSetId = dataSetIds.get(patientColumns);
+		if(dataSetId == null){
+			dataSetId = nextDataSetId++;
+			dataSetIds.put(patientColumns, dataSetId);
+		}
+		return dataSetId;
+	}
+	
+	
+	/**
+	 * Releases a data set once it is no longer scored (e.g. when a run or cross-validation fold
+	 * finishes).  The coordinator forgets its identifier and the workers that loaded it drop their
+	 * copies.  If the data set is scored again, it is sent to the workers again.
+	 * 
+	 * @param dataSet Data set that is no longer scored.
+	 */
+	public static void releaseDataSet(BreastCancerDataSet dataSet){
+		
+		Integer dataSetId;
+		WorkerConnection[] currentWorkers;
+		
+		synchronized(GADistributedScorer.class){
+			if(workers.length == 0) return;
+			dataSetId = dataSetIds.remove(dataSet.getPatientColumns());
+			currentWorkers = workers;
+		}
+		if(dataSetId == null) return;
+		
+		for(WorkerConnection worker : currentWorkers)
+			worker.unloadDataSet(dataSetId);
+	}
+	
+	
+	/**
+	 * Scores a contiguous range of an array of chromosomes on the worker processes.
+	 * 
+	 * @param dataSet Breast Cancer Data Set by Which the Chromosomes will be Scored.
+	 * @param malignancyBiasFactor Score associated with an incorrect/correct characterization
+	 * of a malignant tumor.
+	 * @param chromosomes Array of chromosomes to be scored.
+	 * @param startIndex Index of the first chromosome to score (inclusive).
+	 * @param endIndex Index of the last chromosome to score (exclusive).
+	 */
+	public static void scoreChromosomes(final BreastCancerDataSet dataSet, final int malignancyBiasFactor,
+										final GAChromosome[] chromosomes, int startIndex, int endIndex){
+		
+		int i;
+		int[] batch;
+		final PatientFeatureColumns patientColumns = dataSet.getPatientColumns();
+		final int dataSetId = getDataSetId(patientColumns);
+		final ConcurrentLinkedQueue<int[]> batches = new ConcurrentLinkedQueue<int[]>();
+		
+		//---- Split the chromosomes into batches to amortize the round trips.
+		for(i = startIndex; i < endIndex; i += BATCH_SIZE)
+			batches.add(new int[] {i, Math.min(i + BATCH_SIZE, endIndex)});
+		
+		//---- Dispatch until every batch is scored or no workers are left.  A failed worker returns its
+		//---- batch to the queue so another round is needed if the other workers already finished.
+		List<WorkerConnection> liveWorkers = getLiveWorkers();
+		while(!batches.isEmpty() && !liveWorkers.isEmpty()){
+			
+			List<Future<Void>> dispatchers = new ArrayList<Future<Void>>();
+			for(final WorkerConnection worker : liveWorkers){
+				dispatchers.add(getDispatchThreadPool().submit(new Callable<Void>(){
+					public Void call(){
+						int[] nextBatch;
+						while((nextBatch = batches.poll()) != null){
+							if(!worker.scoreBatch(dataSetId, patientColumns, malignancyBiasFactor, chromosomes, nextBatch[0], nextBatch[1])){
+								batches.add(nextBatch);
+								return null;
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			
+			//---- Wait for the dispatchers to finish.
+			for(Future<Void> dispatcher : dispatchers){
+				try{
+					dispatcher.get();
+				}
+				catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+				catch(ExecutionException e){
+					throw new IllegalStateException("Distributed scoring failed.", e.getCause());
+				}
+			}
+			liveWorkers = getLiveWorkers();
+		}
+		
+		//---- Score any batches left over because all of the workers failed.
+		while((batch = batches.poll()) != null){
+			for(i = batch[0]; i < batch[1]; i++){
+				double[] chromosomeScore = dataSet.getChromosomeScoreAndSeparationForPopulation(chromosomes[i], malignancyBiasFactor);
+				chromosomes[i].setScore((int)Math.round(chromosomeScore[0]));
+				chromosomes[i].setTotalSeparation(chromosomeScore[1]);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Accessor for the workers that have not failed.
+	 * 
+	 * @return List of the live workers.
+	 */
+	private static synchronized List<WorkerConnection> getLiveWorkers(){
+		List<WorkerConnection> liveWorkers = new ArrayList<WorkerConnection>();
+		for(WorkerConnection worker : workers)
+			if(!worker.hasFailed()) liveWorkers.add(worker);
+		return liveWorkers;
+	}
+	
+	
+	/**
+	 * Connection to a single worker process.  A connection is used by one dispatch thread at
+	 * a time.  Once a connection fails, the worker is not used again.
+	 */
+	private static class WorkerConnection {
+		
+		private final InetSocketAddress address;
+		private final Map<Integer, Integer> loadedDataSets = new HashMap<Integer, Integer>();	//---- Number of patients by data set identifier.
+		private long loadedPatients;
+		private Socket socket;
+		private DataInputStream in;
+		private DataOutputStream out;
+		private volatile boolean failed;
+		
+		WorkerConnection(InetSocketAddress address){
+			this.address = address;
+		}
+		
+		
+		/**
+		 * Checks whether the connection to the worker failed.
+		 * 
+		 * @return True if the worker is no longer used.
+		 */
+		boolean hasFailed(){
+			return failed;
+		}
+		
+		
+		/**
+		 * Scores a batch of chromosomes on the worker.  The data set is sent to the worker
+		 * the first time it is used.
+		 * 
+		 * @return True if the batch was scored and false if the worker failed.
+		 */
+		synchronized boolean scoreBatch(int dataSetId, PatientFeatureColumns patientColumns, int malignancyBiasFactor,
+										GAChromosome[] chromosomes, int startIndex, int endIndex){
+			
+			int i, j, genomeBase;
+			int[] genomes;
+			
+			if(failed) return false;
+			
+			try{
+				if(socket == null) connect();
+				if(!loadedDataSets.containsKey(dataSetId)) loadDataSet(dataSetId, patientColumns);
+				
+				//---- Send the genomes.
+				out.writeByte(GAWorkerServer.MESSAGE_SCORE);
+				out.writeInt(dataSetId);
+				out.writeInt(malignancyBiasFactor);
+				out.writeInt(endIndex - startIndex);
+				for(i = startIndex; i < endIndex; i++){
+					genomes = chromosomes[i].getGenomeWords();
+					genomeBase = chromosomes[i].getGenomeBase();
+					for(j = 0; j < GAChromosome.GENOME_WORD_COUNT; j++)
+						out.writeInt(genomes[genomeBase + j]);
+				}
+				out.flush();
+				
+				//---- Read the scores.
+				if(in.readByte() != GAWorkerServer.STATUS_OK)
+					throw new IOException("The worker rejected the batch.");
+				for(i = startIndex; i < endIndex; i++){
+					chromosomes[i].setScore(in.readInt());
+					chromosomes[i].setTotalSeparation(in.readDouble());
+				}
+				return true;
+			}
+			catch(IOException e){
+				System.out.println("Warning: Worker " + address + " failed (" + e + ").  Its batches will be re-dispatched.");
+				failed = true;
+				close();
+				return false;
+			}
+		}
+		
+		
+		/**
+		 * Opens the connection to the worker and checks that it speaks the same protocol.
+		 * 
+		 * @throws IOException If the worker cannot be reached.
+		 */
+		private void connect() throws IOException{
+			
+			socket = new Socket();
+			socket.connect(address, CONNECT_TIMEOUT);
+			socket.setSoTimeout(READ_TIMEOUT);
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			
+			out.writeByte(GAWorkerServer.MESSAGE_HELLO);
+			out.writeInt(GAWorkerServer.PROTOCOL_MAGIC);
+			out.flush();
+			if(in.readInt() != GAWorkerServer.PROTOCOL_MAGIC)
+				throw new IOException("Unexpected handshake.");
+		}
+		
+		
+		/**
+		 * Sends a data set to the worker.
+		 * 
+		 * @param dataSetId Identifier of the data set.
+		 * @param patientColumns Columns of the data set.
+		 * @throws IOException If the worker does not accept the data set or it exceeds the worker's limits.
+		 */
+		private void loadDataSet(int dataSetId, PatientFeatureColumns patientColumns) throws IOException{
+			
+			int numberOfPatients = patientColumns.getNumberOfPatients();
+			
+			//---- The worker would reject the data set and close the connection so it is not sent.
+			if(numberOfPatients > GAWorkerServer.MAXIMUM_DATA_SET_SIZE)
+				throw new IOException("The data set is too large for the worker.");
+			if(loadedDataSets.size() >= GAWorkerServer.MAXIMUM_DATA_SETS_PER_CONNECTION
+					|| loadedPatients + numberOfPatients > GAWorkerServer.MAXIMUM_PATIENTS_PER_CONNECTION)
+				throw new IOException("The worker holds too many data sets.");
+			
+			out.writeByte(GAWorkerServer.MESSAGE_LOAD_DATA_SET);
+			out.writeInt(dataSetId);
+			out.writeInt(numberOfPatients);
+			for(int i = 0; i < numberOfPatients; i++){
+				for(int featureIndex = 0; featureIndex < Patient.numberDataElementsPerPatient(); featureIndex++)
+					out.writeInt(patientColumns.getFeature(i, featureIndex));
+				out.writeInt(patientColumns.isMalignant(i) ? 1 : 0);
+			}
+			out.flush();
+			
+			if(in.readByte() != GAWorkerServer.STATUS_OK)
+				throw new IOException("The worker rejected the data set.");
+			loadedDataSets.put(dataSetId, numberOfPatients);
+			loadedPatients += numberOfPatients;
+		}
+		
+		
+		/**
+		 * Tells the worker to drop a data set it loaded.
+		 * 
+		 * @param dataSetId Identifier of the data set.
+		 */
+		synchronized void unloadDataSet(int dataSetId){
+			
+			if(failed || socket == null || !loadedDataSets.containsKey(dataSetId)) return;
+			loadedPatients -= loadedDataSets.remove(dataSetId);
+			
+			try{
+				out.writeByte(GAWorkerServer.MESSAGE_UNLOAD_DATA_SET);
+				out.writeInt(dataSetId);
+				out.flush();
+			}
+			catch(IOException e){
+				System.out.println("Warning: Worker " + address + " failed (" + e + ").  It will not be used again.");
+				failed = true;
+				close();
+			}
+		}
+		
+		
+		/**
+		 * Closes the connection to the worker.
+		 */
+		synchronized void close(){
+			if(socket == null) return;
+			try{
+				if(!failed){
+					out.writeByte(GAWorkerServer.MESSAGE_CLOSE);
+					out.flush();
+				}
+				socket.close();
+			}
+			catch(IOException e){}
+			socket = null;
+			loadedDataSets.clear();
+			loadedPatients = 0;
+		}
+	}
+	
+}
@@ -0,0 +1,174 @@
+package cs123A;
+
+/**
+ * Cache of chromosome scores keyed by the chromosome's genome.  Elites carried over between
+ * generations and children that are identical to a parent do not need to be re-scored against
+ * the training set.
+ * 
+ * The cache is a primitive open addressing hash table.  Lookups and insertions probe a small
+ * fixed number of slots.  If no slot is free, the entry at the home slot is evicted so the
+ * cache never grows beyond its capacity.
+ * 
+ * A cache is only valid for the data set and malignancy bias factor it was built for and is not
+ * thread safe.
+ */
+public class GAFitnessCache {
+	
+	private static final int MAXIMUM_PROBES = 8;
+	
+	private final BreastCancerDataSet dataSet;
+	private final int malignancyBiasFactor;
+	private final int slotMask;
+	private final int[] genomeKeys;			//---- GENOME_WORD_COUNT words per slot.
+	private final boolean[] slotOccupied;
+	private final int[] scores;
+	private final double[] separations;
+	private long numberHits;
+	private long numberMisses;
+	
+	
+	/**
+	 * Constructor for an empty fitness cache.
+	 * 
+	 * @param dataSet Data set the cached scores were calculated against.
+	 * @param malignancyBiasFactor Malignancy bias factor the cached scores were calculated with.
+	 * @param capacity Minimum number of entries in the cache.  It is rounded up to a power of two.
+	 */
+	public GAFitnessCache(BreastCancerDataSet dataSet, int malignancyBiasFactor, int capacity){
+		
+		this.dataSet = dataSet;
+		this.malignancyBiasFactor = malignancyBiasFactor;
+		
+		//---- Round the capacity up to a power of two so the slot can be found with a mask.
+		int numberSlots = Integer.highestOneBit(Math.max(capacity, MAXIMUM_PROBES) - 1) << 1;
+		slotMask = numberSlots - 1;
+		
+		genomeKeys = new int[numberSlots * GAChromosome.GENOME_WORD_COUNT];
+		slotOccupied = new boolean[numberSlots];
+		scores = new int[numberSlots];
+		separations = new double[numberSlots];
+	}
+	
+	
+	/**
+	 * Checks whether this cache holds scores for the specified data set and bias factor.
+	 * 
+	 * @param dataSet Data set used for scoring.
+	 * @param malignancyBiasFactor Malignancy bias factor used for scoring.
+	 * @return True if the cached scores are valid for the data set and bias factor.
+	 */
+	public boolean isValidFor(BreastCancerDataSet dataSet, int malignancyBiasFactor){
+		return this.dataSet == dataSet && this.malignancyBiasFactor == malignancyBiasFactor;
+	}
+	
+	
+	/**
+	 * Looks up a chromosome in the cache.  If found, the chromosome's score and separation are set.
+	 * 
+	 * @param chromosome Chromosome to look up.
+	 * @return True if the chromosome was found in the cache.
+	 */
+	public boolean lookup(GAChromosome chromosome){
+		
+		int slot = findSlot(chromosome.getGenomeWords(), chromosome.getGenomeBase());
+		
+		if(slot < 0){
+			numberMisses++;
+			return false;
+		}
+		
+		numberHits++;
+		chromosome.setScore(scores[slot]);
+		chromosome.setTotalSeparation(separations[slot]);
+		return true;
+	}
+	
+	
+	/**
+	 * Stores a scored chromosome in the cache.
+	 * 
+	 * @param chromosome Scored chromosome.
+	 */
+	public void store(GAChromosome chromosome){
+		
+		int[] genomes = chromosome.getGenomeWords();
+		int genomeBase = chromosome.getGenomeBase();
+		int homeSlot = hashGenome(genomes, genomeBase) & slotMask;
+		int slot = homeSlot;
+		
+		//---- Use the first free slot or the slot already holding this genome.
+		for(int probe = 0; probe < MAXIMUM_PROBES; probe++){
+			slot = (homeSlot + probe) & slotMask;
+			if(!slotOccupied[slot] || genomeEquals(slot, genomes, genomeBase))
+				break;
+			//---- No free slot so evict the entry at the home slot.
+			if(probe == MAXIMUM_PROBES - 1)
+				slot = homeSlot;
+		}
+		
+		System.arraycopy(genomes, genomeBase, genomeKeys, slot * GAChromosome.GENOME_WORD_COUNT, GAChromosome.GENOME_WORD_COUNT);
+		slotOccupied[slot] = true;
+		scores[slot] = chromosome.getScore();
+		separations[slot] = chromosome.getTotalSeparation();
+	}
+	
+	
+	/**
+	 * Accessor for the number of successful lookups.
+	 * 
+	 * @return Number of cache hits.
+	 */
+	public long getNumberHits(){
+		return numberHits;
+	}
+	
+	
+	/**
+	 * Accessor for the number of unsuccessful lookups.
+	 * 
+	 * @return Number of cache misses.
+	 */
+	public long getNumberMisses(){
+		return numberMisses;
+	}
+	
+	
+	/**
+	 * Finds the slot holding a genome.
+	 * 
+	 * @param genomes Genome array holding the genome to find.
+	 * @param genomeBase Index of the first word of the genome to find.
+	 * @return Slot index or -1 if the genome is not in the cache.
+	 */
+	private int findSlot(int[] genomes, int genomeBase){
+		int homeSlot = hashGenome(genomes, genomeBase) & slotMask;
+		int slot;
+		for(int probe = 0; probe < MAXIMUM_PROBES; probe++){
+			slot = (homeSlot + probe) & slotMask;
+			if(slotOccupied[slot] && genomeEquals(slot, genomes, genomeBase))
+				return slot;
+		}
+		return -1;
+	}
+	
+	
+	private boolean genomeEquals(int slot, int[] genomes, int genomeBase){
+		int base = slot * GAChromosome.GENOME_WORD_COUNT;
+		for(int i = 0; i < GAChromosome.GENOME_WORD_COUNT; i++)
+			if(genomeKeys[base + i] != genomes[genomeBase + i])
+				return false;
+		return true;
+	}
+	
+	
+	/**
+	 * Hashes the genome words.  The final mixing step spreads the entropy into the low bits used for the slot.
+	 */
+	private static int hashGenome(int[] genomes, int genomeBase){
+		int hash = 0;
+		for(int i = 0; i < GAChromosome.GENOME_WORD_COUNT; i++)
+			hash = (hash + genomes[genomeBase + i]) * 0x9e3779b1;
+		return hash ^ (hash >>> 16);
+	}
+	
+}
@@ -0,0 +1,190 @@
+package cs123A;
+
+/**
+ * Figures recorded for a single generation of a random restart or island.  Objects are built
+ * by GAMetricsRecorder and passed to a GAMetricsSink.
+ * 
+ * Times are in nanoseconds and only cover the generation they are recorded for.  Scores of
+ * chromosomes whose evaluation stopped early (see -BE) are upper bounds.
+ */
+public class GAGenerationMetrics {
+	
+	int executionNumber;
+	String source;
+	int sourceNumber;
+	int generationNumber;
+	int populationSize;
+	int bestScore;
+	double meanScore;
+	double medianScore;
+	double diversity;
+	int numberEvaluations;
+	long scoringTime;
+	long selectionTime;
+	long crossoverTime;
+	long mutationTime;
+	long numberChromosomesCreated;
+	long allocatedBytes;
+	
+	
+	/**
+	 * Accessor for the number of the program execution (see -NR) that recorded the generation.
+	 * 
+	 * @return Execution number starting at 1.
+	 */
+	public int getExecutionNumber(){
+		return executionNumber;
+	}
+	
+	
+	/**
+	 * Accessor for what evolved the population.
+	 * 
+	 * @return "run" for a random restart or "island" for an island.
+	 */
+	public String getSource(){
+		return source;
+	}
+	
+	
+	/**
+	 * Accessor for the number of the restart or island.
+	 * 
+	 * @return Restart or island number starting at 1.
+	 */
+	public int getSourceNumber(){
+		return sourceNumber;
+	}
+	
+	
+	/**
+	 * Accessor for the generation number.  Generation 0 is the initial random population.
+	 * 
+	 * @return Generation number.
+	 */
+	public int getGenerationNumber(){
+		return generationNumber;
+	}
+	
+	
+	/**
+	 * Accessor for the number of chromosomes in the population.
+	 * 
+	 * @return Population size.
+	 */
+	public int getPopulationSize(){
+		return populationSize;
+	}
+	
+	
+	/**
+	 * Accessor for the best score in the population.
+	 * 
+	 * @return Best score.
+	 */
+	public int getBestScore(){
+		return bestScore;
+	}
+	
+	
+	/**
+	 * Accessor for the mean score of the population.
+	 * 
+	 * @return Mean score.
+	 */
+	public double getMeanScore(){
+		return meanScore;
+	}
+	
+	
+	/**
+	 * Accessor for the median score of the population.
+	 * 
+	 * @return Median score.
+	 */
+	public double getMedianScore(){
+		return medianScore;
+	}
+	
+	
+	/**
+	 * Accessor for the population diversity.
+	 * 
+	 * @return Mean Hamming distance in bits between the genomes of all pairs of population members.
+	 */
+	public double getDiversity(){
+		return diversity;
+	}
+	
+	
+	/**
+	 * Accessor for the number of chromosomes scored against the data set.  Fitness cache hits are not counted.
+	 * 
+	 * @return Number of evaluations.
+	 */
+	public int getNumberEvaluations(){
+		return numberEvaluations;
+	}
+	
+	
+	/**
+	 * Accessor for the time spent scoring the population.
+	 * 
+	 * @return Time in nanoseconds.
+	 */
+	public long getScoringTime(){
+		return scoringTime;
+	}
+	
+	
+	/**
+	 * Accessor for the time spent selecting the elites and the tournament winners.
+	 * 
+	 * @return Time in nanoseconds.
+	 */
+	public long getSelectionTime(){
+		return selectionTime;
+	}
+	
+	
+	/**
+	 * Accessor for the time spent building the children via crossover.
+	 * 
+	 * @return Time in nanoseconds.
+	 */
+	public long getCrossoverTime(){
+		return crossoverTime;
+	}
+	
+	
+	/**
+	 * Accessor for the time spent mutating the children.
+	 * 
+	 * @return Time in nanoseconds.
+	 */
+	public long getMutationTime(){
+		return mutationTime;
+	}
+	
+	
+	/**
+	 * Accessor for the number of chromosomes the chromosome pool had to create.
+	 * 
+	 * @return Number of new chromosomes.
+	 */
+	public long getNumberChromosomesCreated(){
+		return numberChromosomesCreated;
+	}
+	
+	
+	/**
+	 * Accessor for the bytes allocated by the thread that ran the generation.  Work done by
+	 * the parallel scoring threads (-PS) is not included.
+	 * 
+	 * @return Allocated bytes or -1 if the JVM does not support the measurement or the generation was not measured.
+	 */
+	public long getAllocatedBytes(){
+		return allocatedBytes;
+	}
+	
+}
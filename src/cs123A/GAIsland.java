@@ -0,0 +1,195 @@
+package cs123A;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single island of the island model genetic algorithm.  Each island owns its population,
+ * chromosome pool, fitness cache and random stream so that islands can evolve on separate
+ * threads without any synchronization.  Islands only interact during migration which is
+ * performed serially between epochs.
+ */
+public class GAIsland {
+	
+	/**
+	 * Supported migration topologies.  In a ring, each island sends its migrants to the next island.
+	 * In all to all, each island receives the best migrants of all the other islands.
+	 */
+	public enum MigrationTopology { RING, ALL }
+	
+	private GAChromosomePopulation population;
+	private final GAChromosomePool chromosomePool;
+	private final GAFitnessCache fitnessCache;
+	private final GAMetricsRecorder metrics;
+	
+	
+	/**
+	 * Creates an island with a random, scored population.
+	 * 
+	 * @param random Random number generator used exclusively by this island.
+	 * @param trainingDataSet Data set used to score the population.
+	 * @param malignancyBiasFactor Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @param fitnessCache Cache of previously calculated scores owned by this island.  May be null.
+	 * @param metrics Recorder of the per generation metrics of this island.  May be null.
+	 */
+	public GAIsland(GARandom random, BreastCancerDataSet trainingDataSet, int malignancyBiasFactor, GAFitnessCache fitnessCache,
+					GAMetricsRecorder metrics){
+		
+		this(random, fitnessCache, metrics);
+		
+		if(metrics != null) metrics.startGeneration();
+		population = new GAChromosomePopulation(random);
+		population.createRandomPopulation();
+		long scoringStartTime = (metrics != null) ? System.nanoTime() : 0;
+		population.scorePopulationMembers(trainingDataSet, malignancyBiasFactor, fitnessCache);
+		if(metrics != null){
+			metrics.addScoringTime(scoringStartTime);
+			metrics.recordGeneration(population, chromosomePool);
+		}
+	}
+	
+	
+	/**
+	 * Creates an island without a population.
+	 * 
+	 * @param random Random number generator used exclusively by this island.
+	 * @param fitnessCache Cache of previously calculated scores owned by this island.  May be null.
+	 * @param metrics Recorder of the per generation metrics of this island.  May be null.
+	 */
+	private GAIsland(GARandom random, GAFitnessCache fitnessCache, GAMetricsRecorder metrics){
+		this.fitnessCache = fitnessCache;
+		this.metrics = metrics;
+		chromosomePool = new GAChromosomePool(random);
+	}
+	
+	
+	/**
+	 * Restores an island written by writeTo.
+	 * 
+	 * @param in Source of the island.
+	 * @param random Random number generator used exclusively by this island.  Its state is overwritten.
+	 * @param trainingDataSet Data set the population was scored with.
+	 * @param malignancyBiasFactor Bias factor the population was scored with.
+	 * @param fitnessCache Cache of previously calculated scores owned by this island.  May be null.
+	 * @param metrics Recorder of the per generation metrics of this island.  May be null.
+	 * @return Island identical to the one that was written.
+	 * @throws IOException If the island cannot be read.
+	 */
+	public static GAIsland readFrom(DataInput in, GARandom random, BreastCancerDataSet trainingDataSet, int malignancyBiasFactor,
+									GAFitnessCache fitnessCache, GAMetricsRecorder metrics) throws IOException{
+		GAIsland island = new GAIsland(random, fitnessCache, metrics);
+		random.setState(GACheckpoint.readRandomState(in));
+		island.population = GAChromosomePopulation.readFrom(in, random, trainingDataSet, malignancyBiasFactor);
+		return island;
+	}
+	
+	
+	/**
+	 * Writes the island's random number generator state and population to a checkpoint.
+	 * 
+	 * @param out Destination of the island.
+	 * @throws IOException If the island cannot be written.
+	 */
+	public void writeTo(DataOutput out) throws IOException{
+		GACheckpoint.writeRandomState(out, chromosomePool.getRandom());
+		population.writeTo(out);
+	}
+	
+	
+	/**
+	 * Evolves the island's population for a number of generations.
+	 * 
+	 * @param geneticAlgorithm Genetic algorithm that runs each generation.
+	 * @param numberGenerations Number of generations to run.
+	 */
+	public void evolve(BreastCancerGeneticAlgorithm geneticAlgorithm, int numberGenerations){
+		for(int generationNumber = 0; generationNumber < numberGenerations; generationNumber++){
+			population = geneticAlgorithm.runGeneration(population, chromosomePool, fitnessCache, metrics);
+			if(metrics != null) metrics.recordGeneration(population, chromosomePool);
+		}
+	}
+	
+	
+	/**
+	 * Accessor for the best chromosome on the island.
+	 * 
+	 * @return Best chromosome in the island's population.
+	 */
+	public GAChromosome getBestChromosome(){
+		return population.getBestChromosomes(1)[0];
+	}
+	
+	
+	/**
+	 * Accessor for the island's fitness cache.
+	 * 
+	 * @return Fitness cache of the island.  May be null.
+	 */
+	public GAFitnessCache getFitnessCache(){
+		return fitnessCache;
+	}
+	
+	
+	/**
+	 * Adds copies of the migrants to this island's population in place of its worst members.
+	 * The population is rebuilt in the island's spare population so the old population, and
+	 * with it the migrants this island sends to the others, stays intact until the next generation.
+	 * 
+	 * @param migrants Scored chromosomes from other islands.  They are not modified.
+	 */
+	private void acceptMigrants(List<GAChromosome> migrants){
+		population = population.replaceWorstChromosomes(migrants.toArray(new GAChromosome[migrants.size()]), chromosomePool);
+	}
+	
+	
+	/**
+	 * Exchanges the best chromosomes between the islands.  All of the migrants are selected before
+	 * any island is modified so the result does not depend on the island order.  The number of
+	 * migrants is limited to half the population so an island never replaces its own migrants.
+	 * 
+	 * @param islands All islands in the model.
+	 * @param numberMigrants Number of chromosomes each island receives.
+	 * @param topology Topology that determines where the migrants are sent.
+	 */
+	public static void migrate(GAIsland[] islands, int numberMigrants, MigrationTopology topology){
+		
+		int i, j;
+		List<GAChromosome> migrants;
+		
+		numberMigrants = Math.min(numberMigrants, GAChromosomePopulation.getMaximumPopulationSize() / 2);
+		if(islands.length < 2 || numberMigrants <= 0) return;
+		
+		//---- Select the migrants of each island.
+		GAChromosome[][] emigrants = new GAChromosome[islands.length][];
+		for(i = 0; i < islands.length; i++)
+			emigrants[i] = islands[i].population.getBestChromosomes(numberMigrants);
+		
+		//---- Build the migrants received by each island.
+		List<List<GAChromosome>> islandMigrants = new ArrayList<List<GAChromosome>>();
+		for(i = 0; i < islands.length; i++){
+			migrants = new ArrayList<GAChromosome>();
+			
+			if(topology == MigrationTopology.RING){
+				//---- Receive the migrants from the previous island in the ring.
+				Collections.addAll(migrants, emigrants[(i + islands.length - 1) % islands.length]);
+			}
+			else{
+				//---- Receive the best migrants from all other islands.  The sort is stable so ties favor lower islands.
+				for(j = 0; j < islands.length; j++)
+					if(j != i) Collections.addAll(migrants, emigrants[j]);
+				Collections.sort(migrants);
+				migrants = migrants.subList(0, numberMigrants);
+			}
+			islandMigrants.add(migrants);
+		}
+		
+		//---- Add the migrants to each island.
+		for(i = 0; i < islands.length; i++)
+			islands[i].acceptMigrants(islandMigrants.get(i));
+	}
+	
+}
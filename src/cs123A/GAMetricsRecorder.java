@@ -0,0 +1,288 @@
+package cs123A;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Records the metrics of each generation of a single random restart or island and passes them
+ * to a GAMetricsSink.  The phase timers are only read when a recorder exists so runs without
+ * metrics pay no overhead.
+ * 
+ * Reading the clock costs about as much as mutating a child so the selection, crossover and
+ * mutation of only one child in CHILD_SAMPLING_INTERVAL are timed.  Their times are scaled by
+ * the number of children to estimate the time of the whole generation.
+ * 
+ * A recorder is not thread safe and must only be used by the thread that evolves its population.
+ * That thread may change between epochs (islands) or restarts since they run on pool threads, so
+ * the allocation counter is read again on the evolving thread at the start of every generation.
+ * Only that thread's allocations are counted.  Scoring done on other threads (-PS) is not included.
+ */
+public class GAMetricsRecorder {
+	
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+	private static final int LANE_COUNTER_CAPACITY = 255;		//---- Members counted before the byte lanes overflow.
+	private static final int CHILD_SAMPLING_INTERVAL = 8;
+	
+	private final GAMetricsSink sink;
+	private final int executionNumber;
+	private final String source;
+	private final int sourceNumber;
+	private final int[] bitCounts = new int[GAChromosome.GENOME_WORD_COUNT * Integer.SIZE];
+	private final int[] laneCounters = new int[GAChromosome.GENOME_WORD_COUNT * Byte.SIZE];
+	private int generationNumber;
+	private long scoringTime;
+	private long selectionTime;
+	private long sampledSelectionTime;
+	private long sampledCrossoverTime;
+	private long sampledMutationTime;
+	private int numberChildren;
+	private int numberSampledChildren;
+	private long lastNumberChromosomesCreated;
+	private long generationStartAllocatedBytes;
+	private long generationStartThreadId;
+	
+	
+	/**
+	 * Creates a recorder for a single restart or island.
+	 * 
+	 * @param sink Destination of the metrics.
+	 * @param executionNumber Number of the program execution starting at 1.
+	 * @param source "run" for a random restart or "island" for an island.
+	 * @param sourceNumber Number of the restart or island starting at 1.
+	 */
+	public GAMetricsRecorder(GAMetricsSink sink, int executionNumber, String source, int sourceNumber){
+		this.sink = sink;
+		this.executionNumber = executionNumber;
+		this.source = source;
+		this.sourceNumber = sourceNumber;
+	}
+	
+	
+	/**
+	 * Reads the allocation counter of the current thread at the start of a generation.  It must
+	 * be called by the evolving thread before the initial population is built and before each
+	 * generation since the counter is kept per thread.
+	 */
+	public void startGeneration(){
+		generationStartThreadId = Thread.currentThread().getId();
+		generationStartAllocatedBytes = getAllocatedBytes();
+	}
+	
+	
+	/**
+	 * Mutator for the number of the next recorded generation.  It is used when a restart or
+	 * island is resumed from a checkpoint.
+	 *
+	 * @param nextGenerationNumber Generation number of the next recorded generation.
+	 */
+	public void setNextGenerationNumber(int nextGenerationNumber){
+		generationNumber = nextGenerationNumber;
+	}
+	
+	
+	/**
+	 * Adds the time since startTime to the scoring time.
+	 * 
+	 * @param startTime System.nanoTime() when scoring started.
+	 * @return System.nanoTime() now so the next phase can start from it.
+	 */
+	public long addScoringTime(long startTime){
+		long currentTime = System.nanoTime();
+		scoringTime += currentTime - startTime;
+		return currentTime;
+	}
+	
+	
+	/**
+	 * Adds the time since startTime to the selection time.  It is used for the selection
+	 * of the elites which is timed every generation.
+	 * 
+	 * @param startTime System.nanoTime() when selection started.
+	 * @return System.nanoTime() now so the next phase can start from it.
+	 */
+	public long addSelectionTime(long startTime){
+		long currentTime = System.nanoTime();
+		selectionTime += currentTime - startTime;
+		return currentTime;
+	}
+	
+	
+	/**
+	 * Counts a new child and decides whether its phases are timed.
+	 * 
+	 * @return True if the phases of the child should be timed.
+	 */
+	public boolean sampleChild(){
+		return numberChildren++ % CHILD_SAMPLING_INTERVAL == 0;
+	}
+	
+	
+	/**
+	 * Adds the time since startTime to the selection time of the sampled children.
+	 * 
+	 * @param startTime System.nanoTime() when the sampled child's selection started.
+	 * @return System.nanoTime() now so the next phase can start from it.
+	 */
+	public long addSampledSelectionTime(long startTime){
+		long currentTime = System.nanoTime();
+		sampledSelectionTime += currentTime - startTime;
+		numberSampledChildren++;
+		return currentTime;
+	}
+	
+	
+	/**
+	 * Adds the time since startTime to the crossover time of the sampled children.
+	 * 
+	 * @param startTime System.nanoTime() when the sampled child's crossover started.
+	 * @return System.nanoTime() now so the next phase can start from it.
+	 */
+	public long addSampledCrossoverTime(long startTime){
+		long currentTime = System.nanoTime();
+		sampledCrossoverTime += currentTime - startTime;
+		return currentTime;
+	}
+	
+	
+	/**
+	 * Adds the time since startTime to the mutation time of the sampled children.
+	 * 
+	 * @param startTime System.nanoTime() when the sampled child's mutation started.
+	 * @return System.nanoTime() now so the next phase can start from it.
+	 */
+	public long addSampledMutationTime(long startTime){
+		long currentTime = System.nanoTime();
+		sampledMutationTime += currentTime - startTime;
+		return currentTime;
+	}
+	
+	
+	/**
+	 * Records the metrics of a scored population and resets the phase timers.  It is
+	 * called with the initial population and after each generation on the thread that
+	 * called startGeneration.
+	 * 
+	 * @param population Scored population of the generation.
+	 * @param chromosomePool Pool used to build the population's chromosomes.
+	 */
+	public void recordGeneration(GAChromosomePopulation population, GAChromosomePool chromosomePool){
+		
+		//---- Allocation is measured first so building the metrics is not charged to the generation.
+		long allocatedBytes = getAllocatedBytes();
+		boolean allocationMeasured = allocatedBytes >= 0 && generationStartAllocatedBytes >= 0
+									 && Thread.currentThread().getId() == generationStartThreadId;
+		
+		int i, populationSize = population.getPopulationSize();
+		int[] scores = new int[populationSize];
+		long scoreSum = 0;
+		GAGenerationMetrics metrics = new GAGenerationMetrics();
+		
+		for(i = 0; i < populationSize; i++){
+			scores[i] = population.getMember(i).getScore();
+			scoreSum += scores[i];
+		}
+		Arrays.sort(scores);
+		
+		metrics.executionNumber = executionNumber;
+		metrics.source = source;
+		metrics.sourceNumber = sourceNumber;
+		metrics.generationNumber = generationNumber++;
+		metrics.populationSize = populationSize;
+		metrics.bestScore = scores[populationSize - 1];
+		metrics.meanScore = (double)scoreSum / populationSize;
+		metrics.medianScore = (scores[(populationSize - 1) / 2] + (double)scores[populationSize / 2]) / 2;
+		metrics.diversity = calculateDiversity(population);
+		metrics.numberEvaluations = population.getNumberEvaluations();
+		//---- Scale the sampled children up to all of the children.
+		double sampleScale = (numberSampledChildren == 0) ? 0 : (double)numberChildren / numberSampledChildren;
+		metrics.scoringTime = scoringTime;
+		metrics.selectionTime = selectionTime + Math.round(sampledSelectionTime * sampleScale);
+		metrics.crossoverTime = Math.round(sampledCrossoverTime * sampleScale);
+		metrics.mutationTime = Math.round(sampledMutationTime * sampleScale);
+		metrics.numberChromosomesCreated = chromosomePool.getNumberChromosomesCreated() - lastNumberChromosomesCreated;
+		lastNumberChromosomesCreated = chromosomePool.getNumberChromosomesCreated();
+		//---- A counter read on another thread cannot be compared so the generation is reported as not measured.
+		metrics.allocatedBytes = allocationMeasured ? allocatedBytes - generationStartAllocatedBytes : -1;
+		
+		scoringTime = selectionTime = sampledSelectionTime = sampledCrossoverTime = sampledMutationTime = 0;
+		numberChildren = numberSampledChildren = 0;
+		sink.record(metrics);
+	}
+	
+	
+	/**
+	 * Calculates the mean Hamming distance between the genomes of all pairs of population members.
+	 * A bit that is set in c of the n members differs in c * (n - c) pairs so the distance is
+	 * found from per bit counts in linear rather than quadratic time.
+	 * 
+	 * The bits are counted without branches.  Shifting a genome word by k and masking it with
+	 * 0x01010101 leaves bits k, k + 8, k + 16 and k + 24 in the low bit of each byte so eight adds
+	 * count all 32 bits in four byte lanes.  The lanes are flushed before they can overflow.
+	 * 
+	 * @param population Population whose diversity is calculated.
+	 * @return Mean pairwise Hamming distance in bits.
+	 */
+	private double calculateDiversity(GAChromosomePopulation population){
+		
+		int i, wordIndex, shift, genomeWord, laneIndex, genomeBase;
+		int populationSize = population.getPopulationSize();
+		int[] genomes = population.getGenomeWords();
+		double differingPairs = 0;
+		
+		if(populationSize < 2) return 0;
+		
+		Arrays.fill(bitCounts, 0);
+		for(i = 0; i < populationSize; i++){
+			genomeBase = i * GAChromosome.GENOME_WORD_COUNT;
+			for(wordIndex = 0; wordIndex < GAChromosome.GENOME_WORD_COUNT; wordIndex++){
+				genomeWord = genomes[genomeBase + wordIndex];
+				laneIndex = wordIndex * Byte.SIZE;
+				for(shift = 0; shift < Byte.SIZE; shift++)
+					laneCounters[laneIndex + shift] += (genomeWord >>> shift) & 0x01010101;
+			}
+			if((i + 1) % LANE_COUNTER_CAPACITY == 0) flushLaneCounters();
+		}
+		flushLaneCounters();
+		
+		for(i = 0; i < bitCounts.length; i++)
+			differingPairs += (double)bitCounts[i] * (populationSize - bitCounts[i]);
+		
+		return differingPairs / ((double)populationSize * (populationSize - 1) / 2);
+	}
+	
+	
+	/**
+	 * Adds the byte lanes of the lane counters to the per bit counts and clears the lane counters.
+	 */
+	private void flushLaneCounters(){
+		
+		int wordIndex, shift, laneCounter, bitIndex;
+		
+		for(wordIndex = 0; wordIndex < GAChromosome.GENOME_WORD_COUNT; wordIndex++){
+			for(shift = 0; shift < Byte.SIZE; shift++){
+				laneCounter = laneCounters[wordIndex * Byte.SIZE + shift];
+				bitIndex = wordIndex * Integer.SIZE + shift;
+				bitCounts[bitIndex] += laneCounter & 0xFF;
+				bitCounts[bitIndex + 8] += (laneCounter >>> 8) & 0xFF;
+				bitCounts[bitIndex + 16] += (laneCounter >>> 16) & 0xFF;
+				bitCounts[bitIndex + 24] += laneCounter >>> 24;
+			}
+		}
+		Arrays.fill(laneCounters, 0);
+	}
+	
+	
+	/**
+	 * Accessor for the total bytes allocated by the current thread.
+	 * 
+	 * @return Allocated bytes or -1 if the JVM does not support the measurement.
+	 */
+	private static long getAllocatedBytes(){
+		if(!(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean)) return -1;
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)THREAD_MX_BEAN;
+		if(!threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled()) return -1;
+		return threadMXBean.getCurrentThreadAllocatedBytes();
+	}
+	
+}
@@ -0,0 +1,269 @@
+package cs123A;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Destination of the per generation metrics.  Restarts and islands may record their generations
+ * concurrently so every sink is thread safe.  Supported sinks:
+ * 
+ * CSV   - One row per generation with a header row.
+ * JSONL - One JSON object per generation and line.
+ * JMX   - The latest generation and running totals are exposed as the MXBean cs123A:type=GAMetrics.
+ */
+public abstract class GAMetricsSink {
+	
+	/**
+	 * Supported metrics sinks.
+	 */
+	public enum SinkType { NONE, CSV, JSONL, JMX }
+	
+	/**
+	 * Management interface of the JMX sink.
+	 */
+	public interface GAMetricsMXBean {
+		long getNumberGenerationsRecorded();
+		String getLastSource();
+		int getLastGenerationNumber();
+		int getLastBestScore();
+		double getLastMeanScore();
+		double getLastMedianScore();
+		double getLastDiversity();
+		long getTotalEvaluations();
+		long getTotalScoringTime();
+		long getTotalSelectionTime();
+		long getTotalCrossoverTime();
+		long getTotalMutationTime();
+		long getTotalChromosomesCreated();
+		long getTotalAllocatedBytes();
+	}
+	
+	private static final String JMX_OBJECT_NAME = "cs123A:type=GAMetrics";
+	
+	
+	/**
+	 * Records the metrics of a single generation.
+	 * 
+	 * @param metrics Metrics of the generation.
+	 */
+	public abstract void record(GAGenerationMetrics metrics);
+	
+	
+	/**
+	 * Flushes and releases the resources held by the sink.
+	 */
+	public void close(){}
+	
+	
+	/**
+	 * Creates a metrics sink.
+	 * 
+	 * @param sinkType Type of the sink.
+	 * @param fileName File written by the CSV and JSONL sinks.
+	 * @return New sink or null if sinkType is NONE.
+	 * @throws IOException If the file cannot be created.
+	 * @throws JMException If the MXBean cannot be registered.
+	 */
+	public static GAMetricsSink create(SinkType sinkType, String fileName) throws IOException, JMException{
+		switch(sinkType){
+			case CSV:
+				return new CsvSink(fileName);
+			case JSONL:
+				return new JsonLinesSink(fileName);
+			case JMX:
+				return new JmxSink();
+			default:
+				return null;
+		}
+	}
+	
+	
+	/**
+	 * Sink that writes one line per generation to a file.  Lines are built with a StringBuilder
+	 * rather than String.format since formatting dominated the cost of recording a generation.
+	 * If a write fails, a warning is printed and the remaining generations are dropped.
+	 */
+	private static abstract class FileSink extends GAMetricsSink {
+		
+		private final String fileName;
+		private BufferedWriter writer;
+		
+		FileSink(String fileName) throws IOException{
+			this.fileName = fileName;
+			writer = new BufferedWriter(new FileWriter(fileName));
+		}
+		
+		/**
+		 * Formats the metrics of a generation.
+		 * 
+		 * @param metrics Metrics of the generation.
+		 * @return Line without the line terminator.
+		 */
+		abstract String formatLine(GAGenerationMetrics metrics);
+		
+		/**
+		 * Writes a line to the file.
+		 * 
+		 * @param line Line without the line terminator.
+		 */
+		synchronized void writeLine(String line){
+			if(writer == null) return;
+			try{
+				writer.write(line);
+				writer.newLine();
+			}
+			catch(IOException e){
+				System.out.println("Warning: Unable to write the metrics file \"" + fileName + "\".  No more metrics will be written.");
+				close();
+			}
+		}
+		
+		@Override
+		public void record(GAGenerationMetrics metrics){
+			writeLine(formatLine(metrics));
+		}
+		
+		@Override
+		public synchronized void close(){
+			if(writer == null) return;
+			try{
+				writer.close();
+			}
+			catch(IOException e){
+				System.out.println("Warning: Unable to close the metrics file \"" + fileName + "\".");
+			}
+			writer = null;
+		}
+	}
+	
+	
+	/**
+	 * Sink that writes a CSV row per generation.
+	 */
+	private static class CsvSink extends FileSink {
+		
+		CsvSink(String fileName) throws IOException{
+			super(fileName);
+			writeLine("Execution,Source,Source Number,Generation,Population Size,Best Score,Mean Score,Median Score,Diversity,"
+					  + "Evaluations,Scoring Time (ns),Selection Time (ns),Crossover Time (ns),Mutation Time (ns),"
+					  + "Chromosomes Created,Allocated Bytes");
+		}
+		
+		@Override
+		String formatLine(GAGenerationMetrics metrics){
+			StringBuilder line = new StringBuilder(160);
+			line.append(metrics.getExecutionNumber()).append(',').append(metrics.getSource()).append(',')
+				.append(metrics.getSourceNumber()).append(',').append(metrics.getGenerationNumber()).append(',')
+				.append(metrics.getPopulationSize()).append(',').append(metrics.getBestScore()).append(',')
+				.append(metrics.getMeanScore()).append(',').append(metrics.getMedianScore()).append(',')
+				.append(metrics.getDiversity()).append(',').append(metrics.getNumberEvaluations()).append(',')
+				.append(metrics.getScoringTime()).append(',').append(metrics.getSelectionTime()).append(',')
+				.append(metrics.getCrossoverTime()).append(',').append(metrics.getMutationTime()).append(',')
+				.append(metrics.getNumberChromosomesCreated()).append(',').append(metrics.getAllocatedBytes());
+			return line.toString();
+		}
+	}
+	
+	
+	/**
+	 * Sink that writes a JSON object per generation and line.
+	 */
+	private static class JsonLinesSink extends FileSink {
+		
+		JsonLinesSink(String fileName) throws IOException{
+			super(fileName);
+		}
+		
+		@Override
+		String formatLine(GAGenerationMetrics metrics){
+			StringBuilder line = new StringBuilder(400);
+			line.append("{\"execution\":").append(metrics.getExecutionNumber())
+				.append(",\"source\":\"").append(metrics.getSource())
+				.append("\",\"sourceNumber\":").append(metrics.getSourceNumber())
+				.append(",\"generation\":").append(metrics.getGenerationNumber())
+				.append(",\"populationSize\":").append(metrics.getPopulationSize())
+				.append(",\"bestScore\":").append(metrics.getBestScore())
+				.append(",\"meanScore\":").append(metrics.getMeanScore())
+				.append(",\"medianScore\":").append(metrics.getMedianScore())
+				.append(",\"diversity\":").append(metrics.getDiversity())
+				.append(",\"evaluations\":").append(metrics.getNumberEvaluations())
+				.append(",\"scoringNanos\":").append(metrics.getScoringTime())
+				.append(",\"selectionNanos\":").append(metrics.getSelectionTime())
+				.append(",\"crossoverNanos\":").append(metrics.getCrossoverTime())
+				.append(",\"mutationNanos\":").append(metrics.getMutationTime())
+				.append(",\"chromosomesCreated\":").append(metrics.getNumberChromosomesCreated())
+				.append(",\"allocatedBytes\":").append(metrics.getAllocatedBytes()).append('}');
+			return line.toString();
+		}
+	}
+	
+	
+	/**
+	 * Sink that exposes the metrics through JMX.  Any previously registered sink is replaced.
+	 */
+	private static class JmxSink extends GAMetricsSink implements GAMetricsMXBean {
+		
+		private final ObjectName objectName;
+		private GAGenerationMetrics lastMetrics = new GAGenerationMetrics();
+		private long numberGenerationsRecorded;
+		private long totalEvaluations;
+		private long totalScoringTime;
+		private long totalSelectionTime;
+		private long totalCrossoverTime;
+		private long totalMutationTime;
+		private long totalChromosomesCreated;
+		private long totalAllocatedBytes;
+		
+		JmxSink() throws JMException{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName(JMX_OBJECT_NAME);
+			if(server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+			server.registerMBean(this, objectName);
+		}
+		
+		@Override
+		public synchronized void record(GAGenerationMetrics metrics){
+			lastMetrics = metrics;
+			numberGenerationsRecorded++;
+			totalEvaluations += metrics.getNumberEvaluations();
+			totalScoringTime += metrics.getScoringTime();
+			totalSelectionTime += metrics.getSelectionTime();
+			totalCrossoverTime += metrics.getCrossoverTime();
+			totalMutationTime += metrics.getMutationTime();
+			totalChromosomesCreated += metrics.getNumberChromosomesCreated();
+			//---- -1 marks a generation whose allocation was not measured.
+			if(metrics.getAllocatedBytes() != -1) totalAllocatedBytes += metrics.getAllocatedBytes();
+		}
+		
+		@Override
+		public void close(){
+			try{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			}
+			catch(JMException e){}
+		}
+		
+		public synchronized long getNumberGenerationsRecorded(){ return numberGenerationsRecorded; }
+		public synchronized String getLastSource(){ return lastMetrics.getSource() + " #" + lastMetrics.getSourceNumber(); }
+		public synchronized int getLastGenerationNumber(){ return lastMetrics.getGenerationNumber(); }
+		public synchronized int getLastBestScore(){ return lastMetrics.getBestScore(); }
+		public synchronized double getLastMeanScore(){ return lastMetrics.getMeanScore(); }
+		public synchronized double getLastMedianScore(){ return lastMetrics.getMedianScore(); }
+		public synchronized double getLastDiversity(){ return lastMetrics.getDiversity(); }
+		public synchronized long getTotalEvaluations(){ return totalEvaluations; }
+		public synchronized long getTotalScoringTime(){ return totalScoringTime; }
+		public synchronized long getTotalSelectionTime(){ return totalSelectionTime; }
+		public synchronized long getTotalCrossoverTime(){ return totalCrossoverTime; }
+		public synchronized long getTotalMutationTime(){ return totalMutationTime; }
+		public synchronized long getTotalChromosomesCreated(){ return totalChromosomesCreated; }
+		public synchronized long getTotalAllocatedBytes(){ return totalAllocatedBytes; }
+	}
+	
+}
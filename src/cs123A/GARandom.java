@@ -0,0 +1,176 @@
+package cs123A;
+
+/**
+ * Random number generator used by all of the genetic algorithm operators.  Generators are
+ * not thread safe.  Instead, each thread or restart gets its own independent stream by
+ * splitting an existing generator so runs are reproducible from a single seed.
+ * 
+ * The underlying algorithm is pluggable via GARandom.setAlgorithm.
+ */
+public abstract class GARandom {
+	
+	/**
+	 * Supported random number generation algorithms.
+	 */
+	public enum Algorithm { XOSHIRO, SPLITTABLE }
+	
+	private static Algorithm algorithm = Algorithm.XOSHIRO;
+	private static GARandom rootGenerator;
+	private static final ThreadLocal<GARandom> threadGenerators = new ThreadLocal<GARandom>(){
+		@Override
+		protected GARandom initialValue(){
+			return splitRootGenerator();
+		}
+	};
+	
+	
+	/**
+	 * Creates a new generator using the currently selected algorithm.
+	 * 
+	 * @param seed Seed for the generator.
+	 * @return New random number generator.
+	 */
+	public static GARandom create(long seed){
+		if(algorithm == Algorithm.SPLITTABLE)
+			return new SplittableGARandom(seed);
+		return new XoshiroRandom(seed);
+	}
+	
+	
+	/**
+	 * Accessor for the random number generation algorithm.
+	 *
+	 * @return Algorithm used by newly created generators.
+	 */
+	public static synchronized Algorithm getAlgorithm(){
+		return algorithm;
+	}
+
+
+	/**
+	 * Mutator for the random number generation algorithm.  Generators that already exist are not affected.
+	 * 
+	 * @param newAlgorithm Algorithm used by newly created generators.
+	 */
+	public static synchronized void setAlgorithm(Algorithm newAlgorithm){
+		algorithm = newAlgorithm;
+		rootGenerator = null;
+	}
+	
+	
+	/**
+	 * Seeds the root generator from which the per-thread generators are split.
+	 * 
+	 * @param seed Seed of the root generator.
+	 */
+	public static synchronized void setRootSeed(long seed){
+		rootGenerator = create(seed);
+	}
+	
+	
+	/**
+	 * Accessor for the calling thread's generator.  The first call on each thread splits a new
+	 * stream from the root generator so threads never contend on a shared generator.
+	 * 
+	 * @return Random number generator owned by the calling thread.
+	 */
+	public static GARandom current(){
+		return threadGenerators.get();
+	}
+	
+	
+	/**
+	 * Splits a new generator from the root generator.
+	 * 
+	 * @return New random number generator.
+	 */
+	private static synchronized GARandom splitRootGenerator(){
+		if(rootGenerator == null)
+			rootGenerator = create(System.nanoTime());
+		return rootGenerator.split();
+	}
+	
+	
+	/**
+	 * Accessor for the internal state of the generator so a run can be checkpointed.
+	 * 
+	 * @return Copy of the state or null if the algorithm does not expose its state.
+	 */
+	public long[] getState(){
+		return null;
+	}
+	
+	
+	/**
+	 * Restores a state returned by getState.  The generator then produces the same stream
+	 * as the generator the state was taken from.
+	 * 
+	 * @param state State returned by getState.
+	 */
+	public void setState(long[] state){
+		throw new UnsupportedOperationException("The " + algorithm + " algorithm does not support restoring its state.");
+	}
+	
+	
+	/**
+	 * Generates the next 64 random bits.
+	 * 
+	 * @return Uniformly distributed long.
+	 */
+	public abstract long nextLong();
+	
+	
+	/**
+	 * Creates a new generator whose stream is statistically independent of this generator.
+	 * This generator's state is advanced.
+	 * 
+	 * @return New random number generator.
+	 */
+	public abstract GARandom split();
+	
+	
+	/**
+	 * Generates the next 32 random bits.
+	 * 
+	 * @return Uniformly distributed integer.
+	 */
+	public int nextInt(){
+		return (int)(nextLong() >>> 32);
+	}
+	
+	
+	/**
+	 * Generates a uniformly distributed integer in the range [0, bound).
+	 * 
+	 * @param bound Exclusive upper bound.  Must be positive.
+	 * @return Random integer.
+	 */
+	public int nextInt(int bound){
+		
+		if(bound <= 0)
+			throw new IllegalArgumentException("The bound must be positive.");
+		
+		//---- Multiply-shift with rejection of the biased low region.
+		long product = (nextLong() >>> 32) * bound;
+		int low = (int)product;
+		if(Integer.compareUnsigned(low, bound) < 0){
+			int threshold = Integer.remainderUnsigned(-bound, bound);
+			while(Integer.compareUnsigned(low, threshold) < 0){
+				product = (nextLong() >>> 32) * bound;
+				low = (int)product;
+			}
+		}
+		return (int)(product >>> 32);
+	}
+	
+	
+	/**
+	 * Generates a uniformly distributed double in the range [0, 1).
+	 * 
+	 * @return Random double.
+	 */
+	public double nextDouble(){
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+}
@@ -0,0 +1,282 @@
+package cs123A;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends the result of each program execution to a results file.  The file is opened once and
+ * stays open for the whole program so the rows are batched in a buffer and flushed every
+ * FLUSH_INTERVAL rows and when the writer is closed.  Supported formats:
+ * 
+ * CSV    - One row per execution.  A header row is written when the file is empty.  The layout
+ *          matches the results files written by earlier versions so existing files can be appended to.
+ * BINARY - Fixed size big endian records after a header (see BinaryResultsWriter).
+ * 
+ * If a write fails, a warning is printed and the remaining results are dropped.
+ */
+public abstract class GAResultsWriter {
+	
+	/**
+	 * Supported results file formats.
+	 */
+	public enum Format { CSV, BINARY }
+	
+	private static final int FLUSH_INTERVAL = 100;			//---- Rows buffered before the file is flushed.
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final String fileName;
+	private int numberBufferedRows;
+	private boolean failed;
+	
+	
+	/**
+	 * Creates a writer for a results file.
+	 * 
+	 * @param fileName Name of the results file.
+	 */
+	GAResultsWriter(String fileName){
+		this.fileName = fileName;
+	}
+	
+	
+	/**
+	 * Opens a results file for appending.
+	 * 
+	 * @param format Format of the results file.
+	 * @param fileName Name of the results file.
+	 * @return Writer that appends to the file.
+	 * @throws IOException If the file cannot be opened or is not a results file of the format.
+	 */
+	public static GAResultsWriter create(Format format, String fileName) throws IOException{
+		if(format == Format.BINARY)
+			return new BinaryResultsWriter(fileName);
+		return new CsvResultsWriter(fileName);
+	}
+	
+	
+	/**
+	 * Appends the result of a single execution.
+	 * 
+	 * @param malignancyBiasFactor Bias factor used to score the chromosomes.
+	 * @param balanceMalignantPatients True if the malignant patients were balanced between the data sets.
+	 * @param percentCorrect Percent of the verification set classified correctly.
+	 * @param malignantPercentCorrect Percent of the malignant verification patients classified correctly.
+	 * @param bestSolution Best chromosome of the execution.
+	 */
+	public synchronized void write(int malignancyBiasFactor, boolean balanceMalignantPatients, double percentCorrect,
+								   double malignantPercentCorrect, GAChromosome bestSolution){
+		if(failed) return;
+		try{
+			writeRow(malignancyBiasFactor, balanceMalignantPatients, percentCorrect, malignantPercentCorrect, bestSolution);
+			if(++numberBufferedRows >= FLUSH_INTERVAL)
+				flush();
+		}
+		catch(IOException e){
+			handleFailure();
+		}
+	}
+	
+	
+	/**
+	 * Flushes the buffered rows to the file.
+	 */
+	public synchronized void flush(){
+		if(failed) return;
+		try{
+			flushRows();
+			numberBufferedRows = 0;
+		}
+		catch(IOException e){
+			handleFailure();
+		}
+	}
+	
+	
+	/**
+	 * Flushes the buffered rows and closes the file.
+	 */
+	public synchronized void close(){
+		flush();
+		try{
+			closeFile();
+		}
+		catch(IOException e){
+			System.out.println("Warning: Unable to close the results file \"" + fileName + "\".");
+		}
+		failed = true;
+	}
+	
+	
+	/**
+	 * Prints a warning and stops writing after a failed write.
+	 */
+	private void handleFailure(){
+		System.out.println("Error writing to file: \"" + fileName + "\".  No more results will be written.");
+		failed = true;
+		try{
+			closeFile();
+		}
+		catch(IOException e){}
+	}
+	
+	
+	/**
+	 * Buffers a single row.
+	 * 
+	 * @param malignancyBiasFactor Bias factor used to score the chromosomes.
+	 * @param balanceMalignantPatients True if the malignant patients were balanced between the data sets.
+	 * @param percentCorrect Percent of the verification set classified correctly.
+	 * @param malignantPercentCorrect Percent of the malignant verification patients classified correctly.
+	 * @param bestSolution Best chromosome of the execution.
+	 * @throws IOException If the buffer cannot be written to the file.
+	 */
+	abstract void writeRow(int malignancyBiasFactor, boolean balanceMalignantPatients, double percentCorrect,
+						   double malignantPercentCorrect, GAChromosome bestSolution) throws IOException;
+	
+	
+	/**
+	 * Writes the buffered rows to the file.
+	 * 
+	 * @throws IOException If the rows cannot be written.
+	 */
+	abstract void flushRows() throws IOException;
+	
+	
+	/**
+	 * Closes the file without flushing it.
+	 * 
+	 * @throws IOException If the file cannot be closed.
+	 */
+	abstract void closeFile() throws IOException;
+	
+	
+	/**
+	 * Writes the results as CSV rows.  As in the original results files, each row is preceded by
+	 * a line break and the file does not end with one.
+	 */
+	private static class CsvResultsWriter extends GAResultsWriter {
+		
+		private final BufferedWriter writer;
+		private final StringBuilder row = new StringBuilder(160);
+		
+		CsvResultsWriter(String fileName) throws IOException{
+			super(fileName);
+			FileOutputStream outputStream = new FileOutputStream(fileName, true);	//--- True is for append.
+			boolean createFile = outputStream.getChannel().size() == 0;
+			writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+			
+			//---- If needed add a header.
+			if(createFile){
+				writer.write("Chromosomes Per Generation,Malignancy Penalty,Training Data Set Size,Balance Malignant Patients,"
+							 + "Total Percent Correct,Malignant Percent Correct,"
+							 + "Mitoses,Clump Thickness,Cell Size Uniformity, Cell Shape Uniformity,Marginal Adhesion,Single Epithelilal Cell Size,"
+							 + "Bare Nucleoli,Bland Chromatin, Normal Nucleoli,Offset");
+			}
+		}
+		
+		@Override
+		void writeRow(int malignancyBiasFactor, boolean balanceMalignantPatients, double percentCorrect,
+					  double malignantPercentCorrect, GAChromosome bestSolution) throws IOException{
+			row.setLength(0);
+			row.append(GAChromosomePopulation.getMaximumPopulationSize()).append(',').append(malignancyBiasFactor)
+			   .append(',').append(BreastCancerDataSet.getTrainingDataSetSize()).append(',').append(balanceMalignantPatients)
+			   .append(',').append(percentCorrect).append(',').append(malignantPercentCorrect);
+			for(int gain : bestSolution.getGainVector())
+				row.append(',').append(gain);
+			row.append(',').append(bestSolution.getOffset());
+			
+			writer.newLine();
+			writer.append(row);
+		}
+		
+		@Override
+		void flushRows() throws IOException{
+			writer.flush();
+		}
+		
+		@Override
+		void closeFile() throws IOException{
+			writer.close();
+		}
+	}
+	
+	
+	/**
+	 * Writes the results as fixed size binary records through a file channel.  The file starts with
+	 * a header of the magic number 0x47415253 ("GARS"), the format version and the number of gains
+	 * per record.  Each record (big endian) holds:
+	 * <pre>
+	 * chromosomes per generation (int), malignancy penalty (int), training data set size (int),
+	 * balance malignant patients (byte), total percent correct (double), malignant percent correct (double),
+	 * gains (int each), offset (int)
+	 * </pre>
+	 */
+	private static class BinaryResultsWriter extends GAResultsWriter {
+		
+		private static final int MAGIC = 0x47415253;
+		private static final int VERSION = 1;
+		private static final int HEADER_SIZE = 3 * Integer.BYTES;
+		private static final int NUMBER_GAINS = GAChromosome.GENOME_WORD_COUNT - 1;
+		
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		
+		BinaryResultsWriter(String fileName) throws IOException{
+			super(fileName);
+			channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try{
+				if(channel.size() == 0){
+					buffer.putInt(MAGIC).putInt(VERSION).putInt(NUMBER_GAINS);
+				}
+				else{
+					//---- Only append to a results file with the same record layout.
+					ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+					while(header.hasRemaining())
+						if(channel.read(header, header.position()) < 0) throw new IOException("The results file header is truncated.");
+					header.flip();
+					if(header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != NUMBER_GAINS)
+						throw new IOException("The file is not a binary results file.");
+				}
+				channel.position(channel.size());
+			}
+			catch(IOException e){
+				channel.close();
+				throw e;
+			}
+		}
+		
+		@Override
+		void writeRow(int malignancyBiasFactor, boolean balanceMalignantPatients, double percentCorrect,
+					  double malignantPercentCorrect, GAChromosome bestSolution) throws IOException{
+			if(buffer.remaining() < 3 * Integer.BYTES + 1 + 2 * Double.BYTES + (NUMBER_GAINS + 1) * Integer.BYTES)
+				flushRows();
+			buffer.putInt(GAChromosomePopulation.getMaximumPopulationSize()).putInt(malignancyBiasFactor)
+				  .putInt(BreastCancerDataSet.getTrainingDataSetSize()).put((byte)(balanceMalignantPatients ? 1 : 0))
+				  .putDouble(percentCorrect).putDouble(malignantPercentCorrect);
+			for(int gain : bestSolution.getGainVector())
+				buffer.putInt(gain);
+			buffer.putInt(bestSolution.getOffset());
+		}
+		
+		@Override
+		void flushRows() throws IOException{
+			buffer.flip();
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+		
+		@Override
+		void closeFile() throws IOException{
+			channel.close();
+		}
+	}
+	
+}
@@ -0,0 +1,118 @@
+package cs123A;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Schedules independent units of genetic algorithm work (complete program runs and the
+ * random restarts within a run) onto a shared fork-join pool.  Tasks may submit nested
+ * tasks (e.g. a run submitting its restarts) since a fork-join worker that waits on a
+ * nested task helps execute the pending tasks rather than blocking.
+ * 
+ * With a single thread, all tasks are run serially on the calling thread.
+ */
+public class GARunScheduler {
+	
+	private static int numberThreads = 1;
+	private static ForkJoinPool taskPool;
+	
+	
+	/**
+	 * Accessor for the number of threads used to run independent tasks.
+	 * 
+	 * @return Number of threads.  1 indicates serial execution.
+	 */
+	public static int getNumberThreads(){
+		return numberThreads;
+	}
+	
+	
+	/**
+	 * Mutator for the number of threads used to run independent tasks.
+	 * 
+	 * @param newNumberThreads Number of threads.
+	 */
+	public static synchronized void setNumberThreads(int newNumberThreads){
+		numberThreads = newNumberThreads;
+		
+		//---- Discard any existing pool so it will be rebuilt with the new size.
+		if(taskPool != null){
+			taskPool.shutdown();
+			taskPool = null;
+		}
+	}
+	
+	
+	/**
+	 * Accessor for the task pool.  The pool is created on first use.
+	 * 
+	 * @return Fork-join pool used to run the tasks.
+	 */
+	private static synchronized ForkJoinPool getTaskPool(){
+		if(taskPool == null)
+			taskPool = new ForkJoinPool(numberThreads);
+		return taskPool;
+	}
+	
+	
+	/**
+	 * Starts a set of tasks.  Results are retrieved via GARunScheduler.getResult in any order.
+	 * If the scheduler is serial, the tasks are run to completion before this method returns.
+	 * 
+	 * @param tasks Tasks to be run.
+	 * @return Handles to the started tasks in the same order as the tasks.
+	 */
+	public static <T> List<ForkJoinTask<T>> submitAll(List<? extends Callable<T>> tasks){
+		
+		List<ForkJoinTask<T>> startedTasks = new ArrayList<ForkJoinTask<T>>();
+		ForkJoinPool pool = (numberThreads > 1) ? getTaskPool() : null;
+		ForkJoinTask<T> task;
+		
+		for(Callable<T> callable : tasks){
+			task = ForkJoinTask.adapt(callable);
+			
+			//---- Serial execution runs the task immediately.
+			if(pool == null)
+				task.invoke();
+			//---- Tasks started from inside the pool are forked so that waiting workers can help run them.
+			else if(ForkJoinTask.getPool() == pool)
+				task.fork();
+			else
+				pool.execute(task);
+			
+			startedTasks.add(task);
+		}
+		
+		return startedTasks;
+	}
+	
+	
+	/**
+	 * Waits for a task to complete and returns its result.
+	 * 
+	 * @param task Task started via submitAll.
+	 * @return Result of the task.
+	 */
+	public static <T> T getResult(ForkJoinTask<T> task){
+		return task.join();
+	}
+	
+	
+	/**
+	 * Runs a set of tasks and waits for them all to complete.
+	 * 
+	 * @param tasks Tasks to be run.
+	 * @return Results of the tasks in the same order as the tasks.
+	 */
+	public static <T> List<T> runAll(List<? extends Callable<T>> tasks){
+		
+		List<T> results = new ArrayList<T>();
+		for(ForkJoinTask<T> task : submitAll(tasks))
+			results.add(getResult(task));
+		return results;
+	}
+	
+}
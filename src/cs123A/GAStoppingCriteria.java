@@ -0,0 +1,258 @@
+package cs123A;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Decides when a random restart (or the islands of the island model) stops evolving.  A run stops
+ * when the first of the following criteria is met:
+ * 
+ * - The generation limit is reached.
+ * - The best chromosome's score and separation have not improved for a number of generations.
+ * - The best chromosome reaches a target accuracy on the training set.
+ * - The time budget of the run is exhausted.
+ * 
+ * Only the generation limit is enabled by default.  Why a run stopped is only worth reporting
+ * once another criterion is enabled or the generation limit is changed (see shouldReportStop).
+ */
+public class GAStoppingCriteria {
+	
+	/**
+	 * Criteria that can stop a run.
+	 */
+	public enum StopReason {
+		GENERATION_LIMIT("the generation limit was reached"),
+		PLATEAU("the best solution stopped improving"),
+		TARGET_ACCURACY("the target accuracy was reached"),
+		TIME_BUDGET("the time budget was exhausted");
+		
+		private final String description;
+		
+		StopReason(String description){
+			this.description = description;
+		}
+		
+		/**
+		 * Accessor for a readable description of the criterion.
+		 * 
+		 * @return Description of why the run stopped.
+		 */
+		public String getDescription(){
+			return description;
+		}
+	}
+	
+	private static final int DEFAULT_MAXIMUM_NUMBER_GENERATIONS = 1000;
+	private static int maximumNumberGenerations = DEFAULT_MAXIMUM_NUMBER_GENERATIONS;
+	private static int plateauLength = 0;						//---- 0 disables the plateau criterion.
+	private static double targetAccuracy = 0;					//---- Percent.  0 disables the target accuracy criterion.
+	private static long timeBudget = 0;							//---- Milliseconds.  0 disables the time budget criterion.
+	
+	private final BreastCancerDataSet trainingDataSet;
+	private final long deadline;								//---- System.nanoTime() when the time budget is exhausted.
+	private boolean hasBestChromosome;
+	private int bestScore;
+	private double bestSeparation;
+	private int lastImprovementGeneration;
+	private int numberGenerations;
+	private StopReason stopReason;
+	
+	
+	/**
+	 * Creates the stopping criteria for a single restart or island model.
+	 * 
+	 * @param trainingDataSet Data set used to measure the accuracy of the best chromosome.
+	 * @param runStartTime System.nanoTime() when the run started.  The time budget is shared by the whole run.
+	 */
+	public GAStoppingCriteria(BreastCancerDataSet trainingDataSet, long runStartTime){
+		this.trainingDataSet = trainingDataSet;
+		if(timeBudget > 0)
+			deadline = runStartTime + timeBudget * 1000000L;
+		else
+			deadline = Long.MAX_VALUE;
+	}
+	
+	
+	/**
+	 * Accessor for the maximum number of generations.
+	 * 
+	 * @return Maximum number of generations of a run.
+	 */
+	public static int getMaximumNumberGenerations(){
+		return maximumNumberGenerations;
+	}
+	
+	
+	/**
+	 * Mutator for the maximum number of generations.
+	 * 
+	 * @param newMaximumNumberGenerations Maximum number of generations of a run.
+	 */
+	public static void setMaximumNumberGenerations(int newMaximumNumberGenerations){
+		maximumNumberGenerations = newMaximumNumberGenerations;
+	}
+	
+	
+	/**
+	 * Mutator for the plateau length.
+	 * 
+	 * @param newPlateauLength Number of generations without improvement before a run stops.  0 disables the criterion.
+	 */
+	public static void setPlateauLength(int newPlateauLength){
+		plateauLength = newPlateauLength;
+	}
+	
+	
+	/**
+	 * Mutator for the target accuracy.
+	 * 
+	 * @param newTargetAccuracy Percent correct on the training set at which a run stops.  0 disables the criterion.
+	 */
+	public static void setTargetAccuracy(double newTargetAccuracy){
+		targetAccuracy = newTargetAccuracy;
+	}
+	
+	
+	/**
+	 * Mutator for the time budget.
+	 * 
+	 * @param newTimeBudget Time in milliseconds after which a run stops.  0 disables the criterion.
+	 */
+	public static void setTimeBudget(long newTimeBudget){
+		timeBudget = newTimeBudget;
+	}
+	
+	
+	/**
+	 * Checks whether the run should stop.  It is called with the initial population and
+	 * after each generation (or island epoch).
+	 * 
+	 * @param bestChromosome Best chromosome of the current population.
+	 * @param generationsCompleted Number of generations completed so far.
+	 * @return True if the run should stop.
+	 */
+	public boolean shouldStop(GAChromosome bestChromosome, int generationsCompleted){
+		
+		numberGenerations = generationsCompleted;
+		
+		//---- Track the last generation where the best score or separation improved.
+		boolean improved = !hasBestChromosome || bestChromosome.getScore() > bestScore
+						   || (bestChromosome.getScore() == bestScore && bestChromosome.getTotalSeparation() > bestSeparation);
+		if(improved){
+			hasBestChromosome = true;
+			bestScore = bestChromosome.getScore();
+			bestSeparation = bestChromosome.getTotalSeparation();
+			lastImprovementGeneration = generationsCompleted;
+			
+			//---- The accuracy can only change when the best chromosome improves.
+			if(targetAccuracy > 0 && trainingDataSet.getChromosomeScoreForPopulation(bestChromosome) * 100.0
+									 / trainingDataSet.getDataSetSize() >= targetAccuracy)
+				stopReason = StopReason.TARGET_ACCURACY;
+		}
+		
+		if(stopReason == null && plateauLength > 0 && generationsCompleted - lastImprovementGeneration >= plateauLength)
+			stopReason = StopReason.PLATEAU;
+		if(stopReason == null && System.nanoTime() - deadline >= 0)
+			stopReason = StopReason.TIME_BUDGET;
+		if(stopReason == null && generationsCompleted >= maximumNumberGenerations)
+			stopReason = StopReason.GENERATION_LIMIT;
+		
+		return stopReason != null;
+	}
+	
+	
+	/**
+	 * Writes the stopping criteria settings that affect the results of a run.  The time
+	 * budget is not included since it depends on the speed of the machine.
+	 *
+	 * @param out Destination of the settings.
+	 * @throws IOException If the settings cannot be written.
+	 */
+	static void writeSettings(DataOutput out) throws IOException{
+		out.writeInt(maximumNumberGenerations);
+		out.writeInt(plateauLength);
+		out.writeDouble(targetAccuracy);
+	}
+	
+	
+	/**
+	 * Writes the progress of the run to a checkpoint.  The time already spent is not saved
+	 * so a resumed run gets a new time budget.
+	 *
+	 * @param out Destination of the state.
+	 * @throws IOException If the state cannot be written.
+	 */
+	void writeState(DataOutput out) throws IOException{
+		out.writeBoolean(hasBestChromosome);
+		out.writeInt(bestScore);
+		out.writeDouble(bestSeparation);
+		out.writeInt(lastImprovementGeneration);
+		out.writeInt(numberGenerations);
+		out.writeInt((stopReason == null) ? -1 : stopReason.ordinal());
+	}
+	
+	
+	/**
+	 * Restores the progress of a run written by writeState.
+	 *
+	 * @param in Source of the state.
+	 * @throws IOException If the state cannot be read.
+	 */
+	void readState(DataInput in) throws IOException{
+		hasBestChromosome = in.readBoolean();
+		bestScore = in.readInt();
+		bestSeparation = in.readDouble();
+		lastImprovementGeneration = in.readInt();
+		numberGenerations = in.readInt();
+		int stopReasonIndex = in.readInt();
+		if(stopReasonIndex < -1 || stopReasonIndex >= StopReason.values().length)
+			throw new IOException("Invalid stop reason: " + stopReasonIndex);
+		stopReason = (stopReasonIndex < 0) ? null : StopReason.values()[stopReasonIndex];
+	}
+	
+	
+	/**
+	 * Accessor for the criterion that stopped the run.
+	 * 
+	 * @return Criterion that stopped the run or null if it has not stopped.
+	 */
+	public StopReason getStopReason(){
+		return stopReason;
+	}
+	
+	
+	/**
+	 * Accessor for the number of generations completed when the run was last checked.
+	 * 
+	 * @return Number of generations completed.
+	 */
+	public int getNumberGenerations(){
+		return numberGenerations;
+	}
+	
+	
+	/**
+	 * Checks whether the stop of the run is worth reporting.  With the default criteria every run
+	 * stops at the same generation limit so there is nothing to report.
+	 * 
+	 * @return True if a criterion other than the default generation limit is enabled or the run
+	 * stopped before reaching the generation limit.
+	 */
+	public boolean shouldReportStop(){
+		return (stopReason != null && stopReason != StopReason.GENERATION_LIMIT)
+			   || maximumNumberGenerations != DEFAULT_MAXIMUM_NUMBER_GENERATIONS
+			   || plateauLength > 0 || targetAccuracy > 0 || timeBudget > 0;
+	}
+	
+	
+	/**
+	 * Builds a description of when and why the run stopped.
+	 * 
+	 * @return Description of the stopped run.
+	 */
+	public String getStopDescription(){
+		return "stopped after " + numberGenerations + " generations because " + stopReason.getDescription() + ".";
+	}
+	
+}
@@ -0,0 +1,137 @@
+package cs123A;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Verifies a trained model against a data set file without loading the data set.  The file is read
+ * through one fixed size buffer and its patients are classified in fixed size batches as they are
+ * parsed so the memory used does not depend on the size of the file.  One pass produces the
+ * complete confusion matrix, from which the accuracy, malignant accuracy and score follow.
+ */
+public class GAStreamingVerifier {
+	
+	private static final int CHUNK_SIZE = 1 << 20;				//---- Bytes read from the file at a time.
+	private static final int BATCH_SIZE = 4096;					//---- Patients classified at a time.
+	private static final int NUMBER_OF_FEATURES = Patient.numberDataElementsPerPatient();
+	
+	private final GAClassifierModel model;
+	private final GAConfusionMatrix confusionMatrix = new GAConfusionMatrix();
+	private final int[] batchFeatures = new int[BATCH_SIZE * NUMBER_OF_FEATURES];
+	private final boolean[] batchMalignant = new boolean[BATCH_SIZE];
+	private final long[] batchLinearFunctions = new long[BATCH_SIZE];
+	private int batchSize;
+	private String filename;					//---- Last file verified.
+	private PatientRecordParser parser;
+	
+	
+	/**
+	 * Creates a verifier for a model.
+	 * 
+	 * @param model Model to be verified.
+	 */
+	public GAStreamingVerifier(GAClassifierModel model){
+		this.model = model;
+	}
+	
+	
+	/**
+	 * Classifies every patient in a data set file and adds it to the confusion matrix.  Lines that
+	 * are incomplete or malformed are skipped as they are when a data set is loaded.
+	 * 
+	 * @param filename Name of the data set file.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public void verify(String filename) throws IOException{
+		
+		this.filename = filename;
+		parser = new PatientRecordParser(new PatientRecordParser.PatientHandler(){
+			public void handlePatient(long idNumber, int[] features, boolean isMalignant){
+				addPatient(features, isMalignant);
+			}
+		});
+		
+		ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+		FileInputStream inputStream = new FileInputStream(filename);
+		try{
+			FileChannel channel = inputStream.getChannel();
+			while(channel.read(chunk) >= 0){
+				chunk.flip();
+				parser.parse(chunk);
+				chunk.clear();
+			}
+			parser.finish();
+		}
+		finally{
+			inputStream.close();
+		}
+		classifyBatch();
+	}
+	
+	
+	/**
+	 * Adds a parsed patient to the current batch and classifies the batch once it is full.
+	 * 
+	 * @param features Features of the patient in gain vector order.
+	 * @param isMalignant True if the patient's tumor is malignant.
+	 */
+	private void addPatient(int[] features, boolean isMalignant){
+		System.arraycopy(features, 0, batchFeatures, batchSize * NUMBER_OF_FEATURES, NUMBER_OF_FEATURES);
+		batchMalignant[batchSize++] = isMalignant;
+		if(batchSize == BATCH_SIZE) classifyBatch();
+	}
+	
+	
+	/**
+	 * Classifies the patients in the current batch and adds them to the confusion matrix.
+	 */
+	private void classifyBatch(){
+		model.classify(batchFeatures, batchSize, batchLinearFunctions);
+		for(int i = 0; i < batchSize; i++)
+			confusionMatrix.addPatient(batchLinearFunctions[i], batchMalignant[i]);
+		batchSize = 0;
+	}
+	
+	
+	/**
+	 * Accessor for the confusion matrix of the patients verified so far.
+	 * 
+	 * @return Confusion matrix of the model.
+	 */
+	public GAConfusionMatrix getConfusionMatrix(){
+		return confusionMatrix;
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines skipped because of a missing feature in the last file verified.
+	 * 
+	 * @return Number of incomplete lines.
+	 */
+	public int getNumberIncompleteLines(){
+		return (parser == null) ? 0 : parser.getNumberIncompleteLines();
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines that could not be parsed in the last file verified.
+	 * 
+	 * @return Number of malformed lines.
+	 */
+	public int getNumberMalformedLines(){
+		return (parser == null) ? 0 : parser.getNumberMalformedLines();
+	}
+	
+	
+	/**
+	 * Builds a description of the malformed lines found in the last file verified.
+	 * 
+	 * @return Summary of the malformed lines including the first few line numbers.
+	 */
+	public String getMalformedLineSummary(){
+		return parser.getMalformedLineSummary(filename);
+	}
+	
+}
@@ -0,0 +1,239 @@
+package cs123A;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Worker process for distributed fitness evaluation.  A worker holds copies of the data sets
+ * sent to it by a coordinator (see GADistributedScorer) and returns the score and separation
+ * of each genome in the batches it receives.
+ * 
+ * The protocol has no authentication so a worker only listens on the loopback interface unless
+ * another address is specified.  Data sets larger than MAXIMUM_DATA_SET_SIZE patients are rejected,
+ * as is a data set that would give a connection more than MAXIMUM_DATA_SETS_PER_CONNECTION data sets
+ * or MAXIMUM_PATIENTS_PER_CONNECTION patients in total, so a garbled request or a single client
+ * cannot exhaust the worker's memory.
+ * 
+ * All messages start with a one byte message type.  Integers are big endian.
+ * <pre>
+ * HELLO:    magic (int)                                  reply: magic (int)
+ * LOAD:     data set id, number patients (ints), then for each
+ *           patient the features in gain vector order and 1 if malignant
+ *           or 0 if benign (ints)                        reply: status (byte)
+ * SCORE:    data set id, malignancy bias factor, number genomes (ints),
+ *           then the genome words of each genome (ints)  reply: status (byte), then
+ *                                                        score (int) and separation (double) per genome
+ * UNLOAD:   data set id (int)                            no reply
+ * CLOSE:    no body                                      no reply
+ * </pre>
+ */
+public class GAWorkerServer {
+	
+	static final int PROTOCOL_MAGIC = 0x47415753;				//---- "GAWS"
+	static final byte MESSAGE_HELLO = 1;
+	static final byte MESSAGE_LOAD_DATA_SET = 2;
+	static final byte MESSAGE_SCORE = 3;
+	static final byte MESSAGE_CLOSE = 4;
+	static final byte MESSAGE_UNLOAD_DATA_SET = 5;
+	static final byte STATUS_OK = 0;
+	static final byte STATUS_UNKNOWN_DATA_SET = 1;
+	static final byte STATUS_INVALID_REQUEST = 2;
+	static final int MAXIMUM_DATA_SET_SIZE = 1 << 22;			//---- Patients.
+	static final int MAXIMUM_DATA_SETS_PER_CONNECTION = 64;
+	static final int MAXIMUM_PATIENTS_PER_CONNECTION = 1 << 22;
+	private static final int MAXIMUM_BATCH_SIZE = 1 << 20;
+	
+	
+	/**
+	 * Listens for coordinator connections and serves each one on its own thread.  This method
+	 * does not return unless the server socket fails.
+	 * 
+	 * @param bindAddress Address the worker listens on.  Null listens on the loopback interface only.
+	 * @param port Port the worker listens on.
+	 * @throws IOException If the server socket cannot be opened.
+	 */
+	public static void serve(InetAddress bindAddress, int port) throws IOException{
+		
+		if(bindAddress == null) bindAddress = InetAddress.getLoopbackAddress();
+		ServerSocket serverSocket = new ServerSocket(port, 0, bindAddress);
+		System.out.println("Worker listening on " + serverSocket.getInetAddress().getHostAddress() + " port " + serverSocket.getLocalPort() + ".");
+		
+		try{
+			while(true){
+				final Socket socket = serverSocket.accept();
+				Thread connectionThread = new Thread(new Runnable(){
+					public void run(){
+						serveConnection(socket);
+					}
+				}, "GAWorker-" + socket.getRemoteSocketAddress());
+				connectionThread.start();
+			}
+		}
+		finally{
+			serverSocket.close();
+		}
+	}
+	
+	
+	/**
+	 * Serves the requests of a single coordinator connection until it is closed.
+	 * 
+	 * @param socket Connection to the coordinator.
+	 */
+	private static void serveConnection(Socket socket){
+		
+		//---- Data sets are identified by the coordinator so they are per connection.
+		Map<Integer, PatientFeatureColumns> dataSets = new HashMap<Integer, PatientFeatureColumns>();
+		byte messageType;
+		
+		try{
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			
+			while(true){
+				messageType = in.readByte();
+				switch(messageType){
+					case MESSAGE_HELLO:
+						if(in.readInt() != PROTOCOL_MAGIC) return;
+						out.writeInt(PROTOCOL_MAGIC);
+						break;
+					
+					case MESSAGE_LOAD_DATA_SET:
+						readDataSet(in, out, dataSets);
+						break;
+					
+					case MESSAGE_SCORE:
+						scoreBatch(in, out, dataSets);
+						break;
+					
+					case MESSAGE_UNLOAD_DATA_SET:
+						dataSets.remove(in.readInt());
+						break;
+					
+					case MESSAGE_CLOSE:
+						return;
+					
+					default:
+						System.out.println("Error: Invalid message type " + messageType + " from "
+										   + socket.getRemoteSocketAddress() + ". Closing the connection...");
+						return;
+				}
+				out.flush();
+			}
+		}
+		catch(EOFException e){
+			//---- The coordinator closed the connection.
+		}
+		catch(IOException e){
+			System.out.println("Error: Connection to " + socket.getRemoteSocketAddress() + " failed. Closing the connection...");
+		}
+		finally{
+			try{
+				socket.close();
+			}
+			catch(IOException e){}
+		}
+	}
+	
+	
+	/**
+	 * Reads a data set sent by the coordinator and stores it under its identifier.  The patients
+	 * are read straight into the scoring columns.  A data set sent again under the same identifier
+	 * replaces the previous one so the previous one does not count towards the connection's limits.
+	 * 
+	 * @param in Input stream of the connection.
+	 * @param out Output stream of the connection.
+	 * @param dataSets Data sets of the connection by identifier.
+	 * @throws IOException If the connection fails or the data set exceeds the limits.
+	 */
+	private static void readDataSet(DataInputStream in, DataOutputStream out, Map<Integer, PatientFeatureColumns> dataSets) throws IOException{
+		
+		int dataSetId = in.readInt();
+		int numberOfPatients = in.readInt();
+		long connectionPatients = numberOfPatients;
+		
+		for(Map.Entry<Integer, PatientFeatureColumns> loadedDataSet : dataSets.entrySet())
+			if(loadedDataSet.getKey() != dataSetId) connectionPatients += loadedDataSet.getValue().getNumberOfPatients();
+		
+		//---- The rest of the request cannot be skipped so the connection is closed.
+		if(numberOfPatients < 0 || numberOfPatients > MAXIMUM_DATA_SET_SIZE){
+			out.writeByte(STATUS_INVALID_REQUEST);
+			out.flush();
+			throw new IOException("Invalid number of patients: " + numberOfPatients);
+		}
+		if(!dataSets.containsKey(dataSetId) && dataSets.size() >= MAXIMUM_DATA_SETS_PER_CONNECTION){
+			out.writeByte(STATUS_INVALID_REQUEST);
+			out.flush();
+			throw new IOException("Too many data sets loaded: " + dataSets.size());
+		}
+		if(connectionPatients > MAXIMUM_PATIENTS_PER_CONNECTION){
+			out.writeByte(STATUS_INVALID_REQUEST);
+			out.flush();
+			throw new IOException("Too many patients loaded: " + connectionPatients);
+		}
+		
+		int[][] featureColumns = new int[Patient.numberDataElementsPerPatient()][numberOfPatients];
+		boolean[] malignant = new boolean[numberOfPatients];
+		for(int i = 0; i < numberOfPatients; i++){
+			for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+				featureColumns[featureIndex][i] = in.readInt();
+			malignant[i] = (in.readInt() != 0);
+		}
+		
+		dataSets.put(dataSetId, new PatientFeatureColumns(featureColumns, malignant));
+		out.writeByte(STATUS_OK);
+	}
+	
+	
+	/**
+	 * Scores a batch of genomes sent by the coordinator.
+	 * 
+	 * @param in Input stream of the connection.
+	 * @param out Output stream of the connection.
+	 * @param dataSets Data sets of the connection by identifier.
+	 * @throws IOException If the connection fails.
+	 */
+	private static void scoreBatch(DataInputStream in, DataOutputStream out, Map<Integer, PatientFeatureColumns> dataSets) throws IOException{
+		
+		int dataSetId = in.readInt();
+		int malignancyBiasFactor = in.readInt();
+		int numberGenomes = in.readInt();
+		double[] scoreAndSeparation;
+		
+		if(numberGenomes < 0 || numberGenomes > MAXIMUM_BATCH_SIZE){
+			out.writeByte(STATUS_INVALID_REQUEST);
+			out.flush();
+			throw new IOException("Invalid batch size: " + numberGenomes);
+		}
+		
+		//---- Read the whole batch even if it cannot be scored so the stream stays in sync.  The genomes
+		//---- are packed into one flat array in the same layout as GAChromosomeStore.
+		int[] genomes = new int[numberGenomes * GAChromosome.GENOME_WORD_COUNT];
+		for(int i = 0; i < genomes.length; i++)
+			genomes[i] = in.readInt();
+		
+		PatientFeatureColumns patientColumns = dataSets.get(dataSetId);
+		if(patientColumns == null){
+			out.writeByte(STATUS_UNKNOWN_DATA_SET);
+			return;
+		}
+		
+		out.writeByte(STATUS_OK);
+		for(int i = 0; i < numberGenomes; i++){
+			scoreAndSeparation = patientColumns.getScoreAndSeparation(genomes, i * GAChromosome.GENOME_WORD_COUNT, malignancyBiasFactor);
+			out.writeInt((int)Math.round(scoreAndSeparation[0]));
+			out.writeDouble(scoreAndSeparation[1]);
+		}
+	}
+	
+}
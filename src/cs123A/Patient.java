@@ -8,7 +8,6 @@ public class Patient {
 	@SuppressWarnings("unused")
 	private final static int MALIGNANT_INDICATOR = 4;
 	
-	@SuppressWarnings("unused")
 	private final long idNumber;
 	private final int clumpThickness;
 	private final int cellSizeUniformity;
@@ -95,6 +94,35 @@ public class Patient {
 	}
 	
 	
+	/**
+	 * Constructor for a patient whose features were already parsed.
+	 * 
+	 * @param idNumber	Sample code number of the patient.
+	 * @param features	Features of the patient in the same order as the gain vector.
+	 * @param malignant	True if the patient's tumor is malignant and false otherwise.
+	 */
+	public Patient(long idNumber, int[] features, boolean malignant){
+		
+		//----- Ensure the number of features matches the expected features for a patient.
+		assert(features.length == numberDataElementsPerPatient());
+		
+		this.idNumber = idNumber;
+		
+		int index = 0; //---- Features are in gain vector order.
+		mitoses = features[index++];
+		clumpThickness = features[index++];
+		cellSizeUniformity = features[index++];
+		cellShapeUniformity = features[index++];
+		marginalAdhesion = features[index++];
+		singleEpithelialCellSize = features[index++];
+		bareNucleoli = features[index++];
+		blandChromatin = features[index++];
+		normalNucleoli = features[index++];
+		
+		this.malignant = malignant;
+	}
+	
+	
 	/**
 	 * Calculates linear weight for the linear function.  It is:
 	 * 
@@ -130,6 +158,40 @@ public class Patient {
 	}
 	
 	
+	/**
+	 * Accessor for a single feature of the patient.  Features are indexed in the same order
+	 * as the gain vector used in calculateLinearFunction.
+	 * 
+	 * @param featureIndex Index of the feature in the gain vector ordering.
+	 * @return Value of the specified feature.
+	 */
+	public int getFeature(int featureIndex){
+		
+		switch(featureIndex){
+			case 0: return mitoses;
+			case 1: return clumpThickness;
+			case 2: return cellSizeUniformity;
+			case 3: return cellShapeUniformity;
+			case 4: return marginalAdhesion;
+			case 5: return singleEpithelialCellSize;
+			case 6: return bareNucleoli;
+			case 7: return blandChromatin;
+			case 8: return normalNucleoli;
+			default: throw new IndexOutOfBoundsException("Invalid patient feature index: " + featureIndex);
+		}
+	}
+	
+	
+	/**
+	 * Accessor for the sample code number of the patient.
+	 * 
+	 * @return Sample code number.
+	 */
+	public long getIdNumber(){
+		return idNumber;
+	}
+	
+	
 	/**
 	 * Accessor for elements 
 	 * 
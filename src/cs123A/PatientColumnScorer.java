@@ -0,0 +1,20 @@
+package cs123A;
+
+/**
+ * Alternative scoring backend for PatientFeatureColumns.  An implementation must return exactly
+ * the same score and separation as PatientFeatureColumns.getScoreAndSeparation, including the
+ * long overflow behavior of the linear function and the patient order of the separation sum.
+ */
+interface PatientColumnScorer {
+
+	/**
+	 * Determines the score and separation of a linear function against all patients.
+	 *
+	 * @param genomes				Genome array holding the chromosome (see GAChromosomeStore).  It is not modified.
+	 * @param genomeBase			Index of the chromosome's first genome word.  The gain vector is followed by the offset.
+	 * @param malignancyBiasFactor	Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @return						Two element array of score then separation.
+	 */
+	double[] getScoreAndSeparation(int[] genomes, int genomeBase, int malignancyBiasFactor);
+
+}
@@ -0,0 +1,215 @@
+package cs123A;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Loader for breast cancer data set files in the Wisconsin format.  The file is memory mapped
+ * and its bytes are parsed (see PatientRecordParser) directly into primitive feature columns
+ * without creating any intermediate strings.
+ * 
+ * Lines with missing ("?") features are skipped the same way the original parser skipped them.
+ * Any other line that cannot be parsed is counted as malformed rather than silently dropped.
+ */
+public class PatientDataFileLoader {
+	
+	private static final long MAXIMUM_MAPPED_REGION_SIZE = 1L << 30;
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	private final String filename;
+	private int numberOfPatients;
+	private long[] idNumbers;
+	private int[][] featureColumns;								//---- One column per feature in gain vector order.
+	private boolean[] malignant;
+	private final PatientRecordParser parser;
+	
+	
+	/**
+	 * Loads all of the patients in the specified data set file.
+	 * 
+	 * @param filename Name of the breast cancer data set file.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 */
+	public PatientDataFileLoader(String filename) throws IOException{
+		
+		this.filename = filename;
+		idNumbers = new long[INITIAL_CAPACITY];
+		featureColumns = new int[Patient.numberDataElementsPerPatient()][INITIAL_CAPACITY];
+		malignant = new boolean[INITIAL_CAPACITY];
+		parser = new PatientRecordParser(new PatientRecordParser.PatientHandler(){
+			public void handlePatient(long idNumber, int[] features, boolean isMalignant){
+				storePatient(idNumber, features, isMalignant);
+			}
+		});
+		
+		RandomAccessFile dataFile = new RandomAccessFile(filename, "r");
+		try{
+			parseFile(dataFile.getChannel());
+		}
+		finally{
+			dataFile.close();
+		}
+		
+		//---- Trim the columns to the number of patients so they can be shared by the scoring columns.
+		idNumbers = Arrays.copyOf(idNumbers, numberOfPatients);
+		malignant = Arrays.copyOf(malignant, numberOfPatients);
+		for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+			featureColumns[featureIndex] = Arrays.copyOf(featureColumns[featureIndex], numberOfPatients);
+	}
+	
+	
+	/**
+	 * Maps the file one region at a time and parses each region.  The parser state is kept across
+	 * regions so a line may straddle two mapped regions.
+	 * 
+	 * @param channel Channel of the data set file.
+	 * @throws IOException If the file cannot be mapped.
+	 */
+	private void parseFile(FileChannel channel) throws IOException{
+		
+		long fileSize = channel.size();
+		long regionStart, regionSize;
+		
+		for(regionStart = 0; regionStart < fileSize; regionStart += regionSize){
+			regionSize = Math.min(MAXIMUM_MAPPED_REGION_SIZE, fileSize - regionStart);
+			parser.parse(channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize));
+		}
+		parser.finish();
+	}
+	
+	
+	/**
+	 * Stores a valid patient in the feature columns.
+	 * 
+	 * @param idNumber			Sample code number of the patient.
+	 * @param features			Features of the patient in gain vector order.
+	 * @param isMalignant		True if the patient's tumor is malignant.
+	 */
+	private void storePatient(long idNumber, int[] features, boolean isMalignant){
+		
+		//---- Grow the columns if they are full.
+		if(numberOfPatients == idNumbers.length){
+			int newCapacity = 2 * idNumbers.length;
+			idNumbers = Arrays.copyOf(idNumbers, newCapacity);
+			malignant = Arrays.copyOf(malignant, newCapacity);
+			for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+				featureColumns[featureIndex] = Arrays.copyOf(featureColumns[featureIndex], newCapacity);
+		}
+		
+		idNumbers[numberOfPatients] = idNumber;
+		malignant[numberOfPatients] = isMalignant;
+		for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+			featureColumns[featureIndex][numberOfPatients] = features[featureIndex];
+		numberOfPatients++;
+	}
+	
+	
+	/**
+	 * Accessor for the number of valid patients in the file.
+	 * 
+	 * @return Number of patients loaded.
+	 */
+	public int getNumberOfPatients(){
+		return numberOfPatients;
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines skipped because of a missing feature.
+	 * 
+	 * @return Number of incomplete lines.
+	 */
+	public int getNumberIncompleteLines(){
+		return parser.getNumberIncompleteLines();
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines that could not be parsed.
+	 * 
+	 * @return Number of malformed lines.
+	 */
+	public int getNumberMalformedLines(){
+		return parser.getNumberMalformedLines();
+	}
+	
+	
+	/**
+	 * Accessor for a single feature of a loaded patient.
+	 * 
+	 * @param patientIndex Index of the patient in file order.
+	 * @param featureIndex Index of the feature in the gain vector ordering.
+	 * @return Value of the specified feature.
+	 */
+	public int getFeature(int patientIndex, int featureIndex){
+		if(patientIndex >= numberOfPatients)
+			throw new IndexOutOfBoundsException("Invalid patient index: " + patientIndex);
+		return featureColumns[featureIndex][patientIndex];
+	}
+	
+	
+	/**
+	 * Accessor to determine whether a loaded patient's tumor is malignant.
+	 * 
+	 * @param patientIndex Index of the patient in file order.
+	 * @return True if malignant and False if benign.
+	 */
+	public boolean isMalignant(int patientIndex){
+		if(patientIndex >= numberOfPatients)
+			throw new IndexOutOfBoundsException("Invalid patient index: " + patientIndex);
+		return malignant[patientIndex];
+	}
+	
+	
+	/**
+	 * Builds a patient object for one of the loaded patients.
+	 * 
+	 * @param patientIndex Index of the patient in file order.
+	 * @return Patient at the specified index.
+	 */
+	public Patient createPatient(int patientIndex){
+		
+		if(patientIndex >= numberOfPatients)
+			throw new IndexOutOfBoundsException("Invalid patient index: " + patientIndex);
+		
+		int[] features = new int[featureColumns.length];
+		for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+			features[featureIndex] = featureColumns[featureIndex][patientIndex];
+		
+		return new Patient(idNumbers[patientIndex], features, malignant[patientIndex]);
+	}
+	
+	
+	/**
+	 * Builds the scoring columns of the loaded patients without creating any patient objects.
+	 * The columns share the loader's feature arrays instead of copying them.
+	 * 
+	 * @return Columnar patient data of the loaded patients in file order.
+	 */
+	public PatientFeatureColumns createFeatureColumns(){
+		return new PatientFeatureColumns(featureColumns, malignant);
+	}
+	
+	
+	/**
+	 * Accessor for the sample code numbers of the loaded patients.
+	 * 
+	 * @return Sample code number of each patient in file order.  The array is shared so it must not be modified.
+	 */
+	long[] getIdNumbers(){
+		return idNumbers;
+	}
+	
+	
+	/**
+	 * Builds a description of the malformed lines found in the file.
+	 * 
+	 * @return Summary of the malformed lines including the first few line numbers.
+	 */
+	public String getMalformedLineSummary(){
+		return parser.getMalformedLineSummary(filename);
+	}
+	
+}
@@ -0,0 +1,660 @@
+package cs123A;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+/**
+ * Columnar (struct of arrays) copy of a set of patients used for fast chromosome scoring.
+ * Each patient feature is stored in its own contiguous primitive array and the malignancy
+ * of each patient is packed into a sign array so that scoring is a tight loop over arrays.
+ *
+ * The object is immutable once built.
+ */
+public class PatientFeatureColumns {
+
+	private final int numberOfPatients;
+	private final int numberOfMalignantPatients;
+	private final int[][] featureColumns;	//---- One column per feature in gain vector order.
+	private final long[] patientSigns;		//---- 1 for malignant patients and -1 for benign patients.
+	private final PatientColumnScorer vectorScorer;	//---- Null when the scalar loop is used.
+
+	private static final int BOUND_CHECK_INTERVAL = 64;	//---- Patients scored between checks of the score bound.
+	private static final int PATIENT_BLOCK_SIZE = 512;	//---- 9 int columns and the signs of a block fit in the L1 cache.
+	private static final String VECTOR_SCORER_CLASS = "cs123A.VectorPatientColumnScorer";
+	private static Constructor<?> vectorScorerConstructor;
+	private static boolean useVectorScoring = false;
+
+
+	/**
+	 * Selects whether newly built columns are scored with the Vector API backend.  The backend is
+	 * compiled from the optional vector source root and needs the jdk.incubator.vector module
+	 * (i.e. --add-modules jdk.incubator.vector) at compile and run time.  If it cannot be loaded,
+	 * the scalar loop is used.  Both give identical results.
+	 *
+	 * @param enableVectorScoring True to use the Vector API backend if it is available.
+	 * @return True if the Vector API backend will be used.
+	 */
+	public static synchronized boolean setUseVectorScoring(boolean enableVectorScoring){
+
+		useVectorScoring = false;
+		if(!enableVectorScoring) return false;
+
+		//---- The backend is loaded reflectively so this class does not depend on the incubator module.
+		try{
+			if(vectorScorerConstructor == null)
+				vectorScorerConstructor = Class.forName(VECTOR_SCORER_CLASS)
+											   .getDeclaredConstructor(int[][].class, long[].class, int.class);
+			useVectorScoring = true;
+		}
+		catch(ClassNotFoundException e){}
+		catch(NoSuchMethodException e){}
+		catch(LinkageError e){}
+		return useVectorScoring;
+	}
+
+
+	/**
+	 * Creates the Vector API backend for a set of columns if it is enabled.
+	 *
+	 * @param featureColumns			One column per feature in gain vector order.
+	 * @param patientSigns				1 for malignant patients and -1 for benign patients.
+	 * @param numberOfMalignantPatients	Number of malignant patients in the columns.
+	 * @return Vector API backend or null if the scalar loop should be used.
+	 */
+	private static synchronized PatientColumnScorer createVectorScorer(int[][] featureColumns, long[] patientSigns, int numberOfMalignantPatients){
+
+		if(!useVectorScoring) return null;
+		try{
+			return (PatientColumnScorer)vectorScorerConstructor.newInstance(featureColumns, patientSigns, numberOfMalignantPatients);
+		}
+		catch(Exception e){
+			return null;
+		}
+		catch(LinkageError e){
+			return null;
+		}
+	}
+
+
+	/**
+	 * Builds the feature columns from a list of patients.
+	 *
+	 * @param patients List of patients to be stored in columnar form.
+	 */
+	public PatientFeatureColumns(List<Patient> patients){
+
+		int i, featureIndex;
+		int malignantCount = 0;
+		Patient patient;
+
+		numberOfPatients = patients.size();
+		featureColumns = new int[Patient.numberDataElementsPerPatient()][numberOfPatients];
+		patientSigns = new long[numberOfPatients];
+
+		//---- Transpose the patient data into the feature columns.
+		for(i = 0; i < numberOfPatients; i++){
+			patient = patients.get(i);
+			for(featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+				featureColumns[featureIndex][i] = patient.getFeature(featureIndex);
+
+			//---- Store the malignancy as the sign correction factor.
+			if(patient.isMalignant()){
+				patientSigns[i] = 1;
+				malignantCount++;
+			}
+			else
+				patientSigns[i] = -1;
+		}
+
+		numberOfMalignantPatients = malignantCount;
+		vectorScorer = createVectorScorer(featureColumns, patientSigns, numberOfMalignantPatients);
+	}
+
+
+	/**
+	 * Builds the columns around feature columns that are already in columnar form (e.g. parsed by
+	 * PatientDataFileLoader) without copying them.
+	 *
+	 * @param featureColumns	One column per feature in gain vector order with one value per patient.  The columns
+	 * 							are kept so they must not be modified afterwards.
+	 * @param malignant			True for each malignant patient.
+	 */
+	PatientFeatureColumns(int[][] featureColumns, boolean[] malignant){
+
+		int malignantCount = 0;
+
+		numberOfPatients = malignant.length;
+		this.featureColumns = featureColumns;
+		patientSigns = new long[numberOfPatients];
+
+		//---- Store the malignancy as the sign correction factor.
+		for(int i = 0; i < numberOfPatients; i++){
+			if(malignant[i]){
+				patientSigns[i] = 1;
+				malignantCount++;
+			}
+			else
+				patientSigns[i] = -1;
+		}
+
+		numberOfMalignantPatients = malignantCount;
+		vectorScorer = createVectorScorer(featureColumns, patientSigns, numberOfMalignantPatients);
+	}
+
+
+	/**
+	 * Builds the feature columns of some of the patients of existing columns by gathering their
+	 * values so the scoring loops still read contiguous arrays.
+	 *
+	 * @param source			Columns holding the patients.  They are not modified.
+	 * @param patientIndices	Indices of the patients in the source columns in the order they are stored.
+	 */
+	public PatientFeatureColumns(PatientFeatureColumns source, int[] patientIndices){
+		this(source, patientIndices, 0, patientIndices.length);
+	}
+
+
+	/**
+	 * Builds the feature columns of a range of an array of patient indices into existing columns.
+	 *
+	 * @param source			Columns holding the patients.  They are not modified.
+	 * @param patientIndices	Array holding the indices of the patients in the source columns.
+	 * @param firstIndex		Position of the first patient's index in patientIndices.
+	 * @param numberOfPatients	Number of patients to gather.
+	 */
+	public PatientFeatureColumns(PatientFeatureColumns source, int[] patientIndices, int firstIndex, int numberOfPatients){
+
+		int i, featureIndex;
+		int malignantCount = 0;
+		int[] sourceColumn, column;
+
+		this.numberOfPatients = numberOfPatients;
+		featureColumns = new int[source.featureColumns.length][numberOfPatients];
+		patientSigns = new long[numberOfPatients];
+
+		//---- Gather one column at a time.
+		for(featureIndex = 0; featureIndex < featureColumns.length; featureIndex++){
+			sourceColumn = source.featureColumns[featureIndex];
+			column = featureColumns[featureIndex];
+			for(i = 0; i < numberOfPatients; i++)
+				column[i] = sourceColumn[patientIndices[firstIndex + i]];
+		}
+		for(i = 0; i < numberOfPatients; i++){
+			patientSigns[i] = source.patientSigns[patientIndices[firstIndex + i]];
+			if(patientSigns[i] > 0) malignantCount++;
+		}
+
+		numberOfMalignantPatients = malignantCount;
+		vectorScorer = createVectorScorer(featureColumns, patientSigns, numberOfMalignantPatients);
+	}
+
+
+	/**
+	 * Accessor for the number of patients in the columns.
+	 *
+	 * @return Number of patients.
+	 */
+	public int getNumberOfPatients(){
+		return numberOfPatients;
+	}
+
+
+	/**
+	 * Accessor for the number of malignant patients in the columns.
+	 *
+	 * @return Number of malignant patients.
+	 */
+	public int getNumberOfMalignantPatients(){
+		return numberOfMalignantPatients;
+	}
+
+
+	/**
+	 * Accessor for a single feature of a patient.
+	 *
+	 * @param patientIndex Index of the patient.
+	 * @param featureIndex Index of the feature in the gain vector ordering.
+	 * @return Value of the specified feature.
+	 */
+	public int getFeature(int patientIndex, int featureIndex){
+		return featureColumns[featureIndex][patientIndex];
+	}
+
+
+	/**
+	 * Accessor to determine whether a patient's tumor is malignant.
+	 *
+	 * @param patientIndex Index of the patient.
+	 * @return True if malignant and False if benign.
+	 */
+	public boolean isMalignant(int patientIndex){
+		return patientSigns[patientIndex] > 0;
+	}
+
+
+	/**
+	 * Determines the score and separation of a linear function against all patients.
+	 * This is the columnar equivalent of BreastCancerDataSet.getChromosomeScoreAndSeparationForPopulation
+	 * and returns identical results.
+	 *
+	 * @param genomes				Genome array holding the chromosome (see GAChromosomeStore).  It is not modified.
+	 * @param genomeBase			Index of the chromosome's first genome word.  The gain vector is followed by the offset.
+	 * @param malignancyBiasFactor	Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @return						Two element array of score then separation.
+	 */
+	public double[] getScoreAndSeparation(int[] genomes, int genomeBase, int malignancyBiasFactor){
+
+		if(vectorScorer != null)
+			return vectorScorer.getScoreAndSeparation(genomes, genomeBase, malignancyBiasFactor);
+
+		//---- Load the gains into locals so the JIT can keep them in registers.
+		final long g0 = genomes[genomeBase], g1 = genomes[genomeBase + 1], g2 = genomes[genomeBase + 2];
+		final long g3 = genomes[genomeBase + 3], g4 = genomes[genomeBase + 4], g5 = genomes[genomeBase + 5];
+		final long g6 = genomes[genomeBase + 6], g7 = genomes[genomeBase + 7], g8 = genomes[genomeBase + 8];
+		final long offset = genomes[genomeBase + GAChromosome.OFFSET_WORD_INDEX];
+
+		final int[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final int[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final int[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		int numberCorrect = 0;
+		double separation = 0;
+		long patientScore;
+
+		for(int i = 0; i < numberOfPatients; i++){
+			//---- Calculate the linear function.  Long arithmetic matches Patient.calculateLinearFunction.
+			patientScore = offset + g0 * c0[i] + g1 * c1[i] + g2 * c2[i] + g3 * c3[i] + g4 * c4[i]
+								  + g5 * c5[i] + g6 * c6[i] + g7 * c7[i] + g8 * c8[i];
+			patientScore *= signs[i];
+
+			//---- Separation is accumulated in patient order to match the list based scoring.
+			separation += patientScore;
+			if(patientScore > 0)
+				numberCorrect++;
+		}
+
+		//---- Every malignant patient contributes the bias factor correction regardless of categorization.
+		int chromosomeScore = numberCorrect + numberOfMalignantPatients * (malignancyBiasFactor - 1);
+
+		return new double[] {chromosomeScore, separation};
+	}
+
+
+	/**
+	 * Determines the score and separation of a linear function unless the score cannot reach a threshold.
+	 * The patients are scanned in blocks and after each block, the score is bounded by assuming every
+	 * remaining patient is categorized correctly.  Once the bound is below the threshold, the scan stops.
+	 *
+	 * @param genomes				Genome array holding the chromosome (see GAChromosomeStore).  It is not modified.
+	 * @param genomeBase			Index of the chromosome's first genome word.
+	 * @param malignancyBiasFactor	Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @param scoreThreshold		Score the chromosome must be able to reach for its exact score to be calculated.
+	 * @return						Three element array of score then separation then the number of patients
+	 * 								evaluated.  If fewer than all of the patients were evaluated, the score is an
+	 * 								upper bound and the separation is a partial sum.
+	 */
+	public double[] getBoundedScoreAndSeparation(int[] genomes, int genomeBase, int malignancyBiasFactor, int scoreThreshold){
+		return scanPatients(genomes, genomeBase, malignancyBiasFactor, scoreThreshold, 0, 0, 0);
+	}
+
+
+	/**
+	 * Continues an evaluation that was stopped early by getBoundedScoreAndSeparation.  The scan
+	 * continues from the first patient that was not evaluated so once all patients are evaluated,
+	 * the result is identical to getScoreAndSeparation.
+	 *
+	 * @param genomes					Genome array holding the chromosome (see GAChromosomeStore).  It is not modified.
+	 * @param genomeBase				Index of the chromosome's first genome word.
+	 * @param malignancyBiasFactor		Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @param scoreThreshold			Score the chromosome must be able to reach for the scan to continue.
+	 * 									Integer.MIN_VALUE calculates the exact score.
+	 * @param upperBound				Upper bound returned by the stopped evaluation.
+	 * @param partialSeparation			Partial separation returned by the stopped evaluation.
+	 * @param numberPatientsEvaluated	Number of patients evaluated by the stopped evaluation.
+	 * @return							Three element array in the same format as getBoundedScoreAndSeparation.
+	 */
+	public double[] resumeBoundedScoreAndSeparation(int[] genomes, int genomeBase, int malignancyBiasFactor, int scoreThreshold,
+													int upperBound, double partialSeparation, int numberPatientsEvaluated){
+
+		//---- The upper bound assumed every patient that was not evaluated was categorized correctly.
+		int numberCorrect = upperBound - (numberOfPatients - numberPatientsEvaluated)
+							- numberOfMalignantPatients * (malignancyBiasFactor - 1);
+		return scanPatients(genomes, genomeBase, malignancyBiasFactor, scoreThreshold,
+							numberPatientsEvaluated, numberCorrect, partialSeparation);
+	}
+
+
+	/**
+	 * Scans the patients starting at a specific patient and stops early if the score cannot reach a threshold.
+	 *
+	 * @param genomes				Genome array holding the chromosome (see GAChromosomeStore).  It is not modified.
+	 * @param genomeBase			Index of the chromosome's first genome word.
+	 * @param malignancyBiasFactor	Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 * @param scoreThreshold		Score the chromosome must be able to reach for the scan to continue.
+	 * @param firstPatient			Index of the first patient to evaluate.
+	 * @param numberCorrect			Number of correctly categorized patients before the first patient.
+	 * @param separation			Separation of the patients before the first patient.
+	 * @return						Three element array of score then separation then the number of patients evaluated.
+	 */
+	private double[] scanPatients(int[] genomes, int genomeBase, int malignancyBiasFactor, int scoreThreshold,
+								  int firstPatient, int numberCorrect, double separation){
+
+		final long g0 = genomes[genomeBase], g1 = genomes[genomeBase + 1], g2 = genomes[genomeBase + 2];
+		final long g3 = genomes[genomeBase + 3], g4 = genomes[genomeBase + 4], g5 = genomes[genomeBase + 5];
+		final long g6 = genomes[genomeBase + 6], g7 = genomes[genomeBase + 7], g8 = genomes[genomeBase + 8];
+		final long offset = genomes[genomeBase + GAChromosome.OFFSET_WORD_INDEX];
+
+		final int[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final int[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final int[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		final int biasCorrection = numberOfMalignantPatients * (malignancyBiasFactor - 1);
+		long patientScore;
+		int i, blockEnd, upperBound;
+
+		for(i = firstPatient; i < numberOfPatients; ){
+			blockEnd = Math.min(i + BOUND_CHECK_INTERVAL, numberOfPatients);
+			for(; i < blockEnd; i++){
+				patientScore = offset + g0 * c0[i] + g1 * c1[i] + g2 * c2[i] + g3 * c3[i] + g4 * c4[i]
+									  + g5 * c5[i] + g6 * c6[i] + g7 * c7[i] + g8 * c8[i];
+				patientScore *= signs[i];
+
+				separation += patientScore;
+				if(patientScore > 0)
+					numberCorrect++;
+			}
+
+			//---- Stop once even a perfect result on the remaining patients cannot reach the threshold.
+			upperBound = numberCorrect + (numberOfPatients - i) + biasCorrection;
+			if(upperBound < scoreThreshold && i < numberOfPatients)
+				return new double[] {upperBound, separation, i};
+		}
+
+		return new double[] {numberCorrect + biasCorrection, separation, numberOfPatients};
+	}
+
+
+	/**
+	 * Scores a batch of chromosomes in a single pass over the patients.  The gain vectors form a
+	 * chromosome by feature matrix and the columns form a feature by patient matrix.  The margins
+	 * are calculated one block of patients at a time so the block stays in the cache while it is
+	 * used by every chromosome in the batch.  Each chromosome still visits the patients in order
+	 * so the results are identical to getScoreAndSeparation.
+	 *
+	 * @param chromosomes			Array of chromosomes to be scored.
+	 * @param startIndex			Index of the first chromosome to score (inclusive).
+	 * @param endIndex				Index of the last chromosome to score (exclusive).
+	 * @param malignancyBiasFactor	Bias factor to skew the results to favor correct scoring of malignant tumors.
+	 */
+	public void scoreChromosomes(GAChromosome[] chromosomes, int startIndex, int endIndex, int malignancyBiasFactor){
+
+		final int numberOfChromosomes = endIndex - startIndex;
+		final int[] numberCorrect = new int[numberOfChromosomes];
+		final double[] separations = new double[numberOfChromosomes];
+		int blockStart, blockEnd, chromosomeIndex;
+
+		for(blockStart = 0; blockStart < numberOfPatients; blockStart += PATIENT_BLOCK_SIZE){
+			blockEnd = Math.min(blockStart + PATIENT_BLOCK_SIZE, numberOfPatients);
+
+			//---- Reuse the block of patients for every chromosome in the batch.  Chromosomes are scored
+			//---- in pairs so the two separation sums can be calculated at the same time.
+			for(chromosomeIndex = 0; chromosomeIndex + 1 < numberOfChromosomes; chromosomeIndex += 2)
+				scoreBlock(chromosomes[startIndex + chromosomeIndex], chromosomes[startIndex + chromosomeIndex + 1], true,
+						   chromosomeIndex, blockStart, blockEnd, numberCorrect, separations);
+			if(chromosomeIndex < numberOfChromosomes)
+				scoreBlock(chromosomes[startIndex + chromosomeIndex], chromosomes[startIndex + chromosomeIndex], false,
+						   chromosomeIndex, blockStart, blockEnd, numberCorrect, separations);
+		}
+
+		//---- Every malignant patient contributes the bias factor correction regardless of categorization.
+		for(chromosomeIndex = 0; chromosomeIndex < numberOfChromosomes; chromosomeIndex++){
+			chromosomes[startIndex + chromosomeIndex].setScore(numberCorrect[chromosomeIndex]
+															   + numberOfMalignantPatients * (malignancyBiasFactor - 1));
+			chromosomes[startIndex + chromosomeIndex].setTotalSeparation(separations[chromosomeIndex]);
+		}
+	}
+
+
+	/**
+	 * Builds the confusion matrix of each of a set of chromosomes in a single pass over the patients.
+	 * As in scoreChromosomes, the patients are visited one block at a time and every chromosome is
+	 * evaluated against a block while it is in the cache.  The separations are identical to
+	 * getScoreAndSeparation.
+	 *
+	 * @param chromosomes	Chromosomes to be evaluated.  They are not modified.
+	 * @return				Confusion matrix of each chromosome in the same order.
+	 */
+	public GAConfusionMatrix[] getConfusionMatrices(GAChromosome[] chromosomes){
+
+		final int numberOfChromosomes = chromosomes.length;
+		final int[] numberCorrect = new int[numberOfChromosomes];
+		final int[] numberMalignantCorrect = new int[numberOfChromosomes];
+		final double[] separations = new double[numberOfChromosomes];
+		int blockStart, blockEnd, chromosomeIndex;
+
+		for(blockStart = 0; blockStart < numberOfPatients; blockStart += PATIENT_BLOCK_SIZE){
+			blockEnd = Math.min(blockStart + PATIENT_BLOCK_SIZE, numberOfPatients);
+			for(chromosomeIndex = 0; chromosomeIndex < numberOfChromosomes; chromosomeIndex++)
+				verifyBlock(chromosomes[chromosomeIndex], chromosomeIndex, blockStart, blockEnd,
+							numberCorrect, numberMalignantCorrect, separations);
+		}
+
+		GAConfusionMatrix[] confusionMatrices = new GAConfusionMatrix[numberOfChromosomes];
+		for(chromosomeIndex = 0; chromosomeIndex < numberOfChromosomes; chromosomeIndex++)
+			confusionMatrices[chromosomeIndex] = new GAConfusionMatrix(numberOfMalignantPatients, numberOfPatients - numberOfMalignantPatients,
+																	   numberMalignantCorrect[chromosomeIndex],
+																	   numberCorrect[chromosomeIndex] - numberMalignantCorrect[chromosomeIndex],
+																	   separations[chromosomeIndex]);
+		return confusionMatrices;
+	}
+
+
+	/**
+	 * Builds the confusion matrix of each of a set of chromosomes in a single pass over some of the
+	 * patients, read through an array of patient indices instead of being gathered into columns of
+	 * their own.  Used for one pass statistics of a data set view (e.g. a verification set) so the
+	 * view's patients are not copied.  The results are identical to those of gathered columns.
+	 *
+	 * @param chromosomes		Chromosomes to be evaluated.
+	 * @param patientIndices	Array holding the indices of the patients in these columns.
+	 * @param firstIndex		Position of the first patient's index in patientIndices.
+	 * @param numberOfPatients	Number of patients to evaluate.
+	 * @return Confusion matrix of each chromosome in the same order.
+	 */
+	public GAConfusionMatrix[] getConfusionMatrices(GAChromosome[] chromosomes, int[] patientIndices, int firstIndex,
+													int numberOfPatients){
+
+		final int numberOfChromosomes = chromosomes.length;
+		final int[] numberCorrect = new int[numberOfChromosomes];
+		final int[] numberMalignantCorrect = new int[numberOfChromosomes];
+		final double[] separations = new double[numberOfChromosomes];
+		final int endIndex = firstIndex + numberOfPatients;
+		int blockStart, blockEnd, chromosomeIndex;
+		int numberOfMalignantPatients = 0;
+
+		for(blockStart = firstIndex; blockStart < endIndex; blockStart += PATIENT_BLOCK_SIZE){
+			blockEnd = Math.min(blockStart + PATIENT_BLOCK_SIZE, endIndex);
+			for(chromosomeIndex = 0; chromosomeIndex < numberOfChromosomes; chromosomeIndex++)
+				verifyIndexedBlock(chromosomes[chromosomeIndex], chromosomeIndex, patientIndices, blockStart, blockEnd,
+								   numberCorrect, numberMalignantCorrect, separations);
+			for(int i = blockStart; i < blockEnd; i++)
+				if(patientSigns[patientIndices[i]] > 0) numberOfMalignantPatients++;
+		}
+
+		GAConfusionMatrix[] confusionMatrices = new GAConfusionMatrix[numberOfChromosomes];
+		for(chromosomeIndex = 0; chromosomeIndex < numberOfChromosomes; chromosomeIndex++)
+			confusionMatrices[chromosomeIndex] = new GAConfusionMatrix(numberOfMalignantPatients, numberOfPatients - numberOfMalignantPatients,
+																	   numberMalignantCorrect[chromosomeIndex],
+																	   numberCorrect[chromosomeIndex] - numberMalignantCorrect[chromosomeIndex],
+																	   separations[chromosomeIndex]);
+		return confusionMatrices;
+	}
+
+
+	/**
+	 * Evaluates a chromosome against a block of patients and adds the results to the running totals
+	 * of getConfusionMatrices.
+	 *
+	 * @param chromosome				Chromosome to be evaluated.
+	 * @param resultIndex				Index of the chromosome's totals.
+	 * @param blockStart				Index of the first patient in the block (inclusive).
+	 * @param blockEnd					Index of the last patient in the block (exclusive).
+	 * @param numberCorrect				Running count of correctly categorized patients of each chromosome.
+	 * @param numberMalignantCorrect	Running count of correctly categorized malignant patients of each chromosome.
+	 * @param separations				Running separation of each chromosome.
+	 */
+	private void verifyBlock(GAChromosome chromosome, int resultIndex, int blockStart, int blockEnd,
+							 int[] numberCorrect, int[] numberMalignantCorrect, double[] separations){
+
+		final int[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final int[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final int[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		final int[] genomes = chromosome.getGenomeWords();
+		final int base = chromosome.getGenomeBase();
+		final long g0 = genomes[base], g1 = genomes[base + 1], g2 = genomes[base + 2];
+		final long g3 = genomes[base + 3], g4 = genomes[base + 4], g5 = genomes[base + 5];
+		final long g6 = genomes[base + 6], g7 = genomes[base + 7], g8 = genomes[base + 8];
+		final long offset = genomes[base + GAChromosome.OFFSET_WORD_INDEX];
+
+		int correct = 0, malignantCorrect = 0;
+		double separation = separations[resultIndex];
+		long patientScore;
+
+		for(int i = blockStart; i < blockEnd; i++){
+			patientScore = offset + g0 * c0[i] + g1 * c1[i] + g2 * c2[i] + g3 * c3[i] + g4 * c4[i]
+								  + g5 * c5[i] + g6 * c6[i] + g7 * c7[i] + g8 * c8[i];
+			patientScore *= signs[i];
+
+			separation += patientScore;
+			if(patientScore > 0){
+				correct++;
+				if(signs[i] > 0) malignantCorrect++;
+			}
+		}
+
+		numberCorrect[resultIndex] += correct;
+		numberMalignantCorrect[resultIndex] += malignantCorrect;
+		separations[resultIndex] = separation;
+	}
+
+
+	/**
+	 * Evaluates a chromosome against a block of patients read through an array of patient indices
+	 * and adds the results to the running totals of the indexed getConfusionMatrices.
+	 *
+	 * @param chromosome				Chromosome to be evaluated.
+	 * @param resultIndex				Index of the chromosome's totals.
+	 * @param patientIndices			Array holding the indices of the patients in these columns.
+	 * @param blockStart				Position of the block's first patient index in patientIndices (inclusive).
+	 * @param blockEnd					Position of the block's last patient index in patientIndices (exclusive).
+	 * @param numberCorrect				Running count of correctly categorized patients of each chromosome.
+	 * @param numberMalignantCorrect	Running count of correctly categorized malignant patients of each chromosome.
+	 * @param separations				Running separation of each chromosome.
+	 */
+	private void verifyIndexedBlock(GAChromosome chromosome, int resultIndex, int[] patientIndices, int blockStart, int blockEnd,
+									int[] numberCorrect, int[] numberMalignantCorrect, double[] separations){
+
+		final int[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final int[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final int[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		final int[] genomes = chromosome.getGenomeWords();
+		final int base = chromosome.getGenomeBase();
+		final long g0 = genomes[base], g1 = genomes[base + 1], g2 = genomes[base + 2];
+		final long g3 = genomes[base + 3], g4 = genomes[base + 4], g5 = genomes[base + 5];
+		final long g6 = genomes[base + 6], g7 = genomes[base + 7], g8 = genomes[base + 8];
+		final long offset = genomes[base + GAChromosome.OFFSET_WORD_INDEX];
+
+		int correct = 0, malignantCorrect = 0, p;
+		double separation = separations[resultIndex];
+		long patientScore;
+
+		for(int i = blockStart; i < blockEnd; i++){
+			p = patientIndices[i];
+			patientScore = offset + g0 * c0[p] + g1 * c1[p] + g2 * c2[p] + g3 * c3[p] + g4 * c4[p]
+								  + g5 * c5[p] + g6 * c6[p] + g7 * c7[p] + g8 * c8[p];
+			patientScore *= signs[p];
+
+			separation += patientScore;
+			if(patientScore > 0){
+				correct++;
+				if(signs[p] > 0) malignantCorrect++;
+			}
+		}
+
+		numberCorrect[resultIndex] += correct;
+		numberMalignantCorrect[resultIndex] += malignantCorrect;
+		separations[resultIndex] = separation;
+	}
+
+
+	/**
+	 * Scores a pair of chromosomes against a block of patients and adds the results to the
+	 * running totals of the batch.
+	 *
+	 * @param chromosome1		First chromosome of the pair.
+	 * @param chromosome2		Second chromosome of the pair.
+	 * @param storeChromosome2	False if the batch size is odd and the second chromosome is only a placeholder.
+	 * @param resultIndex		Index of the first chromosome's totals.  The second uses the next index.
+	 * @param blockStart		Index of the first patient in the block (inclusive).
+	 * @param blockEnd			Index of the last patient in the block (exclusive).
+	 * @param numberCorrect		Running count of correctly categorized patients of each chromosome.
+	 * @param separations		Running separation of each chromosome.
+	 */
+	private void scoreBlock(GAChromosome chromosome1, GAChromosome chromosome2, boolean storeChromosome2, int resultIndex, int blockStart, int blockEnd,
+							int[] numberCorrect, double[] separations){
+
+		final int[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final int[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final int[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		//---- Load the gains into locals.  The two chromosomes may be in different stores.
+		final int[] genomes1 = chromosome1.getGenomeWords(), genomes2 = chromosome2.getGenomeWords();
+		final int base1 = chromosome1.getGenomeBase(), base2 = chromosome2.getGenomeBase();
+		final long a0 = genomes1[base1], a1 = genomes1[base1 + 1], a2 = genomes1[base1 + 2], a3 = genomes1[base1 + 3], a4 = genomes1[base1 + 4];
+		final long a5 = genomes1[base1 + 5], a6 = genomes1[base1 + 6], a7 = genomes1[base1 + 7], a8 = genomes1[base1 + 8];
+		final long b0 = genomes2[base2], b1 = genomes2[base2 + 1], b2 = genomes2[base2 + 2], b3 = genomes2[base2 + 3], b4 = genomes2[base2 + 4];
+		final long b5 = genomes2[base2 + 5], b6 = genomes2[base2 + 6], b7 = genomes2[base2 + 7], b8 = genomes2[base2 + 8];
+		final long offset1 = genomes1[base1 + GAChromosome.OFFSET_WORD_INDEX], offset2 = genomes2[base2 + GAChromosome.OFFSET_WORD_INDEX];
+
+		int correct1 = 0, correct2 = 0;
+		double separation1 = separations[resultIndex];
+		double separation2 = storeChromosome2 ? separations[resultIndex + 1] : 0;
+		long patientScore1, patientScore2;
+		long f0, f1, f2, f3, f4, f5, f6, f7, f8;
+
+		for(int i = blockStart; i < blockEnd; i++){
+			//---- Load the patient once for both chromosomes.
+			f0 = c0[i]; f1 = c1[i]; f2 = c2[i];
+			f3 = c3[i]; f4 = c4[i]; f5 = c5[i];
+			f6 = c6[i]; f7 = c7[i]; f8 = c8[i];
+
+			patientScore1 = offset1 + a0 * f0 + a1 * f1 + a2 * f2 + a3 * f3 + a4 * f4
+									+ a5 * f5 + a6 * f6 + a7 * f7 + a8 * f8;
+			patientScore2 = offset2 + b0 * f0 + b1 * f1 + b2 * f2 + b3 * f3 + b4 * f4
+									+ b5 * f5 + b6 * f6 + b7 * f7 + b8 * f8;
+			patientScore1 *= signs[i];
+			patientScore2 *= signs[i];
+
+			//---- The two separation sums are independent so their additions can overlap.
+			separation1 += patientScore1;
+			separation2 += patientScore2;
+			if(patientScore1 > 0) correct1++;
+			if(patientScore2 > 0) correct2++;
+		}
+
+		numberCorrect[resultIndex] += correct1;
+		separations[resultIndex] = separation1;
+		if(storeChromosome2){
+			numberCorrect[resultIndex + 1] += correct2;
+			separations[resultIndex + 1] = separation2;
+		}
+	}
+
+}
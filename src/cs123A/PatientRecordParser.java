@@ -0,0 +1,234 @@
+package cs123A;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental parser for breast cancer data set files in the Wisconsin format.  The bytes of the
+ * file are passed in any number of buffers and the parser state is kept between them so a line
+ * may straddle two buffers.  Each valid patient is passed to a handler as soon as its line ends
+ * so the parser itself uses constant memory.
+ *  
+ * Lines with missing ("?") features are skipped the same way the original parser skipped them.
+ * Any other line that cannot be parsed is counted as malformed rather than silently dropped.
+ */
+class PatientRecordParser {
+	
+	/**
+	 * Receives the patients parsed from the file.
+	 */
+	interface PatientHandler {
+		
+		/**
+		 * Handles a single valid patient.
+		 *  
+		 * @param idNumber		Sample code number of the patient.
+		 * @param features		Features of the patient in gain vector order.  The array is reused
+		 * 						for the next patient so it must be copied if it is kept.
+		 * @param isMalignant	True if the patient's tumor is malignant.
+		 */
+		void handlePatient(long idNumber, int[] features, boolean isMalignant);
+	}
+	
+	private static final int NUMBER_OF_FIELDS = 11;				//---- ID, nine features, and the class.
+	private static final int CLASS_FIELD_INDEX = NUMBER_OF_FIELDS - 1;
+	private static final int MITOSES_FIELD_INDEX = CLASS_FIELD_INDEX - 1;
+	private static final int MINIMUM_FEATURE_VALUE = 1;
+	private static final int MAXIMUM_FEATURE_VALUE = 10;
+	private static final int BENIGN_INDICATOR = 2;
+	private static final int MALIGNANT_INDICATOR = 4;
+	private static final int MAXIMUM_ID_DIGITS = 18;			//---- Guarantees the ID fits in a long.
+	static final int MAXIMUM_REPORTED_MALFORMED_LINES = 10;
+	
+	private final PatientHandler handler;
+	private int numberIncompleteLines;
+	private int numberMalformedLines;
+	private final long[] malformedLineNumbers = new long[MAXIMUM_REPORTED_MALFORMED_LINES];
+	
+	//---- Parser state for the current line.
+	private long lineNumber = 1;
+	private int fieldIndex = 0;
+	private int fieldDigits = 0;
+	private long fieldValue = 0;
+	private boolean lineIsEmpty = true;
+	private boolean lineIsIncomplete = false;
+	private boolean lineIsMalformed = false;
+	private long idNumber = 0;
+	private final int[] features = new int[Patient.numberDataElementsPerPatient()];
+	
+	
+	/**
+	 * Creates a parser positioned at the start of a file.
+	 * 
+	 * @param handler Receives each valid patient.
+	 */
+	PatientRecordParser(PatientHandler handler){
+		this.handler = handler;
+	}
+	
+	
+	/**
+	 * Parses the bytes between the position and the limit of a buffer.  The buffer's position is
+	 * not changed.
+	 * 
+	 * @param buffer Next bytes of the file.
+	 */
+	void parse(ByteBuffer buffer){
+		
+		int limit = buffer.limit();
+		byte nextByte;
+		
+		for(int i = buffer.position(); i < limit; i++){
+			nextByte = buffer.get(i);
+			
+			//---- Accumulate the digits of the current field.
+			if(nextByte >= '0' && nextByte <= '9'){
+				fieldValue = fieldValue * 10 + (nextByte - '0');
+				fieldDigits++;
+				lineIsEmpty = false;
+				//---- Stop accumulating once the field is too long to be valid.
+				if(fieldDigits > MAXIMUM_ID_DIGITS) lineIsMalformed = true;
+				continue;
+			}
+			
+			switch(nextByte){
+				//---- End of the field or end of the line.
+				case ',':
+				case '\n':
+					lineIsEmpty = lineIsEmpty && nextByte == '\n' && fieldIndex == 0;
+					if(!lineIsEmpty && !lineIsIncomplete && !lineIsMalformed){
+						if(fieldIndex >= NUMBER_OF_FIELDS || fieldDigits == 0)
+							lineIsMalformed = true;
+						else if(fieldIndex == 0)
+							idNumber = fieldValue;
+						else if(fieldIndex == CLASS_FIELD_INDEX){
+							if(fieldValue != BENIGN_INDICATOR && fieldValue != MALIGNANT_INDICATOR)
+								lineIsMalformed = true;
+						}
+						else if(fieldValue < MINIMUM_FEATURE_VALUE || fieldValue > MAXIMUM_FEATURE_VALUE)
+							lineIsMalformed = true;
+						else if(fieldIndex == MITOSES_FIELD_INDEX)
+							features[0] = (int)fieldValue;	//---- Mitoses is first in the gain vector.
+						else
+							features[fieldIndex] = (int)fieldValue;
+					}
+					fieldIndex++;
+					fieldDigits = 0;
+					
+					//---- At the end of the line, pass on the patient and reset the parser.
+					if(nextByte == '\n'){
+						finishLine(fieldIndex, lineIsEmpty, fieldValue == MALIGNANT_INDICATOR);
+						lineNumber++;
+						fieldIndex = 0;
+						lineIsEmpty = true;
+						lineIsIncomplete = false;
+						lineIsMalformed = false;
+					}
+					fieldValue = 0;
+					break;
+				
+				//---- Missing feature so the line is skipped.
+				case '?':
+					lineIsIncomplete = true;
+					lineIsEmpty = false;
+					break;
+				
+				//---- Whitespace is ignored.
+				case '\r':
+				case ' ':
+				case '\t':
+					break;
+				
+				default:
+					lineIsMalformed = true;
+					lineIsEmpty = false;
+					break;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Handles a final line that does not end in a new line.  It must be called once after the
+	 * last buffer of the file is parsed.
+	 */
+	void finish(){
+		if(!lineIsEmpty || fieldIndex > 0){
+			if(!lineIsIncomplete && !lineIsMalformed){
+				if(fieldIndex != CLASS_FIELD_INDEX || fieldDigits == 0
+				   || (fieldValue != BENIGN_INDICATOR && fieldValue != MALIGNANT_INDICATOR))
+					lineIsMalformed = true;
+			}
+			finishLine(fieldIndex + 1, false, fieldValue == MALIGNANT_INDICATOR);
+			fieldIndex = 0;
+			lineIsEmpty = true;
+		}
+	}
+	
+	
+	/**
+	 * Records the result of parsing a single line.
+	 * 
+	 * @param numberOfFields	Number of fields found on the line.
+	 * @param lineIsEmpty		True if the line has no content.
+	 * @param isMalignant		True if the class on the line is malignant.
+	 */
+	private void finishLine(int numberOfFields, boolean lineIsEmpty, boolean isMalignant){
+		
+		if(lineIsEmpty) return;
+		
+		if(!lineIsMalformed && numberOfFields != NUMBER_OF_FIELDS)
+			lineIsMalformed = true;
+		
+		//---- Malformed lines take precedence over incomplete ones.
+		if(lineIsMalformed){
+			if(numberMalformedLines < MAXIMUM_REPORTED_MALFORMED_LINES)
+				malformedLineNumbers[numberMalformedLines] = lineNumber;
+			numberMalformedLines++;
+			return;
+		}
+		if(lineIsIncomplete){
+			numberIncompleteLines++;
+			return;
+		}
+		
+		handler.handlePatient(idNumber, features, isMalignant);
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines skipped because of a missing feature.
+	 * 
+	 * @return Number of incomplete lines.
+	 */
+	int getNumberIncompleteLines(){
+		return numberIncompleteLines;
+	}
+	
+	
+	/**
+	 * Accessor for the number of lines that could not be parsed.
+	 * 
+	 * @return Number of malformed lines.
+	 */
+	int getNumberMalformedLines(){
+		return numberMalformedLines;
+	}
+	
+	
+	/**
+	 * Builds a description of the malformed lines found in a file.
+	 * 
+	 * @param filename Name of the file that was parsed.
+	 * @return Summary of the malformed lines including the first few line numbers.
+	 */
+	String getMalformedLineSummary(String filename){
+		
+		String summary = numberMalformedLines + " malformed line(s) in \"" + filename + "\" were skipped (line";
+		int numberReported = Math.min(numberMalformedLines, MAXIMUM_REPORTED_MALFORMED_LINES);
+		for(int i = 0; i < numberReported; i++)
+			summary += (i == 0 ? " " : ", ") + malformedLineNumbers[i];
+		if(numberMalformedLines > numberReported) summary += ", ...";
+		return summary + ").";
+	}
+	
+}
@@ -0,0 +1,57 @@
+package cs123A;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random number generator backed by java.util.SplittableRandom.
+ */
+public class SplittableGARandom extends GARandom {
+	
+	private final SplittableRandom random;
+	
+	
+	/**
+	 * Constructor for the SplittableRandom based generator.
+	 * 
+	 * @param seed Seed for the generator.
+	 */
+	public SplittableGARandom(long seed){
+		this(new SplittableRandom(seed));
+	}
+	
+	
+	private SplittableGARandom(SplittableRandom random){
+		this.random = random;
+	}
+	
+	
+	@Override
+	public long nextLong(){
+		return random.nextLong();
+	}
+	
+	
+	@Override
+	public int nextInt(){
+		return random.nextInt();
+	}
+	
+	
+	@Override
+	public int nextInt(int bound){
+		return random.nextInt(bound);
+	}
+	
+	
+	@Override
+	public double nextDouble(){
+		return random.nextDouble();
+	}
+	
+	
+	@Override
+	public GARandom split(){
+		return new SplittableGARandom(random.split());
+	}
+	
+}
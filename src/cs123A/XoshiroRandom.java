@@ -0,0 +1,80 @@
+package cs123A;
+
+/**
+ * xoshiro256** random number generator.  The state is seeded by SplitMix64 and split
+ * generators are seeded from the output of the parent generator.
+ */
+public class XoshiroRandom extends GARandom {
+	
+	private long s0, s1, s2, s3;
+	
+	private static final long SPLITMIX_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	
+	/**
+	 * Constructor for the xoshiro256** generator.
+	 * 
+	 * @param seed Seed for the generator.
+	 */
+	public XoshiroRandom(long seed){
+		//---- Expand the seed into the 256 bit state so similar seeds give unrelated streams.
+		long x = seed;
+		s0 = mixSplitMix64(x += SPLITMIX_GAMMA);
+		s1 = mixSplitMix64(x += SPLITMIX_GAMMA);
+		s2 = mixSplitMix64(x += SPLITMIX_GAMMA);
+		s3 = mixSplitMix64(x += SPLITMIX_GAMMA);
+	}
+	
+	
+	@Override
+	public long nextLong(){
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+		
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		
+		return result;
+	}
+	
+	
+	@Override
+	public long[] getState(){
+		return new long[] {s0, s1, s2, s3};
+	}
+	
+	
+	@Override
+	public void setState(long[] state){
+		if(state.length != 4)
+			throw new IllegalArgumentException("A xoshiro256** state has 4 words.");
+		s0 = state[0];
+		s1 = state[1];
+		s2 = state[2];
+		s3 = state[3];
+	}
+	
+	
+	@Override
+	public GARandom split(){
+		return new XoshiroRandom(nextLong());
+	}
+	
+	
+	/**
+	 * SplitMix64 output function.
+	 * 
+	 * @param z Value to be mixed.
+	 * @return Mixed value.
+	 */
+	private static long mixSplitMix64(long z){
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+}
@@ -0,0 +1,113 @@
+package cs123A;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API scoring backend for PatientFeatureColumns.  The linear function of several patients
+ * is evaluated at once in long lanes so the wrap around on overflow is the same as in
+ * Patient.calculateLinearFunction.  The lanes of each step are added to the separation in patient
+ * order so the double sum is identical to the scalar loop.
+ *
+ * This class lives in its own source root since it needs the jdk.incubator.vector module.
+ * It is loaded reflectively by PatientFeatureColumns.setUseVectorScoring.  To use it:
+ *
+ * javac --add-modules jdk.incubator.vector -d out src/cs123A/*.java vector/cs123A/*.java
+ * java --add-modules jdk.incubator.vector -cp out cs123A.BreastCancerGeneticAlgorithm -VS 1
+ */
+class VectorPatientColumnScorer implements PatientColumnScorer {
+
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+	private final int numberOfPatients;
+	private final int numberOfMalignantPatients;
+	private final long[][] featureColumns;	//---- Features widened to the lane width in gain vector order.
+	private final long[] patientSigns;		//---- 1 for malignant patients and -1 for benign patients.
+
+
+	/**
+	 * Builds the backend from the columns of a PatientFeatureColumns object.
+	 *
+	 * @param featureColumns			One column per feature in gain vector order.  It is not modified.
+	 * @param patientSigns				1 for malignant patients and -1 for benign patients.  It is not modified.
+	 * @param numberOfMalignantPatients	Number of malignant patients in the columns.
+	 */
+	VectorPatientColumnScorer(int[][] featureColumns, long[] patientSigns, int numberOfMalignantPatients){
+
+		this.numberOfPatients = patientSigns.length;
+		this.numberOfMalignantPatients = numberOfMalignantPatients;
+		this.patientSigns = patientSigns;
+
+		//---- Widen the features once so each lane load is a single contiguous read.
+		this.featureColumns = new long[featureColumns.length][numberOfPatients];
+		for(int featureIndex = 0; featureIndex < featureColumns.length; featureIndex++)
+			for(int i = 0; i < numberOfPatients; i++)
+				this.featureColumns[featureIndex][i] = featureColumns[featureIndex][i];
+	}
+
+
+	@Override
+	public double[] getScoreAndSeparation(int[] genomes, int genomeBase, int malignancyBiasFactor){
+
+		final long g0 = genomes[genomeBase], g1 = genomes[genomeBase + 1], g2 = genomes[genomeBase + 2];
+		final long g3 = genomes[genomeBase + 3], g4 = genomes[genomeBase + 4], g5 = genomes[genomeBase + 5];
+		final long g6 = genomes[genomeBase + 6], g7 = genomes[genomeBase + 7], g8 = genomes[genomeBase + 8];
+		final long offset = genomes[genomeBase + GAChromosome.OFFSET_WORD_INDEX];
+
+		final long[] c0 = featureColumns[0], c1 = featureColumns[1], c2 = featureColumns[2];
+		final long[] c3 = featureColumns[3], c4 = featureColumns[4], c5 = featureColumns[5];
+		final long[] c6 = featureColumns[6], c7 = featureColumns[7], c8 = featureColumns[8];
+		final long[] signs = patientSigns;
+
+		final int laneCount = SPECIES.length();
+		final int loopBound = SPECIES.loopBound(numberOfPatients);
+		final long[] laneScores = new long[laneCount];
+		final LongVector offsetLanes = LongVector.broadcast(SPECIES, offset);
+
+		int numberCorrect = 0;
+		double separation = 0;
+		long patientScore;
+		LongVector scoreLanes;
+		int i, lane;
+
+		for(i = 0; i < loopBound; i += laneCount){
+			//---- Calculate the linear function of laneCount patients.
+			scoreLanes = offsetLanes.add(LongVector.fromArray(SPECIES, c0, i).mul(g0))
+									.add(LongVector.fromArray(SPECIES, c1, i).mul(g1))
+									.add(LongVector.fromArray(SPECIES, c2, i).mul(g2))
+									.add(LongVector.fromArray(SPECIES, c3, i).mul(g3))
+									.add(LongVector.fromArray(SPECIES, c4, i).mul(g4))
+									.add(LongVector.fromArray(SPECIES, c5, i).mul(g5))
+									.add(LongVector.fromArray(SPECIES, c6, i).mul(g6))
+									.add(LongVector.fromArray(SPECIES, c7, i).mul(g7))
+									.add(LongVector.fromArray(SPECIES, c8, i).mul(g8));
+			scoreLanes = scoreLanes.mul(LongVector.fromArray(SPECIES, signs, i));
+
+			numberCorrect += scoreLanes.compare(VectorOperators.GT, 0).trueCount();
+
+			//---- Separation is accumulated in patient order to match the list based scoring.
+			scoreLanes.intoArray(laneScores, 0);
+			for(lane = 0; lane < laneCount; lane++)
+				separation += laneScores[lane];
+		}
+
+		//---- Score the patients that do not fill a whole vector.
+		for(; i < numberOfPatients; i++){
+			patientScore = offset + g0 * c0[i] + g1 * c1[i] + g2 * c2[i]
+								  + g3 * c3[i] + g4 * c4[i] + g5 * c5[i]
+								  + g6 * c6[i] + g7 * c7[i] + g8 * c8[i];
+			patientScore *= signs[i];
+
+			separation += patientScore;
+			if(patientScore > 0)
+				numberCorrect++;
+		}
+
+		//---- Every malignant patient contributes the bias factor correction regardless of categorization.
+		int chromosomeScore = numberCorrect + numberOfMalignantPatients * (malignancyBiasFactor - 1);
+
+		return new double[] {chromosomeScore, separation};
+	}
+
+}